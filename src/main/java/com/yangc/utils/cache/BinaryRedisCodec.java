@@ -0,0 +1,389 @@
+package com.yangc.utils.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * @功能: 紧凑的二进制编解码器, 适用于bean风格的POJO
+ *
+ *      <pre>
+ * 不写字段名和类名, 字段按名称排序后依次写入, 整数使用zigzag变长编码
+ * 编码按值的运行时类型, 解码按TypeToken声明的类型, 因此字段和集合元素需要声明为具体类型(不支持Object, 接口, 父类引用子类对象)
+ * bean需要有无参构造方法
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午2:02:47
+ */
+public class BinaryRedisCodec implements RedisCodec {
+
+	public static final byte ID = 1;
+
+	private static final String CHARSET = "UTF-8";
+
+	private static final ConcurrentHashMap<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<Class<?>, Field[]>();
+
+	@Override
+	public byte id() {
+		return ID;
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(64);
+		DataOutputStream out = new DataOutputStream(baos);
+		try {
+			out.writeByte(RedisCodecs.MAGIC);
+			out.writeByte(ID);
+			this.writeValue(out, value);
+			out.flush();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		return baos.toByteArray();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T decode(byte[] data, TypeToken<T> typeToken) {
+		if (data == null || data.length < 2 || data[0] != RedisCodecs.MAGIC || data[1] != ID) {
+			return RedisCodecs.decode(data, typeToken);
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 2, data.length - 2));
+		try {
+			return (T) this.readValue(in, typeToken.getType());
+		} catch (IllegalArgumentException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/** ----------------------------------------- 编码 ------------------------------------------- */
+
+	private void writeValue(DataOutputStream out, Object value) throws IOException, IllegalAccessException {
+		if (value == null) {
+			out.writeBoolean(false);
+			return;
+		}
+		out.writeBoolean(true);
+		this.writeNotNull(out, value, value.getClass());
+	}
+
+	private void writeNotNull(DataOutputStream out, Object value, Class<?> clazz) throws IOException, IllegalAccessException {
+		if (clazz == Boolean.class || clazz == boolean.class) {
+			out.writeBoolean((Boolean) value);
+		} else if (clazz == Byte.class || clazz == byte.class) {
+			out.writeByte((Byte) value);
+		} else if (clazz == Short.class || clazz == short.class) {
+			writeVarLong(out, (Short) value);
+		} else if (clazz == Integer.class || clazz == int.class) {
+			writeVarLong(out, (Integer) value);
+		} else if (clazz == Long.class || clazz == long.class) {
+			writeVarLong(out, (Long) value);
+		} else if (clazz == Float.class || clazz == float.class) {
+			out.writeFloat((Float) value);
+		} else if (clazz == Double.class || clazz == double.class) {
+			out.writeDouble((Double) value);
+		} else if (clazz == Character.class || clazz == char.class) {
+			out.writeChar((Character) value);
+		} else if (clazz == String.class) {
+			writeString(out, (String) value);
+		} else if (Date.class.isAssignableFrom(clazz)) {
+			writeVarLong(out, ((Date) value).getTime());
+		} else if (clazz.isEnum() || (clazz.getSuperclass() != null && clazz.getSuperclass().isEnum())) {
+			writeString(out, ((Enum<?>) value).name());
+		} else if (clazz == BigDecimal.class || clazz == BigInteger.class) {
+			writeString(out, value.toString());
+		} else if (clazz == byte[].class) {
+			byte[] b = (byte[]) value;
+			writeVarInt(out, b.length);
+			out.write(b);
+		} else if (clazz.isArray()) {
+			int len = Array.getLength(value);
+			writeVarInt(out, len);
+			Class<?> componentType = clazz.getComponentType();
+			for (int i = 0; i < len; i++) {
+				if (componentType.isPrimitive()) {
+					this.writeNotNull(out, Array.get(value, i), componentType);
+				} else {
+					this.writeValue(out, Array.get(value, i));
+				}
+			}
+		} else if (value instanceof Collection) {
+			Collection<?> collection = (Collection<?>) value;
+			writeVarInt(out, collection.size());
+			for (Object element : collection) {
+				this.writeValue(out, element);
+			}
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			writeVarInt(out, map.size());
+			for (Entry<?, ?> entry : map.entrySet()) {
+				this.writeValue(out, entry.getKey());
+				this.writeValue(out, entry.getValue());
+			}
+		} else {
+			for (Field field : getFields(clazz)) {
+				Object fieldValue = field.get(value);
+				if (field.getType().isPrimitive()) {
+					this.writeNotNull(out, fieldValue, field.getType());
+				} else {
+					this.writeValue(out, fieldValue);
+				}
+			}
+		}
+	}
+
+	/** ----------------------------------------- 解码 ------------------------------------------- */
+
+	private Object readValue(DataInputStream in, Type type) throws Exception {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		return this.readNotNull(in, type);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Object readNotNull(DataInputStream in, Type type) throws Exception {
+		Class<?> clazz = getRawType(type);
+		if (clazz == Boolean.class || clazz == boolean.class) {
+			return in.readBoolean();
+		} else if (clazz == Byte.class || clazz == byte.class) {
+			return in.readByte();
+		} else if (clazz == Short.class || clazz == short.class) {
+			return (short) readVarLong(in);
+		} else if (clazz == Integer.class || clazz == int.class) {
+			return (int) readVarLong(in);
+		} else if (clazz == Long.class || clazz == long.class) {
+			return readVarLong(in);
+		} else if (clazz == Float.class || clazz == float.class) {
+			return in.readFloat();
+		} else if (clazz == Double.class || clazz == double.class) {
+			return in.readDouble();
+		} else if (clazz == Character.class || clazz == char.class) {
+			return in.readChar();
+		} else if (clazz == String.class) {
+			return readString(in);
+		} else if (Date.class.isAssignableFrom(clazz)) {
+			return clazz.getConstructor(long.class).newInstance(readVarLong(in));
+		} else if (clazz.isEnum()) {
+			return Enum.valueOf((Class<Enum>) clazz, readString(in));
+		} else if (clazz == BigDecimal.class) {
+			return new BigDecimal(readString(in));
+		} else if (clazz == BigInteger.class) {
+			return new BigInteger(readString(in));
+		} else if (clazz == byte[].class) {
+			byte[] b = new byte[readLength(in)];
+			in.readFully(b);
+			return b;
+		} else if (clazz.isArray()) {
+			Type componentType = type instanceof GenericArrayType ? ((GenericArrayType) type).getGenericComponentType() : clazz.getComponentType();
+			Class<?> componentClass = getRawType(componentType);
+			int len = readLength(in);
+			Object array = Array.newInstance(componentClass, len);
+			for (int i = 0; i < len; i++) {
+				Array.set(array, i, componentClass.isPrimitive() ? this.readNotNull(in, componentType) : this.readValue(in, componentType));
+			}
+			return array;
+		} else if (Collection.class.isAssignableFrom(clazz)) {
+			Type elementType = getTypeArgument(type, 0);
+			int size = readLength(in);
+			Collection collection = newCollection(clazz, size);
+			for (int i = 0; i < size; i++) {
+				collection.add(this.readValue(in, elementType));
+			}
+			return collection;
+		} else if (Map.class.isAssignableFrom(clazz)) {
+			Type keyType = getTypeArgument(type, 0);
+			Type valueType = getTypeArgument(type, 1);
+			int size = readLength(in);
+			Map map = newMap(clazz, size);
+			for (int i = 0; i < size; i++) {
+				Object key = this.readValue(in, keyType);
+				map.put(key, this.readValue(in, valueType));
+			}
+			return map;
+		} else if (clazz == Object.class || clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+			throw new IllegalArgumentException("Unsupported declared type " + type);
+		} else {
+			Constructor<?> constructor = clazz.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			Object bean = constructor.newInstance();
+			for (Field field : getFields(clazz)) {
+				Type fieldType = field.getGenericType();
+				field.set(bean, field.getType().isPrimitive() ? this.readNotNull(in, fieldType) : this.readValue(in, fieldType));
+			}
+			return bean;
+		}
+	}
+
+	/** ----------------------------------------- 工具方法 ------------------------------------------- */
+
+	private static Field[] getFields(Class<?> clazz) {
+		Field[] fields = FIELDS.get(clazz);
+		if (fields == null) {
+			List<Field> list = new ArrayList<Field>();
+			for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					int modifiers = field.getModifiers();
+					if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+						field.setAccessible(true);
+						list.add(field);
+					}
+				}
+			}
+			fields = list.toArray(new Field[list.size()]);
+			// 按声明类和字段名排序, 保证编码顺序稳定
+			Arrays.sort(fields, new Comparator<Field>() {
+				@Override
+				public int compare(Field f1, Field f2) {
+					int c = f1.getDeclaringClass().getName().compareTo(f2.getDeclaringClass().getName());
+					return c != 0 ? c : f1.getName().compareTo(f2.getName());
+				}
+			});
+			FIELDS.putIfAbsent(clazz, fields);
+		}
+		return fields;
+	}
+
+	private static Class<?> getRawType(Type type) {
+		if (type instanceof Class) {
+			return (Class<?>) type;
+		} else if (type instanceof ParameterizedType) {
+			return (Class<?>) ((ParameterizedType) type).getRawType();
+		} else if (type instanceof GenericArrayType) {
+			return Array.newInstance(getRawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+		}
+		throw new IllegalArgumentException("Unsupported declared type " + type);
+	}
+
+	private static Type getTypeArgument(Type type, int index) {
+		if (type instanceof ParameterizedType) {
+			return ((ParameterizedType) type).getActualTypeArguments()[index];
+		}
+		throw new IllegalArgumentException("Missing type arguments for " + type);
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static Collection newCollection(Class<?> clazz, int size) throws Exception {
+		if (!clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers())) {
+			return (Collection) clazz.newInstance();
+		} else if (SortedSet.class.isAssignableFrom(clazz)) {
+			return new TreeSet();
+		} else if (Set.class.isAssignableFrom(clazz)) {
+			return new HashSet(size * 4 / 3 + 1);
+		} else if (List.class.isAssignableFrom(clazz) || clazz == Collection.class) {
+			return new ArrayList(size);
+		}
+		return new LinkedList();
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static Map newMap(Class<?> clazz, int size) throws Exception {
+		if (!clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers())) {
+			return (Map) clazz.newInstance();
+		} else if (SortedMap.class.isAssignableFrom(clazz)) {
+			return new TreeMap();
+		}
+		return new HashMap(size * 4 / 3 + 1);
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] b = s.getBytes(CHARSET);
+		writeVarInt(out, b.length);
+		out.write(b);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] b = new byte[readLength(in)];
+		in.readFully(b);
+		return new String(b, CHARSET);
+	}
+
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * 长度不能超过剩余的字节数(每个元素至少占一个字节), 避免损坏的数据分配超大数组
+	 */
+	private static int readLength(DataInputStream in) throws IOException {
+		int len = readVarInt(in);
+		if (len < 0 || len > in.available()) {
+			throw new IOException("Malformed length " + len + ", " + in.available() + " bytes remaining");
+		}
+		return len;
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		// zigzag, 使绝对值小的负数也只占少量字节
+		long v = (value << 1) ^ (value >> 63);
+		while ((v & ~0x7FL) != 0) {
+			out.writeByte((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.writeByte((int) v);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			v |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return (v >>> 1) ^ -(v & 1);
+			}
+		}
+		throw new IOException("Malformed varlong");
+	}
+
+}
@@ -0,0 +1,360 @@
+package com.yangc.utils.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: 缓存工具类的统计信息, 每个缓存工具类一个实例, 按操作统计调用次数, 命中, 错误, 延迟分布和数据大小分布
+ *
+ *      <pre>
+ * 默认关闭, 通过-Dcache.metrics.enabled=true, setEnabled或JMX开启
+ * 关闭时start()返回0, 之后的记录方法直接返回, 开销只有一次volatile读
+ * 用法:
+ * long start = CacheMetrics.start();
+ * ...
+ * metrics.hit("get", start);
+ * 查询: getMetrics(name).getOperations() 或 JMX com.yangc.utils.cache:type=CacheMetrics
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午3:15:30
+ */
+public class CacheMetrics implements CacheMetricsMBean {
+
+	private static final Logger logger = LogManager.getLogger(CacheMetrics.class);
+
+	/** 连接池获取连接的等待时间 */
+	public static final String POOL_BORROW = "pool.borrow";
+
+	private static volatile boolean enabled = Boolean.getBoolean("cache.metrics.enabled");
+
+	private static final ConcurrentHashMap<String, CacheMetrics> REGISTRY = new ConcurrentHashMap<String, CacheMetrics>();
+
+	private final String name;
+	private final ConcurrentHashMap<String, Operation> operations = new ConcurrentHashMap<String, Operation>();
+
+	/**
+	 * @功能: 单个操作的统计
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:17:05
+	 */
+	public static class Operation {
+		private final String name;
+		private final AtomicLong calls = new AtomicLong();
+		private final AtomicLong hits = new AtomicLong();
+		private final AtomicLong misses = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		// 单位纳秒
+		private final Histogram latency = new Histogram();
+		// 单位字节
+		private final Histogram sizes = new Histogram();
+
+		Operation(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCalls() {
+			return calls.get();
+		}
+
+		public long getHits() {
+			return hits.get();
+		}
+
+		public long getMisses() {
+			return misses.get();
+		}
+
+		public long getErrors() {
+			return errors.get();
+		}
+
+		/**
+		 * @return 只统计区分命中的操作, 没有记录时返回0
+		 */
+		public double getHitRate() {
+			long hit = this.hits.get();
+			long total = hit + this.misses.get();
+			return total == 0 ? 0 : (double) hit / total;
+		}
+
+		/**
+		 * @return 延迟分布(单位纳秒)
+		 */
+		public Histogram getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return 序列化后的数据大小分布(单位字节)
+		 */
+		public Histogram getSizes() {
+			return sizes;
+		}
+
+		public void reset() {
+			this.calls.set(0);
+			this.hits.set(0);
+			this.misses.set(0);
+			this.errors.set(0);
+			this.latency.reset();
+			this.sizes.reset();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(this.name).append("[calls=").append(this.getCalls()).append(", errors=").append(this.getErrors());
+			if (this.getHits() + this.getMisses() > 0) {
+				sb.append(String.format(", hitRate=%.4f", this.getHitRate()));
+			}
+			if (this.latency.getCount() > 0) {
+				Histogram l = this.latency;
+				sb.append(String.format(", latencyMicros[mean=%.1f, p50=%d, p99=%d, p999=%d, max=%d]", l.getMean() / 1000, l.getPercentile(50) / 1000, l.getPercentile(99) / 1000,
+						l.getPercentile(99.9) / 1000, l.getMax() / 1000));
+			}
+			if (this.sizes.getCount() > 0) {
+				sb.append(", bytes[").append(this.sizes).append("]");
+			}
+			return sb.append("]").toString();
+		}
+	}
+
+	private CacheMetrics(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @功能: 获取缓存的统计, 首次获取时注册到JMX
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:18:20
+	 * @param name 缓存名称, 如redis, memcached
+	 * @return
+	 */
+	public static CacheMetrics getMetrics(String name) {
+		CacheMetrics metrics = REGISTRY.get(name);
+		if (metrics == null) {
+			metrics = new CacheMetrics(name);
+			CacheMetrics existing = REGISTRY.putIfAbsent(name, metrics);
+			if (existing != null) {
+				return existing;
+			}
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName objectName = new ObjectName("com.yangc.utils.cache:type=CacheMetrics,name=" + ObjectName.quote(name));
+				if (!server.isRegistered(objectName)) {
+					server.registerMBean(metrics, objectName);
+				}
+			} catch (Exception e) {
+				logger.warn("Failed to register cache metrics " + name + " to JMX", e);
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * @功能: 全部缓存的统计, 按名称排序
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:19:00
+	 * @return
+	 */
+	public static Map<String, CacheMetrics> getAllMetrics() {
+		return new TreeMap<String, CacheMetrics>(REGISTRY);
+	}
+
+	public static boolean isMetricsEnabled() {
+		return enabled;
+	}
+
+	public static void setMetricsEnabled(boolean enabled) {
+		CacheMetrics.enabled = enabled;
+	}
+
+	/**
+	 * @功能: 开始计时
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:19:40
+	 * @return 关闭时返回0
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	public void hit(String operation, long start) {
+		if (start != 0) {
+			Operation op = this.record(operation, start);
+			op.hits.incrementAndGet();
+		}
+	}
+
+	public void miss(String operation, long start) {
+		if (start != 0) {
+			Operation op = this.record(operation, start);
+			op.misses.incrementAndGet();
+		}
+	}
+
+	public void success(String operation, long start) {
+		if (start != 0) {
+			this.record(operation, start);
+		}
+	}
+
+	public void error(String operation, long start) {
+		if (start != 0) {
+			Operation op = this.record(operation, start);
+			op.errors.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @功能: 记录序列化后的数据大小
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:20:30
+	 * @param operation
+	 * @param bytes
+	 */
+	public void size(String operation, int bytes) {
+		if (enabled) {
+			this.getOperation(operation).sizes.record(bytes);
+		}
+	}
+
+	/**
+	 * @功能: 只增加调用次数, 用于不需要计时的事件, 如淘汰
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:21:05
+	 * @param operation
+	 */
+	public void count(String operation) {
+		if (enabled) {
+			this.getOperation(operation).calls.incrementAndGet();
+		}
+	}
+
+	private Operation record(String operation, long start) {
+		long elapsed = System.nanoTime() - start;
+		Operation op = this.getOperation(operation);
+		op.calls.incrementAndGet();
+		op.latency.record(elapsed);
+		return op;
+	}
+
+	public Operation getOperation(String operation) {
+		Operation op = this.operations.get(operation);
+		if (op == null) {
+			op = new Operation(operation);
+			Operation existing = this.operations.putIfAbsent(operation, op);
+			if (existing != null) {
+				op = existing;
+			}
+		}
+		return op;
+	}
+
+	/**
+	 * @功能: 全部操作的统计, 按名称排序
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:21:50
+	 * @return
+	 */
+	public List<Operation> getOperations() {
+		List<String> names = new ArrayList<String>(this.operations.keySet());
+		Collections.sort(names);
+		List<Operation> operations = new ArrayList<Operation>(names.size());
+		for (String name : names) {
+			operations.add(this.operations.get(name));
+		}
+		return operations;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		CacheMetrics.enabled = enabled;
+	}
+
+	@Override
+	public String[] getOperationNames() {
+		List<String> names = new ArrayList<String>(this.operations.keySet());
+		Collections.sort(names);
+		return names.toArray(new String[names.size()]);
+	}
+
+	@Override
+	public long getCalls(String operation) {
+		Operation op = this.operations.get(operation);
+		return op == null ? 0 : op.getCalls();
+	}
+
+	@Override
+	public long getErrors(String operation) {
+		Operation op = this.operations.get(operation);
+		return op == null ? 0 : op.getErrors();
+	}
+
+	@Override
+	public double getHitRate(String operation) {
+		Operation op = this.operations.get(operation);
+		return op == null ? 0 : op.getHitRate();
+	}
+
+	@Override
+	public double getAverageLatencyMicros(String operation) {
+		Operation op = this.operations.get(operation);
+		return op == null ? 0 : op.latency.getMean() / 1000;
+	}
+
+	@Override
+	public long getLatencyPercentileMicros(String operation, double percentile) {
+		Operation op = this.operations.get(operation);
+		return op == null ? 0 : op.latency.getPercentile(percentile) / 1000;
+	}
+
+	@Override
+	public long getSizePercentile(String operation, double percentile) {
+		Operation op = this.operations.get(operation);
+		return op == null ? 0 : op.sizes.getPercentile(percentile);
+	}
+
+	@Override
+	public String getSummary() {
+		StringBuilder sb = new StringBuilder(this.name).append("\n");
+		for (Operation op : this.getOperations()) {
+			sb.append(op).append("\n");
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public void reset() {
+		for (Operation op : this.operations.values()) {
+			op.reset();
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.yangc.utils.cache;
+
+/**
+ * @功能: CacheMetrics的JMX接口, 注册为com.yangc.utils.cache:type=CacheMetrics,name=缓存名称
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午3:20:10
+ */
+public interface CacheMetricsMBean {
+
+	String getName();
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	String[] getOperationNames();
+
+	long getCalls(String operation);
+
+	long getErrors(String operation);
+
+	double getHitRate(String operation);
+
+	double getAverageLatencyMicros(String operation);
+
+	long getLatencyPercentileMicros(String operation, double percentile);
+
+	long getSizePercentile(String operation, double percentile);
+
+	String getSummary();
+
+	void reset();
+
+}
@@ -0,0 +1,51 @@
+package com.yangc.utils.cache;
+
+import java.util.Map;
+
+/**
+ * @功能: LoadingCache的存储后端, 参见CacheStores
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午8:27:02
+ */
+public interface CacheStore<V> {
+
+	/**
+	 * @功能: 获取值, 不存在或异常时返回null
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:27:30
+	 * @param key
+	 * @return
+	 */
+	CacheValue<V> get(String key);
+
+	/**
+	 * @功能: 设置值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:27:55
+	 * @param key
+	 * @param value
+	 * @param expireSeconds 后端的失效时间(单位秒), 不小于逻辑过期时间
+	 * @return
+	 */
+	boolean put(String key, CacheValue<V> value, int expireSeconds);
+
+	/**
+	 * @功能: 批量设置值, 后端不支持批量时逐个设置
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:05:12
+	 * @param values
+	 * @param expireSeconds 后端的失效时间(单位秒)
+	 * @return
+	 */
+	boolean putAll(Map<String, CacheValue<V>> values, int expireSeconds);
+
+	/**
+	 * @功能: 删除值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:28:20
+	 * @param key
+	 * @return
+	 */
+	boolean delete(String key);
+
+}
@@ -0,0 +1,185 @@
+package com.yangc.utils.cache;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.gson.internal.$Gson$Types;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * @功能: 基于RedisUtils, MemcachedUtils, XMemcachedUtils, EhCacheUtils的存储后端
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午8:30:12
+ */
+public class CacheStores {
+
+	private CacheStores() {
+	}
+
+	/**
+	 * @功能: redis存储, 使用RedisUtils配置的编解码器
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:31:05
+	 * @param typeToken 值的类型
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V> CacheStore<V> redis(TypeToken<V> typeToken) {
+		final TypeToken<CacheValue<V>> valueType = (TypeToken<CacheValue<V>>) TypeToken.get($Gson$Types.newParameterizedTypeWithOwner(null, CacheValue.class, typeToken.getType()));
+		return new CacheStore<V>() {
+			@Override
+			public CacheValue<V> get(String key) {
+				return RedisUtils.getInstance().get(key, valueType);
+			}
+
+			@Override
+			public boolean put(String key, CacheValue<V> value, int expireSeconds) {
+				return RedisUtils.getInstance().set(key, value, expireSeconds);
+			}
+
+			@Override
+			public boolean putAll(Map<String, CacheValue<V>> values, int expireSeconds) {
+				return RedisUtils.getInstance().batchSet(values, expireSeconds);
+			}
+
+			@Override
+			public boolean delete(String key) {
+				return RedisUtils.getInstance().del(key);
+			}
+		};
+	}
+
+	/**
+	 * @功能: 本地存储(ConcurrentCache), 一般作为TieredCache的第一层
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:06:30
+	 * @param maxSize 最大条数
+	 * @return
+	 */
+	public static <V> CacheStore<V> local(int maxSize) {
+		final ConcurrentCache<String, CacheValue<V>> cache = new ConcurrentCache<String, CacheValue<V>>(maxSize);
+		return new AbstractCacheStore<V>() {
+			@Override
+			public CacheValue<V> get(String key) {
+				return cache.get(key);
+			}
+
+			@Override
+			public boolean put(String key, CacheValue<V> value, int expireSeconds) {
+				cache.put(key, value, expireSeconds);
+				return true;
+			}
+
+			@Override
+			public boolean delete(String key) {
+				return cache.remove(key) != null;
+			}
+		};
+	}
+
+	/**
+	 * @功能: memcached存储(MemcachedUtils), 值需要可序列化
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:32:10
+	 * @return
+	 */
+	public static <V> CacheStore<V> memcached() {
+		return new AbstractCacheStore<V>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public CacheValue<V> get(String key) {
+				return MemcachedUtils.getInstance().get(key, CacheValue.class);
+			}
+
+			@Override
+			public boolean put(String key, CacheValue<V> value, int expireSeconds) {
+				return MemcachedUtils.getInstance().set(key, value, new Date(System.currentTimeMillis() + expireSeconds * 1000L));
+			}
+
+			@Override
+			public boolean putAll(Map<String, CacheValue<V>> values, int expireSeconds) {
+				Map<String, Boolean> results = MemcachedUtils.getInstance().setMulti(values, new Date(System.currentTimeMillis() + expireSeconds * 1000L));
+				return results != null && MemcachedBatches.allTrue(results);
+			}
+
+			@Override
+			public boolean delete(String key) {
+				return MemcachedUtils.getInstance().delete(key);
+			}
+		};
+	}
+
+	/**
+	 * @功能: memcached存储(XMemcachedUtils), 值需要可序列化
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:33:02
+	 * @return
+	 */
+	public static <V> CacheStore<V> xmemcached() {
+		return new AbstractCacheStore<V>() {
+			@Override
+			public CacheValue<V> get(String key) {
+				return XMemcachedUtils.getInstance().get(key);
+			}
+
+			@Override
+			public boolean put(String key, CacheValue<V> value, int expireSeconds) {
+				return XMemcachedUtils.getInstance().set(key, value, expireSeconds);
+			}
+
+			@Override
+			public boolean putAll(Map<String, CacheValue<V>> values, int expireSeconds) {
+				Map<String, Boolean> results = XMemcachedUtils.getInstance().setMulti(values, expireSeconds);
+				return results != null && MemcachedBatches.allTrue(results);
+			}
+
+			@Override
+			public boolean delete(String key) {
+				return XMemcachedUtils.getInstance().delete(key);
+			}
+		};
+	}
+
+	/**
+	 * @功能: ehcache存储
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:33:40
+	 * @param cacheName ehcache.xml中的缓存名
+	 * @return
+	 */
+	public static <V> CacheStore<V> ehcache(final String cacheName) {
+		return new AbstractCacheStore<V>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public CacheValue<V> get(String key) {
+				return EhCacheUtils.getInstance().get(cacheName, key, CacheValue.class);
+			}
+
+			@Override
+			public boolean put(String key, CacheValue<V> value, int expireSeconds) {
+				return EhCacheUtils.getInstance().put(cacheName, key, value, expireSeconds);
+			}
+
+			@Override
+			public boolean delete(String key) {
+				return EhCacheUtils.getInstance().remove(cacheName, key);
+			}
+		};
+	}
+
+	/**
+	 * 不支持批量的后端逐个设置
+	 */
+	private abstract static class AbstractCacheStore<V> implements CacheStore<V> {
+		@Override
+		public boolean putAll(Map<String, CacheValue<V>> values, int expireSeconds) {
+			boolean result = true;
+			for (Entry<String, CacheValue<V>> entry : values.entrySet()) {
+				result &= this.put(entry.getKey(), entry.getValue(), expireSeconds);
+			}
+			return result;
+		}
+	}
+
+}
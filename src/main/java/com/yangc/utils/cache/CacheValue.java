@@ -0,0 +1,52 @@
+package com.yangc.utils.cache;
+
+import java.io.Serializable;
+
+/**
+ * @功能: LoadingCache保存在缓存中的值, 带有逻辑过期时间
+ *
+ *      <pre>
+ * refreshAt之前: 直接返回
+ * refreshAt ~ expireAt: 返回并提前异步刷新(refresh-ahead)
+ * expireAt ~ staleAt: 已过期, 返回旧值并异步刷新(stale-while-revalidate)
+ * staleAt之后: 视为不存在, 同步加载
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午8:25:10
+ */
+public class CacheValue<V> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private V value;
+	private long refreshAt;
+	private long expireAt;
+	private long staleAt;
+
+	public CacheValue() {
+	}
+
+	public CacheValue(V value, long refreshAt, long expireAt, long staleAt) {
+		this.value = value;
+		this.refreshAt = refreshAt;
+		this.expireAt = expireAt;
+		this.staleAt = staleAt;
+	}
+
+	public V getValue() {
+		return value;
+	}
+
+	public long getRefreshAt() {
+		return refreshAt;
+	}
+
+	public long getExpireAt() {
+		return expireAt;
+	}
+
+	public long getStaleAt() {
+		return staleAt;
+	}
+
+}
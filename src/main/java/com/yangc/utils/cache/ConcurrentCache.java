@@ -0,0 +1,372 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @功能: 线程安全的有界缓存, 多线程环境下替代LruCacheUtils
+ *
+ *      <pre>
+ * 按key的hash分段存储, 每段使用ConcurrentHashMap查找, 读操作不加锁
+ * 淘汰采用CLOCK策略: 读操作只在条目上累加一个饱和的访问计数(0~3), 写操作在段锁内转动时钟指针, 计数为0的条目被淘汰, 否则计数减1
+ * 支持按条目设置存活时间, 支持按权重限制容量
+ * 每段的容量至少为MIN_SEGMENT_WEIGHT, 容量较小时减少分段数, 避免hash不均匀导致总量远未达到上限时就开始淘汰
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午7:05:36
+ */
+public class ConcurrentCache<K, V> {
+
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+	private static final int MAX_FREQUENCY = 3;
+	// 每段的最小容量
+	private static final long MIN_SEGMENT_WEIGHT = 64;
+
+	/** 条目权重计算, 默认每个条目权重为1 */
+	public interface Weigher<K, V> {
+		int weigh(K key, V value);
+	}
+
+	private final Segment<K, V>[] segments;
+	private final int segmentMask;
+	private final Weigher<K, V> weigher;
+	private final long defaultTtlMillis;
+
+	private static class Node<K, V> {
+		private final K key;
+		private volatile V value;
+		private volatile long expireAt;
+		// 近似的访问计数, 读操作不加锁直接累加
+		private volatile int frequency;
+		private int weight;
+		// 在时钟环中的下标, 由段锁保护
+		private int index;
+
+		Node(K key, V value, long expireAt, int weight) {
+			this.key = key;
+			this.value = value;
+			this.expireAt = expireAt;
+			this.weight = weight;
+		}
+
+		boolean isExpired(long now) {
+			return this.expireAt <= now;
+		}
+	}
+
+	private static class Segment<K, V> extends ReentrantLock {
+		private static final long serialVersionUID = 1L;
+
+		private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<K, Node<K, V>>();
+		private final ArrayList<Node<K, V>> ring = new ArrayList<Node<K, V>>();
+		private final long maxWeight;
+		private int hand;
+		private long weight;
+
+		private final AtomicLong hitCount = new AtomicLong();
+		private final AtomicLong missCount = new AtomicLong();
+		private final AtomicLong evictionCount = new AtomicLong();
+
+		Segment(long maxWeight) {
+			this.maxWeight = maxWeight;
+		}
+
+		void add(Node<K, V> node) {
+			node.index = this.ring.size();
+			this.ring.add(node);
+			this.map.put(node.key, node);
+			this.weight += node.weight;
+		}
+
+		void remove(Node<K, V> node) {
+			this.map.remove(node.key, node);
+			// 与最后一个条目交换后删除, O(1)
+			int last = this.ring.size() - 1;
+			Node<K, V> moved = this.ring.remove(last);
+			if (moved != node) {
+				moved.index = node.index;
+				this.ring.set(node.index, moved);
+			}
+			if (this.hand >= this.ring.size()) {
+				this.hand = 0;
+			}
+			this.weight -= node.weight;
+		}
+
+		void evict(long now) {
+			while (this.weight > this.maxWeight && !this.ring.isEmpty()) {
+				Node<K, V> node = this.ring.get(this.hand);
+				if (node.isExpired(now) || node.frequency == 0) {
+					this.remove(node);
+					this.evictionCount.incrementAndGet();
+				} else {
+					node.frequency--;
+					this.hand = (this.hand + 1) % this.ring.size();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param maxWeight 最大权重, 未指定weigher时即最大条数
+	 */
+	public ConcurrentCache(long maxWeight) {
+		this(maxWeight, DEFAULT_CONCURRENCY_LEVEL, null, 0);
+	}
+
+	/**
+	 * @param maxWeight 最大权重, 未指定weigher时即最大条数
+	 * @param concurrencyLevel 分段数, 向上取2的幂, 每段容量不足MIN_SEGMENT_WEIGHT时减半
+	 * @param weigher 权重计算, 为null时每个条目权重为1
+	 * @param defaultTtlSeconds 默认存活时间(单位秒), 0为不过期
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentCache(long maxWeight, int concurrencyLevel, Weigher<K, V> weigher, int defaultTtlSeconds) {
+		if (maxWeight <= 0 || concurrencyLevel <= 0) {
+			throw new IllegalArgumentException("The maxWeight and concurrencyLevel must be greater than 0");
+		}
+		int size = 1;
+		while (size < concurrencyLevel) {
+			size <<= 1;
+		}
+		while (size > 1 && maxWeight / size < MIN_SEGMENT_WEIGHT) {
+			size >>= 1;
+		}
+		this.segments = (Segment<K, V>[]) new Segment<?, ?>[size];
+		long segmentWeight = Math.max(1, (maxWeight + size - 1) / size);
+		for (int i = 0; i < size; i++) {
+			this.segments[i] = new Segment<K, V>(segmentWeight);
+		}
+		this.segmentMask = size - 1;
+		this.weigher = weigher;
+		this.defaultTtlMillis = defaultTtlSeconds * 1000L;
+	}
+
+	/**
+	 * @功能: 获取值, 不加锁
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:12:20
+	 * @param key
+	 * @return
+	 */
+	public V get(K key) {
+		Segment<K, V> segment = this.segmentFor(key);
+		Node<K, V> node = segment.map.get(key);
+		if (node == null) {
+			segment.missCount.incrementAndGet();
+			return null;
+		}
+		if (node.isExpired(System.currentTimeMillis())) {
+			segment.missCount.incrementAndGet();
+			this.removeNode(segment, node);
+			return null;
+		}
+		if (node.frequency < MAX_FREQUENCY) {
+			node.frequency++;
+		}
+		segment.hitCount.incrementAndGet();
+		return node.value;
+	}
+
+	/**
+	 * @功能: 设置值, 使用默认存活时间
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:13:05
+	 * @param key
+	 * @param value
+	 */
+	public void put(K key, V value) {
+		this.put(key, value, this.defaultTtlMillis);
+	}
+
+	/**
+	 * @功能: 设置值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:13:40
+	 * @param key
+	 * @param value
+	 * @param ttlSeconds 存活时间(单位秒), 0为不过期
+	 */
+	public void put(K key, V value, int ttlSeconds) {
+		this.put(key, value, ttlSeconds * 1000L);
+	}
+
+	private void put(K key, V value, long ttlMillis) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("The parameters must not be null");
+		}
+		long now = System.currentTimeMillis();
+		long expireAt = ttlMillis > 0 ? now + ttlMillis : Long.MAX_VALUE;
+		int weight = this.weigher == null ? 1 : this.weigher.weigh(key, value);
+
+		Segment<K, V> segment = this.segmentFor(key);
+		segment.lock();
+		try {
+			Node<K, V> node = segment.map.get(key);
+			if (node == null) {
+				segment.add(new Node<K, V>(key, value, expireAt, weight));
+			} else {
+				node.value = value;
+				node.expireAt = expireAt;
+				segment.weight += weight - node.weight;
+				node.weight = weight;
+			}
+			segment.evict(now);
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	/**
+	 * @功能: 删除值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:14:32
+	 * @param key
+	 * @return 被删除的值
+	 */
+	public V remove(K key) {
+		Segment<K, V> segment = this.segmentFor(key);
+		segment.lock();
+		try {
+			Node<K, V> node = segment.map.get(key);
+			if (node == null) {
+				return null;
+			}
+			segment.remove(node);
+			return node.isExpired(System.currentTimeMillis()) ? null : node.value;
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	/**
+	 * @功能: 清空缓存
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:15:10
+	 */
+	public void clear() {
+		for (Segment<K, V> segment : this.segments) {
+			segment.lock();
+			try {
+				segment.map.clear();
+				segment.ring.clear();
+				segment.hand = 0;
+				segment.weight = 0;
+			} finally {
+				segment.unlock();
+			}
+		}
+	}
+
+	/**
+	 * @功能: 条目数(包含已过期但尚未清理的条目)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:15:42
+	 * @return
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment<K, V> segment : this.segments) {
+			size += segment.map.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @功能: 当前总权重
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:16:15
+	 * @return
+	 */
+	public long weightedSize() {
+		long weight = 0;
+		for (Segment<K, V> segment : this.segments) {
+			segment.lock();
+			try {
+				weight += segment.weight;
+			} finally {
+				segment.unlock();
+			}
+		}
+		return weight;
+	}
+
+	public long getHitCount() {
+		long count = 0;
+		for (Segment<K, V> segment : this.segments) {
+			count += segment.hitCount.get();
+		}
+		return count;
+	}
+
+	public long getMissCount() {
+		long count = 0;
+		for (Segment<K, V> segment : this.segments) {
+			count += segment.missCount.get();
+		}
+		return count;
+	}
+
+	public long getEvictionCount() {
+		long count = 0;
+		for (Segment<K, V> segment : this.segments) {
+			count += segment.evictionCount.get();
+		}
+		return count;
+	}
+
+	/**
+	 * @功能: 命中率
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:17:02
+	 * @return
+	 */
+	public double getHitRate() {
+		long hit = this.getHitCount();
+		long total = hit + this.getMissCount();
+		return total == 0 ? 1.0 : (double) hit / total;
+	}
+
+	private void removeNode(Segment<K, V> segment, Node<K, V> node) {
+		segment.lock();
+		try {
+			// 可能已经被其他线程删除或替换
+			if (segment.map.get(node.key) == node) {
+				segment.remove(node);
+			}
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	private Segment<K, V> segmentFor(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("The key must not be null");
+		}
+		int h = key.hashCode();
+		// 与ConcurrentHashMap使用不同的扰动, 避免段内hash分布不均
+		h ^= (h >>> 20) ^ (h >>> 12);
+		h ^= (h >>> 7) ^ (h >>> 4);
+		return this.segments[h & this.segmentMask];
+	}
+
+	public static void main(String[] args) {
+		ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(5, 1, null, 0);
+		cache.put("a", "a");
+		cache.put("b", "b");
+		cache.put("c", "c");
+		cache.put("d", "d");
+		cache.put("e", "e");
+		cache.get("b");
+		cache.get("a");
+		cache.get("d");
+		cache.put("f", "f");
+		for (String key : new String[] { "a", "b", "c", "d", "e", "f" }) {
+			System.out.println(key + " == " + cache.get(key));
+		}
+		System.out.println("hitRate == " + cache.getHitRate() + ", evictions == " + cache.getEvictionCount());
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.yangc.utils.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * @功能: 压缩包装, 被包装的编解码器输出超过阈值时使用deflate压缩, 否则原样保存
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午1:45:18
+ */
+public class DeflateRedisCodec implements RedisCodec {
+
+	public static final byte ID = 2;
+
+	private static final int BUFFER_SIZE = 1024 * 4;
+
+	private final RedisCodec codec;
+	private final int threshold;
+
+	/**
+	 * @param codec 被包装的编解码器
+	 * @param threshold 压缩阈值(单位字节)
+	 */
+	public DeflateRedisCodec(RedisCodec codec, int threshold) {
+		this.codec = codec;
+		this.threshold = threshold;
+	}
+
+	@Override
+	public byte id() {
+		return ID;
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		byte[] data = this.codec.encode(value);
+		if (data.length < this.threshold) {
+			return data;
+		}
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length / 2 + 2);
+			baos.write(RedisCodecs.MAGIC);
+			baos.write(ID);
+			byte[] b = new byte[BUFFER_SIZE];
+			while (!deflater.finished()) {
+				baos.write(b, 0, deflater.deflate(b));
+			}
+			// 压缩无收益时原样保存
+			return baos.size() < data.length ? baos.toByteArray() : data;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	@Override
+	public <T> T decode(byte[] data, TypeToken<T> typeToken) {
+		if (data == null || data.length < 2 || data[0] != RedisCodecs.MAGIC || data[1] != ID) {
+			return RedisCodecs.decode(data, typeToken);
+		}
+
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data, 2, data.length - 2);
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length * 3);
+			byte[] b = new byte[BUFFER_SIZE];
+			while (!inflater.finished()) {
+				int len = inflater.inflate(b);
+				if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IllegalArgumentException("Truncated deflate data");
+				}
+				baos.write(b, 0, len);
+			}
+			return RedisCodecs.decode(baos.toByteArray(), typeToken);
+		} catch (DataFormatException e) {
+			throw new IllegalArgumentException(e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+}
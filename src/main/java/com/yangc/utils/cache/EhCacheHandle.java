@@ -0,0 +1,361 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import net.sf.ehcache.CacheException;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.yangc.utils.io.SerializeUtils;
+
+/**
+ * @功能: 绑定到某个缓存的类型化句柄, 通过EhCacheUtils.getHandle获取
+ *
+ *      <pre>
+ * 创建时解析一次缓存, 之后的调用不再经过CacheManager的同步查找, 取值时不做反射的类型转换
+ * 批量操作使用ehcache的getAll/putAll/removeAll
+ * 设置加载器后为读穿透: 未命中时调用加载器并写入缓存, 同一个key的并发未命中只加载一次
+ * 设置写入器后为写穿透: 先写入写入器, 成功后再写入缓存
+ * 堆外缓存同样支持, 批量操作逐个执行, key按String.valueOf保存, 字符串形式相同的key视为同一个key
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午2:20:15
+ */
+public class EhCacheHandle<K, V> {
+
+	private static final Logger logger = LogManager.getLogger(EhCacheHandle.class);
+
+	/** 读穿透的加载器 */
+	public interface Loader<K, V> {
+		/**
+		 * @return 返回null时不缓存
+		 */
+		V load(K key) throws Exception;
+
+		/**
+		 * @return 未加载到的key可以不包含在结果中
+		 */
+		Map<K, V> loadAll(Collection<K> keys) throws Exception;
+	}
+
+	/** 写穿透的写入器 */
+	public interface Writer<K, V> {
+		void write(K key, V value) throws Exception;
+
+		void delete(K key) throws Exception;
+	}
+
+	private final String cacheName;
+	private final Ehcache cache;
+	private final OffHeapCache offHeapCache;
+
+	private volatile Loader<K, V> loader;
+	private volatile Writer<K, V> writer;
+
+	private final SingleFlight<K, V> loading = new SingleFlight<K, V>();
+
+	EhCacheHandle(String cacheName, Ehcache cache, OffHeapCache offHeapCache) {
+		if (cache == null && offHeapCache == null) {
+			throw new IllegalArgumentException("Cache " + cacheName + " does not exist");
+		}
+		this.cacheName = cacheName;
+		this.cache = cache;
+		this.offHeapCache = offHeapCache;
+	}
+
+	public String getCacheName() {
+		return cacheName;
+	}
+
+	public void setLoader(Loader<K, V> loader) {
+		this.loader = loader;
+	}
+
+	public void setWriter(Writer<K, V> writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * @功能: 获取值, 设置了加载器时未命中则加载
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午2:22:40
+	 * @param key
+	 * @return
+	 */
+	public V get(K key) {
+		long start = CacheMetrics.start();
+		V value = this.getCached(key);
+		if (value != null) {
+			EhCacheUtils.metrics.hit("handle.get", start);
+			return value;
+		}
+		EhCacheUtils.metrics.miss("handle.get", start);
+		Loader<K, V> loader = this.loader;
+		if (loader != null) {
+			start = CacheMetrics.start();
+			value = this.load(key, loader);
+			EhCacheUtils.metrics.success("handle.load", start);
+		}
+		return value;
+	}
+
+	/**
+	 * @功能: 批量获取值, 设置了加载器时未命中的key一次加载
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午2:23:30
+	 * @param keys
+	 * @return 不包含未命中的key
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<K, V> getAll(Collection<K> keys) {
+		long start = CacheMetrics.start();
+		Map<K, V> values = new HashMap<K, V>(keys.size() * 4 / 3 + 1);
+		List<K> misses = new ArrayList<K>();
+		try {
+			if (this.offHeapCache != null) {
+				for (K key : keys) {
+					V value = this.getCached(key);
+					if (value != null) {
+						values.put(key, value);
+					} else {
+						misses.add(key);
+					}
+				}
+			} else {
+				Map<Object, Element> elements = this.cache.getAll(keys);
+				for (K key : keys) {
+					Element element = elements.get(key);
+					if (element != null && element.getObjectValue() != null) {
+						values.put(key, (V) element.getObjectValue());
+					} else {
+						misses.add(key);
+					}
+				}
+			}
+		} catch (IllegalStateException e) {
+			e.printStackTrace();
+		} catch (CacheException e) {
+			e.printStackTrace();
+		}
+
+		EhCacheUtils.metrics.success("handle.getAll", start);
+		Loader<K, V> loader = this.loader;
+		if (loader != null && !misses.isEmpty()) {
+			start = CacheMetrics.start();
+			try {
+				Map<K, V> loaded = loader.loadAll(misses);
+				if (loaded != null && !loaded.isEmpty()) {
+					this.putCached(loaded);
+					values.putAll(loaded);
+				}
+				EhCacheUtils.metrics.success("handle.loadAll", start);
+			} catch (Exception e) {
+				EhCacheUtils.metrics.error("handle.loadAll", start);
+				logger.error("Failed to load " + misses.size() + " keys into " + this.cacheName, e);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * @功能: 设置值, 设置了写入器时先写入写入器
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午2:24:20
+	 * @param key
+	 * @param value
+	 * @return 写入器失败时不写入缓存, 返回false
+	 */
+	public boolean put(K key, V value) {
+		Writer<K, V> writer = this.writer;
+		if (writer != null) {
+			try {
+				writer.write(key, value);
+			} catch (Exception e) {
+				logger.error("Failed to write " + key + " through " + this.cacheName, e);
+				return false;
+			}
+		}
+		try {
+			if (this.offHeapCache != null) {
+				return this.offHeapCache.put(String.valueOf(key), SerializeUtils.serialize(value));
+			}
+			this.cache.put(new Element(key, value));
+			return true;
+		} catch (IllegalStateException e) {
+			e.printStackTrace();
+		} catch (CacheException e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 批量设置值, 设置了写入器时逐个写入写入器, 只缓存写入成功的值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午2:25:10
+	 * @param values
+	 * @return 全部成功时返回true
+	 */
+	public boolean putAll(Map<K, V> values) {
+		boolean result = true;
+		Writer<K, V> writer = this.writer;
+		if (writer != null) {
+			Map<K, V> written = new HashMap<K, V>(values.size() * 4 / 3 + 1);
+			for (Entry<K, V> entry : values.entrySet()) {
+				try {
+					writer.write(entry.getKey(), entry.getValue());
+					written.put(entry.getKey(), entry.getValue());
+				} catch (Exception e) {
+					logger.error("Failed to write " + entry.getKey() + " through " + this.cacheName, e);
+					result = false;
+				}
+			}
+			values = written;
+		}
+		return this.putCached(values) && result;
+	}
+
+	/**
+	 * @功能: 删除值, 设置了写入器时先从写入器删除
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午2:25:50
+	 * @param key
+	 * @return
+	 */
+	public boolean remove(K key) {
+		Writer<K, V> writer = this.writer;
+		if (writer != null) {
+			try {
+				writer.delete(key);
+			} catch (Exception e) {
+				logger.error("Failed to delete " + key + " through " + this.cacheName, e);
+				return false;
+			}
+		}
+		try {
+			if (this.offHeapCache != null) {
+				return this.offHeapCache.remove(String.valueOf(key));
+			}
+			return this.cache.remove(key);
+		} catch (IllegalStateException e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 批量删除值, 设置了写入器时逐个从写入器删除, 写入器删除失败的值保留在缓存中
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午2:26:30
+	 * @param keys
+	 * @return 全部成功时返回true
+	 */
+	public boolean removeAll(Collection<K> keys) {
+		boolean result = true;
+		Writer<K, V> writer = this.writer;
+		if (writer != null) {
+			List<K> deleted = new ArrayList<K>(keys.size());
+			for (K key : keys) {
+				try {
+					writer.delete(key);
+					deleted.add(key);
+				} catch (Exception e) {
+					logger.error("Failed to delete " + key + " through " + this.cacheName, e);
+					result = false;
+				}
+			}
+			keys = deleted;
+		}
+		try {
+			if (this.offHeapCache != null) {
+				for (K key : keys) {
+					this.offHeapCache.remove(String.valueOf(key));
+				}
+			} else {
+				this.cache.removeAll(keys);
+			}
+			return result;
+		} catch (IllegalStateException e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V getCached(K key) {
+		try {
+			if (this.offHeapCache != null) {
+				return (V) SerializeUtils.deserialize(this.offHeapCache.getBytes(String.valueOf(key)));
+			}
+			Element element = this.cache.get(key);
+			if (element != null) {
+				return (V) element.getObjectValue();
+			}
+		} catch (IllegalStateException e) {
+			e.printStackTrace();
+		} catch (CacheException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	private boolean putCached(Map<K, V> values) {
+		try {
+			if (this.offHeapCache != null) {
+				boolean result = true;
+				for (Entry<K, V> entry : values.entrySet()) {
+					result &= this.offHeapCache.put(String.valueOf(entry.getKey()), SerializeUtils.serialize(entry.getValue()));
+				}
+				return result;
+			}
+			List<Element> elements = new ArrayList<Element>(values.size());
+			for (Entry<K, V> entry : values.entrySet()) {
+				elements.add(new Element(entry.getKey(), entry.getValue()));
+			}
+			this.cache.putAll(elements);
+			return true;
+		} catch (IllegalStateException e) {
+			e.printStackTrace();
+		} catch (CacheException e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	private V load(final K key, final Loader<K, V> loader) {
+		try {
+			return this.loading.execute(key, new Callable<V>() {
+				@Override
+				public V call() throws Exception {
+					// 等待期间其他线程可能已经加载完成
+					V value = getCached(key);
+					if (value == null) {
+						value = loader.load(key);
+						if (value != null) {
+							Map<K, V> values = new HashMap<K, V>(2);
+							values.put(key, value);
+							putCached(values);
+						}
+					}
+					return value;
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.error("Failed to load " + key + " into " + this.cacheName, e.getCause());
+		}
+		return null;
+	}
+
+}
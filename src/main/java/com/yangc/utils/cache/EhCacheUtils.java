@@ -1,15 +1,34 @@
 package com.yangc.utils.cache;
 
-import net.sf.ehcache.Cache;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import net.sf.ehcache.CacheException;
 import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
+import net.sf.ehcache.Status;
+import net.sf.ehcache.event.CacheManagerEventListener;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.yangc.utils.io.SerializeUtils;
+import com.yangc.utils.prop.PropertiesUtils;
 
 public class EhCacheUtils {
 
 	private static final String FILE_PATH = "/ehcache.xml";
+	private static final String OFF_HEAP_FILE_PATH = "/offheap.properties";
 
 	private static CacheManager cacheManager;
+	// 堆外缓存, 与ehcache.xml中的缓存同名时优先使用, key按String.valueOf保存, 字符串形式相同的key视为同一个key
+	private static Map<String, OffHeapCache> offHeapCaches;
+	// 已解析的缓存, 避免每次调用都经过CacheManager的同步查找, 缓存被删除或替换, CacheManager关闭时失效
+	private static final ConcurrentHashMap<String, Ehcache> caches = new ConcurrentHashMap<String, Ehcache>();
+
+	static final CacheMetrics metrics = CacheMetrics.getMetrics("ehcache");
 
 	private static class InstanceHolder {
 		private static final EhCacheUtils instance = new EhCacheUtils();
@@ -17,24 +36,142 @@ public class EhCacheUtils {
 
 	private EhCacheUtils() {
 		cacheManager = new CacheManager(EhCacheUtils.class.getResourceAsStream(FILE_PATH));
+		cacheManager.getCacheManagerEventListenerRegistry().registerListener(new CacheManagerEventListener() {
+			@Override
+			public void init() {
+			}
+
+			@Override
+			public Status getStatus() {
+				return Status.STATUS_ALIVE;
+			}
+
+			@Override
+			public void dispose() {
+				caches.clear();
+			}
+
+			@Override
+			public void notifyCacheAdded(String cacheName) {
+				caches.remove(cacheName);
+			}
+
+			@Override
+			public void notifyCacheRemoved(String cacheName) {
+				caches.remove(cacheName);
+			}
+		});
+		offHeapCaches = new HashMap<String, OffHeapCache>();
+		String caches = PropertiesUtils.getProperty(OFF_HEAP_FILE_PATH, "offheap.caches", "");
+		for (String cacheName : StringUtils.split(caches, ", ")) {
+			String prefix = "offheap." + cacheName + ".";
+			long maxBytes = Long.parseLong(PropertiesUtils.getProperty(OFF_HEAP_FILE_PATH, prefix + "maxBytes"));
+			int segments = Integer.parseInt(PropertiesUtils.getProperty(OFF_HEAP_FILE_PATH, prefix + "segments", "16"));
+			int pageSize = Integer.parseInt(PropertiesUtils.getProperty(OFF_HEAP_FILE_PATH, prefix + "pageSize", String.valueOf(OffHeapCache.DEFAULT_PAGE_SIZE)));
+			offHeapCaches.put(cacheName, new OffHeapCache(maxBytes, segments, pageSize));
+		}
 	}
 
 	public static EhCacheUtils getInstance() {
 		return InstanceHolder.instance;
 	}
 
+	private Ehcache getCache(String cacheName) {
+		Ehcache cache = caches.get(cacheName);
+		if (cache == null || cache.getStatus() != Status.STATUS_ALIVE) {
+			cache = cacheManager.getEhcache(cacheName);
+			if (cache == null) {
+				throw new IllegalStateException("Cache " + cacheName + " does not exist");
+			}
+			caches.put(cacheName, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * @功能: 获取绑定到某个缓存的类型化句柄, 支持批量操作和读写穿透, 应保存后复用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午2:30:40
+	 * @param cacheName ehcache.xml或offheap.properties中的缓存名
+	 * @return
+	 */
+	public <K, V> EhCacheHandle<K, V> getHandle(String cacheName) {
+		OffHeapCache offHeapCache = offHeapCaches.get(cacheName);
+		if (offHeapCache != null) {
+			return new EhCacheHandle<K, V>(cacheName, null, offHeapCache);
+		}
+		return new EhCacheHandle<K, V>(cacheName, this.getCache(cacheName), null);
+	}
+
 	public boolean put(String cacheName, Object key, Object value) {
+		long start = CacheMetrics.start();
 		try {
-			Cache cache = cacheManager.getCache(cacheName);
+			OffHeapCache offHeapCache = offHeapCaches.get(cacheName);
+			if (offHeapCache != null) {
+				byte[] data = SerializeUtils.serialize(value);
+				metrics.size("put", data.length);
+				boolean result = offHeapCache.put(String.valueOf(key), data);
+				metrics.success("put", start);
+				return result;
+			}
+			Ehcache cache = this.getCache(cacheName);
 			cache.put(new Element(key, value));
+			metrics.success("put", start);
+			return true;
+		} catch (IllegalStateException e) {
+			metrics.error("put", start);
+			e.printStackTrace();
+		} catch (ClassCastException e) {
+			metrics.error("put", start);
+			e.printStackTrace();
+		} catch (IllegalArgumentException e) {
+			metrics.error("put", start);
+			e.printStackTrace();
+		} catch (CacheException e) {
+			metrics.error("put", start);
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 设置值并指定存活时间, 堆外缓存不支持存活时间
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:21:40
+	 * @param cacheName
+	 * @param key
+	 * @param value
+	 * @param timeToLiveSeconds 存活时间(单位秒)
+	 * @return
+	 */
+	public boolean put(String cacheName, Object key, Object value, int timeToLiveSeconds) {
+		long start = CacheMetrics.start();
+		try {
+			OffHeapCache offHeapCache = offHeapCaches.get(cacheName);
+			if (offHeapCache != null) {
+				byte[] data = SerializeUtils.serialize(value);
+				metrics.size("put", data.length);
+				boolean result = offHeapCache.put(String.valueOf(key), data);
+				metrics.success("put", start);
+				return result;
+			}
+			Ehcache cache = this.getCache(cacheName);
+			Element element = new Element(key, value);
+			element.setTimeToLive(timeToLiveSeconds);
+			cache.put(element);
+			metrics.success("put", start);
 			return true;
 		} catch (IllegalStateException e) {
+			metrics.error("put", start);
 			e.printStackTrace();
 		} catch (ClassCastException e) {
+			metrics.error("put", start);
 			e.printStackTrace();
 		} catch (IllegalArgumentException e) {
+			metrics.error("put", start);
 			e.printStackTrace();
 		} catch (CacheException e) {
+			metrics.error("put", start);
 			e.printStackTrace();
 		}
 		return false;
@@ -42,7 +179,11 @@ public class EhCacheUtils {
 
 	public boolean replace(String cacheName, Object key, Object value) {
 		try {
-			Cache cache = cacheManager.getCache(cacheName);
+			OffHeapCache offHeapCache = offHeapCaches.get(cacheName);
+			if (offHeapCache != null) {
+				return offHeapCache.containsKey(String.valueOf(key)) && offHeapCache.put(String.valueOf(key), SerializeUtils.serialize(value));
+			}
+			Ehcache cache = this.getCache(cacheName);
 			cache.replace(new Element(key, value));
 			return true;
 		} catch (IllegalStateException e) {
@@ -56,29 +197,55 @@ public class EhCacheUtils {
 	}
 
 	public <T> T get(String cacheName, Object key, Class<T> clazz) {
+		long start = CacheMetrics.start();
 		try {
-			Cache cache = cacheManager.getCache(cacheName);
-			Element element = cache.get(key);
-			if (element != null) {
-				return clazz.cast(element.getObjectValue());
+			Object value = null;
+			OffHeapCache offHeapCache = offHeapCaches.get(cacheName);
+			if (offHeapCache != null) {
+				value = SerializeUtils.deserialize(offHeapCache.getBytes(String.valueOf(key)));
+			} else {
+				Element element = this.getCache(cacheName).get(key);
+				if (element != null) {
+					value = element.getObjectValue();
+				}
 			}
+			if (value != null) {
+				metrics.hit("get", start);
+			} else {
+				metrics.miss("get", start);
+			}
+			return clazz.cast(value);
 		} catch (IllegalStateException e) {
+			metrics.error("get", start);
 			e.printStackTrace();
 		} catch (ClassCastException e) {
+			metrics.error("get", start);
 			e.printStackTrace();
 		} catch (CacheException e) {
+			metrics.error("get", start);
 			e.printStackTrace();
 		}
 		return null;
 	}
 
 	public boolean remove(String cacheName, Object key) {
+		long start = CacheMetrics.start();
 		try {
-			Cache cache = cacheManager.getCache(cacheName);
-			return cache.remove(key);
+			OffHeapCache offHeapCache = offHeapCaches.get(cacheName);
+			if (offHeapCache != null) {
+				boolean result = offHeapCache.remove(String.valueOf(key));
+				metrics.success("remove", start);
+				return result;
+			}
+			Ehcache cache = this.getCache(cacheName);
+			boolean result = cache.remove(key);
+			metrics.success("remove", start);
+			return result;
 		} catch (IllegalStateException e) {
+			metrics.error("remove", start);
 			e.printStackTrace();
 		} catch (ClassCastException e) {
+			metrics.error("remove", start);
 			e.printStackTrace();
 		}
 		return false;
@@ -86,7 +253,12 @@ public class EhCacheUtils {
 
 	public boolean removeAll(String cacheName) {
 		try {
-			Cache cache = cacheManager.getCache(cacheName);
+			OffHeapCache offHeapCache = offHeapCaches.get(cacheName);
+			if (offHeapCache != null) {
+				offHeapCache.clear();
+				return true;
+			}
+			Ehcache cache = this.getCache(cacheName);
 			cache.removeAll();
 			return true;
 		} catch (IllegalStateException e) {
@@ -99,9 +271,57 @@ public class EhCacheUtils {
 		return false;
 	}
 
+	/**
+	 * @功能: 不拷贝也不反序列化, 直接读取堆外缓存中的值, 适用于直接写出的大对象
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:02:30
+	 * @param cacheName
+	 * @param key
+	 * @param reader 在段锁内执行, 值的视图只能在回调内使用, 见OffHeapCache.read
+	 * @return 回调的返回值, 不是堆外缓存或key不存在时返回null
+	 * @throws IOException 回调抛出的异常
+	 */
+	public <R> R read(String cacheName, String key, OffHeapCache.Reader<R> reader) throws IOException {
+		OffHeapCache offHeapCache = offHeapCaches.get(cacheName);
+		return offHeapCache == null ? null : offHeapCache.read(key, reader);
+	}
+
+	/**
+	 * @功能: 按原始字节写入堆外缓存, 与read配合使用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:03:10
+	 * @param cacheName
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	public boolean putBytes(String cacheName, String key, byte[] value) {
+		OffHeapCache offHeapCache = offHeapCaches.get(cacheName);
+		return offHeapCache != null && offHeapCache.put(key, value);
+	}
+
+	/**
+	 * @功能: 获取统计信息, 包括通过EhCacheHandle的调用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午4:00:10
+	 * @return
+	 */
+	public CacheMetrics getMetrics() {
+		return metrics;
+	}
+
+	public OffHeapCache getOffHeapCache(String cacheName) {
+		return offHeapCaches.get(cacheName);
+	}
+
 	public void shutdown() {
+		caches.clear();
 		cacheManager.shutdown();
 		cacheManager = null;
+		for (OffHeapCache offHeapCache : offHeapCaches.values()) {
+			offHeapCache.clear();
+		}
+		offHeapCaches.clear();
 	}
 
 }
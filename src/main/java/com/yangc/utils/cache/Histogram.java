@@ -0,0 +1,112 @@
+package com.yangc.utils.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @功能: 并发的对数-线性直方图(类似HdrHistogram), 用于延迟和数据大小的分布
+ *
+ *      <pre>
+ * 每个2的幂区间分为32个子桶, 相对误差不超过约3%, 固定占用约15KB, 记录时无锁无分配
+ * 只能记录非负数, 负数按0记录
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午3:10:20
+ */
+public class Histogram {
+
+	// 每个2的幂区间的子桶数 = 2^SUB_BUCKET_BITS
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		this.counts.incrementAndGet(index(value));
+		this.count.incrementAndGet();
+		this.sum.addAndGet(value);
+		long current;
+		while (value > (current = this.max.get())) {
+			if (this.max.compareAndSet(current, value)) {
+				break;
+			}
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long count = this.count.get();
+		return count == 0 ? 0 : (double) this.sum.get() / count;
+	}
+
+	/**
+	 * @功能: 获取百分位数
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:12:40
+	 * @param percentile 0到100, 如99.9
+	 * @return 所在桶的上界, 不超过记录过的最大值, 没有记录时返回0
+	 */
+	public long getPercentile(double percentile) {
+		long count = this.count.get();
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += this.counts.get(i);
+			if (seen >= target) {
+				return Math.min(upperBound(i), this.max.get());
+			}
+		}
+		return this.max.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			this.counts.set(i, 0);
+		}
+		this.count.set(0);
+		this.sum.set(0);
+		this.max.set(0);
+	}
+
+	private static int index(long value) {
+		int msb = 63 - Long.numberOfLeadingZeros(value | 1);
+		if (msb < SUB_BUCKET_BITS) {
+			return (int) value;
+		}
+		int shift = msb - SUB_BUCKET_BITS;
+		return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	private static long upperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		long lower = (long) ((index & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+		return lower + (1L << shift) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.1f, p50=%d, p99=%d, p999=%d, max=%d", this.getCount(), this.getMean(), this.getPercentile(50), this.getPercentile(99), this.getPercentile(99.9),
+				this.getMax());
+	}
+
+}
@@ -0,0 +1,441 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import redis.clients.util.MurmurHash;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * @功能: 热点key探测
+ *
+ *      <pre>
+ * 按采样率抽样读请求, 用count-min sketch估算每个key的访问次数, 超过阈值的key进入top-K小顶堆
+ * 每个窗口结束时所有计数减半, 不再频繁访问的key逐渐移出热点
+ * 热点key可以在本地缓存很短的时间, 也可以把读请求分散到N个带后缀的副本key上(副本在不同的分片)
+ * 本地缓存和副本只在写入时失效当前进程的值, 其他进程依赖较短的存活时间
+ * 副本在存活时间内只由一个读请求写入一次, 冷却后在存活时间内写入仍然删除副本
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午1:20:10
+ */
+public class HotKeyDetector {
+
+	private static final Logger logger = LogManager.getLogger(HotKeyDetector.class);
+
+	// count-min sketch的行数和每行的计数器个数
+	private static final int DEPTH = 4;
+	private static final int WIDTH = 1 << 14;
+
+	private static final String REPLICA_SUFFIX = "#hot:";
+
+	private final int topK;
+	private final long threshold;
+	private final int sampleRate;
+	private final long localTtlMillis;
+	private final int replicas;
+
+	private final AtomicLongArray sketch = new AtomicLongArray(DEPTH * WIDTH);
+
+	// top-K小顶堆, 堆顶为计数最小的热点
+	private final PriorityQueue<HotKey> heap;
+	private final Map<String, HotKey> heapIndex = new HashMap<String, HotKey>();
+
+	// 当前的热点key, 读路径无锁判断
+	private final ConcurrentHashMap<String, HotKey> hotKeys = new ConcurrentHashMap<String, HotKey>();
+
+	// 堆满时堆顶的计数, 不超过该值的key不加锁直接忽略
+	private volatile long minHeapCount;
+
+	// 当前进程写入过副本的key及副本的过期时间
+	private final ConcurrentHashMap<String, Long> replicatedUntil = new ConcurrentHashMap<String, Long>();
+
+	private final ConcurrentHashMap<String, LocalValue> localValues = new ConcurrentHashMap<String, LocalValue>();
+
+	private final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+		@Override
+		protected Random initialValue() {
+			return new Random();
+		}
+	};
+
+	private final ScheduledExecutorService decayer;
+
+	/** 热点key及其估算的访问次数 */
+	public static class HotKey {
+		private final String key;
+		private volatile long count;
+		// 堆中排序使用的计数, 只在持有锁时修改, count在读路径无锁更新
+		private long heapCount;
+
+		HotKey(String key, long count) {
+			this.key = key;
+			this.count = count;
+			this.heapCount = count;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * @return 估算的访问次数(已按采样率放大, 包含之前窗口减半后的计数)
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.count;
+		}
+	}
+
+	private static class LocalValue {
+		private final Object value;
+		private final long expireAt;
+
+		LocalValue(Object value, long expireAt) {
+			this.value = value;
+			this.expireAt = expireAt;
+		}
+	}
+
+	/**
+	 * @param name 名称, 用于后台线程名
+	 * @param topK 最多保留的热点key个数
+	 * @param threshold 成为热点的估算访问次数
+	 * @param windowSeconds 计数减半的间隔(单位秒)
+	 * @param sampleRate 采样率, 每sampleRate次读请求抽样1次, 1为全部统计
+	 * @param localTtlMillis 热点key在本地缓存的时间(单位毫秒), 0为不缓存
+	 * @param replicas 热点key的副本个数, 0为不使用副本
+	 */
+	public HotKeyDetector(String name, int topK, long threshold, int windowSeconds, int sampleRate, long localTtlMillis, int replicas) {
+		if (topK <= 0 || threshold <= 0 || windowSeconds <= 0 || sampleRate <= 0 || localTtlMillis < 0 || replicas < 0) {
+			throw new IllegalArgumentException("Invalid hot key detector config");
+		}
+		this.topK = topK;
+		this.threshold = threshold;
+		this.sampleRate = sampleRate;
+		this.localTtlMillis = localTtlMillis;
+		this.replicas = replicas;
+		this.heap = new PriorityQueue<HotKey>(topK, new Comparator<HotKey>() {
+			@Override
+			public int compare(HotKey o1, HotKey o2) {
+				return o1.heapCount < o2.heapCount ? -1 : (o1.heapCount == o2.heapCount ? 0 : 1);
+			}
+		});
+
+		final String threadName = name + "-hot-key-decay";
+		this.decayer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, threadName);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.decayer.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					decay();
+				} catch (Exception e) {
+					logger.error("Failed to decay hot key counters", e);
+				}
+			}
+		}, windowSeconds, windowSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * @功能: 记录一次读请求
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:24:30
+	 * @param key
+	 * @return 是否为热点key
+	 */
+	public boolean record(String key) {
+		if (this.sampleRate == 1 || this.random.get().nextInt(this.sampleRate) == 0) {
+			long estimate = this.add(key, this.sampleRate);
+			if (estimate >= this.threshold) {
+				HotKey hotKey = this.hotKeys.get(key);
+				if (hotKey != null) {
+					// 已经是热点时只更新计数, 堆中的顺序在窗口结束时重建
+					if (estimate > hotKey.count) {
+						hotKey.count = estimate;
+					}
+				} else if (estimate > this.minHeapCount) {
+					this.offer(key, estimate);
+				}
+			}
+		}
+		return this.hotKeys.containsKey(key);
+	}
+
+	public boolean isHot(String key) {
+		return this.hotKeys.containsKey(key);
+	}
+
+	/**
+	 * @功能: 估算key的访问次数
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:25:15
+	 * @param key
+	 * @return
+	 */
+	public long estimate(String key) {
+		byte[] data = SafeEncoder.encode(key);
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < DEPTH; i++) {
+			min = Math.min(min, this.sketch.get(this.index(data, i)));
+		}
+		return min;
+	}
+
+	/**
+	 * @功能: 当前的热点key, 按访问次数从高到低
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:26:02
+	 * @return
+	 */
+	public List<HotKey> getHotKeys() {
+		List<HotKey> hotKeys = new ArrayList<HotKey>(this.hotKeys.values());
+		Collections.sort(hotKeys, new Comparator<HotKey>() {
+			@Override
+			public int compare(HotKey o1, HotKey o2) {
+				return o1.count > o2.count ? -1 : (o1.count == o2.count ? 0 : 1);
+			}
+		});
+		return hotKeys;
+	}
+
+	/**
+	 * @功能: 获取热点key的本地缓存
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:27:40
+	 * @param key
+	 * @return 不存在或已过期时返回null
+	 */
+	public Object getLocal(String key) {
+		LocalValue local = this.localValues.get(key);
+		if (local == null) {
+			return null;
+		}
+		if (System.currentTimeMillis() >= local.expireAt) {
+			this.localValues.remove(key, local);
+			return null;
+		}
+		return local.value;
+	}
+
+	/**
+	 * @功能: 本地缓存热点key的值, 非热点key忽略
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:28:15
+	 * @param key
+	 * @param value
+	 */
+	public void putLocal(String key, Object value) {
+		if (this.localTtlMillis > 0 && value != null && this.hotKeys.containsKey(key)) {
+			this.localValues.put(key, new LocalValue(value, System.currentTimeMillis() + this.localTtlMillis));
+		}
+	}
+
+	/**
+	 * @功能: 删除本地缓存, key写入时调用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:28:50
+	 * @param key
+	 */
+	public void invalidateLocal(String key) {
+		this.localValues.remove(key);
+	}
+
+	public int getReplicas() {
+		return replicas;
+	}
+
+	/**
+	 * @功能: 随机选择一个副本key
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:29:30
+	 * @param key
+	 * @return 不使用副本时返回null
+	 */
+	public String getReplicaKey(String key) {
+		if (this.replicas == 0) {
+			return null;
+		}
+		return key + REPLICA_SUFFIX + this.random.get().nextInt(this.replicas);
+	}
+
+	/**
+	 * @功能: 全部副本key, 删除副本时使用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:30:05
+	 * @param key
+	 * @return
+	 */
+	public List<String> getReplicaKeys(String key) {
+		List<String> keys = new ArrayList<String>(this.replicas);
+		for (int i = 0; i < this.replicas; i++) {
+			keys.add(key + REPLICA_SUFFIX + i);
+		}
+		return keys;
+	}
+
+	/**
+	 * @功能: 申请写入key的全部副本, 副本的存活时间内只有一个调用方获得, 避免并发未命中时反复写入
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午5:02:15
+	 * @param key
+	 * @param ttlSeconds 副本的存活时间(单位秒)
+	 * @return 是否应该写入副本
+	 */
+	public boolean tryReplicate(String key, int ttlSeconds) {
+		if (this.replicas == 0) {
+			return false;
+		}
+		long now = System.currentTimeMillis();
+		Long until = now + ttlSeconds * 1000L;
+		Long previous = this.replicatedUntil.get(key);
+		if (previous == null) {
+			return this.replicatedUntil.putIfAbsent(key, until) == null;
+		}
+		return previous <= now && this.replicatedUntil.replace(key, previous, until);
+	}
+
+	/**
+	 * @功能: key是否可能有副本(当前是热点, 或当前进程写入的副本还未过期), 写入时需要删除副本
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午5:03:40
+	 * @param key
+	 * @return
+	 */
+	public boolean hasReplicas(String key) {
+		if (this.replicas == 0) {
+			return false;
+		}
+		if (this.hotKeys.containsKey(key)) {
+			return true;
+		}
+		Long until = this.replicatedUntil.get(key);
+		return until != null && until > System.currentTimeMillis();
+	}
+
+	/**
+	 * @功能: 删除本地缓存并允许重新写入副本, key写入并删除副本后调用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午5:04:20
+	 * @param key
+	 */
+	public void invalidateReplicas(String key) {
+		this.localValues.remove(key);
+		this.replicatedUntil.remove(key);
+	}
+
+	public void shutdown() {
+		this.decayer.shutdown();
+	}
+
+	/**
+	 * @return 增加后的估算值
+	 */
+	private long add(String key, int count) {
+		byte[] data = SafeEncoder.encode(key);
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < DEPTH; i++) {
+			min = Math.min(min, this.sketch.addAndGet(this.index(data, i), count));
+		}
+		return min;
+	}
+
+	private int index(byte[] data, int row) {
+		int hash = MurmurHash.hash(data, row * 0x9747b28c + 1);
+		return row * WIDTH + (hash & (WIDTH - 1));
+	}
+
+	private synchronized void offer(String key, long estimate) {
+		if (this.heapIndex.containsKey(key)) {
+			return;
+		}
+		if (this.heap.size() >= this.topK) {
+			// 堆顶的计数可能在读路径上增加过, 先按最新的计数调整
+			HotKey top;
+			while ((top = this.heap.peek()).count > top.heapCount) {
+				this.heap.poll();
+				top.heapCount = top.count;
+				this.heap.offer(top);
+			}
+			if (top.heapCount >= estimate) {
+				this.updateMinHeapCount();
+				return;
+			}
+			HotKey evicted = this.heap.poll();
+			this.heapIndex.remove(evicted.key);
+			this.hotKeys.remove(evicted.key);
+			this.localValues.remove(evicted.key);
+		}
+		HotKey hotKey = new HotKey(key, estimate);
+		this.heap.offer(hotKey);
+		this.heapIndex.put(key, hotKey);
+		this.hotKeys.put(key, hotKey);
+		this.updateMinHeapCount();
+		logger.info("Hot key detected: " + hotKey);
+	}
+
+	private void updateMinHeapCount() {
+		this.minHeapCount = this.heap.size() >= this.topK ? this.heap.peek().heapCount : 0;
+	}
+
+	private synchronized void decay() {
+		for (int i = 0, len = this.sketch.length(); i < len; i++) {
+			long value;
+			do {
+				value = this.sketch.get(i);
+			} while (value > 0 && !this.sketch.compareAndSet(i, value, value >>> 1));
+		}
+		List<HotKey> remained = new ArrayList<HotKey>(this.heap.size());
+		for (Iterator<HotKey> it = this.heap.iterator(); it.hasNext();) {
+			HotKey hotKey = it.next();
+			// 读路径并发更新的计数允许丢失
+			hotKey.count = hotKey.count >>> 1;
+			hotKey.heapCount = hotKey.count;
+			if (hotKey.heapCount >= this.threshold) {
+				remained.add(hotKey);
+			} else {
+				this.heapIndex.remove(hotKey.key);
+				this.hotKeys.remove(hotKey.key);
+				this.localValues.remove(hotKey.key);
+				logger.info("Hot key cooled down: " + hotKey.key);
+			}
+		}
+		this.heap.clear();
+		this.heap.addAll(remained);
+		this.updateMinHeapCount();
+
+		long now = System.currentTimeMillis();
+		for (Iterator<Long> it = this.replicatedUntil.values().iterator(); it.hasNext();) {
+			if (it.next() <= now) {
+				it.remove();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.yangc.utils.cache;
+
+import java.io.UnsupportedEncodingException;
+
+import com.google.gson.reflect.TypeToken;
+import com.yangc.utils.json.JsonUtils;
+
+/**
+ * @功能: json编解码器, 不写头部, 与之前直接保存json字符串的数据互相兼容
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午1:38:02
+ */
+public class JsonRedisCodec implements RedisCodec {
+
+	public static final byte ID = 0;
+
+	private static final String CHARSET = "UTF-8";
+
+	@Override
+	public byte id() {
+		return ID;
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		try {
+			return JsonUtils.toJson(value).getBytes(CHARSET);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public <T> T decode(byte[] data, TypeToken<T> typeToken) {
+		if (data == null) {
+			return null;
+		}
+		// 其他编解码器写入的数据(切换编解码器之前保存的值)
+		if (data.length > 0 && data[0] == RedisCodecs.MAGIC) {
+			return RedisCodecs.decode(data, typeToken);
+		}
+		try {
+			return JsonUtils.fromJson(new String(data, CHARSET), typeToken);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,210 @@
+package com.yangc.utils.cache;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: 带加载器的缓存, 防止缓存击穿
+ *
+ *      <pre>
+ * 同一个key的并发未命中只会调用一次加载器(single-flight), 其他线程等待结果
+ * 到达刷新时间后返回当前值并在后台提前刷新(refresh-ahead)
+ * 过期后的一段时间内返回旧值并在后台刷新(stale-while-revalidate)
+ * 过期时间加上随机抖动, 避免大量key同时过期
+ * 合并只在当前进程内生效
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午8:36:20
+ */
+public class LoadingCache<V> {
+
+	private static final Logger logger = LogManager.getLogger(LoadingCache.class);
+
+	/** 后台刷新的最大线程数 */
+	private static final int REFRESH_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+	/** 后台刷新的最大排队数 */
+	private static final int REFRESH_QUEUE_SIZE = 1000;
+
+	/**
+	 * 线程数和队列都有上限, 加载器变慢时不会无限制地创建线程
+	 * 队列满时抛出RejectedExecutionException(而不是静默丢弃), SingleFlight才能移除这个key, 否则这个key以后再也不会刷新
+	 */
+	private static final ExecutorService REFRESH_EXECUTOR;
+
+	static {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(REFRESH_QUEUE_SIZE), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "loading-cache-refresh-" + this.count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		}, new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		REFRESH_EXECUTOR = executor;
+	}
+
+	/** 加载器 */
+	public interface Loader<V> {
+		/**
+		 * @return 返回null时不缓存
+		 */
+		V load(String key) throws Exception;
+	}
+
+	private final CacheStore<V> store;
+	private final Loader<V> loader;
+	private final int ttlSeconds;
+	private final int staleSeconds;
+	private final double refreshAheadFactor;
+	private final double jitter;
+
+	private final Random random = new Random();
+	private final SingleFlight<String, V> loading = new SingleFlight<String, V>();
+
+	/**
+	 * @param store 存储后端, 参见CacheStores
+	 * @param loader 加载器
+	 * @param ttlSeconds 存活时间(单位秒)
+	 */
+	public LoadingCache(CacheStore<V> store, Loader<V> loader, int ttlSeconds) {
+		this(store, loader, ttlSeconds, ttlSeconds, 0.8, 0.1);
+	}
+
+	/**
+	 * @param store 存储后端, 参见CacheStores
+	 * @param loader 加载器
+	 * @param ttlSeconds 存活时间(单位秒)
+	 * @param staleSeconds 过期后仍可返回旧值的时间(单位秒)
+	 * @param refreshAheadFactor 存活时间过去该比例后开始后台刷新, 大于等于1时不提前刷新
+	 * @param jitter 存活时间的随机抖动比例, 如0.1表示±10%
+	 */
+	public LoadingCache(CacheStore<V> store, Loader<V> loader, int ttlSeconds, int staleSeconds, double refreshAheadFactor, double jitter) {
+		if (store == null || loader == null) {
+			throw new IllegalArgumentException("The parameters must not be null");
+		}
+		if (ttlSeconds <= 0 || staleSeconds < 0 || refreshAheadFactor <= 0 || jitter < 0 || jitter >= 1) {
+			throw new IllegalArgumentException("Invalid loading cache ttl");
+		}
+		this.store = store;
+		this.loader = loader;
+		this.ttlSeconds = ttlSeconds;
+		this.staleSeconds = staleSeconds;
+		this.refreshAheadFactor = Math.min(refreshAheadFactor, 1);
+		this.jitter = jitter;
+	}
+
+	/**
+	 * @功能: 获取值, 不存在时加载
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:38:45
+	 * @param key
+	 * @return 加载失败返回null
+	 */
+	public V get(String key) {
+		CacheValue<V> cached = this.store.get(key);
+		long now = System.currentTimeMillis();
+		if (cached != null && now < cached.getStaleAt()) {
+			if (now >= cached.getRefreshAt()) {
+				this.refresh(key);
+			}
+			return cached.getValue();
+		}
+		return this.load(key, false);
+	}
+
+	/**
+	 * @功能: 在后台刷新, 同一个key正在加载时忽略, 刷新队列已满时放弃本次刷新, 继续返回旧值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:39:30
+	 * @param key
+	 */
+	public void refresh(String key) {
+		try {
+			this.loading.submit(key, new LoadTask(key, true), REFRESH_EXECUTOR);
+		} catch (RejectedExecutionException e) {
+			logger.debug("Refresh queue is full, skipped refresh of " + key);
+		} catch (RuntimeException e) {
+			logger.error("Failed to submit refresh of " + key, e);
+		}
+	}
+
+	/**
+	 * @功能: 直接设置值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:40:12
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	public boolean put(String key, V value) {
+		long now = System.currentTimeMillis();
+		long ttl = (long) (this.ttlSeconds * 1000L * (1 + this.jitter * (this.random.nextDouble() * 2 - 1)));
+		long expireAt = now + ttl;
+		long staleAt = expireAt + this.staleSeconds * 1000L;
+		CacheValue<V> cached = new CacheValue<V>(value, now + (long) (ttl * this.refreshAheadFactor), expireAt, staleAt);
+		return this.store.put(key, cached, (int) ((staleAt - now + 999) / 1000));
+	}
+
+	/**
+	 * @功能: 删除值, 下次get时重新加载
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午8:40:50
+	 * @param key
+	 * @return
+	 */
+	public boolean invalidate(String key) {
+		return this.store.delete(key);
+	}
+
+	private V load(String key, boolean force) {
+		try {
+			return this.loading.execute(key, new LoadTask(key, force));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.error("Failed to load " + key, e.getCause());
+		}
+		return null;
+	}
+
+	private class LoadTask implements Callable<V> {
+		private final String key;
+		private final boolean force;
+
+		LoadTask(String key, boolean force) {
+			this.key = key;
+			this.force = force;
+		}
+
+		@Override
+		public V call() throws Exception {
+			// 等待期间其他线程或进程可能已经加载完成
+			if (!this.force) {
+				CacheValue<V> cached = store.get(this.key);
+				if (cached != null && System.currentTimeMillis() < cached.getRefreshAt()) {
+					return cached.getValue();
+				}
+			}
+			V value = loader.load(this.key);
+			if (value != null) {
+				put(this.key, value);
+			}
+			return value;
+		}
+	}
+
+}
@@ -3,12 +3,19 @@ package com.yangc.utils.cache;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * @功能: 非线程安全的LRU缓存, 多线程环境下使用ConcurrentCache
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午7:20:10
+ */
 public class LruCacheUtils<K, V> extends LinkedHashMap<K, V> {
 
 	private static final long serialVersionUID = 1L;
 
 	private static final int DEFAULT_INITIAL_CAPACITY = 16;
 
+	private static final CacheMetrics metrics = CacheMetrics.getMetrics("lru");
+
 	private int capacity;
 
 	public LruCacheUtils() {
@@ -20,9 +27,28 @@ public class LruCacheUtils<K, V> extends LinkedHashMap<K, V> {
 		this.capacity = capacity;
 	}
 
+	/**
+	 * 全部实例的命中率合并统计在lru中
+	 */
+	@Override
+	public V get(Object key) {
+		long start = CacheMetrics.start();
+		V value = super.get(key);
+		if (value != null) {
+			metrics.hit("get", start);
+		} else {
+			metrics.miss("get", start);
+		}
+		return value;
+	}
+
 	@Override
 	protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-		return this.size() > this.capacity;
+		if (this.size() > this.capacity) {
+			metrics.count("evict");
+			return true;
+		}
+		return false;
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,160 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: MemcachedUtils和XMemcachedUtils的批量操作, 批与批之间等待完成, 限制同时进行的命令数
+ *
+ *      <pre>
+ * execute: 客户端没有异步接口时(whalin), 每批的命令在线程池中并行执行, 每个命令仍是一次同步调用
+ * pipeline: 客户端可以不等待响应连续发送时(xmemcached), 每批的命令连续发送后再统一等待响应, 一批只需要一次往返
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 上午10:12:30
+ */
+final class MemcachedBatches {
+
+	private static final Logger logger = LogManager.getLogger(MemcachedBatches.class);
+
+	/** 单个key的操作 */
+	interface Operation {
+		boolean execute(String key) throws Exception;
+	}
+
+	/** 单个key的异步操作, 发送命令后立即返回 */
+	interface AsyncOperation {
+		Future<Boolean> send(String key) throws Exception;
+	}
+
+	private MemcachedBatches() {
+	}
+
+	/**
+	 * @功能: 分批并行执行
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:13:40
+	 * @param executor
+	 * @param keys
+	 * @param batchSize 每批的最大命令数
+	 * @param operation
+	 * @return 按keys顺序的执行结果, 出错的key为false
+	 * @throws InterruptedException
+	 */
+	static Map<String, Boolean> execute(ExecutorService executor, List<String> keys, int batchSize, final Operation operation) throws InterruptedException {
+		Map<String, Boolean> results = new LinkedHashMap<String, Boolean>();
+		for (int from = 0, size = keys.size(); from < size; from += batchSize) {
+			List<String> batch = keys.subList(from, Math.min(from + batchSize, size));
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(batch.size());
+			for (final String key : batch) {
+				futures.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						return operation.execute(key);
+					}
+				}));
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				try {
+					results.put(batch.get(i), futures.get(i).get());
+				} catch (ExecutionException e) {
+					logger.error("Failed to execute memcached command on " + batch.get(i), e.getCause());
+					results.put(batch.get(i), false);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * @功能: 分批发送, 每批的命令全部发送之后再等待响应
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午4:20:10
+	 * @param keys
+	 * @param batchSize 每批的最大命令数
+	 * @param operation
+	 * @return 按keys顺序的执行结果, 出错的key为false
+	 * @throws InterruptedException
+	 */
+	static Map<String, Boolean> pipeline(List<String> keys, int batchSize, AsyncOperation operation) throws InterruptedException {
+		Map<String, Boolean> results = new LinkedHashMap<String, Boolean>();
+		for (int from = 0, size = keys.size(); from < size; from += batchSize) {
+			List<String> batch = keys.subList(from, Math.min(from + batchSize, size));
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(batch.size());
+			for (String key : batch) {
+				try {
+					futures.add(operation.send(key));
+				} catch (Exception e) {
+					logger.error("Failed to send memcached command on " + key, e);
+					futures.add(null);
+				}
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				Future<Boolean> future = futures.get(i);
+				boolean result = false;
+				if (future != null) {
+					try {
+						result = Boolean.TRUE.equals(future.get());
+					} catch (ExecutionException e) {
+						logger.error("Failed to execute memcached command on " + batch.get(i), e.getCause());
+					}
+				}
+				results.put(batch.get(i), result);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * @功能: 已经失败的Future, 命令无法发送时返回
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午4:21:30
+	 * @param e
+	 * @return
+	 */
+	static <T> Future<T> failed(final Exception e) {
+		FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				throw e;
+			}
+		});
+		task.run();
+		return task;
+	}
+
+	static boolean allTrue(Map<String, Boolean> results) {
+		for (Boolean result : results.values()) {
+			if (!result) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static ThreadFactory newThreadFactory(final String prefix) {
+		return new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, prefix + this.count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,192 @@
+package com.yangc.utils.cache;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: memcached服务器健康检查
+ *
+ *      <pre>
+ * 并行检查所有服务器, 每个服务器建立连接并发送version命令, 超时或响应不是VERSION时视为不可用, 整体耗时不超过一次超时时间
+ * 后台定期检查, 连续FAILURES_TO_REMOVE次不可用时移除, 一次可用时恢复, 变化时回调
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 上午11:10:20
+ */
+public class MemcachedHealthChecker {
+
+	private static final Logger logger = LogManager.getLogger(MemcachedHealthChecker.class);
+
+	/** 连续不可用该次数后移除, 避免网络抖动时频繁增删 */
+	public static final int FAILURES_TO_REMOVE = 2;
+
+	private static final ExecutorService PROBE_EXECUTOR = Executors.newCachedThreadPool(MemcachedBatches.newThreadFactory("memcached-probe-"));
+
+	/** 可用服务器变化的回调 */
+	public interface Listener {
+		/**
+		 * @param alive 当前可用的服务器, 与配置的顺序相同
+		 * @param added 恢复的服务器
+		 * @param removed 移除的服务器
+		 */
+		void onChange(List<String> alive, List<String> added, List<String> removed);
+	}
+
+	private final List<String> servers;
+	private final int timeoutMillis;
+	private final Listener listener;
+	private final ScheduledExecutorService monitor;
+
+	private volatile List<String> alive;
+	private final Map<String, Integer> failures = new HashMap<String, Integer>();
+
+	/**
+	 * @param servers 配置的全部服务器(host:port)
+	 * @param alive 当前可用的服务器
+	 * @param timeoutMillis 单个服务器的检查超时(单位毫秒)
+	 * @param intervalSeconds 检查间隔(单位秒)
+	 * @param listener
+	 */
+	public MemcachedHealthChecker(List<String> servers, List<String> alive, int timeoutMillis, int intervalSeconds, Listener listener) {
+		if (servers == null || alive == null || timeoutMillis <= 0 || intervalSeconds <= 0 || listener == null) {
+			throw new IllegalArgumentException("Invalid memcached health check config");
+		}
+		this.servers = new ArrayList<String>(servers);
+		this.alive = Collections.unmodifiableList(new ArrayList<String>(alive));
+		this.timeoutMillis = timeoutMillis;
+		this.listener = listener;
+		this.monitor = Executors.newSingleThreadScheduledExecutor(MemcachedBatches.newThreadFactory("memcached-monitor-"));
+		this.monitor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				check();
+			}
+		}, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * @功能: 并行检查服务器
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午11:12:40
+	 * @param servers host:port
+	 * @param timeoutMillis 单个服务器的连接和响应超时(单位毫秒)
+	 * @return 可用的服务器, 与servers的顺序相同
+	 */
+	public static List<String> probe(List<String> servers, final int timeoutMillis) {
+		List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(servers.size());
+		for (final String server : servers) {
+			futures.add(PROBE_EXECUTOR.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					return probe(server, timeoutMillis);
+				}
+			}));
+		}
+
+		List<String> alive = new ArrayList<String>(servers.size());
+		// 连接和读取各有一次超时
+		long deadline = System.currentTimeMillis() + timeoutMillis * 2L;
+		for (int i = 0; i < servers.size(); i++) {
+			Future<Boolean> future = futures.get(i);
+			try {
+				if (future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS)) {
+					alive.add(servers.get(i));
+				}
+			} catch (TimeoutException e) {
+				future.cancel(true);
+				logger.warn("Memcached server " + servers.get(i) + " did not respond in " + timeoutMillis + "ms");
+			} catch (ExecutionException e) {
+				logger.warn("Memcached server " + servers.get(i) + " is unavailable: " + e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return alive;
+	}
+
+	private static boolean probe(String server, int timeoutMillis) throws Exception {
+		int seg = server.lastIndexOf(":");
+		Socket socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(server.substring(0, seg), Integer.parseInt(server.substring(seg + 1))), timeoutMillis);
+			socket.setSoTimeout(timeoutMillis);
+			OutputStream out = socket.getOutputStream();
+			out.write("version\r\n".getBytes("UTF-8"));
+			out.flush();
+			String line = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")).readLine();
+			return line != null && line.startsWith("VERSION");
+		} finally {
+			socket.close();
+		}
+	}
+
+	private void check() {
+		try {
+			List<String> probed = probe(this.servers, this.timeoutMillis);
+			List<String> current = this.alive;
+			List<String> alive = new ArrayList<String>(this.servers.size());
+			List<String> added = new ArrayList<String>();
+			List<String> removed = new ArrayList<String>();
+			for (String server : this.servers) {
+				boolean wasAlive = current.contains(server);
+				if (probed.contains(server)) {
+					this.failures.remove(server);
+					alive.add(server);
+					if (!wasAlive) {
+						added.add(server);
+					}
+				} else if (wasAlive) {
+					Integer count = this.failures.get(server);
+					count = count == null ? 1 : count + 1;
+					this.failures.put(server, count);
+					if (count >= FAILURES_TO_REMOVE) {
+						removed.add(server);
+					} else {
+						alive.add(server);
+					}
+				}
+			}
+			if (!added.isEmpty() || !removed.isEmpty()) {
+				logger.info("Memcached servers changed, added " + added + ", removed " + removed);
+				this.alive = Collections.unmodifiableList(alive);
+				this.listener.onChange(this.alive, added, removed);
+			}
+		} catch (Exception e) {
+			logger.error("Failed to check memcached servers", e);
+		}
+	}
+
+	public List<String> getAliveServers() {
+		return alive;
+	}
+
+	/**
+	 * @功能: 停止后台检查
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午11:15:10
+	 */
+	public void shutdown() {
+		this.monitor.shutdownNow();
+	}
+
+}
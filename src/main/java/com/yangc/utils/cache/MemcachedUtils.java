@@ -1,18 +1,31 @@
 package com.yangc.utils.cache;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.net.telnet.TelnetClient;
+import org.apache.commons.collections4.MapUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.schooner.MemCached.ObjectTransCoder;
+import com.schooner.MemCached.SockOutputStream;
+import com.schooner.MemCached.TransCoder;
 import com.whalin.MemCached.MemCachedClient;
 import com.whalin.MemCached.SockIOPool;
+import com.yangc.utils.prop.ConfigListener;
+import com.yangc.utils.prop.ConfigRegistry;
 import com.yangc.utils.prop.PropertiesUtils;
 
 public class MemcachedUtils {
@@ -25,11 +38,40 @@ public class MemcachedUtils {
 	private static Integer[] weights = { 1 };
 	private static final Map<String, String> serverConfig = new HashMap<String, String>();
 
+	// 配置的全部服务器及权重, 包括不可用的
+	private static final Map<String, Integer> configuredServers = new LinkedHashMap<String, Integer>();
+
 	// 是否启用memcached
 	private static final AtomicBoolean isUsed = new AtomicBoolean();
 
 	private static SockIOPool pool;
 
+	// 服务器变化时创建新的连接池并切换, 旧的连接池延迟关闭, 切换期间请求不中断
+	private static volatile String poolName;
+	private static final AtomicInteger poolGeneration = new AtomicInteger();
+	private static final ScheduledExecutorService poolRetirer = Executors.newSingleThreadScheduledExecutor(MemcachedBatches.newThreadFactory("memcached-pool-retire-"));
+
+	// 后台健康检查, memcached.monitorSeconds为0时为null
+	private static MemcachedHealthChecker healthChecker;
+
+	// 批量操作的线程池, 客户端没有pipeline, 每批的命令在连接池的多个连接上并行执行
+	private static ExecutorService asyncExecutor;
+
+	// 写缓冲, 首次使用时创建
+	private static MemcachedWriteBehind writeBehind;
+
+	private static final CacheMetrics metrics = CacheMetrics.getMetrics("memcached");
+
+	// 统计序列化后的数据大小, 基本类型由客户端直接编码, 不经过transcoder
+	private static final TransCoder TRANS_CODER = new ObjectTransCoder() {
+		@Override
+		public int encode(SockOutputStream out, Object object) throws IOException {
+			int size = super.encode(out, object);
+			metrics.size("set", size);
+			return size;
+		}
+	};
+
 	private static class InstanceHolder {
 		private static final MemcachedUtils instance = new MemcachedUtils();
 	}
@@ -39,6 +81,16 @@ public class MemcachedUtils {
 		initConfig();
 		logger.info("=================== 初始化 memcached ===============");
 		initMemcached();
+		asyncExecutor = Executors.newFixedThreadPool(MapUtils.getIntValue(serverConfig, "asyncThreads"), MemcachedBatches.newThreadFactory("memcached-async-"));
+		startHealthChecker();
+
+		// 配置文件变化时重新加载
+		ConfigRegistry.addListener(FILE_PATH, new ConfigListener() {
+			@Override
+			public void onChange(String filePath, Map<String, String> previous, Map<String, String> current) {
+				reloadMemcached();
+			}
+		});
 	}
 
 	public static MemcachedUtils getInstance() {
@@ -46,37 +98,17 @@ public class MemcachedUtils {
 	}
 
 	/**
-	 * @功能: 初始化参数配置
+	 * @功能: 初始化参数配置, 并行检查服务器是否可用
 	 * @作者: yangc
 	 * @创建日期: 2014年3月29日 下午10:46:55
 	 */
 	private void initConfig() {
-		String[] sers = PropertiesUtils.getProperty(FILE_PATH, "memcached.servers").split(",");
-		String[] wgts = PropertiesUtils.getProperty(FILE_PATH, "memcached.weights").split(",");
-		List<Integer> serverUsed = new ArrayList<Integer>();
-
-		TelnetClient telnet = new TelnetClient();
-		for (int i = 0, len = sers.length; i < len; i++) {
-			int seg = sers[i].indexOf(":");
-			try {
-				telnet.connect(sers[i].substring(0, seg), Integer.parseInt(sers[i].substring(seg + 1)));
-				telnet.disconnect();
-				serverUsed.add(i);
-			} catch (Exception e) {
-			}
-		}
-		int serverCount = serverUsed.size();
-		if (serverCount == 0) {
-			isUsed.set(false);
-			return;
-		}
-
-		servers = new String[serverCount];
-		weights = new Integer[serverCount];
-		for (int i = 0; i < serverCount; i++) {
-			servers[i] = sers[serverUsed.get(i)];
-			weights[i] = Integer.parseInt(wgts[serverUsed.get(i)]);
-		}
+		serverConfig.put("batchSize", PropertiesUtils.getProperty(FILE_PATH, "memcached.batchSize", "500"));
+		serverConfig.put("asyncThreads", PropertiesUtils.getProperty(FILE_PATH, "memcached.asyncThreads", "16"));
+		serverConfig.put("writeBehindMillis", PropertiesUtils.getProperty(FILE_PATH, "memcached.writeBehindMillis", "50"));
+		serverConfig.put("writeBehindRetries", PropertiesUtils.getProperty(FILE_PATH, "memcached.writeBehindRetries", "3"));
+		serverConfig.put("probeTimeoutMillis", PropertiesUtils.getProperty(FILE_PATH, "memcached.probeTimeoutMillis", "1000"));
+		serverConfig.put("monitorSeconds", PropertiesUtils.getProperty(FILE_PATH, "memcached.monitorSeconds", "10"));
 
 		serverConfig.put("initConn", PropertiesUtils.getProperty(FILE_PATH, "memcached.initConn", "8"));
 		serverConfig.put("minConn", PropertiesUtils.getProperty(FILE_PATH, "memcached.minConn", "8"));
@@ -85,6 +117,27 @@ public class MemcachedUtils {
 		serverConfig.put("maintSleep", PropertiesUtils.getProperty(FILE_PATH, "memcached.maintSleep", "30000"));
 		serverConfig.put("socketConnTO", PropertiesUtils.getProperty(FILE_PATH, "memcached.socketConnTO", "0"));
 		serverConfig.put("socketTO", PropertiesUtils.getProperty(FILE_PATH, "memcached.socketTO", "10000"));
+
+		String[] sers = PropertiesUtils.getProperty(FILE_PATH, "memcached.servers").split(",");
+		String[] wgts = PropertiesUtils.getProperty(FILE_PATH, "memcached.weights").split(",");
+		configuredServers.clear();
+		for (int i = 0, len = sers.length; i < len; i++) {
+			configuredServers.put(sers[i].trim(), Integer.parseInt(wgts[i].trim()));
+		}
+		this.setServers(MemcachedHealthChecker.probe(new ArrayList<String>(configuredServers.keySet()), MapUtils.getIntValue(serverConfig, "probeTimeoutMillis")));
+	}
+
+	private void setServers(List<String> alive) {
+		if (alive.isEmpty()) {
+			// 连接池已经创建时保留最后已知的服务器, 全部不可用多半是网络问题, 连接池会自动重连
+			if (pool == null) {
+				isUsed.set(false);
+			}
+			return;
+		}
+		servers = alive.toArray(new String[alive.size()]);
+		weights = this.getWeights(alive);
+		isUsed.set(true);
 	}
 
 	private void initMemcached() {
@@ -93,7 +146,8 @@ public class MemcachedUtils {
 			return;
 		}
 
-		pool = SockIOPool.getInstance();
+		String name = "memcached-" + poolGeneration.incrementAndGet();
+		SockIOPool pool = SockIOPool.getInstance(name);
 
 		// 服务器地址
 		pool.setServers(servers);
@@ -120,23 +174,80 @@ public class MemcachedUtils {
 		pool.setSocketTO(Integer.parseInt(serverConfig.get("socketTO")));
 
 		pool.initialize();
+
+		// 先切换再关闭旧的连接池, 等待正在进行的请求完成
+		final SockIOPool previous = MemcachedUtils.pool;
+		MemcachedUtils.pool = pool;
+		poolName = name;
+		if (previous != null) {
+			poolRetirer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					previous.shutDown();
+				}
+			}, Integer.parseInt(serverConfig.get("socketTO")) + 1000L, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void startHealthChecker() {
+		int monitorSeconds = MapUtils.getIntValue(serverConfig, "monitorSeconds");
+		if (monitorSeconds <= 0) {
+			return;
+		}
+		healthChecker = new MemcachedHealthChecker(new ArrayList<String>(configuredServers.keySet()), isUsed.get() ? Arrays.asList(servers) : new ArrayList<String>(),
+				MapUtils.getIntValue(serverConfig, "probeTimeoutMillis"), monitorSeconds, new MemcachedHealthChecker.Listener() {
+					@Override
+					public void onChange(List<String> alive, List<String> added, List<String> removed) {
+						applyServers(alive);
+					}
+				});
+	}
+
+	/**
+	 * @功能: 可用的服务器变化时创建新的连接池并切换, 请求不中断
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午11:40:15
+	 * @param alive 当前可用的服务器, 为空时保留最后已知的服务器
+	 */
+	private synchronized void applyServers(List<String> alive) {
+		if (isUsed.get() && pool != null) {
+			if (alive.isEmpty()) {
+				logger.error("No memcached server is available, keeping " + Arrays.toString(servers));
+				return;
+			}
+			if (Arrays.asList(servers).equals(alive) && Arrays.equals(weights, this.getWeights(alive))) {
+				return;
+			}
+		}
+		this.setServers(alive);
+		this.initMemcached();
+	}
+
+	private Integer[] getWeights(List<String> alive) {
+		Integer[] weights = new Integer[alive.size()];
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = configuredServers.get(alive.get(i));
+		}
+		return weights;
 	}
 
 	/**
-	 * @功能: 重新加载memcached客户端
+	 * @功能: 重新加载配置, 创建新的连接池并切换, 不中断请求
 	 * @作者: yangc
 	 * @创建日期: 2016年4月27日 下午5:11:58
 	 * @return
 	 */
 	public synchronized boolean reloadMemcached() {
-		if (pool != null) {
-			pool.shutDown();
-			pool = null;
+		if (healthChecker != null) {
+			healthChecker.shutdown();
+			healthChecker = null;
 		}
 		logger.info("=================== 初始化配置文件 ===================");
 		initConfig();
 		logger.info("=================== 初始化 memcached ===============");
+		// 配置的连接池参数可能已变化, 总是重建
 		initMemcached();
+		startHealthChecker();
 		return isUsed.get();
 	}
 
@@ -147,7 +258,19 @@ public class MemcachedUtils {
 	 * @return
 	 */
 	public MemCachedClient getMemCachedClient() {
-		return new MemCachedClient();
+		MemCachedClient client = new MemCachedClient(poolName);
+		client.setTransCoder(TRANS_CODER);
+		return client;
+	}
+
+	/**
+	 * @功能: 获取统计信息, 客户端内部处理了异常, set返回false时计为错误
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:50:10
+	 * @return
+	 */
+	public CacheMetrics getMetrics() {
+		return metrics;
 	}
 
 	/**
@@ -170,7 +293,10 @@ public class MemcachedUtils {
 	 */
 	public boolean add(String key, Object value) {
 		if (this.isUsedMemcached()) {
-			return this.getMemCachedClient().add(key, value);
+			long start = CacheMetrics.start();
+			boolean result = this.getMemCachedClient().add(key, value);
+			metrics.success("add", start);
+			return result;
 		}
 		return false;
 	}
@@ -186,7 +312,10 @@ public class MemcachedUtils {
 	 */
 	public boolean add(String key, Object value, Date date) {
 		if (this.isUsedMemcached()) {
-			return this.getMemCachedClient().add(key, value, date);
+			long start = CacheMetrics.start();
+			boolean result = this.getMemCachedClient().add(key, value, date);
+			metrics.success("add", start);
+			return result;
 		}
 		return false;
 	}
@@ -201,7 +330,14 @@ public class MemcachedUtils {
 	 */
 	public boolean set(String key, Object value) {
 		if (this.isUsedMemcached()) {
-			return this.getMemCachedClient().set(key, value);
+			long start = CacheMetrics.start();
+			boolean result = this.getMemCachedClient().set(key, value);
+			if (result) {
+				metrics.success("set", start);
+			} else {
+				metrics.error("set", start);
+			}
+			return result;
 		}
 		return false;
 	}
@@ -217,7 +353,14 @@ public class MemcachedUtils {
 	 */
 	public boolean set(String key, Object value, Date date) {
 		if (this.isUsedMemcached()) {
-			return this.getMemCachedClient().set(key, value, date);
+			long start = CacheMetrics.start();
+			boolean result = this.getMemCachedClient().set(key, value, date);
+			if (result) {
+				metrics.success("set", start);
+			} else {
+				metrics.error("set", start);
+			}
+			return result;
 		}
 		return false;
 	}
@@ -232,7 +375,10 @@ public class MemcachedUtils {
 	 */
 	public boolean replace(String key, Object value) {
 		if (this.isUsedMemcached()) {
-			return this.getMemCachedClient().replace(key, value);
+			long start = CacheMetrics.start();
+			boolean result = this.getMemCachedClient().replace(key, value);
+			metrics.success("replace", start);
+			return result;
 		}
 		return false;
 	}
@@ -248,7 +394,10 @@ public class MemcachedUtils {
 	 */
 	public boolean replace(String key, Object value, Date date) {
 		if (this.isUsedMemcached()) {
-			return this.getMemCachedClient().replace(key, value, date);
+			long start = CacheMetrics.start();
+			boolean result = this.getMemCachedClient().replace(key, value, date);
+			metrics.success("replace", start);
+			return result;
 		}
 		return false;
 	}
@@ -263,7 +412,14 @@ public class MemcachedUtils {
 	 */
 	public <T> T get(String key, Class<T> clazz) {
 		if (this.isUsedMemcached()) {
-			return clazz.cast(this.getMemCachedClient().get(key));
+			long start = CacheMetrics.start();
+			Object value = this.getMemCachedClient().get(key);
+			if (value != null) {
+				metrics.hit("get", start);
+			} else {
+				metrics.miss("get", start);
+			}
+			return clazz.cast(value);
 		}
 		return null;
 	}
@@ -291,7 +447,10 @@ public class MemcachedUtils {
 	 */
 	public boolean delete(String key) {
 		if (this.isUsedMemcached()) {
-			return this.getMemCachedClient().delete(key);
+			long start = CacheMetrics.start();
+			boolean result = this.getMemCachedClient().delete(key);
+			metrics.success("delete", start);
+			return result;
 		}
 		return false;
 	}
@@ -309,4 +468,100 @@ public class MemcachedUtils {
 		return false;
 	}
 
+	/**
+	 * @功能: 批量插入或更新记录, 每批的命令在连接池的多个连接上并行执行(客户端不支持pipeline, 每条命令仍是一次往返)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:45:20
+	 * @param map
+	 * @param date 超时日期, 为null时不过期
+	 * @return 每个key的执行结果
+	 */
+	public Map<String, Boolean> setMulti(final Map<String, ?> map, final Date date) {
+		if (this.isUsedMemcached()) {
+			try {
+				return MemcachedBatches.execute(asyncExecutor, new ArrayList<String>(map.keySet()), MapUtils.getIntValue(serverConfig, "batchSize"), new MemcachedBatches.Operation() {
+					@Override
+					public boolean execute(String key) throws Exception {
+						return date == null ? set(key, map.get(key)) : set(key, map.get(key), date);
+					}
+				});
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 批量插入新记录, 每批的命令在连接池的多个连接上并行执行(客户端不支持pipeline, 每条命令仍是一次往返)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:46:05
+	 * @param map
+	 * @param date 超时日期, 为null时不过期
+	 * @return 每个key的执行结果, key已存在时为false
+	 */
+	public Map<String, Boolean> addMulti(final Map<String, ?> map, final Date date) {
+		if (this.isUsedMemcached()) {
+			try {
+				return MemcachedBatches.execute(asyncExecutor, new ArrayList<String>(map.keySet()), MapUtils.getIntValue(serverConfig, "batchSize"), new MemcachedBatches.Operation() {
+					@Override
+					public boolean execute(String key) throws Exception {
+						return date == null ? add(key, map.get(key)) : add(key, map.get(key), date);
+					}
+				});
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 批量删除记录, 每批的命令在连接池的多个连接上并行执行(客户端不支持pipeline, 每条命令仍是一次往返)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:46:40
+	 * @param keys
+	 * @return 每个key的执行结果, key不存在时为false
+	 */
+	public Map<String, Boolean> deleteMulti(String[] keys) {
+		if (this.isUsedMemcached()) {
+			try {
+				return MemcachedBatches.execute(asyncExecutor, Arrays.asList(keys), MapUtils.getIntValue(serverConfig, "batchSize"), new MemcachedBatches.Operation() {
+					@Override
+					public boolean execute(String key) throws Exception {
+						return delete(key);
+					}
+				});
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 获取写缓冲, 窗口内同一个key的多次写入只写入最后一次, 通过setMulti/deleteMulti批量写入
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:49:40
+	 * @return
+	 */
+	public synchronized MemcachedWriteBehind getWriteBehind() {
+		if (writeBehind == null) {
+			writeBehind = new MemcachedWriteBehind(new MemcachedWriteBehind.Writer() {
+				@Override
+				public boolean setMulti(Map<String, Object> values, int exp) {
+					Map<String, Boolean> results = MemcachedUtils.this.setMulti(values, exp == 0 ? null : new Date(System.currentTimeMillis() + exp * 1000L));
+					return results != null && MemcachedBatches.allTrue(results);
+				}
+
+				@Override
+				public boolean deleteMulti(List<String> keys) {
+					// 删除不存在的key返回false, 只关心是否执行
+					return MemcachedUtils.this.deleteMulti(keys.toArray(new String[keys.size()])) != null;
+				}
+			}, MapUtils.getIntValue(serverConfig, "batchSize"), MapUtils.getLongValue(serverConfig, "writeBehindMillis"), MapUtils.getIntValue(serverConfig, "writeBehindRetries"));
+		}
+		return writeBehind;
+	}
+
 }
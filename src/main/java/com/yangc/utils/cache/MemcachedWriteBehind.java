@@ -0,0 +1,311 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: memcached写缓冲
+ *
+ *      <pre>
+ * 写入先放入缓冲, 同一个key在窗口内的多次写入(包括删除)只保留最后一次, 按时间窗口或批量大小批量写入
+ * 适用于预热等大量写入的场景, 窗口内的写入对读不可见, 进程崩溃时丢失
+ * 写入失败的批次放回缓冲, 在下一个窗口重试(期间同一个key有新的写入时以新的为准), 超过重试次数后交给FailureHandler
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 上午10:20:15
+ */
+public class MemcachedWriteBehind {
+
+	private static final Logger logger = LogManager.getLogger(MemcachedWriteBehind.class);
+
+	/** 批量写入的目标 */
+	public interface Writer {
+		/**
+		 * @param values 失效时间相同的一批记录
+		 * @param exp 失效时间(单位秒)
+		 */
+		boolean setMulti(Map<String, Object> values, int exp);
+
+		boolean deleteMulti(List<String> keys);
+	}
+
+	/** 超过重试次数仍然失败的写入, 由调用方记录或补偿 */
+	public interface FailureHandler {
+		/**
+		 * @param values 失效时间相同的一批记录
+		 * @param exp 失效时间(单位秒)
+		 */
+		void onSetFailure(Map<String, Object> values, int exp);
+
+		void onDeleteFailure(List<String> keys);
+	}
+
+	private static class Pending {
+		private final Object value;
+		private final int exp;
+		private final boolean delete;
+		// 已经失败的次数
+		private final int attempts;
+
+		Pending(Object value, int exp, boolean delete, int attempts) {
+			this.value = value;
+			this.exp = exp;
+			this.delete = delete;
+			this.attempts = attempts;
+		}
+	}
+
+	private final Writer writer;
+	private final int batchSize;
+	private final int maxRetries;
+	private volatile FailureHandler failureHandler;
+
+	private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<String, Pending>();
+	private final ScheduledExecutorService flusher;
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private final AtomicLong writeCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong failedBatchCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/**
+	 * @param writer
+	 * @param batchSize 每批写入的最大条数, 缓冲达到该数量时立即写入
+	 * @param windowMillis 写入间隔(单位毫秒)
+	 */
+	public MemcachedWriteBehind(Writer writer, int batchSize, long windowMillis) {
+		this(writer, batchSize, windowMillis, 3);
+	}
+
+	/**
+	 * @param writer
+	 * @param batchSize 每批写入的最大条数, 缓冲达到该数量时立即写入
+	 * @param windowMillis 写入间隔(单位毫秒)
+	 * @param maxRetries 写入失败后的重试次数, 0为不重试
+	 */
+	public MemcachedWriteBehind(Writer writer, int batchSize, long windowMillis, int maxRetries) {
+		if (writer == null || batchSize <= 0 || windowMillis <= 0 || maxRetries < 0) {
+			throw new IllegalArgumentException("Invalid write behind config");
+		}
+		this.writer = writer;
+		this.batchSize = batchSize;
+		this.maxRetries = maxRetries;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(MemcachedBatches.newThreadFactory("memcached-write-behind-"));
+		this.flusher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @功能: 缓冲写入
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:22:40
+	 * @param key
+	 * @param value
+	 * @param exp 失效时间(单位秒)
+	 */
+	public void set(String key, Object value, int exp) {
+		this.offer(key, new Pending(value, exp, false, 0));
+	}
+
+	/**
+	 * @功能: 缓冲删除, 覆盖缓冲中同一个key的写入
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:23:15
+	 * @param key
+	 */
+	public void delete(String key) {
+		this.offer(key, new Pending(null, 0, true, 0));
+	}
+
+	private void offer(String key, Pending value) {
+		this.writeCount.incrementAndGet();
+		if (this.pending.put(key, value) != null) {
+			this.coalescedCount.incrementAndGet();
+		}
+		if (this.pending.size() >= this.batchSize && this.flushScheduled.compareAndSet(false, true)) {
+			this.flusher.execute(new Runnable() {
+				@Override
+				public void run() {
+					flush();
+				}
+			});
+		}
+	}
+
+	/**
+	 * @功能: 设置超过重试次数仍然失败时的处理, 为null时只记录日志
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午4:30:12
+	 * @param failureHandler
+	 */
+	public void setFailureHandler(FailureHandler failureHandler) {
+		this.failureHandler = failureHandler;
+	}
+
+	/**
+	 * @功能: 立即写入全部缓冲, 失败的写入放回缓冲等待下一次写入
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:24:02
+	 */
+	public synchronized void flush() {
+		this.flushScheduled.set(false);
+		// 本次失败的写入在循环结束后放回, 避免在服务不可用时反复重试
+		Map<String, Pending> retries = new LinkedHashMap<String, Pending>();
+		while (!this.pending.isEmpty()) {
+			// 按失效时间分组
+			Map<Integer, Map<String, Pending>> sets = new HashMap<Integer, Map<String, Pending>>();
+			Map<String, Pending> deletes = new LinkedHashMap<String, Pending>();
+			int count = 0;
+			Iterator<Entry<String, Pending>> it = this.pending.entrySet().iterator();
+			while (it.hasNext() && count < this.batchSize) {
+				Entry<String, Pending> entry = it.next();
+				Pending value = entry.getValue();
+				// 只有值未被再次修改时才移出缓冲
+				if (!this.pending.remove(entry.getKey(), value)) {
+					continue;
+				}
+				count++;
+				if (value.delete) {
+					deletes.put(entry.getKey(), value);
+				} else {
+					Map<String, Pending> values = sets.get(value.exp);
+					if (values == null) {
+						values = new LinkedHashMap<String, Pending>();
+						sets.put(value.exp, values);
+					}
+					values.put(entry.getKey(), value);
+				}
+			}
+			for (Entry<Integer, Map<String, Pending>> entry : sets.entrySet()) {
+				Map<String, Object> values = new LinkedHashMap<String, Object>();
+				for (Entry<String, Pending> value : entry.getValue().entrySet()) {
+					values.put(value.getKey(), value.getValue().value);
+				}
+				boolean success = false;
+				try {
+					success = this.writer.setMulti(values, entry.getKey());
+				} catch (Exception e) {
+					logger.error("Failed to write " + values.size() + " values to memcached", e);
+				}
+				if (!success) {
+					this.failed(entry.getValue(), retries);
+				}
+			}
+			if (!deletes.isEmpty()) {
+				boolean success = false;
+				try {
+					success = this.writer.deleteMulti(new ArrayList<String>(deletes.keySet()));
+				} catch (Exception e) {
+					logger.error("Failed to delete " + deletes.size() + " keys from memcached", e);
+				}
+				if (!success) {
+					this.failed(deletes, retries);
+				}
+			}
+		}
+		// 期间同一个key有新的写入时以新的为准
+		for (Entry<String, Pending> entry : retries.entrySet()) {
+			this.pending.putIfAbsent(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * @功能: 处理一批失败的写入, 未超过重试次数的放入retries, 超过的交给FailureHandler
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午4:32:40
+	 * @param batch 同一批写入, 全部为set(失效时间相同)或全部为delete
+	 * @param retries
+	 */
+	private void failed(Map<String, Pending> batch, Map<String, Pending> retries) {
+		this.failedBatchCount.incrementAndGet();
+		Map<String, Object> dropped = new LinkedHashMap<String, Object>();
+		int exp = 0;
+		boolean delete = false;
+		for (Entry<String, Pending> entry : batch.entrySet()) {
+			Pending value = entry.getValue();
+			if (value.attempts < this.maxRetries) {
+				retries.put(entry.getKey(), new Pending(value.value, value.exp, value.delete, value.attempts + 1));
+			} else {
+				dropped.put(entry.getKey(), value.value);
+				exp = value.exp;
+				delete = value.delete;
+			}
+		}
+		if (dropped.isEmpty()) {
+			return;
+		}
+		this.droppedCount.addAndGet(dropped.size());
+		FailureHandler failureHandler = this.failureHandler;
+		if (failureHandler == null) {
+			logger.error("Gave up " + (delete ? "deleting " : "writing ") + dropped.size() + " keys after " + this.maxRetries + " retries");
+			return;
+		}
+		try {
+			if (delete) {
+				failureHandler.onDeleteFailure(new ArrayList<String>(dropped.keySet()));
+			} else {
+				failureHandler.onSetFailure(dropped, exp);
+			}
+		} catch (Exception e) {
+			logger.error("Failed to handle memcached write failure", e);
+		}
+	}
+
+	/**
+	 * @功能: 停止后台写入, 停止前写入全部缓冲, 仍然失败的写入重试后交给FailureHandler
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:24:40
+	 */
+	public void shutdown() {
+		this.flusher.shutdown();
+		for (int i = 0; i <= this.maxRetries && !this.pending.isEmpty(); i++) {
+			this.flush();
+		}
+	}
+
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	public long getWriteCount() {
+		return writeCount.get();
+	}
+
+	/**
+	 * @return 被后续写入覆盖而没有发送的写入数
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	public long getFailedBatchCount() {
+		return failedBatchCount.get();
+	}
+
+	/**
+	 * @return 超过重试次数被放弃(交给FailureHandler)的写入数
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+}
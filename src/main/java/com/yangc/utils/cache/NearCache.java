@@ -0,0 +1,300 @@
+package com.yangc.utils.cache;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @功能: 进程内的近端缓存(L1), 同时保存redis原始值和反序列化后的对象, 有界, 支持TTL和LRU/LFU淘汰
+ *
+ *      <pre>
+ * 读取不加锁, 只有超过容量淘汰时才串行
+ * 淘汰按写入顺序从队头抽样, LRU淘汰样本中最久未访问的, LFU淘汰样本中访问次数最少的, 其余样本放回队尾
+ * 每个key按hash对应一个失效版本号(分段计数器), 失效只影响同一段的key正在进行的写回, 不影响其他key
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 上午11:02:18
+ */
+public class NearCache {
+
+	/** 淘汰策略 */
+	public enum Policy {
+		/** 最近最少使用(抽样近似) */
+		LRU,
+
+		/** 最不经常使用(抽样近似) */
+		LFU
+	}
+
+	// 淘汰时抽样的个数
+	private static final int SAMPLES = 5;
+
+	// 失效版本号的分段数, 必须是2的幂
+	private static final int VERSION_STRIPES = 1 << 12;
+
+	private final int maxSize;
+	private final long ttlMillis;
+	private final Policy policy;
+
+	private final ConcurrentHashMap<String, Entry> map = new ConcurrentHashMap<String, Entry>();
+	private final AtomicInteger size = new AtomicInteger();
+
+	// 按写入顺序排列的条目, 包括已经被替换或删除的条目(淘汰或整理时丢弃)
+	private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<Entry>();
+	private final AtomicInteger orderSize = new AtomicInteger();
+	private final Object evictLock = new Object();
+
+	// 每段key的失效次数, 用于丢弃在失效之前发起的加载结果
+	private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	private static class Entry {
+		private final String key;
+		private final byte[] raw;
+		private final long expireAt;
+		private final ConcurrentHashMap<Type, Object> decoded = new ConcurrentHashMap<Type, Object>(2);
+		// 近似值, 并发访问时允许丢失更新
+		private volatile long accessTime;
+		private volatile long hits;
+
+		Entry(String key, byte[] raw, long expireAt, long now) {
+			this.key = key;
+			this.raw = raw;
+			this.expireAt = expireAt;
+			this.accessTime = now;
+		}
+	}
+
+	/**
+	 * @param maxSize 最大条数
+	 * @param ttlSeconds 存活时间(单位秒), 0为不过期
+	 * @param policy 淘汰策略
+	 */
+	public NearCache(int maxSize, int ttlSeconds, Policy policy) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("The maxSize must be greater than 0");
+		}
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlSeconds * 1000L;
+		this.policy = policy;
+	}
+
+	/**
+	 * @功能: 获取key当前的失效版本号, 在读取redis之前调用, 写回时传入
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午11:05:40
+	 * @param key
+	 * @return
+	 */
+	public long generation(String key) {
+		return this.versions.get(stripe(key));
+	}
+
+	/**
+	 * @功能: 获取反序列化后的对象, 返回的对象被所有调用方共享, 不可修改
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午11:06:12
+	 * @param key
+	 * @param type
+	 * @return
+	 */
+	public Object getDecoded(String key, Type type) {
+		Entry entry = this.getEntry(key);
+		Object value = entry == null ? null : entry.decoded.get(type);
+		if (value == null) {
+			this.missCount.incrementAndGet();
+		} else {
+			this.hitCount.incrementAndGet();
+		}
+		return value;
+	}
+
+	/**
+	 * @功能: 获取redis原始值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午11:07:03
+	 * @param key
+	 * @return
+	 */
+	public byte[] getRaw(String key) {
+		Entry entry = this.getEntry(key);
+		return entry == null ? null : entry.raw;
+	}
+
+	/**
+	 * @功能: 写入原始值和对象, 如果期间这个key发生过失效则丢弃
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午11:08:27
+	 * @param key
+	 * @param raw
+	 * @param type
+	 * @param value
+	 * @param generation 读取redis之前通过generation(key)获取的版本号
+	 */
+	public void put(String key, byte[] raw, Type type, Object value, long generation) {
+		int stripe = stripe(key);
+		if (raw == null || generation != this.versions.get(stripe)) {
+			return;
+		}
+		Entry entry = this.map.get(key);
+		if (entry == null || !Arrays.equals(raw, entry.raw)) {
+			long now = System.currentTimeMillis();
+			entry = new Entry(key, raw, this.ttlMillis > 0 ? now + this.ttlMillis : Long.MAX_VALUE, now);
+			if (this.map.put(key, entry) == null) {
+				this.size.incrementAndGet();
+			}
+			this.order.offer(entry);
+			this.orderSize.incrementAndGet();
+		}
+		if (value != null) {
+			entry.decoded.put(type, value);
+		}
+		// 写入期间发生了失效, 撤销这次写入
+		if (generation != this.versions.get(stripe)) {
+			this.remove(key, entry);
+			return;
+		}
+		if (this.size.get() > this.maxSize || this.orderSize.get() > this.maxSize * 2) {
+			this.evict();
+		}
+	}
+
+	/**
+	 * @功能: 失效指定key
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午11:09:50
+	 * @param key
+	 */
+	public void invalidate(String key) {
+		// 先增加版本号再删除, 正在进行的写回在二次检查时发现并撤销
+		this.versions.incrementAndGet(stripe(key));
+		Entry entry = this.map.remove(key);
+		if (entry != null) {
+			this.size.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @功能: 清空缓存
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午11:10:14
+	 */
+	public void clear() {
+		for (int i = 0; i < VERSION_STRIPES; i++) {
+			this.versions.incrementAndGet(i);
+		}
+		for (String key : this.map.keySet()) {
+			if (this.map.remove(key) != null) {
+				this.size.decrementAndGet();
+			}
+		}
+	}
+
+	public int size() {
+		return this.size.get();
+	}
+
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	private static int stripe(String key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return h & (VERSION_STRIPES - 1);
+	}
+
+	private Entry getEntry(String key) {
+		Entry entry = this.map.get(key);
+		if (entry == null) {
+			return null;
+		}
+		long now = System.currentTimeMillis();
+		if (entry.expireAt <= now) {
+			this.remove(key, entry);
+			return null;
+		}
+		if (this.policy == Policy.LRU) {
+			// 时间没有变化时不写, 减少热点条目的缓存行竞争
+			if (entry.accessTime != now) {
+				entry.accessTime = now;
+			}
+		} else {
+			entry.hits++;
+		}
+		return entry;
+	}
+
+	private void remove(String key, Entry entry) {
+		if (this.map.remove(key, entry)) {
+			this.size.decrementAndGet();
+		}
+	}
+
+	private boolean isLive(Entry entry) {
+		return this.map.get(entry.key) == entry;
+	}
+
+	private void evict() {
+		synchronized (this.evictLock) {
+			// 队列中被替换或删除的条目过多时整理一遍
+			if (this.orderSize.get() > this.maxSize * 2) {
+				for (int i = this.orderSize.get(); i > 0; i--) {
+					Entry entry = this.order.poll();
+					if (entry == null) {
+						break;
+					}
+					if (this.isLive(entry)) {
+						this.order.offer(entry);
+					} else {
+						this.orderSize.decrementAndGet();
+					}
+				}
+			}
+
+			List<Entry> samples = new ArrayList<Entry>(SAMPLES);
+			while (this.size.get() > this.maxSize) {
+				samples.clear();
+				Entry victim = null;
+				while (samples.size() < SAMPLES) {
+					Entry entry = this.order.poll();
+					if (entry == null) {
+						break;
+					}
+					if (!this.isLive(entry)) {
+						this.orderSize.decrementAndGet();
+						continue;
+					}
+					samples.add(entry);
+					if (victim == null || (this.policy == Policy.LRU ? entry.accessTime < victim.accessTime : entry.hits < victim.hits)) {
+						victim = entry;
+					}
+				}
+				if (victim == null) {
+					return;
+				}
+				for (Entry entry : samples) {
+					if (entry == victim) {
+						this.orderSize.decrementAndGet();
+						this.remove(entry.key, entry);
+					} else {
+						this.order.offer(entry);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,712 @@
+package com.yangc.utils.cache;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @功能: 堆外字节缓存, 用于缓存较大的序列化数据, 不占用堆内存
+ *
+ *      <pre>
+ * 按key的hash分段, 每段独立加锁
+ * 内存按页(pageSize)分配DirectByteBuffer, 页再按大小等级(1.25倍递增)切分成块, 类似memcached的slab
+ * 每个块的头部保存 hash, key长度, value长度, LRU前后指针, 随后是key和value
+ * 索引是开放寻址的hash表, 只包含int[]和long[]两个数组, 每个条目16字节以内
+ * 内存用完后按大小等级淘汰最久未使用的条目
+ * 页分配后不再固定属于一个大小等级: 某个等级没有条目可淘汰, 或者连续淘汰了一整页的条目时,
+ * 从淘汰最少的等级回收一页(淘汰该页上的条目)重新切分, 避免访问模式变化后内存固化在旧的大小等级上
+ * 单个条目(头部+key+value)不能超过pageSize
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午7:40:12
+ */
+public class OffHeapCache {
+
+	public static final int DEFAULT_PAGE_SIZE = 4 * 1024 * 1024;
+
+	private static final int DEFAULT_SEGMENTS = 16;
+	private static final int MIN_CHUNK_SIZE = 64;
+	private static final double GROWTH_FACTOR = 1.25;
+
+	// 块头部: hash(4) + key长度(4) + value长度(4) + prev(8) + next(8)
+	private static final int HASH_OFFSET = 0;
+	private static final int KEY_LENGTH_OFFSET = 4;
+	private static final int VALUE_LENGTH_OFFSET = 8;
+	private static final int PREV_OFFSET = 12;
+	private static final int NEXT_OFFSET = 20;
+	private static final int HEADER_SIZE = 28;
+
+	private static final long NULL = -1L;
+
+	/** 在段锁内读取值的回调 */
+	public interface Reader<R> {
+		/**
+		 * @param value 值的只读视图, 直接指向堆外内存, 只能在回调内使用, 不能保存或交给其他线程
+		 */
+		R read(ByteBuffer value) throws IOException;
+	}
+
+	private final Segment[] segments;
+	private final int segmentShift;
+	private final int pageSize;
+	private final int[] chunkSizes;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * @param maxBytes 最大占用的堆外内存
+	 */
+	public OffHeapCache(long maxBytes) {
+		this(maxBytes, DEFAULT_SEGMENTS, DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * @param maxBytes 最大占用的堆外内存
+	 * @param segments 分段数, 向上取2的幂
+	 * @param pageSize 页大小, 即单个条目的最大字节数
+	 */
+	public OffHeapCache(long maxBytes, int segments, int pageSize) {
+		if (maxBytes <= 0 || segments <= 0 || pageSize < MIN_CHUNK_SIZE) {
+			throw new IllegalArgumentException("Invalid off-heap cache size");
+		}
+		int size = 1, shift = 0;
+		while (size < segments) {
+			size <<= 1;
+			shift++;
+		}
+		this.pageSize = pageSize;
+		this.chunkSizes = buildChunkSizes(pageSize);
+		this.segmentShift = 32 - shift;
+		this.segments = new Segment[size];
+		int maxPages = (int) Math.max(1, maxBytes / size / pageSize);
+		for (int i = 0; i < size; i++) {
+			this.segments[i] = new Segment(maxPages);
+		}
+	}
+
+	private static int[] buildChunkSizes(int pageSize) {
+		List<Integer> sizes = new ArrayList<Integer>();
+		int size = MIN_CHUNK_SIZE;
+		while (size < pageSize) {
+			sizes.add(size);
+			// 按8字节对齐
+			size = Math.min(pageSize, ((int) (size * GROWTH_FACTOR) + 7) & ~7);
+		}
+		sizes.add(pageSize);
+		int[] chunkSizes = new int[sizes.size()];
+		for (int i = 0; i < chunkSizes.length; i++) {
+			chunkSizes[i] = sizes.get(i);
+		}
+		return chunkSizes;
+	}
+
+	/**
+	 * @功能: 设置值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:45:30
+	 * @param key
+	 * @param value
+	 * @return 条目超过pageSize或没有可用内存时返回false, 此时保留原来的值
+	 */
+	public boolean put(String key, byte[] value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("The parameters must not be null");
+		}
+		byte[] keyBytes = encode(key);
+		int hash = hash(keyBytes);
+		return this.segmentFor(hash).put(hash, keyBytes, value);
+	}
+
+	/**
+	 * @功能: 不拷贝, 直接读取值
+	 *
+	 *      <pre>
+	 * 回调在段锁内执行, 期间该条目不会被覆盖, 删除或淘汰, 回调返回后视图指向的内存可能被其他条目复用
+	 * 回调期间同一段的其他读写都会等待, 回调中只应写出或解析数据, 需要长期持有时请使用getBytes
+	 * </pre>
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:46:18
+	 * @param key
+	 * @param reader
+	 * @return 回调的返回值, key不存在时不调用回调, 返回null
+	 * @throws IOException 回调抛出的异常
+	 */
+	public <R> R read(String key, Reader<R> reader) throws IOException {
+		if (reader == null) {
+			throw new IllegalArgumentException("The reader must not be null");
+		}
+		byte[] keyBytes = encode(key);
+		int hash = hash(keyBytes);
+		return this.segmentFor(hash).read(hash, keyBytes, reader);
+	}
+
+	/**
+	 * @功能: 获取值的拷贝
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:47:02
+	 * @param key
+	 * @return
+	 */
+	public byte[] getBytes(String key) {
+		byte[] keyBytes = encode(key);
+		int hash = hash(keyBytes);
+		byte[] value = this.segmentFor(hash).getBytes(hash, keyBytes);
+		if (value == null) {
+			this.missCount.incrementAndGet();
+		} else {
+			this.hitCount.incrementAndGet();
+		}
+		return value;
+	}
+
+	public boolean containsKey(String key) {
+		byte[] keyBytes = encode(key);
+		int hash = hash(keyBytes);
+		return this.segmentFor(hash).contains(hash, keyBytes);
+	}
+
+	public boolean remove(String key) {
+		byte[] keyBytes = encode(key);
+		int hash = hash(keyBytes);
+		return this.segmentFor(hash).remove(hash, keyBytes);
+	}
+
+	/**
+	 * @功能: 清空缓存, 已分配的页保留复用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:48:10
+	 */
+	public void clear() {
+		for (Segment segment : this.segments) {
+			segment.clear();
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : this.segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @功能: 已分配的堆外内存
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午7:48:45
+	 * @return
+	 */
+	public long allocatedBytes() {
+		long pages = 0;
+		for (Segment segment : this.segments) {
+			pages += segment.pageCount();
+		}
+		return pages * this.pageSize;
+	}
+
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+	private Segment segmentFor(int hash) {
+		return this.segments.length == 1 ? this.segments[0] : this.segments[hash >>> this.segmentShift];
+	}
+
+	private int chunkClass(int length) {
+		int index = Arrays.binarySearch(this.chunkSizes, length);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	private static byte[] encode(String key) {
+		if (key == null) {
+			throw new IllegalArgumentException("The key must not be null");
+		}
+		try {
+			return key.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// FNV-1a
+	private static int hash(byte[] bytes) {
+		int h = 0x811c9dc5;
+		for (byte b : bytes) {
+			h ^= b;
+			h *= 0x01000193;
+		}
+		h ^= h >>> 16;
+		return h;
+	}
+
+	private static long address(int page, int offset) {
+		return ((long) page << 32) | offset;
+	}
+
+	private static int pageOf(long address) {
+		return (int) (address >>> 32);
+	}
+
+	private static int offsetOf(long address) {
+		return (int) address;
+	}
+
+	/**
+	 * 每个大小等级的状态: 空闲块栈, 当前切分的页, LRU链表
+	 */
+	private static class ChunkClass {
+		private long[] free = new long[16];
+		private int freeCount;
+		private int page = -1;
+		private int pageOffset;
+		private long head = NULL;
+		private long tail = NULL;
+		private int count;
+		// 拥有的页数
+		private int pages;
+		// 上次回收页之后的淘汰次数
+		private int evictions;
+
+		void pushFree(long address) {
+			if (this.freeCount == this.free.length) {
+				this.free = Arrays.copyOf(this.free, this.freeCount << 1);
+			}
+			this.free[this.freeCount++] = address;
+		}
+	}
+
+	private class Segment {
+		private final int maxPages;
+		private final List<ByteBuffer> pages = new ArrayList<ByteBuffer>();
+		// 每页所属的大小等级
+		private final int[] pageClasses;
+		// clear后可复用的页
+		private final List<Integer> freePages = new ArrayList<Integer>();
+		private final ChunkClass[] classes;
+
+		// 索引, addresses为NULL表示空槽
+		private int[] hashes;
+		private long[] addresses;
+		private int count;
+
+		Segment(int maxPages) {
+			this.maxPages = maxPages;
+			this.pageClasses = new int[maxPages];
+			Arrays.fill(this.pageClasses, -1);
+			this.classes = new ChunkClass[chunkSizes.length];
+			for (int i = 0; i < this.classes.length; i++) {
+				this.classes[i] = new ChunkClass();
+			}
+			this.initIndex(64);
+		}
+
+		private void initIndex(int capacity) {
+			this.hashes = new int[capacity];
+			this.addresses = new long[capacity];
+			Arrays.fill(this.addresses, NULL);
+		}
+
+		synchronized boolean put(int hash, byte[] key, byte[] value) {
+			int length = HEADER_SIZE + key.length + value.length;
+			if (length > pageSize) {
+				return false;
+			}
+			// 先分配再删除旧值, 分配失败时保留旧值
+			int classId = chunkClass(length);
+			long address = this.allocate(classId);
+			if (address == NULL) {
+				return false;
+			}
+			// 旧值可能在分配时已被淘汰, 重新查找
+			int slot = this.find(hash, key);
+			if (slot >= 0) {
+				this.removeSlot(slot);
+			}
+			ByteBuffer page = this.pages.get(pageOf(address));
+			int offset = offsetOf(address);
+			page.putInt(offset + HASH_OFFSET, hash);
+			page.putInt(offset + KEY_LENGTH_OFFSET, key.length);
+			page.putInt(offset + VALUE_LENGTH_OFFSET, value.length);
+			ByteBuffer dup = page.duplicate();
+			dup.position(offset + HEADER_SIZE);
+			dup.put(key);
+			dup.put(value);
+
+			this.linkFirst(this.classes[classId], address);
+			this.insertIndex(hash, address);
+			return true;
+		}
+
+		synchronized <R> R read(int hash, byte[] key, Reader<R> reader) throws IOException {
+			ByteBuffer buffer = this.view(hash, key);
+			if (buffer == null) {
+				missCount.incrementAndGet();
+				return null;
+			}
+			hitCount.incrementAndGet();
+			return reader.read(buffer);
+		}
+
+		synchronized byte[] getBytes(int hash, byte[] key) {
+			ByteBuffer buffer = this.view(hash, key);
+			if (buffer == null) {
+				return null;
+			}
+			byte[] value = new byte[buffer.remaining()];
+			buffer.get(value);
+			return value;
+		}
+
+		/** 值的只读视图, 只能在持有段锁时使用 */
+		private ByteBuffer view(int hash, byte[] key) {
+			long address = this.touch(hash, key);
+			if (address == NULL) {
+				return null;
+			}
+			ByteBuffer page = this.pages.get(pageOf(address));
+			int offset = offsetOf(address);
+			int start = offset + HEADER_SIZE + page.getInt(offset + KEY_LENGTH_OFFSET);
+			ByteBuffer dup = page.duplicate();
+			dup.limit(start + page.getInt(offset + VALUE_LENGTH_OFFSET));
+			dup.position(start);
+			return dup.slice().asReadOnlyBuffer();
+		}
+
+		synchronized boolean contains(int hash, byte[] key) {
+			return this.find(hash, key) >= 0;
+		}
+
+		synchronized boolean remove(int hash, byte[] key) {
+			int slot = this.find(hash, key);
+			if (slot < 0) {
+				return false;
+			}
+			this.removeSlot(slot);
+			return true;
+		}
+
+		synchronized void clear() {
+			this.initIndex(64);
+			this.count = 0;
+			for (int i = 0; i < this.classes.length; i++) {
+				this.classes[i] = new ChunkClass();
+			}
+			// 页不释放, 重新分给最先申请的大小等级
+			this.freePages.clear();
+			for (int i = this.pages.size() - 1; i >= 0; i--) {
+				this.freePages.add(i);
+				this.pageClasses[i] = -1;
+			}
+		}
+
+		synchronized int size() {
+			return this.count;
+		}
+
+		synchronized int pageCount() {
+			return this.pages.size();
+		}
+
+		/** 查找并移动到LRU链表头部 */
+		private long touch(int hash, byte[] key) {
+			int slot = this.find(hash, key);
+			if (slot < 0) {
+				return NULL;
+			}
+			long address = this.addresses[slot];
+			ChunkClass chunkClass = this.classes[this.classOf(address)];
+			if (chunkClass.head != address) {
+				this.unlink(chunkClass, address);
+				this.linkFirst(chunkClass, address);
+			}
+			return address;
+		}
+
+		private long allocate(int classId) {
+			ChunkClass chunkClass = this.classes[classId];
+			int chunkSize = chunkSizes[classId];
+			if (chunkClass.freeCount > 0) {
+				return chunkClass.free[--chunkClass.freeCount];
+			}
+			if (chunkClass.page >= 0 && chunkClass.pageOffset + chunkSize <= pageSize) {
+				long address = address(chunkClass.page, chunkClass.pageOffset);
+				chunkClass.pageOffset += chunkSize;
+				return address;
+			}
+			int page = this.newPage();
+			// 内存已用完, 本等级没有条目可淘汰或者已经淘汰了一整页时, 从其他等级回收一页
+			if (page < 0 && (chunkClass.tail == NULL || chunkClass.evictions >= pageSize / chunkSize)) {
+				page = this.reclaimPage(classId);
+			}
+			if (page >= 0) {
+				chunkClass.page = page;
+				chunkClass.pageOffset = chunkSize;
+				chunkClass.pages++;
+				this.pageClasses[page] = classId;
+				return address(page, 0);
+			}
+			// 淘汰本等级最久未使用的条目
+			if (chunkClass.tail == NULL) {
+				return NULL;
+			}
+			this.evict(chunkClass.tail);
+			chunkClass.evictions++;
+			return chunkClass.free[--chunkClass.freeCount];
+		}
+
+		/**
+		 * @功能: 从淘汰次数最少的其他等级回收一页, 该页上的条目全部淘汰
+		 * @作者: yangc
+		 * @创建日期: 2026年10月20日 上午10:05:12
+		 * @param classId 需要页的等级
+		 * @return 回收的页, 没有合适的页时返回-1
+		 */
+		private int reclaimPage(int classId) {
+			ChunkClass target = this.classes[classId];
+			int donorId = -1;
+			for (int i = 0; i < this.classes.length; i++) {
+				ChunkClass c = this.classes[i];
+				if (i != classId && c.pages > 0 && (donorId < 0 || c.evictions < this.classes[donorId].evictions)) {
+					donorId = i;
+				}
+			}
+			// 本等级还有条目可淘汰时, 只从比本等级更少淘汰的等级回收, 并开始新一轮计数
+			if (donorId < 0 || (target.tail != NULL && this.classes[donorId].evictions * 2 >= target.evictions)) {
+				target.evictions = 0;
+				return -1;
+			}
+			ChunkClass donor = this.classes[donorId];
+			int page = -1;
+			if (donor.tail != NULL) {
+				page = pageOf(donor.tail);
+			} else if (donor.page >= 0) {
+				page = donor.page;
+			} else {
+				for (int i = 0; i < this.pages.size(); i++) {
+					if (this.pageClasses[i] == donorId) {
+						page = i;
+						break;
+					}
+				}
+			}
+
+			// 淘汰该页上已切分的块中仍在使用的条目, 再从空闲块中去掉该页的块
+			int chunkSize = chunkSizes[donorId];
+			int end = donor.page == page ? donor.pageOffset : pageSize / chunkSize * chunkSize;
+			ByteBuffer buffer = this.pages.get(page);
+			for (int offset = 0; offset < end; offset += chunkSize) {
+				long address = address(page, offset);
+				if (this.findAddress(buffer.getInt(offset + HASH_OFFSET), address) >= 0) {
+					this.evict(address);
+				}
+			}
+			int n = 0;
+			for (int i = 0; i < donor.freeCount; i++) {
+				if (pageOf(donor.free[i]) != page) {
+					donor.free[n++] = donor.free[i];
+				}
+			}
+			donor.freeCount = n;
+			if (donor.page == page) {
+				donor.page = -1;
+			}
+			donor.pages--;
+			this.pageClasses[page] = -1;
+			target.evictions = 0;
+			return page;
+		}
+
+		private void evict(long address) {
+			int hash = this.pages.get(pageOf(address)).getInt(offsetOf(address) + HASH_OFFSET);
+			this.removeSlot(this.findAddress(hash, address));
+			evictionCount.incrementAndGet();
+		}
+
+		private int newPage() {
+			if (!this.freePages.isEmpty()) {
+				return this.freePages.remove(this.freePages.size() - 1);
+			}
+			if (this.pages.size() >= this.maxPages) {
+				return -1;
+			}
+			this.pages.add(ByteBuffer.allocateDirect(pageSize));
+			return this.pages.size() - 1;
+		}
+
+		private int classOf(long address) {
+			return this.pageClasses[pageOf(address)];
+		}
+
+		private void removeSlot(int slot) {
+			long address = this.addresses[slot];
+			ChunkClass chunkClass = this.classes[this.classOf(address)];
+			this.unlink(chunkClass, address);
+			chunkClass.pushFree(address);
+			this.deleteIndex(slot);
+		}
+
+		private void linkFirst(ChunkClass chunkClass, long address) {
+			ByteBuffer page = this.pages.get(pageOf(address));
+			int offset = offsetOf(address);
+			page.putLong(offset + PREV_OFFSET, NULL);
+			page.putLong(offset + NEXT_OFFSET, chunkClass.head);
+			if (chunkClass.head != NULL) {
+				this.setPrev(chunkClass.head, address);
+			} else {
+				chunkClass.tail = address;
+			}
+			chunkClass.head = address;
+			chunkClass.count++;
+		}
+
+		private void unlink(ChunkClass chunkClass, long address) {
+			ByteBuffer page = this.pages.get(pageOf(address));
+			int offset = offsetOf(address);
+			long prev = page.getLong(offset + PREV_OFFSET);
+			long next = page.getLong(offset + NEXT_OFFSET);
+			if (prev == NULL) {
+				chunkClass.head = next;
+			} else {
+				this.setNext(prev, next);
+			}
+			if (next == NULL) {
+				chunkClass.tail = prev;
+			} else {
+				this.setPrev(next, prev);
+			}
+			chunkClass.count--;
+		}
+
+		private void setPrev(long address, long prev) {
+			this.pages.get(pageOf(address)).putLong(offsetOf(address) + PREV_OFFSET, prev);
+		}
+
+		private void setNext(long address, long next) {
+			this.pages.get(pageOf(address)).putLong(offsetOf(address) + NEXT_OFFSET, next);
+		}
+
+		/* ---------- 索引, 线性探测 ---------- */
+
+		private int find(int hash, byte[] key) {
+			int mask = this.addresses.length - 1;
+			for (int i = hash & mask;; i = (i + 1) & mask) {
+				long address = this.addresses[i];
+				if (address == NULL) {
+					return -1;
+				}
+				if (this.hashes[i] == hash && this.keyEquals(address, key)) {
+					return i;
+				}
+			}
+		}
+
+		// 空闲块头部中的hash已经过期, 按该hash查找不到时返回-1
+		private int findAddress(int hash, long address) {
+			int mask = this.addresses.length - 1;
+			for (int i = hash & mask;; i = (i + 1) & mask) {
+				if (this.addresses[i] == address) {
+					return i;
+				}
+				if (this.addresses[i] == NULL) {
+					return -1;
+				}
+			}
+		}
+
+		private boolean keyEquals(long address, byte[] key) {
+			ByteBuffer page = this.pages.get(pageOf(address));
+			int offset = offsetOf(address);
+			if (page.getInt(offset + KEY_LENGTH_OFFSET) != key.length) {
+				return false;
+			}
+			int start = offset + HEADER_SIZE;
+			for (int i = 0; i < key.length; i++) {
+				if (page.get(start + i) != key[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void insertIndex(int hash, long address) {
+			if ((this.count + 1) * 4 > this.addresses.length * 3) {
+				this.resizeIndex();
+			}
+			int mask = this.addresses.length - 1;
+			int i = hash & mask;
+			while (this.addresses[i] != NULL) {
+				i = (i + 1) & mask;
+			}
+			this.hashes[i] = hash;
+			this.addresses[i] = address;
+			this.count++;
+		}
+
+		private void resizeIndex() {
+			int[] oldHashes = this.hashes;
+			long[] oldAddresses = this.addresses;
+			this.initIndex(oldAddresses.length << 1);
+			int mask = this.addresses.length - 1;
+			for (int j = 0; j < oldAddresses.length; j++) {
+				if (oldAddresses[j] != NULL) {
+					int i = oldHashes[j] & mask;
+					while (this.addresses[i] != NULL) {
+						i = (i + 1) & mask;
+					}
+					this.hashes[i] = oldHashes[j];
+					this.addresses[i] = oldAddresses[j];
+				}
+			}
+		}
+
+		// 删除后将后续探测链上的条目前移, 不使用墓碑
+		private void deleteIndex(int slot) {
+			int mask = this.addresses.length - 1;
+			int i = slot;
+			this.addresses[i] = NULL;
+			for (int j = (i + 1) & mask; this.addresses[j] != NULL; j = (j + 1) & mask) {
+				int k = this.hashes[j] & mask;
+				boolean inRange = i <= j ? (i < k && k <= j) : (i < k || k <= j);
+				if (!inRange) {
+					this.hashes[i] = this.hashes[j];
+					this.addresses[i] = this.addresses[j];
+					this.addresses[j] = NULL;
+					i = j;
+				}
+			}
+			this.count--;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		OffHeapCache cache = new OffHeapCache(8 * 1024 * 1024, 1, 1024 * 1024);
+		byte[] value = new byte[300 * 1024];
+		for (int i = 0; i < 100; i++) {
+			value[0] = (byte) i;
+			cache.put("key" + i, value);
+		}
+		System.out.println("size == " + cache.size() + ", evictions == " + cache.getEvictionCount() + ", allocated == " + cache.allocatedBytes());
+		String key99 = cache.read("key99", new Reader<String>() {
+			@Override
+			public String read(ByteBuffer value) {
+				return value.get(0) + ", length == " + value.remaining();
+			}
+		});
+		System.out.println("key99 == " + key99 + ", key0 == " + cache.getBytes("key0"));
+	}
+
+}
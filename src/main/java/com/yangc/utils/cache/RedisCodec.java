@@ -0,0 +1,39 @@
+package com.yangc.utils.cache;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * @功能: redis值的编解码器, 编码结果即为redis中保存的完整字节(包含头部), 参见RedisCodecs
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午1:35:10
+ */
+public interface RedisCodec {
+
+	/**
+	 * @功能: 编解码器标识, 写在非json编码结果的第二个字节, 自定义编解码器使用16以上的值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午1:35:52
+	 * @return
+	 */
+	byte id();
+
+	/**
+	 * @功能: 编码
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午1:36:20
+	 * @param value
+	 * @return
+	 */
+	byte[] encode(Object value);
+
+	/**
+	 * @功能: 解码
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午1:36:41
+	 * @param data
+	 * @param typeToken
+	 * @return
+	 */
+	<T> T decode(byte[] data, TypeToken<T> typeToken);
+
+}
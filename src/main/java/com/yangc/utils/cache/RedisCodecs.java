@@ -0,0 +1,87 @@
+package com.yangc.utils.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * @功能: 编解码器注册表, 按头部识别数据的编码方式
+ * 
+ *      <pre>
+ * json数据不带头部(首字节不会是0), 其他编解码器的数据以 0x00, id 开头
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午1:40:25
+ */
+public class RedisCodecs {
+
+	/** 非json数据的头部标记 */
+	public static final byte MAGIC = 0;
+
+	public static final JsonRedisCodec JSON = new JsonRedisCodec();
+	public static final BinaryRedisCodec BINARY = new BinaryRedisCodec();
+
+	private static final ConcurrentHashMap<Byte, RedisCodec> CODECS = new ConcurrentHashMap<Byte, RedisCodec>();
+
+	static {
+		register(JSON);
+		register(BINARY);
+		register(new DeflateRedisCodec(JSON, 0));
+	}
+
+	private RedisCodecs() {
+	}
+
+	/**
+	 * @功能: 注册编解码器, 读取时按id找到对应的编解码器
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午1:41:37
+	 * @param codec
+	 */
+	public static void register(RedisCodec codec) {
+		CODECS.put(codec.id(), codec);
+	}
+
+	/**
+	 * @功能: 根据名称获取内置编解码器
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午1:42:10
+	 * @param name json, binary
+	 * @param compressThreshold 大于0时, 超过该字节数的值进行压缩
+	 * @return
+	 */
+	public static RedisCodec getCodec(String name, int compressThreshold) {
+		RedisCodec codec;
+		if ("binary".equalsIgnoreCase(name)) {
+			codec = BINARY;
+		} else if (name == null || "json".equalsIgnoreCase(name)) {
+			codec = JSON;
+		} else {
+			throw new IllegalArgumentException("Unknown redis codec " + name);
+		}
+		return compressThreshold > 0 ? new DeflateRedisCodec(codec, compressThreshold) : codec;
+	}
+
+	/**
+	 * @功能: 解码任意编解码器写入的数据
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午1:43:02
+	 * @param data
+	 * @param typeToken
+	 * @return
+	 */
+	public static <T> T decode(byte[] data, TypeToken<T> typeToken) {
+		if (data == null || data.length == 0) {
+			return null;
+		}
+		if (data[0] != MAGIC) {
+			return JSON.decode(data, typeToken);
+		}
+		RedisCodec codec = data.length > 1 ? CODECS.get(data[1]) : null;
+		if (codec == null || codec == JSON) {
+			throw new IllegalArgumentException("Unknown redis codec header");
+		}
+		return codec.decode(data, typeToken);
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.yangc.utils.cache;
+
+import java.util.Map;
+
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * @功能: 可放入pipeline批量执行的单key命令, 由RedisUtils.pipelined按key所在分片分组发送
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 上午10:12:30
+ */
+public abstract class RedisCommand {
+
+	private final String key;
+
+	protected RedisCommand(String key) {
+		if (key == null) {
+			throw new IllegalArgumentException("The key must not be null");
+		}
+		this.key = key;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @功能: 将命令写入所在分片的pipeline
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午10:13:05
+	 * @param pipeline
+	 * @return
+	 */
+	protected abstract Response<?> execute(Pipeline pipeline);
+
+	/** ----------------------------------------- String ------------------------------------------- */
+
+	public static RedisCommand get(String key) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.get(this.getKey());
+			}
+		};
+	}
+
+	public static RedisCommand getBytes(String key) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.get(SafeEncoder.encode(this.getKey()));
+			}
+		};
+	}
+
+	public static RedisCommand set(String key, final String value) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.set(this.getKey(), value);
+			}
+		};
+	}
+
+	public static RedisCommand set(String key, final byte[] value) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.set(SafeEncoder.encode(this.getKey()), value);
+			}
+		};
+	}
+
+	public static RedisCommand setex(String key, final int seconds, final byte[] value) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.setex(SafeEncoder.encode(this.getKey()), seconds, value);
+			}
+		};
+	}
+
+	public static RedisCommand del(String key) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.del(this.getKey());
+			}
+		};
+	}
+
+	public static RedisCommand expire(String key, final int seconds) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.expire(this.getKey(), seconds);
+			}
+		};
+	}
+
+	/** ----------------------------------------- List ------------------------------------------- */
+
+	public static RedisCommand rpush(String key, final String... values) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.rpush(this.getKey(), values);
+			}
+		};
+	}
+
+	public static RedisCommand lpop(String key) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.lpop(this.getKey());
+			}
+		};
+	}
+
+	/** ----------------------------------------- Hash ------------------------------------------- */
+
+	public static RedisCommand hmset(String key, final Map<String, String> map) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.hmset(this.getKey(), map);
+			}
+		};
+	}
+
+	public static RedisCommand hmget(String key, final String... fields) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.hmget(this.getKey(), fields);
+			}
+		};
+	}
+
+	/** ----------------------------------------- SortedSet ------------------------------------------- */
+
+	public static RedisCommand zadd(String key, final Map<String, Double> map) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.zadd(this.getKey(), map);
+			}
+		};
+	}
+
+	public static RedisCommand zincrby(String key, final double increment, final String member) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.zincrby(this.getKey(), increment, member);
+			}
+		};
+	}
+
+	public static RedisCommand zrevrank(String key, final String member) {
+		return new RedisCommand(key) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.zrevrank(this.getKey(), member);
+			}
+		};
+	}
+
+	/** ----------------------------------------- Pub/Sub ------------------------------------------- */
+
+	public static RedisCommand publish(String channel, final String message) {
+		return new RedisCommand(channel) {
+			@Override
+			protected Response<?> execute(Pipeline pipeline) {
+				return pipeline.publish(this.getKey(), message);
+			}
+		};
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.yangc.utils.cache;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.ShardedJedis;
+
+/**
+ * @功能: 基于SCAN逐个分片惰性遍历key, 遍历结束后自动释放连接, 提前结束时需要调用close
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午3:12:48
+ */
+public class RedisKeyIterator implements Iterator<String>, Closeable {
+
+	private ShardedJedis jedis;
+	private final Iterator<Jedis> shards;
+	private final ScanParams params;
+
+	private Jedis shard;
+	private String cursor;
+	private Iterator<String> keys;
+
+	RedisKeyIterator(ShardedJedis jedis, String pattern, int count) {
+		this.jedis = jedis;
+		this.shards = new ArrayList<Jedis>(jedis.getAllShards()).iterator();
+		this.params = new ScanParams().match(pattern).count(count);
+		this.keys = new ArrayList<String>(0).iterator();
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!this.keys.hasNext()) {
+			if (this.jedis == null) {
+				return false;
+			}
+			// 当前分片遍历结束, 切换到下一个分片
+			if (this.shard == null || ScanParams.SCAN_POINTER_START.equals(this.cursor)) {
+				if (!this.shards.hasNext()) {
+					this.close();
+					return false;
+				}
+				this.shard = this.shards.next();
+				this.cursor = ScanParams.SCAN_POINTER_START;
+			}
+			ScanResult<String> result;
+			try {
+				result = this.shard.scan(this.cursor, this.params);
+			} catch (RuntimeException e) {
+				this.close();
+				throw e;
+			}
+			this.cursor = result.getStringCursor();
+			List<String> list = result.getResult();
+			this.keys = list.iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public String next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return this.keys.next();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() {
+		if (this.jedis != null) {
+			this.jedis.close();
+			this.jedis = null;
+		}
+	}
+
+}
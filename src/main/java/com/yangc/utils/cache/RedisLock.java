@@ -0,0 +1,294 @@
+package com.yangc.utils.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import redis.clients.util.SafeEncoder;
+
+/**
+ * @功能: 基于租约的分布式锁
+ *
+ *      <pre>
+ * 加锁成功返回递增的fencing token, 写共享资源时带上token, 资源方拒绝比已见过的更小的token, 防止租约过期后旧的持有者继续写入
+ * 持有期间在后台每隔租约的1/3续期, 进程崩溃后锁在租约到期后自动释放
+ * 等待时订阅释放通道, 订阅确认后重试一次, 之后等待释放通知, 最长等待锁的剩余租约(持有者崩溃时没有通知), 不轮询redis
+ * 公平模式下按排队顺序获取, 长时间没有重试的等待者(进程崩溃)会被移出队列
+ * 锁、fencing token计数器和等待队列都保存在锁名所在的分片上, 锁的key同时作为释放通道
+ * 不可重入, 实例不是线程安全的, 每个线程使用各自的实例
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 上午12:05:20
+ */
+public class RedisLock {
+
+	private static final Logger logger = LogManager.getLogger(RedisLock.class);
+
+	/** 续期线程数, 续期是同步的redis调用, 单个线程时一次慢调用会推迟所有锁的续期 */
+	private static final int RENEW_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	/** 续期线程, 与RedisSemaphore共用 */
+	static final ScheduledExecutorService RENEW_EXECUTOR = Executors.newScheduledThreadPool(RENEW_THREADS, new ThreadFactory() {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "redis-lock-renew-" + this.count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	/** 公平模式下等待者超过该时间没有重试时移出队列 */
+	private static final long WAITER_TIMEOUT_MILLIS = 30000;
+
+	// KEYS: 锁, token计数器; ARGV: 持有者, 租约(毫秒); 成功返回token, 失败返回负的剩余租约
+	private static final RedisScript ACQUIRE = new RedisScript("lockAcquire", "if redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2], 'NX') then return redis.call('incr', KEYS[2]) end "
+			+ "return -math.max(redis.call('pttl', KEYS[1]), 1)");
+
+	// KEYS: 锁, token计数器, 等待队列(list), 等待者的超时时间(zset); ARGV: 持有者, 租约(毫秒), 当前时间(毫秒), 等待者超时(毫秒)
+	// 锁空闲但未轮到时返回负的等待者超时, 等待前一个持有者的释放通知
+	private static final RedisScript FAIR_ACQUIRE = new RedisScript("lockFairAcquire", "local now = tonumber(ARGV[3]) "
+			+ "while true do local head = redis.call('lindex', KEYS[3], 0) if not head then break end "
+			+ "local deadline = redis.call('zscore', KEYS[4], head) if deadline and tonumber(deadline) >= now then break end "
+			+ "redis.call('lpop', KEYS[3]) redis.call('zrem', KEYS[4], head) end "
+			+ "local head = redis.call('lindex', KEYS[3], 0) "
+			+ "if (not head or head == ARGV[1]) and redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2], 'NX') then "
+			+ "if head then redis.call('lpop', KEYS[3]) redis.call('zrem', KEYS[4], ARGV[1]) end return redis.call('incr', KEYS[2]) end "
+			+ "if not redis.call('zscore', KEYS[4], ARGV[1]) then redis.call('rpush', KEYS[3], ARGV[1]) end "
+			+ "redis.call('zadd', KEYS[4], now + tonumber(ARGV[4]), ARGV[1]) "
+			+ "local ttl = redis.call('pttl', KEYS[1]) if ttl <= 0 then ttl = tonumber(ARGV[4]) end return -ttl");
+
+	// KEYS: 等待队列, 等待者的超时时间, 锁(通道); ARGV: 持有者
+	private static final RedisScript FAIR_CANCEL = new RedisScript("lockFairCancel", "local head = redis.call('lindex', KEYS[1], 0) "
+			+ "redis.call('lrem', KEYS[1], 0, ARGV[1]) redis.call('zrem', KEYS[2], ARGV[1]) "
+			+ "if head == ARGV[1] then redis.call('publish', KEYS[3], 'cancelled') end return 1");
+
+	// KEYS: 锁; ARGV: 持有者, 租约(毫秒)
+	private static final RedisScript RENEW = new RedisScript("lockRenew", "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) end return 0");
+
+	// KEYS: 锁(通道); ARGV: 持有者
+	private static final RedisScript RELEASE = new RedisScript("lockRelease", "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('del', KEYS[1]) "
+			+ "redis.call('publish', KEYS[1], 'released') return 1 end return 0");
+
+	private final RedisScripts scripts;
+	private final String name;
+	private final long leaseMillis;
+	private final boolean fair;
+
+	private final String lockKey;
+	private final byte[] lockKeyBytes;
+	private final byte[] tokenKey;
+	private final byte[] queueKey;
+	private final byte[] waitersKey;
+	private final RedisWaiter waiter;
+
+	private volatile String owner;
+	private volatile long token;
+	private volatile boolean lost;
+	private volatile ScheduledFuture<?> renewal;
+
+	/**
+	 * @param scripts
+	 * @param subscriber
+	 * @param name 锁名
+	 * @param leaseMillis 租约(单位毫秒)
+	 * @param fair 是否公平
+	 */
+	RedisLock(RedisScripts scripts, RedisSubscriber subscriber, String name, long leaseMillis, boolean fair) {
+		if (name == null || leaseMillis < 3) {
+			throw new IllegalArgumentException("Invalid lock " + name);
+		}
+		this.scripts = scripts;
+		this.name = name;
+		this.leaseMillis = leaseMillis;
+		this.fair = fair;
+		this.lockKey = "lock:" + name;
+		this.lockKeyBytes = SafeEncoder.encode(this.lockKey);
+		this.tokenKey = SafeEncoder.encode(this.lockKey + ":token");
+		this.queueKey = SafeEncoder.encode(this.lockKey + ":queue");
+		this.waitersKey = SafeEncoder.encode(this.lockKey + ":waiters");
+		this.waiter = new RedisWaiter(subscriber, this.lockKey);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @功能: 加锁, 一直等待到成功
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午12:08:30
+	 * @return fencing token
+	 * @throws InterruptedException
+	 */
+	public long lock() throws InterruptedException {
+		return this.tryLock(Long.MAX_VALUE);
+	}
+
+	/**
+	 * @功能: 加锁, redis出错时抛出JedisException
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午12:09:15
+	 * @param waitMillis 最长等待时间(单位毫秒), 0为不等待
+	 * @return fencing token, 超时返回0
+	 * @throws InterruptedException
+	 */
+	public long tryLock(long waitMillis) throws InterruptedException {
+		if (this.isHeld()) {
+			throw new IllegalStateException("Lock " + this.name + " is already held by this instance");
+		}
+		String owner = UUID.randomUUID().toString();
+		long deadline = waitMillis > Long.MAX_VALUE - System.currentTimeMillis() ? Long.MAX_VALUE : System.currentTimeMillis() + waitMillis;
+		boolean waiting = false;
+		boolean acquired = false;
+		try {
+			while (true) {
+				long generation = this.waiter.generation();
+				long result = this.acquire(owner);
+				if (result > 0) {
+					acquired = true;
+					this.onAcquired(owner, result);
+					return result;
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return 0;
+				}
+				long wait = Math.min(remaining, -result);
+				// 公平模式下等待者需要在超时之前重试, 否则被移出队列
+				if (this.fair) {
+					wait = Math.min(wait, WAITER_TIMEOUT_MILLIS / 3);
+				}
+				// 订阅确认后重试一次, 订阅前的释放不会被错过
+				if (!waiting) {
+					this.waiter.begin();
+					waiting = true;
+					this.waiter.awaitSubscribed(wait);
+					continue;
+				}
+				this.waiter.await(generation, wait);
+			}
+		} finally {
+			if (waiting) {
+				this.waiter.end();
+			}
+			if (this.fair && !acquired) {
+				this.cancel(owner);
+			}
+		}
+	}
+
+	/**
+	 * @功能: 解锁
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午12:10:40
+	 * @return 租约已过期(锁已被其他持有者获取)或出错时返回false
+	 */
+	public boolean unlock() {
+		String owner = this.owner;
+		if (owner == null) {
+			return false;
+		}
+		this.stopRenewal();
+		try {
+			Object result = this.scripts.eval(this.lockKey, RELEASE, Collections.singletonList(this.lockKeyBytes), Collections.singletonList(SafeEncoder.encode(owner)));
+			return Long.valueOf(1).equals(result);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/**
+	 * @return 是否持有锁, 续期失败(租约已过期)后返回false
+	 */
+	public boolean isHeld() {
+		return this.owner != null && !this.lost;
+	}
+
+	/**
+	 * @return 当前持有的fencing token, 未持有时返回0
+	 */
+	public long getToken() {
+		return this.isHeld() ? this.token : 0;
+	}
+
+	private long acquire(String owner) {
+		byte[] ownerBytes = SafeEncoder.encode(owner);
+		byte[] lease = SafeEncoder.encode(String.valueOf(this.leaseMillis));
+		Object result;
+		if (this.fair) {
+			List<byte[]> keys = Arrays.asList(this.lockKeyBytes, this.tokenKey, this.queueKey, this.waitersKey);
+			result = this.scripts.eval(this.lockKey, FAIR_ACQUIRE, keys,
+					Arrays.asList(ownerBytes, lease, SafeEncoder.encode(String.valueOf(System.currentTimeMillis())), SafeEncoder.encode(String.valueOf(WAITER_TIMEOUT_MILLIS))));
+		} else {
+			result = this.scripts.eval(this.lockKey, ACQUIRE, Arrays.asList(this.lockKeyBytes, this.tokenKey), Arrays.asList(ownerBytes, lease));
+		}
+		return (Long) result;
+	}
+
+	private void cancel(String owner) {
+		try {
+			this.scripts.eval(this.lockKey, FAIR_CANCEL, Arrays.asList(this.queueKey, this.waitersKey, this.lockKeyBytes), Collections.singletonList(SafeEncoder.encode(owner)));
+		} catch (Exception e) {
+			logger.error("Failed to leave the queue of lock " + this.name, e);
+		}
+	}
+
+	private void onAcquired(String owner, long token) {
+		this.owner = owner;
+		this.token = token;
+		this.lost = false;
+		long period = this.leaseMillis / 3;
+		this.renewal = RENEW_EXECUTOR.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				renew();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	private void renew() {
+		String owner = this.owner;
+		if (owner == null) {
+			return;
+		}
+		try {
+			Object result = this.scripts.eval(this.lockKey, RENEW, Collections.singletonList(this.lockKeyBytes),
+					Arrays.asList(SafeEncoder.encode(owner), SafeEncoder.encode(String.valueOf(this.leaseMillis))));
+			if (!Long.valueOf(1).equals(result)) {
+				logger.warn("Lease of lock " + this.name + " (token " + this.token + ") has expired");
+				this.lost = true;
+				ScheduledFuture<?> renewal = this.renewal;
+				if (renewal != null) {
+					renewal.cancel(false);
+				}
+			}
+		} catch (Exception e) {
+			// 租约未到期之前还可以继续续期
+			logger.error("Failed to renew lock " + this.name, e);
+		}
+	}
+
+	private void stopRenewal() {
+		ScheduledFuture<?> renewal = this.renewal;
+		if (renewal != null) {
+			renewal.cancel(false);
+			this.renewal = null;
+		}
+		this.owner = null;
+		this.token = 0;
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.yangc.utils.cache;
+
+/**
+ * @功能: RedisSubscriber的消息监听器, 在分发线程池中回调, 同一通道的消息按顺序回调
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午4:05:12
+ */
+public interface RedisMessageListener {
+
+	/**
+	 * @功能: 收到消息
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:05:40
+	 * @param channel 消息实际所在的通道
+	 * @param message
+	 */
+	void onMessage(String channel, String message);
+
+}
@@ -0,0 +1,623 @@
+package com.yangc.utils.cache;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.Transaction;
+import redis.clients.util.Pool;
+import redis.clients.util.SafeEncoder;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * @功能: 可靠队列
+ *
+ *      <pre>
+ * 从左边入队(LPUSH), 从右边出队, 与RedisUtils.addQueue/pollQueue(RPUSH/LPOP)方向相反, 不要混用
+ * take系列方法在出队的同时放入当前消费者的处理中列表(RPOPLPUSH), ack后删除, nack后重新入队, 消费者崩溃后通过recover恢复
+ * 同一条消息nack超过maxRetries次后放入死信列表(队列名:dead), 不再重新入队, 无法解码的消息直接放入死信列表
+ * 入队时每条消息带有唯一的消息id, 内容相同的消息各自计算重试次数, ack只影响自己
+ * 消费者标识必须在所有存活的消费者中唯一, 并且在重启后保持不变, recover会取走该标识处理中列表里的全部消息
+ * 阻塞命令(poll/take)使用不占用连接池的专用连接, 每次最多阻塞BLOCK_SLICE_SECONDS秒, socket超时大于阻塞时间
+ * 队列, 处理中列表, 重试次数和死信列表都保存在队列名所在的分片上
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午5:02:11
+ */
+public class RedisQueue<T> {
+
+	// 原子地从队列右边取出最多N个元素并放入处理中列表, N不能超过lua的栈大小(unpack)
+	private static final byte[] TAKE_BATCH_SCRIPT = SafeEncoder.encode("local items = redis.call('lrange', KEYS[1], -tonumber(ARGV[1]), -1) "
+			+ "if #items > 0 then redis.call('ltrim', KEYS[1], 0, -#items - 1) redis.call('lpush', KEYS[2], unpack(items)) end return items");
+
+	// 从处理中列表删除, 按消息id累加重试次数, 未超过上限时重新放到出队端, 否则放入死信列表, 返回1为重新入队, 0为进入死信列表, -1为不在处理中列表
+	private static final byte[] NACK_SCRIPT = SafeEncoder.encode("if redis.call('lrem', KEYS[1], 1, ARGV[1]) == 0 then return -1 end "
+			+ "local n = redis.call('hincrby', KEYS[3], ARGV[3], 1) "
+			+ "if n <= tonumber(ARGV[2]) then redis.call('rpush', KEYS[2], ARGV[1]) return 1 end "
+			+ "redis.call('hdel', KEYS[3], ARGV[3]) redis.call('lpush', KEYS[4], ARGV[1]) return 0");
+
+	// 从处理中列表删除并放入死信列表
+	private static final byte[] DEAD_LETTER_SCRIPT = SafeEncoder.encode("if redis.call('lrem', KEYS[1], 1, ARGV[1]) > 0 then "
+			+ "redis.call('hdel', KEYS[3], ARGV[2]) redis.call('lpush', KEYS[2], ARGV[1]) end");
+
+	/** 默认的最大重试次数 */
+	public static final int DEFAULT_MAX_RETRIES = 3;
+
+	/** takeBatch一次最多取出的消息数 */
+	public static final int MAX_TAKE_BATCH = 1000;
+
+	// 消息格式: ENVELOPE, 16字节的消息id, 编码后的值, json不会以这个字节开头, 其他编解码器以0开头
+	// 不是这个格式的消息(之前的版本入队的)以整个内容作为消息id
+	private static final byte ENVELOPE = 1;
+	private static final int ID_LENGTH = 16;
+	private static final int HEADER_LENGTH = 1 + ID_LENGTH;
+
+	// 消息id由进程的随机数和序号组成
+	private static final long INSTANCE_ID = new SecureRandom().nextLong();
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+
+	// 阻塞命令单次最多阻塞的时间(单位秒), 更长的等待分多次执行
+	private static final int BLOCK_SLICE_SECONDS = 30;
+	// 专用连接的socket超时比单次阻塞时间多出的余量(单位毫秒)
+	private static final int BLOCK_SO_TIMEOUT_MARGIN_MILLIS = 5000;
+
+	private final Pool<ShardedJedis> pool;
+	private final RedisCodec codec;
+	private final TypeToken<T> typeToken;
+
+	private final String name;
+	private final String consumerId;
+	private final int maxRetries;
+	private final byte[] queueKey;
+	private final byte[] processingKey;
+	private final byte[] retriesKey;
+	private final byte[] deadKey;
+
+	// 阻塞命令使用的空闲专用连接, 不占用连接池, 阻塞的消费者不会耗尽连接池
+	private final LinkedBlockingDeque<Jedis> blockingConnections = new LinkedBlockingDeque<Jedis>();
+
+	/**
+	 * @功能: 出队的消息, ack/nack时使用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:04:30
+	 */
+	public static class Message<T> {
+		private final T value;
+		private final byte[] raw;
+		private final byte[] id;
+
+		Message(T value, byte[] raw, byte[] id) {
+			this.value = value;
+			this.raw = raw;
+			this.id = id;
+		}
+
+		public T getValue() {
+			return value;
+		}
+	}
+
+	/**
+	 * @param pool
+	 * @param codec
+	 * @param name 队列名
+	 * @param consumerId 消费者标识, 为null时只能入队和不可靠出队(poll/popBatch), 不能调用take/ack/nack/recover
+	 * @param maxRetries 同一条消息nack后重新入队的最大次数
+	 * @param typeToken
+	 */
+	RedisQueue(Pool<ShardedJedis> pool, RedisCodec codec, String name, String consumerId, int maxRetries, TypeToken<T> typeToken) {
+		if (StringUtils.isBlank(name)) {
+			throw new IllegalArgumentException("The queue name must not be blank");
+		}
+		if (consumerId != null && StringUtils.isBlank(consumerId)) {
+			throw new IllegalArgumentException("The consumerId must not be blank");
+		}
+		if (maxRetries < 0) {
+			throw new IllegalArgumentException("The maxRetries must not be negative");
+		}
+		this.pool = pool;
+		this.codec = codec;
+		this.typeToken = typeToken;
+		this.name = name;
+		this.consumerId = consumerId;
+		this.maxRetries = maxRetries;
+		this.queueKey = SafeEncoder.encode(name);
+		this.processingKey = consumerId == null ? null : SafeEncoder.encode(name + ":processing:" + consumerId);
+		this.retriesKey = SafeEncoder.encode(name + ":retries");
+		this.deadKey = SafeEncoder.encode(name + ":dead");
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getConsumerId() {
+		return consumerId;
+	}
+
+	/**
+	 * @功能: 批量入队, 一次往返
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:06:12
+	 * @param values
+	 * @return
+	 */
+	public boolean push(List<T> values) {
+		if (values == null || values.isEmpty()) {
+			return true;
+		}
+		byte[][] bytes = new byte[values.size()][];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = wrap(this.codec.encode(values.get(i)));
+		}
+
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			this.getShard(jedis).lpush(this.queueKey, bytes);
+			return true;
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 入队
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:06:40
+	 * @param value
+	 * @return
+	 */
+	public boolean push(T value) {
+		return this.push(Collections.singletonList(value));
+	}
+
+	/**
+	 * @功能: 批量出队(不可靠), 一次往返原子地取出最多n个元素
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:07:35
+	 * @param n
+	 * @return 按入队顺序排列, 队列为空时返回空集合, 无法解码的消息放入死信列表
+	 */
+	public List<T> popBatch(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException("The n must be greater than 0");
+		}
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			Jedis j = this.getShard(jedis);
+			Transaction t = j.multi();
+			Response<List<byte[]>> items = t.lrange(this.queueKey, -n, -1);
+			t.ltrim(this.queueKey, 0, -n - 1);
+			t.exec();
+			List<T> values = new ArrayList<T>(items.get().size());
+			// lrange返回的是从新到旧
+			for (int i = items.get().size() - 1; i >= 0; i--) {
+				Message<T> message = this.toMessage(items.get().get(i));
+				if (message != null) {
+					values.add(message.value);
+				} else {
+					j.lpush(this.deadKey, items.get().get(i));
+				}
+			}
+			return values;
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 阻塞出队(不可靠)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:08:20
+	 * @param timeoutSeconds 超时时间(单位秒), 0为一直阻塞
+	 * @return 超时返回null
+	 */
+	public T poll(int timeoutSeconds) {
+		Jedis j = null;
+		boolean broken = false;
+		try {
+			j = this.borrowBlocking();
+			Client client = j.getClient();
+			for (int remaining = timeoutSeconds;;) {
+				int block = blockSeconds(timeoutSeconds, remaining);
+				client.brpop(block, this.queueKey);
+				List<byte[]> result = client.getBinaryMultiBulkReply();
+				// [key, value]
+				if (result != null && result.size() >= 2) {
+					Message<T> message = this.toMessage(result.get(1));
+					if (message != null) {
+						return message.value;
+					}
+					j.lpush(this.deadKey, result.get(1));
+					continue;
+				}
+				if (timeoutSeconds > 0 && (remaining -= block) <= 0) {
+					return null;
+				}
+			}
+		} catch (Exception e) {
+			broken = true;
+			e.printStackTrace();
+		} finally {
+			if (j != null) this.releaseBlocking(j, broken);
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 阻塞出队并放入处理中列表, 处理完成后需要ack或nack
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:09:05
+	 * @param timeoutSeconds 超时时间(单位秒), 0为一直阻塞
+	 * @return 超时返回null
+	 */
+	public Message<T> take(int timeoutSeconds) {
+		this.checkConsumer();
+		Jedis j = null;
+		boolean broken = false;
+		try {
+			j = this.borrowBlocking();
+			Client client = j.getClient();
+			for (int remaining = timeoutSeconds;;) {
+				int block = blockSeconds(timeoutSeconds, remaining);
+				client.brpoplpush(this.queueKey, this.processingKey, block);
+				byte[] raw = client.getBinaryBulkReply();
+				if (raw != null) {
+					Message<T> message = this.toMessage(raw);
+					if (message != null) {
+						return message;
+					}
+					// 无法解码, 放入死信列表, 否则会一直留在处理中列表, recover后再次出队
+					this.deadLetter(j, raw);
+					continue;
+				}
+				if (timeoutSeconds > 0 && (remaining -= block) <= 0) {
+					return null;
+				}
+			}
+		} catch (Exception e) {
+			broken = true;
+			e.printStackTrace();
+		} finally {
+			if (j != null) this.releaseBlocking(j, broken);
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 批量出队并放入处理中列表, 一次往返, 不阻塞
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:10:12
+	 * @param n 超过MAX_TAKE_BATCH时按MAX_TAKE_BATCH取
+	 * @return 按入队顺序排列, 队列为空时返回空集合, 无法解码的消息放入死信列表
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Message<T>> takeBatch(int n) {
+		this.checkConsumer();
+		if (n <= 0) {
+			throw new IllegalArgumentException("The n must be greater than 0");
+		}
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			Jedis j = this.getShard(jedis);
+			List<byte[]> items = (List<byte[]>) j.eval(TAKE_BATCH_SCRIPT, Arrays.asList(this.queueKey, this.processingKey), Arrays.asList(SafeEncoder.encode(String.valueOf(Math.min(n, MAX_TAKE_BATCH)))));
+			List<Message<T>> messages = new ArrayList<Message<T>>(items.size());
+			// lrange返回的是从新到旧
+			for (int i = items.size() - 1; i >= 0; i--) {
+				byte[] raw = items.get(i);
+				Message<T> message = this.toMessage(raw);
+				if (message != null) {
+					messages.add(message);
+				} else {
+					this.deadLetter(j, raw);
+				}
+			}
+			return messages;
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 确认消息处理完成, 从处理中列表删除
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:11:05
+	 * @param message
+	 * @return
+	 */
+	public boolean ack(Message<T> message) {
+		return this.ack(Collections.singletonList(message));
+	}
+
+	/**
+	 * @功能: 批量确认消息处理完成, 一次往返, 同时清除重试次数
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:11:40
+	 * @param messages
+	 * @return
+	 */
+	public boolean ack(List<Message<T>> messages) {
+		this.checkConsumer();
+		if (messages == null || messages.isEmpty()) {
+			return true;
+		}
+
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			Pipeline pipeline = this.getShard(jedis).pipelined();
+			for (Message<T> message : messages) {
+				pipeline.lrem(this.processingKey, 1, message.raw);
+				pipeline.hdel(this.retriesKey, message.id);
+			}
+			pipeline.sync();
+			return true;
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 消息处理失败, 从处理中列表删除并重新放到队列的出队端, 重试超过maxRetries次后放入死信列表
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:12:30
+	 * @param message
+	 * @return
+	 */
+	public boolean nack(Message<T> message) {
+		this.checkConsumer();
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			this.getShard(jedis).eval(NACK_SCRIPT, Arrays.asList(this.processingKey, this.queueKey, this.retriesKey, this.deadKey),
+					Arrays.asList(message.raw, SafeEncoder.encode(String.valueOf(this.maxRetries)), message.id));
+			return true;
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 将死信列表中的消息全部重新入队(问题修复后调用), 重试次数从0开始
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午9:40:12
+	 * @return 重新入队的个数, 失败返回-1
+	 */
+	public long redeliverDeadLetters() {
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			Jedis j = this.getShard(jedis);
+			long count = 0;
+			while (j.rpoplpush(this.deadKey, this.queueKey) != null) {
+				count++;
+			}
+			return count;
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return -1;
+	}
+
+	/**
+	 * @功能: 将当前消费者处理中列表里的消息全部重新入队, 在消费者启动时调用以恢复崩溃前未确认的消息
+	 *
+	 *      <pre>
+	 * 只能在使用这个消费者标识的进程启动时调用, 其他存活的消费者使用同一标识时会被取走正在处理的消息
+	 * </pre>
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:13:22
+	 * @return 恢复的个数, 失败返回-1
+	 */
+	public long recover() {
+		this.checkConsumer();
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			Jedis j = this.getShard(jedis);
+			long count = 0;
+			while (j.rpoplpush(this.processingKey, this.queueKey) != null) {
+				count++;
+			}
+			return count;
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return -1;
+	}
+
+	/**
+	 * @功能: 队列长度
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:14:01
+	 * @return
+	 */
+	public long size() {
+		return this.llen(this.queueKey);
+	}
+
+	/**
+	 * @功能: 当前消费者处理中列表的长度
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:14:20
+	 * @return
+	 */
+	public long processingSize() {
+		this.checkConsumer();
+		return this.llen(this.processingKey);
+	}
+
+	/**
+	 * @功能: 死信列表的长度
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午9:41:05
+	 * @return
+	 */
+	public long deadLetterSize() {
+		return this.llen(this.deadKey);
+	}
+
+	/**
+	 * @功能: 关闭空闲的阻塞专用连接(消费者停止后调用), 之后的阻塞命令会重新建立连接
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午9:42:30
+	 */
+	public void closeBlockingConnections() {
+		Jedis j;
+		while ((j = this.blockingConnections.pollFirst()) != null) {
+			closeQuietly(j);
+		}
+	}
+
+	private long llen(byte[] key) {
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			return this.getShard(jedis).llen(key);
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return -1;
+	}
+
+	private Jedis getShard(ShardedJedis jedis) {
+		return jedis.getShard(this.name);
+	}
+
+	private void checkConsumer() {
+		if (this.processingKey == null) {
+			throw new IllegalStateException("Queue " + this.name + " has no consumerId, use RedisUtils.getQueue(name, consumerId, typeToken) to consume reliably");
+		}
+	}
+
+	/**
+	 * @功能: 获取队列所在分片的专用连接, 分片地址变化(主从切换, 重新分片)后的空闲连接直接关闭
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午9:43:10
+	 * @return
+	 */
+	private Jedis borrowBlocking() {
+		JedisShardInfo info;
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			info = jedis.getShardInfo(this.name);
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+
+		Jedis j;
+		while ((j = this.blockingConnections.pollFirst()) != null) {
+			Client client = j.getClient();
+			if (j.isConnected() && client.getPort() == info.getPort() && client.getHost().equals(info.getHost())) {
+				return j;
+			}
+			closeQuietly(j);
+		}
+		j = new Jedis(info.getHost(), info.getPort(), info.getConnectionTimeout(), BLOCK_SLICE_SECONDS * 1000 + BLOCK_SO_TIMEOUT_MARGIN_MILLIS);
+		try {
+			if (info.getPassword() != null) {
+				j.auth(info.getPassword());
+			}
+			if (info.getDb() != 0) {
+				j.select(info.getDb());
+			}
+		} catch (RuntimeException e) {
+			closeQuietly(j);
+			throw e;
+		}
+		return j;
+	}
+
+	private void releaseBlocking(Jedis j, boolean broken) {
+		if (broken || j.getClient().isBroken()) {
+			closeQuietly(j);
+		} else {
+			this.blockingConnections.offerFirst(j);
+		}
+	}
+
+	/**
+	 * @return 本次阻塞的秒数, timeoutSeconds为0时一直按BLOCK_SLICE_SECONDS分段阻塞
+	 */
+	private static int blockSeconds(int timeoutSeconds, int remaining) {
+		return timeoutSeconds <= 0 ? BLOCK_SLICE_SECONDS : Math.min(BLOCK_SLICE_SECONDS, remaining);
+	}
+
+	private static void closeQuietly(Jedis j) {
+		try {
+			j.close();
+		} catch (Exception e) {
+		}
+	}
+
+	/**
+	 * @return 无法解码时返回null
+	 */
+	private Message<T> toMessage(byte[] raw) {
+		byte[] data = isWrapped(raw) ? Arrays.copyOfRange(raw, HEADER_LENGTH, raw.length) : raw;
+		try {
+			return new Message<T>(RedisCodecs.decode(data, this.typeToken), raw, messageId(raw));
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	private void deadLetter(Jedis j, byte[] raw) {
+		j.eval(DEAD_LETTER_SCRIPT, Arrays.asList(this.processingKey, this.deadKey, this.retriesKey), Arrays.asList(raw, messageId(raw)));
+	}
+
+	private static boolean isWrapped(byte[] raw) {
+		return raw.length >= HEADER_LENGTH && raw[0] == ENVELOPE;
+	}
+
+	private static byte[] messageId(byte[] raw) {
+		return isWrapped(raw) ? Arrays.copyOfRange(raw, 1, HEADER_LENGTH) : raw;
+	}
+
+	private static byte[] wrap(byte[] data) {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + data.length);
+		buffer.put(ENVELOPE).putLong(INSTANCE_ID).putLong(SEQUENCE.incrementAndGet()).put(data);
+		return buffer.array();
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: 可靠队列的消费者, 启动N个工作线程并发消费
+ *
+ *      <pre>
+ * 每个工作线程先批量取消息(一次往返), 队列为空时改为阻塞等待, 避免空轮询
+ * 处理成功的消息批量ack, 处理失败的消息nack重新入队, 超过重试次数后进入死信列表
+ * 队列必须指定消费者标识, 参见RedisUtils.getQueue(name, consumerId, typeToken)
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午5:20:45
+ */
+public class RedisQueueConsumer<T> {
+
+	private static final Logger logger = LogManager.getLogger(RedisQueueConsumer.class);
+
+	/** 消息处理器 */
+	public interface Handler<T> {
+		void handle(T value) throws Exception;
+	}
+
+	private final RedisQueue<T> queue;
+	private final Handler<T> handler;
+	private final int workers;
+	private final int batchSize;
+	private final int blockSeconds;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	private final List<Thread> threads = new ArrayList<Thread>();
+
+	/**
+	 * @param queue 指定了消费者标识的队列
+	 * @param handler
+	 * @param workers 工作线程数
+	 * @param batchSize 每次批量取的消息数
+	 * @param blockSeconds 队列为空时阻塞等待的时间(单位秒), 必须大于0, 同时也是shutdown的最长等待时间
+	 */
+	public RedisQueueConsumer(RedisQueue<T> queue, Handler<T> handler, int workers, int batchSize, int blockSeconds) {
+		if (queue.getConsumerId() == null) {
+			throw new IllegalArgumentException("The queue " + queue.getName() + " has no consumerId");
+		}
+		if (workers <= 0 || batchSize <= 0) {
+			throw new IllegalArgumentException("The workers and batchSize must be greater than 0");
+		}
+		// 为0时take一直阻塞, shutdown无法结束工作线程
+		if (blockSeconds <= 0) {
+			throw new IllegalArgumentException("The blockSeconds must be greater than 0");
+		}
+		this.queue = queue;
+		this.handler = handler;
+		this.workers = workers;
+		this.batchSize = batchSize;
+		this.blockSeconds = blockSeconds;
+	}
+
+	/**
+	 * @功能: 恢复上次未确认的消息并启动工作线程
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:22:10
+	 */
+	public synchronized void start() {
+		if (!this.running.compareAndSet(false, true)) {
+			return;
+		}
+		long recovered = this.queue.recover();
+		if (recovered > 0) {
+			logger.info("Recovered " + recovered + " unacknowledged messages of queue " + this.queue.getName());
+		}
+		for (int i = 0; i < this.workers; i++) {
+			Thread t = new Thread(new Worker(), "redis-queue-" + this.queue.getName() + "-" + i);
+			t.setDaemon(true);
+			this.threads.add(t);
+			t.start();
+		}
+	}
+
+	/**
+	 * @功能: 停止工作线程, 等待正在处理的消息完成
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:22:45
+	 */
+	public synchronized void shutdown() {
+		this.running.set(false);
+		for (Thread t : this.threads) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		this.threads.clear();
+		this.queue.closeBlockingConnections();
+	}
+
+	private class Worker implements Runnable {
+		@Override
+		public void run() {
+			while (running.get()) {
+				List<RedisQueue.Message<T>> messages = queue.takeBatch(batchSize);
+				// redis异常, 稍后重试
+				if (messages == null) {
+					try {
+						Thread.sleep(1000);
+					} catch (InterruptedException e) {
+						return;
+					}
+					continue;
+				}
+				if (messages.isEmpty()) {
+					RedisQueue.Message<T> message = queue.take(blockSeconds);
+					if (message == null) {
+						continue;
+					}
+					messages = new ArrayList<RedisQueue.Message<T>>(1);
+					messages.add(message);
+				}
+
+				List<RedisQueue.Message<T>> acks = new ArrayList<RedisQueue.Message<T>>(messages.size());
+				for (RedisQueue.Message<T> message : messages) {
+					try {
+						handler.handle(message.getValue());
+						acks.add(message);
+					} catch (Exception e) {
+						logger.error("Failed to handle message of queue " + queue.getName(), e);
+						queue.nack(message);
+					}
+				}
+				queue.ack(acks);
+			}
+		}
+	}
+
+}
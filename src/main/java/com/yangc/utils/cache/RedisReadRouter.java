@@ -0,0 +1,380 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedisSentinelPool;
+import redis.clients.util.Hashing;
+import redis.clients.util.Sharded;
+
+/**
+ * @功能: shard_master_slave模式下的读路由, 将只读命令发送到从库
+ *
+ *      <pre>
+ * 定时通过 SENTINEL slaves 发现每个master的从库, 并检查从库的复制状态和延迟
+ * 复制延迟按复制偏移量计算: master的master_repl_offset减去从库的slave_repl_offset
+ * 从库与master断开, 延迟超过maxLagBytes或无法读取master的偏移量时不参与读取
+ * 没有可用从库或从库连接失败时读取master
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午10:50:12
+ */
+public class RedisReadRouter {
+
+	private static final Logger logger = LogManager.getLogger(RedisReadRouter.class);
+
+	/** 读路由策略 */
+	public enum Policy {
+		/** 只读master */
+		MASTER_ONLY,
+
+		/** 优先轮流读取可用的从库 */
+		REPLICA_PREFERRED,
+
+		/** 读取延迟最低的节点(包括master) */
+		LOWEST_LATENCY
+	}
+
+	// 延迟的指数移动平均系数
+	private static final double LATENCY_ALPHA = 0.3;
+
+	// REPLICA_PREFERRED策略下轮流选择从库
+	private final AtomicInteger counter = new AtomicInteger();
+
+	private final ShardedJedisSentinelPool pool;
+	private final List<String> sentinels;
+	private final Policy policy;
+	private final long maxLagBytes;
+	private final int timeout;
+	private final String password;
+	private final GenericObjectPoolConfig replicaPoolConfig;
+	private final ScheduledExecutorService refresher;
+
+	// 从库地址 -> 从库
+	private final ConcurrentHashMap<HostAndPort, Replica> replicas = new ConcurrentHashMap<HostAndPort, Replica>();
+	// master名称 -> 可用的从库
+	private volatile Map<String, List<Replica>> healthyReplicas = Collections.emptyMap();
+	// master名称 -> master的延迟(单位微秒)
+	private final ConcurrentHashMap<String, Double> masterLatency = new ConcurrentHashMap<String, Double>();
+	// 与pool当前分片一致的路由, 分片变化(reshard)时重建
+	private volatile Routing routing;
+
+	private static class Replica {
+		private final HostAndPort endpoint;
+		private final JedisPool pool;
+		private volatile double latencyMicros = -1;
+
+		Replica(HostAndPort endpoint, JedisPool pool) {
+			this.endpoint = endpoint;
+			this.pool = pool;
+		}
+	}
+
+	private static class Routing {
+		private final List<JedisShardInfo> shardInfos;
+		private final Sharded<Jedis, JedisShardInfo> sharded;
+		private final Map<JedisShardInfo, String> masterNames = new HashMap<JedisShardInfo, String>();
+
+		Routing(List<JedisShardInfo> shardInfos, List<String> masterNames) {
+			this.shardInfos = shardInfos;
+			// 只用于计算key所在的分片, 创建的Jedis不会建立连接
+			this.sharded = new Sharded<Jedis, JedisShardInfo>(shardInfos, Hashing.MURMUR_HASH);
+			for (int i = 0; i < shardInfos.size(); i++) {
+				this.masterNames.put(shardInfos.get(i), masterNames.get(i));
+			}
+		}
+	}
+
+	/**
+	 * @param pool
+	 * @param sentinels sentinel地址(host:port)
+	 * @param policy 读路由策略
+	 * @param maxLagBytes 从库允许的最大复制延迟(复制偏移量之差, 单位字节)
+	 * @param refreshSeconds 发现从库及检查延迟的间隔(单位秒)
+	 * @param timeout 从库的连接超时时间(单位毫秒)
+	 * @param password
+	 * @param replicaPoolConfig 每个从库的连接池配置
+	 */
+	public RedisReadRouter(ShardedJedisSentinelPool pool, List<String> sentinels, Policy policy, long maxLagBytes, int refreshSeconds, int timeout, String password,
+			GenericObjectPoolConfig replicaPoolConfig) {
+		this.pool = pool;
+		this.sentinels = new ArrayList<String>(sentinels);
+		this.policy = policy;
+		this.maxLagBytes = maxLagBytes;
+		this.timeout = timeout;
+		this.password = password;
+		this.replicaPoolConfig = replicaPoolConfig;
+		this.refresh();
+		this.refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "redis-read-router");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.refresher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				refresh();
+			}
+		}, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @功能: 按读路由策略获取key所在分片的从库连接
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午10:55:30
+	 * @param key
+	 * @return 应读取master时返回null, 使用后需要close
+	 */
+	public Jedis getResource(String key) {
+		if (this.policy == Policy.MASTER_ONLY) {
+			return null;
+		}
+		String masterName = this.getMasterName(key);
+		List<Replica> candidates = this.healthyReplicas.get(masterName);
+		if (candidates == null || candidates.isEmpty()) {
+			return null;
+		}
+
+		Replica replica;
+		if (this.policy == Policy.REPLICA_PREFERRED) {
+			replica = candidates.get((this.counter.getAndIncrement() & Integer.MAX_VALUE) % candidates.size());
+		} else {
+			replica = candidates.get(0);
+			for (Replica candidate : candidates) {
+				if (candidate.latencyMicros < replica.latencyMicros) {
+					replica = candidate;
+				}
+			}
+			Double latency = this.masterLatency.get(masterName);
+			if (latency != null && latency <= replica.latencyMicros) {
+				return null;
+			}
+		}
+
+		try {
+			return replica.pool.getResource();
+		} catch (Exception e) {
+			logger.warn("Cannot borrow connection from replica " + replica.endpoint + ", reading from master", e);
+			this.markUnhealthy(masterName, replica);
+			return null;
+		}
+	}
+
+	/**
+	 * @功能: 从库读取失败时调用, 在下次检查之前不再使用该从库
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午10:56:45
+	 * @param key
+	 * @param jedis
+	 */
+	public void readFailed(String key, Jedis jedis) {
+		HostAndPort endpoint = new HostAndPort(jedis.getClient().getHost(), jedis.getClient().getPort());
+		Replica replica = this.replicas.get(endpoint);
+		if (replica != null) {
+			this.markUnhealthy(this.getMasterName(key), replica);
+		}
+	}
+
+	public void shutdown() {
+		this.refresher.shutdownNow();
+		for (Replica replica : this.replicas.values()) {
+			replica.pool.destroy();
+		}
+		this.replicas.clear();
+	}
+
+	private String getMasterName(String key) {
+		List<JedisShardInfo> shardInfos = this.pool.getCurrentShardInfos();
+		Routing routing = this.routing;
+		if (routing == null || routing.shardInfos != shardInfos) {
+			routing = new Routing(shardInfos, this.pool.getMasterNames());
+			this.routing = routing;
+		}
+		return routing.masterNames.get(routing.sharded.getShardInfo(key));
+	}
+
+	private void markUnhealthy(String masterName, Replica replica) {
+		// 不使用refresh的锁, 避免读线程等待检查完成
+		synchronized (this.replicas) {
+			List<Replica> candidates = this.healthyReplicas.get(masterName);
+			if (candidates != null && candidates.contains(replica)) {
+				Map<String, List<Replica>> healthyReplicas = new HashMap<String, List<Replica>>(this.healthyReplicas);
+				List<Replica> remaining = new ArrayList<Replica>(candidates);
+				remaining.remove(replica);
+				healthyReplicas.put(masterName, remaining);
+				this.healthyReplicas = healthyReplicas;
+			}
+		}
+	}
+
+	/**
+	 * 发现从库, 检查复制状态, 测量延迟
+	 */
+	private synchronized void refresh() {
+		try {
+			List<String> masterNames = this.pool.getMasterNames();
+			List<HostAndPort> masters = this.pool.getCurrentHostMaster();
+			Map<String, List<Replica>> healthyReplicas = new HashMap<String, List<Replica>>();
+			Map<HostAndPort, Replica> alive = new HashMap<HostAndPort, Replica>();
+			for (int i = 0; i < masterNames.size(); i++) {
+				String masterName = masterNames.get(i);
+				Map<Replica, Long> offsets = new HashMap<Replica, Long>();
+				for (HostAndPort endpoint : this.discover(masterName)) {
+					Replica replica = this.replicas.get(endpoint);
+					if (replica == null) {
+						replica = new Replica(endpoint, new JedisPool(this.replicaPoolConfig, endpoint.getHost(), endpoint.getPort(), this.timeout, this.password));
+						this.replicas.put(endpoint, replica);
+						logger.info("Discovered replica " + endpoint + " of " + masterName);
+					}
+					alive.put(endpoint, replica);
+					long offset = this.check(replica);
+					if (offset >= 0) {
+						offsets.put(replica, offset);
+					}
+				}
+				// 先读取从库再读取master的偏移量, 计算出的延迟不会小于实际值
+				long masterOffset = this.checkMaster(masterName, masters.get(i));
+				List<Replica> healthy = new ArrayList<Replica>();
+				for (Map.Entry<Replica, Long> entry : offsets.entrySet()) {
+					if (masterOffset >= 0 && masterOffset - entry.getValue() <= this.maxLagBytes) {
+						healthy.add(entry.getKey());
+					}
+				}
+				healthyReplicas.put(masterName, healthy);
+			}
+			this.healthyReplicas = healthyReplicas;
+
+			// 关闭已下线的从库
+			for (HostAndPort endpoint : new ArrayList<HostAndPort>(this.replicas.keySet())) {
+				if (!alive.containsKey(endpoint)) {
+					logger.info("Removed replica " + endpoint);
+					this.replicas.remove(endpoint).pool.destroy();
+				}
+			}
+		} catch (Exception e) {
+			logger.error("Failed to refresh redis replicas", e);
+		}
+	}
+
+	private List<HostAndPort> discover(String masterName) {
+		for (String sentinel : this.sentinels) {
+			String[] hostPort = sentinel.split(":");
+			Jedis jedis = null;
+			try {
+				jedis = new Jedis(hostPort[0], Integer.parseInt(hostPort[1]), this.timeout);
+				List<HostAndPort> endpoints = new ArrayList<HostAndPort>();
+				for (Map<String, String> slave : jedis.sentinelSlaves(masterName)) {
+					String flags = slave.get("flags");
+					if (flags == null || flags.contains("s_down") || flags.contains("o_down") || flags.contains("disconnected")) {
+						continue;
+					}
+					if (!"ok".equals(slave.get("master-link-status"))) {
+						continue;
+					}
+					endpoints.add(new HostAndPort(slave.get("ip"), Integer.parseInt(slave.get("port"))));
+				}
+				return endpoints;
+			} catch (Exception e) {
+				logger.warn("Cannot get replicas of " + masterName + " from sentinel " + sentinel + ", trying next one");
+			} finally {
+				if (jedis != null) jedis.close();
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * 测量延迟, 复制链路正常时返回从库的复制偏移量, 否则返回-1
+	 */
+	private long check(Replica replica) {
+		Jedis jedis = null;
+		try {
+			jedis = replica.pool.getResource();
+			long start = System.nanoTime();
+			jedis.ping();
+			replica.latencyMicros = ewma(replica.latencyMicros, (System.nanoTime() - start) / 1000.0);
+
+			Map<String, String> info = parseInfo(jedis.info("replication"));
+			if (!"up".equals(info.get("master_link_status"))) {
+				return -1;
+			}
+			String offset = info.get("slave_repl_offset");
+			return offset == null ? -1 : Long.parseLong(offset);
+		} catch (Exception e) {
+			logger.warn("Replica " + replica.endpoint + " is unavailable: " + e.getMessage());
+			return -1;
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+	}
+
+	/**
+	 * 返回master的复制偏移量, 无法读取时返回-1, LOWEST_LATENCY策略下同时测量延迟
+	 */
+	private long checkMaster(String masterName, HostAndPort master) {
+		Jedis jedis = null;
+		try {
+			jedis = new Jedis(master.getHost(), master.getPort(), this.timeout);
+			if (this.password != null) {
+				jedis.auth(this.password);
+			}
+			if (this.policy == Policy.LOWEST_LATENCY) {
+				// 第一次ping包含建立连接的时间, 只统计第二次
+				jedis.ping();
+				long start = System.nanoTime();
+				jedis.ping();
+				Double latency = this.masterLatency.get(masterName);
+				this.masterLatency.put(masterName, ewma(latency == null ? -1 : latency, (System.nanoTime() - start) / 1000.0));
+			}
+			String offset = parseInfo(jedis.info("replication")).get("master_repl_offset");
+			return offset == null ? -1 : Long.parseLong(offset);
+		} catch (Exception e) {
+			logger.warn("Cannot read replication offset of master " + master + ": " + e.getMessage());
+			this.masterLatency.remove(masterName);
+			return -1;
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+	}
+
+	private static double ewma(double current, double sample) {
+		return current < 0 ? sample : current * (1 - LATENCY_ALPHA) + sample * LATENCY_ALPHA;
+	}
+
+	private static Map<String, String> parseInfo(String info) {
+		Map<String, String> map = new HashMap<String, String>();
+		for (String line : Arrays.asList(info.split("\r\n"))) {
+			int index = line.indexOf(':');
+			if (index > 0) {
+				map.put(line.substring(0, index), line.substring(index + 1).trim());
+			}
+		}
+		return map;
+	}
+
+}
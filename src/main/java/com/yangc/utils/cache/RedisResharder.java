@@ -0,0 +1,319 @@
+package com.yangc.utils.cache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * @功能: 分片变化后在后台迁移key
+ *
+ *      <pre>
+ * 按旧的分片逐个SCAN, 新环中归属其他分片的key通过DUMP + RESTORE(保留剩余过期时间)迁移到新分片后从旧分片删除
+ * 旧分片上的删除是有条件的(lua比较DUMP的结果), 期间旧分片上的值被修改(如还未切换分片的其他进程写入)时,
+ * 撤销新分片上刚写入的副本并重新迁移, 不会丢失修改
+ * 新分片上已存在的key是切换后写入的, 比旧分片上的新, 同样按条件删除旧分片上的key
+ * 迁移速度按每秒key数限流
+ * 迁移期间(双读窗口)新分片上不存在的key可以从旧分片读取, 参见readFromPrevious
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午10:05:20
+ */
+public class RedisResharder implements Runnable {
+
+	private static final Logger logger = LogManager.getLogger(RedisResharder.class);
+
+	// 值未被修改(DUMP结果相同)时才删除
+	private static final byte[] COMPARE_AND_DEL_SCRIPT = SafeEncoder.encode("if redis.call('dump', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0");
+
+	// 迁移期间值被修改时的最大尝试次数
+	private static final int MAX_ATTEMPTS = 3;
+
+	private final List<JedisShardInfo> previousShards;
+	private final ShardRing<JedisShardInfo> previousRing;
+	private final ShardRing<JedisShardInfo> currentRing;
+	private final int keysPerSecond;
+	private final int scanCount;
+
+	// 双读窗口内访问旧分片的连接池, 按分片名称
+	private final ConcurrentHashMap<String, JedisPool> previousPools = new ConcurrentHashMap<String, JedisPool>();
+
+	private volatile boolean running = true;
+	private final AtomicLong scannedCount = new AtomicLong();
+	private final AtomicLong migratedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+
+	/**
+	 * @param previousShards 迁移前的分片, 必须以名称命名
+	 * @param currentShards 迁移后的分片, 必须以名称命名
+	 * @param keysPerSecond 每秒最多迁移的key数
+	 * @param scanCount SCAN每次遍历的COUNT
+	 */
+	public RedisResharder(List<JedisShardInfo> previousShards, List<JedisShardInfo> currentShards, int keysPerSecond, int scanCount) {
+		if (keysPerSecond <= 0) {
+			throw new IllegalArgumentException("The keysPerSecond must be greater than 0");
+		}
+		this.previousShards = previousShards;
+		this.previousRing = buildRing(previousShards);
+		this.currentRing = buildRing(currentShards);
+		this.keysPerSecond = keysPerSecond;
+		this.scanCount = scanCount;
+	}
+
+	private static ShardRing<JedisShardInfo> buildRing(List<JedisShardInfo> shards) {
+		ShardRing<JedisShardInfo> ring = new ShardRing<JedisShardInfo>();
+		for (JedisShardInfo shard : shards) {
+			if (shard.getName() == null) {
+				throw new IllegalArgumentException("Resharding requires named shards");
+			}
+			ring.add(shard.getName(), shard, shard.getWeight());
+		}
+		return ring;
+	}
+
+	@Override
+	public void run() {
+		long start = System.currentTimeMillis();
+		logger.info("Resharding started, " + this.previousShards.size() + " -> " + this.currentRing.size() + " shards");
+		// 限流: 每个key占用的纳秒数
+		long interval = 1000000000L / this.keysPerSecond;
+		long next = System.nanoTime();
+		try {
+			for (JedisShardInfo source : this.previousShards) {
+				Jedis from = source.createResource();
+				Map<String, Jedis> targets = new HashMap<String, Jedis>();
+				try {
+					String cursor = ScanParams.SCAN_POINTER_START;
+					ScanParams params = new ScanParams().count(this.scanCount);
+					do {
+						ScanResult<String> result = from.scan(cursor, params);
+						for (String key : result.getResult()) {
+							if (!this.running) {
+								return;
+							}
+							this.scannedCount.incrementAndGet();
+							JedisShardInfo target = this.currentRing.get(key);
+							if (source.getName().equals(target.getName())) {
+								continue;
+							}
+							long now = System.nanoTime();
+							if (next > now) {
+								Thread.sleep((next - now) / 1000000, (int) ((next - now) % 1000000));
+							}
+							next = Math.max(next, now) + interval;
+
+							Jedis to = targets.get(target.getName());
+							if (to == null) {
+								to = target.createResource();
+								targets.put(target.getName(), to);
+							}
+							this.migrate(from, to, key);
+						}
+						cursor = result.getStringCursor();
+					} while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+				} finally {
+					from.close();
+					for (Jedis to : targets.values()) {
+						to.close();
+					}
+				}
+			}
+			logger.info("Resharding finished in " + (System.currentTimeMillis() - start) + "ms, scanned " + this.scannedCount.get() + ", migrated " + this.migratedCount.get() + ", failed "
+					+ this.failedCount.get());
+		} catch (InterruptedException e) {
+			logger.info("Resharding interrupted");
+		} catch (Exception e) {
+			logger.error("Resharding aborted", e);
+		} finally {
+			this.running = false;
+			for (JedisPool pool : this.previousPools.values()) {
+				pool.destroy();
+			}
+			this.previousPools.clear();
+		}
+	}
+
+	private void migrate(Jedis from, Jedis to, String key) {
+		byte[] keyBytes = SafeEncoder.encode(key);
+		try {
+			for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+				byte[] dump = from.dump(keyBytes);
+				// 已过期或已删除
+				if (dump == null) {
+					return;
+				}
+				long ttl = from.pttl(keyBytes);
+				if (ttl == -2) {
+					return;
+				}
+				boolean restored = true;
+				try {
+					to.restore(keyBytes, (int) Math.max(0, ttl), dump);
+				} catch (JedisDataException e) {
+					if (e.getMessage() == null || !e.getMessage().startsWith("BUSYKEY")) {
+						throw e;
+					}
+					// 新分片上的值更新, 不需要写入
+					restored = false;
+				}
+				if (compareAndDel(from, keyBytes, dump)) {
+					if (restored) {
+						this.migratedCount.incrementAndGet();
+					}
+					return;
+				}
+				// 迁移期间旧分片上的值被修改, 撤销新分片上的副本(期间未被再次写入时)后重试
+				if (restored) {
+					compareAndDel(to, keyBytes, dump);
+				}
+			}
+			this.failedCount.incrementAndGet();
+			logger.warn("Failed to migrate " + key + ", the value kept changing on the previous shard");
+		} catch (Exception e) {
+			this.failedCount.incrementAndGet();
+			logger.error("Failed to migrate " + key, e);
+		}
+	}
+
+	private static boolean compareAndDel(Jedis jedis, byte[] key, byte[] dump) {
+		Object result = jedis.eval(COMPARE_AND_DEL_SCRIPT, Arrays.asList(key), Arrays.asList(dump));
+		return result instanceof Long && (Long) result > 0;
+	}
+
+	/**
+	 * @功能: 双读窗口内, 从key迁移前所在的分片读取
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午10:12:40
+	 * @param key
+	 * @return 迁移已结束或key未改变分片时返回null
+	 */
+	public byte[] getFromPrevious(final String key) {
+		return this.readFromPrevious(key, new ShardRead<byte[]>() {
+			@Override
+			public byte[] read(Jedis jedis) {
+				return jedis.get(SafeEncoder.encode(key));
+			}
+		});
+	}
+
+	/**
+	 * @功能: 双读窗口内, 在key迁移前所在的分片上执行读操作(hash, sorted set等), 调用方应先确认新分片上不存在该key
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午10:52:30
+	 * @param key
+	 * @param read
+	 * @return 迁移已结束, key未改变分片或读取出错时返回null
+	 */
+	<R> R readFromPrevious(String key, ShardRead<R> read) {
+		JedisPool pool = this.getPreviousPool(key);
+		if (pool == null) {
+			return null;
+		}
+		Jedis jedis = null;
+		try {
+			jedis = pool.getResource();
+			return read.read(jedis);
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: key是否处于双读窗口中(迁移未结束且分片已改变)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午10:53:40
+	 * @param key
+	 * @return
+	 */
+	public boolean isMoved(String key) {
+		if (!this.running) {
+			return false;
+		}
+		JedisShardInfo previous = this.previousRing.get(key);
+		return previous != null && !previous.getName().equals(this.currentRing.getName(key));
+	}
+
+	/**
+	 * @功能: 双读窗口内, 删除key迁移前所在分片上的值, 避免已删除的key被双读读到
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午10:13:25
+	 * @param key
+	 */
+	public void delFromPrevious(String key) {
+		JedisPool pool = this.getPreviousPool(key);
+		if (pool == null) {
+			return;
+		}
+		Jedis jedis = null;
+		try {
+			jedis = pool.getResource();
+			jedis.del(key);
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+	}
+
+	private JedisPool getPreviousPool(String key) {
+		if (!this.isMoved(key)) {
+			return null;
+		}
+		JedisShardInfo previous = this.previousRing.get(key);
+		JedisPool pool = this.previousPools.get(previous.getName());
+		if (pool == null) {
+			GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+			config.setMaxTotal(8);
+			pool = new JedisPool(config, previous.getHost(), previous.getPort(), previous.getConnectionTimeout(), previous.getPassword());
+			JedisPool existing = this.previousPools.putIfAbsent(previous.getName(), pool);
+			if (existing != null) {
+				pool.destroy();
+				pool = existing;
+			}
+		}
+		return pool;
+	}
+
+	/**
+	 * @功能: 停止迁移, 已迁移的key不回滚
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午10:14:02
+	 */
+	public void stop() {
+		this.running = false;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	public long getScannedCount() {
+		return scannedCount.get();
+	}
+
+	public long getMigratedCount() {
+		return migratedCount.get();
+	}
+
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+}
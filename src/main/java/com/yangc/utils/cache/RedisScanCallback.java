@@ -0,0 +1,23 @@
+package com.yangc.utils.cache;
+
+import java.util.List;
+
+import redis.clients.jedis.Jedis;
+
+/**
+ * @功能: SCAN遍历的回调, 各分片在不同线程中并发回调, 实现需要线程安全
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午3:10:26
+ */
+public interface RedisScanCallback {
+
+	/**
+	 * @功能: 处理一批key
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午3:11:02
+	 * @param jedis key所在分片的连接, 只能在回调中使用
+	 * @param keys
+	 */
+	void onKeys(Jedis jedis, List<String> keys);
+
+}
@@ -0,0 +1,94 @@
+package com.yangc.utils.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import redis.clients.util.SafeEncoder;
+
+/**
+ * @功能: 服务端执行的lua脚本, SHA1在本地计算, 与SCRIPT LOAD的返回值相同
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午11:20:10
+ */
+public class RedisScript {
+
+	/**
+	 * 有界排行榜: 为member的score加上增量后只保留分数最高的N个成员
+	 * KEYS[1]: 排行榜, ARGV[1]: 增量, ARGV[2]: member, ARGV[3]: 保留的成员数
+	 * 返回member的新分数
+	 */
+	public static final RedisScript BOUNDED_ZINCRBY = new RedisScript("boundedZincrby", "local score = redis.call('zincrby', KEYS[1], ARGV[1], ARGV[2]) "
+			+ "local size = redis.call('zcard', KEYS[1]) local max = tonumber(ARGV[3]) "
+			+ "if size > max then redis.call('zremrangebyrank', KEYS[1], 0, size - max - 1) end return score");
+
+	/**
+	 * 滑动窗口限流: 窗口内的请求数未达到上限时记录本次请求
+	 * KEYS[1]: 请求记录, ARGV[1]: 当前时间(毫秒), ARGV[2]: 窗口长度(毫秒), ARGV[3]: 窗口内最大请求数, ARGV[4]: 本次请求的唯一标识
+	 * 当前时间由客户端传入, 保证脚本的写入可以被复制
+	 * 返回1表示通过, 0表示被限流
+	 */
+	public static final RedisScript SLIDING_WINDOW_RATE_LIMIT = new RedisScript("slidingWindowRateLimit", "local now = tonumber(ARGV[1]) local window = tonumber(ARGV[2]) "
+			+ "redis.call('zremrangebyscore', KEYS[1], '-inf', now - window) "
+			+ "if redis.call('zcard', KEYS[1]) < tonumber(ARGV[3]) then redis.call('zadd', KEYS[1], now, ARGV[4]) redis.call('pexpire', KEYS[1], window) return 1 end return 0");
+
+	/**
+	 * 比较并设置: 当前值与期望值相同时设置新值
+	 * KEYS[1]: key, ARGV[1]: 为1时比较ARGV[2], 否则要求key不存在, ARGV[2]: 期望值, ARGV[3]: 新值, ARGV[4]: 存活时间(单位秒), 0为不过期
+	 * 返回1表示设置成功, 0表示当前值不符
+	 */
+	public static final RedisScript COMPARE_AND_SET = new RedisScript("compareAndSet", "local current = redis.call('get', KEYS[1]) "
+			+ "if ARGV[1] == '1' then if current ~= ARGV[2] then return 0 end elseif current then return 0 end "
+			+ "if tonumber(ARGV[4]) > 0 then redis.call('setex', KEYS[1], ARGV[4], ARGV[3]) else redis.call('set', KEYS[1], ARGV[3]) end return 1");
+
+	private final String name;
+	private final byte[] source;
+	private final byte[] sha1;
+
+	/**
+	 * @param name 名称, 在RedisScripts中唯一
+	 * @param source lua脚本
+	 */
+	public RedisScript(String name, String source) {
+		if (name == null || source == null) {
+			throw new IllegalArgumentException("The parameters must not be null");
+		}
+		this.name = name;
+		this.source = SafeEncoder.encode(source);
+		this.sha1 = SafeEncoder.encode(sha1Hex(this.source));
+	}
+
+	private static String sha1Hex(byte[] bytes) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public byte[] getSource() {
+		return source;
+	}
+
+	public byte[] getSha1() {
+		return sha1;
+	}
+
+	public String getSha1Hex() {
+		return SafeEncoder.encode(sha1);
+	}
+
+	@Override
+	public String toString() {
+		return this.name + "(" + this.getSha1Hex() + ")";
+	}
+
+}
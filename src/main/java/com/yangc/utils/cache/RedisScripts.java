@@ -0,0 +1,203 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.Pool;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * @功能: lua脚本注册表
+ *
+ *      <pre>
+ * 按名称注册脚本, 通过EVALSHA执行, 只发送SHA1, 分片上没有该脚本时(NOSCRIPT, 如重启或主从切换后)用EVAL执行一次并缓存到该分片
+ * 按KEYS[1]路由到所在的分片, 所有key必须位于同一个分片上, 否则抛出IllegalArgumentException
+ * 多个关联的key也可以指定路由key, 统一保存在路由key所在的分片上(与RedisQueue的处理中列表相同)
+ * 内置有界排行榜、滑动窗口限流、比较并设置三个脚本, 参见RedisScript
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午11:25:40
+ */
+public class RedisScripts {
+
+	private static final Logger logger = LogManager.getLogger(RedisScripts.class);
+
+	private final Pool<ShardedJedis> pool;
+	private final ConcurrentHashMap<String, RedisScript> scripts = new ConcurrentHashMap<String, RedisScript>();
+
+	// EVALSHA返回NOSCRIPT后改用EVAL的次数
+	private final AtomicLong noScriptCount = new AtomicLong();
+
+	RedisScripts(Pool<ShardedJedis> pool) {
+		this.pool = pool;
+		this.register(RedisScript.BOUNDED_ZINCRBY);
+		this.register(RedisScript.SLIDING_WINDOW_RATE_LIMIT);
+		this.register(RedisScript.COMPARE_AND_SET);
+	}
+
+	/**
+	 * @功能: 注册脚本
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:27:10
+	 * @param name
+	 * @param source
+	 * @return
+	 */
+	public RedisScript register(String name, String source) {
+		return this.register(new RedisScript(name, source));
+	}
+
+	/**
+	 * @功能: 注册脚本, 同名的相同脚本重复注册时返回已注册的脚本
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:27:45
+	 * @param script
+	 * @return
+	 */
+	public RedisScript register(RedisScript script) {
+		RedisScript existing = this.scripts.putIfAbsent(script.getName(), script);
+		if (existing == null) {
+			return script;
+		}
+		if (!existing.getSha1Hex().equals(script.getSha1Hex())) {
+			throw new IllegalArgumentException("Script " + script.getName() + " is already registered with different source");
+		}
+		return existing;
+	}
+
+	public RedisScript getScript(String name) {
+		return this.scripts.get(name);
+	}
+
+	/**
+	 * @功能: 将所有已注册的脚本加载到每个分片上, 可选, 未加载时首次执行会通过EVAL加载
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:28:30
+	 * @return
+	 */
+	public boolean preload() {
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			for (Jedis shard : jedis.getAllShards()) {
+				for (RedisScript script : this.scripts.values()) {
+					shard.scriptLoad(script.getSource());
+				}
+			}
+			return true;
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 按名称执行已注册的脚本
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:29:20
+	 * @param name
+	 * @param keys
+	 * @param args
+	 * @return 脚本的返回值, 字符串为byte[], 整数为Long, 数组为List
+	 */
+	public Object eval(String name, List<String> keys, List<String> args) {
+		RedisScript script = this.scripts.get(name);
+		if (script == null) {
+			throw new IllegalArgumentException("Script " + name + " is not registered");
+		}
+		return this.eval(script, encode(keys), encode(args));
+	}
+
+	/**
+	 * @功能: 执行脚本, 执行失败时抛出JedisException
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:30:05
+	 * @param script
+	 * @param keys 至少一个, 按KEYS[1]路由
+	 * @param args
+	 * @return 脚本的返回值, 字符串为byte[], 整数为Long, 数组为List
+	 */
+	public Object eval(RedisScript script, List<byte[]> keys, List<byte[]> args) {
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			return this.execute(this.getShard(jedis, keys), script, keys, args);
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+	}
+
+	/**
+	 * @功能: 在路由key所在的分片上执行脚本, 不检查keys的分片, 执行失败时抛出JedisException
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:50:15
+	 * @param routingKey 决定执行的分片, 同一组key必须始终使用同一个路由key
+	 * @param script
+	 * @param keys
+	 * @param args
+	 * @return 脚本的返回值, 字符串为byte[], 整数为Long, 数组为List
+	 */
+	public Object eval(String routingKey, RedisScript script, List<byte[]> keys, List<byte[]> args) {
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			return this.execute(jedis.getShard(routingKey), script, keys, args);
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+	}
+
+	private Object execute(Jedis shard, RedisScript script, List<byte[]> keys, List<byte[]> args) {
+		try {
+			return shard.evalsha(script.getSha1(), keys, args);
+		} catch (JedisDataException e) {
+			if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+				throw e;
+			}
+			this.noScriptCount.incrementAndGet();
+			logger.info("Script " + script + " is not loaded on " + shard.getClient().getHost() + ":" + shard.getClient().getPort() + ", loading with EVAL");
+			return shard.eval(script.getSource(), keys, args);
+		}
+	}
+
+	private Jedis getShard(ShardedJedis jedis, List<byte[]> keys) {
+		if (keys == null || keys.isEmpty()) {
+			throw new IllegalArgumentException("At least one key is required to route the script");
+		}
+		JedisShardInfo shardInfo = jedis.getShardInfo(keys.get(0));
+		for (int i = 1; i < keys.size(); i++) {
+			if (jedis.getShardInfo(keys.get(i)) != shardInfo) {
+				throw new IllegalArgumentException("The keys of a script must be on the same shard, but " + SafeEncoder.encode(keys.get(i)) + " is not on the shard of "
+						+ SafeEncoder.encode(keys.get(0)));
+			}
+		}
+		return jedis.getShard(keys.get(0));
+	}
+
+	private static List<byte[]> encode(Collection<String> values) {
+		List<byte[]> list = new ArrayList<byte[]>(values == null ? 0 : values.size());
+		if (values != null) {
+			for (String value : values) {
+				list.add(SafeEncoder.encode(value));
+			}
+		}
+		return list;
+	}
+
+	public long getNoScriptCount() {
+		return noScriptCount.get();
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.yangc.utils.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import redis.clients.util.SafeEncoder;
+
+/**
+ * @功能: 基于租约的分布式计数信号量
+ *
+ *      <pre>
+ * 持有的许可保存在zset中, score为租约的到期时间, 获取时先清除已到期的许可
+ * 持有期间在后台每隔租约的1/3续期, 进程崩溃后许可在租约到期后自动释放
+ * 等待时订阅释放通道, 订阅确认后重试一次, 之后等待释放通知, 最长等待到最早的许可到期, 不轮询redis
+ * 整个zset的过期时间为最晚到期的许可的剩余租约, 不同节点配置的租约可以不同
+ * 到期时间使用客户端的时钟计算, 各节点的时钟偏差需要远小于租约
+ * 所有使用同一个信号量的节点应配置相同的许可数
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 上午12:20:10
+ */
+public class RedisSemaphore {
+
+	private static final Logger logger = LogManager.getLogger(RedisSemaphore.class);
+
+	// KEYS: 许可(zset, 同时作为通道); ARGV: 许可id, 许可数, 当前时间(毫秒), 租约(毫秒); 成功返回0, 失败返回最早到期的许可的剩余时间
+	private static final RedisScript ACQUIRE = new RedisScript("semaphoreAcquire", "local now = tonumber(ARGV[3]) "
+			+ "redis.call('zremrangebyscore', KEYS[1], '-inf', now) "
+			+ "if redis.call('zcard', KEYS[1]) < tonumber(ARGV[2]) then redis.call('zadd', KEYS[1], now + tonumber(ARGV[4]), ARGV[1]) "
+			+ "local last = redis.call('zrange', KEYS[1], -1, -1, 'WITHSCORES') redis.call('pexpire', KEYS[1], math.max(tonumber(last[2]) - now, 1)) return 0 end "
+			+ "local first = redis.call('zrange', KEYS[1], 0, 0, 'WITHSCORES') return math.max(tonumber(first[2]) - now, 1)");
+
+	// KEYS: 许可; ARGV: 许可id, 当前时间(毫秒), 租约(毫秒)
+	private static final RedisScript RENEW = new RedisScript("semaphoreRenew", "if redis.call('zscore', KEYS[1], ARGV[1]) then "
+			+ "redis.call('zadd', KEYS[1], tonumber(ARGV[2]) + tonumber(ARGV[3]), ARGV[1]) "
+			+ "local last = redis.call('zrange', KEYS[1], -1, -1, 'WITHSCORES') redis.call('pexpire', KEYS[1], math.max(tonumber(last[2]) - tonumber(ARGV[2]), 1)) return 1 end return 0");
+
+	// KEYS: 许可(通道); ARGV: 许可id
+	private static final RedisScript RELEASE = new RedisScript("semaphoreRelease", "if redis.call('zrem', KEYS[1], ARGV[1]) == 1 then "
+			+ "redis.call('publish', KEYS[1], 'released') return 1 end return 0");
+
+	private final RedisScripts scripts;
+	private final String name;
+	private final int permits;
+	private final long leaseMillis;
+
+	private final String semaphoreKey;
+	private final byte[] semaphoreKeyBytes;
+	private final RedisWaiter waiter;
+
+	// 本实例持有的许可及其续期任务
+	private final ConcurrentHashMap<String, ScheduledFuture<?>> held = new ConcurrentHashMap<String, ScheduledFuture<?>>();
+
+	/**
+	 * @param scripts
+	 * @param subscriber
+	 * @param name 信号量名
+	 * @param permits 许可数
+	 * @param leaseMillis 租约(单位毫秒)
+	 */
+	RedisSemaphore(RedisScripts scripts, RedisSubscriber subscriber, String name, int permits, long leaseMillis) {
+		if (name == null || permits <= 0 || leaseMillis < 3) {
+			throw new IllegalArgumentException("Invalid semaphore " + name);
+		}
+		this.scripts = scripts;
+		this.name = name;
+		this.permits = permits;
+		this.leaseMillis = leaseMillis;
+		this.semaphoreKey = "semaphore:" + name;
+		this.semaphoreKeyBytes = SafeEncoder.encode(this.semaphoreKey);
+		this.waiter = new RedisWaiter(subscriber, this.semaphoreKey);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPermits() {
+		return permits;
+	}
+
+	/**
+	 * @功能: 获取一个许可, 一直等待到成功
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午12:22:30
+	 * @return 许可id, 释放时使用
+	 * @throws InterruptedException
+	 */
+	public String acquire() throws InterruptedException {
+		return this.tryAcquire(Long.MAX_VALUE);
+	}
+
+	/**
+	 * @功能: 获取一个许可, redis出错时抛出JedisException
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午12:23:10
+	 * @param waitMillis 最长等待时间(单位毫秒), 0为不等待
+	 * @return 许可id, 释放时使用, 超时返回null
+	 * @throws InterruptedException
+	 */
+	public String tryAcquire(long waitMillis) throws InterruptedException {
+		String permitId = UUID.randomUUID().toString();
+		long deadline = waitMillis > Long.MAX_VALUE - System.currentTimeMillis() ? Long.MAX_VALUE : System.currentTimeMillis() + waitMillis;
+		boolean waiting = false;
+		try {
+			while (true) {
+				long generation = this.waiter.generation();
+				Object result = this.scripts.eval(this.semaphoreKey, ACQUIRE, Collections.singletonList(this.semaphoreKeyBytes), Arrays.asList(SafeEncoder.encode(permitId),
+						SafeEncoder.encode(String.valueOf(this.permits)), SafeEncoder.encode(String.valueOf(System.currentTimeMillis())), SafeEncoder.encode(String.valueOf(this.leaseMillis))));
+				long wait = (Long) result;
+				if (wait == 0) {
+					this.onAcquired(permitId);
+					return permitId;
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return null;
+				}
+				// 订阅确认后重试一次, 订阅前的释放不会被错过
+				if (!waiting) {
+					this.waiter.begin();
+					waiting = true;
+					this.waiter.awaitSubscribed(Math.min(remaining, wait));
+					continue;
+				}
+				this.waiter.await(generation, Math.min(remaining, wait));
+			}
+		} finally {
+			if (waiting) {
+				this.waiter.end();
+			}
+		}
+	}
+
+	/**
+	 * @功能: 释放许可
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午12:24:05
+	 * @param permitId
+	 * @return 租约已过期或出错时返回false
+	 */
+	public boolean release(String permitId) {
+		ScheduledFuture<?> renewal = this.held.remove(permitId);
+		if (renewal != null) {
+			renewal.cancel(false);
+		}
+		try {
+			Object result = this.scripts.eval(this.semaphoreKey, RELEASE, Collections.singletonList(this.semaphoreKeyBytes), Collections.singletonList(SafeEncoder.encode(permitId)));
+			return Long.valueOf(1).equals(result);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/**
+	 * @return 本实例当前持有的许可数
+	 */
+	public int getHeldPermits() {
+		return this.held.size();
+	}
+
+	private void onAcquired(final String permitId) {
+		long period = this.leaseMillis / 3;
+		this.held.put(permitId, RedisLock.RENEW_EXECUTOR.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				renew(permitId);
+			}
+		}, period, period, TimeUnit.MILLISECONDS));
+	}
+
+	private void renew(String permitId) {
+		try {
+			Object result = this.scripts.eval(this.semaphoreKey, RENEW, Collections.singletonList(this.semaphoreKeyBytes), Arrays.asList(SafeEncoder.encode(permitId),
+					SafeEncoder.encode(String.valueOf(System.currentTimeMillis())), SafeEncoder.encode(String.valueOf(this.leaseMillis))));
+			if (!Long.valueOf(1).equals(result)) {
+				logger.warn("Lease of permit " + permitId + " of semaphore " + this.name + " has expired");
+				ScheduledFuture<?> renewal = this.held.remove(permitId);
+				if (renewal != null) {
+					renewal.cancel(false);
+				}
+			}
+		} catch (Exception e) {
+			// 租约未到期之前还可以继续续期
+			logger.error("Failed to renew permit " + permitId + " of semaphore " + this.name, e);
+		}
+	}
+
+}
@@ -0,0 +1,553 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.util.Pool;
+
+/**
+ * @功能: 多路复用的订阅管理器
+ *
+ *      <pre>
+ * 每个分片只使用一个专用连接(不占用连接池), 任意数量的通道和模式复用在该连接上
+ * 通道按一致性hash订阅到publish所在的分片, 模式在所有分片上订阅
+ * 消息按通道分配到有界的分发线程, 同一通道(模式)的消息始终由同一线程按顺序处理
+ * 队列满时阻塞订阅线程直到有空位, 从而向redis反压, 不会打乱同一通道的消息顺序
+ * 断线或sentinel主从切换后自动重连并重新订阅
+ * 通道订阅确认(包括重新订阅)后回调RedisSubscriptionListener, 订阅已经确认的通道时立即回调
+ * 分片增删或调整权重(RedisUtils.reshard)后按新的分片重建订阅连接, 通道重新订阅到新环中publish所在的分片
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午4:08:33
+ */
+public class RedisSubscriber {
+
+	private static final Logger logger = LogManager.getLogger(RedisSubscriber.class);
+
+	/** 每个分片连接上固定订阅的控制通道, 保证订阅循环在没有业务通道时也能运行 */
+	private static final String CONTROL_CHANNEL = "__redis_utils:subscriber__";
+
+	private static final long RECONNECT_WAIT_MILLIS = 1000;
+	private static final long CHECK_INTERVAL_SECONDS = 5;
+
+	/** 分发队列满时阻塞调用线程, 不能在订阅线程中直接执行回调, 否则会先于队列中同一通道较早的消息执行 */
+	private static final RejectedExecutionHandler BLOCK_WHEN_FULL = new RejectedExecutionHandler() {
+		@Override
+		public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("Dispatcher has been shut down");
+			}
+			try {
+				executor.getQueue().put(r);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted while waiting for the dispatch queue", e);
+			}
+		}
+	};
+
+	private final Pool<ShardedJedis> pool;
+
+	private final ConcurrentHashMap<String, CopyOnWriteArrayList<RedisMessageListener>> channelListeners = new ConcurrentHashMap<String, CopyOnWriteArrayList<RedisMessageListener>>();
+	private final ConcurrentHashMap<String, CopyOnWriteArrayList<RedisMessageListener>> patternListeners = new ConcurrentHashMap<String, CopyOnWriteArrayList<RedisMessageListener>>();
+	private final CopyOnWriteArrayList<Runnable> reconnectHooks = new CopyOnWriteArrayList<Runnable>();
+
+	// 按getAllShards的顺序, 分片变化时整体替换
+	private volatile List<ShardWorker> workers = new ArrayList<ShardWorker>();
+	private final ThreadPoolExecutor[] dispatchers;
+	private final ScheduledExecutorService monitor;
+
+	private volatile boolean running = true;
+
+	/**
+	 * @param pool redis连接池, 仅用于获取分片地址和路由通道
+	 * @param dispatchThreads 分发线程数
+	 * @param queueSize 每个分发线程的队列长度
+	 */
+	public RedisSubscriber(Pool<ShardedJedis> pool, int dispatchThreads, int queueSize) {
+		this.pool = pool;
+
+		this.dispatchers = new ThreadPoolExecutor[dispatchThreads];
+		for (int i = 0; i < dispatchThreads; i++) {
+			this.dispatchers[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize), newThreadFactory("redis-subscriber-dispatch-" + i), BLOCK_WHEN_FULL);
+		}
+
+		synchronized (this) {
+			this.rebuildWorkers(this.getShardInfos());
+		}
+
+		// 定期检查分片地址, sentinel主从切换后迁移到新的master, 分片变化后重建订阅连接
+		this.monitor = Executors.newSingleThreadScheduledExecutor(newThreadFactory("redis-subscriber-monitor"));
+		this.monitor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				checkEndpoints();
+			}
+		}, CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * @功能: 订阅通道
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:12:20
+	 * @param channel
+	 * @param listener
+	 */
+	public synchronized void subscribe(String channel, RedisMessageListener listener) {
+		ShardWorker worker = this.workers.get(this.getShardIndex(channel));
+		CopyOnWriteArrayList<RedisMessageListener> listeners = this.channelListeners.get(channel);
+		if (listeners == null) {
+			listeners = new CopyOnWriteArrayList<RedisMessageListener>();
+			this.channelListeners.put(channel, listeners);
+			worker.subscribe(channel);
+		}
+		if (listeners.addIfAbsent(listener) && listener instanceof RedisSubscriptionListener && worker.isSubscribed(channel)) {
+			((RedisSubscriptionListener) listener).onSubscribed(channel);
+		}
+	}
+
+	/**
+	 * @功能: 取消订阅通道
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:13:05
+	 * @param channel
+	 * @param listener
+	 */
+	public synchronized void unsubscribe(String channel, RedisMessageListener listener) {
+		CopyOnWriteArrayList<RedisMessageListener> listeners = this.channelListeners.get(channel);
+		if (listeners != null && listeners.remove(listener) && listeners.isEmpty()) {
+			this.channelListeners.remove(channel);
+			this.workers.get(this.getShardIndex(channel)).unsubscribe(channel);
+		}
+	}
+
+	/**
+	 * @功能: 按模式订阅(在所有分片上订阅)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:13:48
+	 * @param pattern
+	 * @param listener
+	 */
+	public synchronized void psubscribe(String pattern, RedisMessageListener listener) {
+		CopyOnWriteArrayList<RedisMessageListener> listeners = this.patternListeners.get(pattern);
+		if (listeners == null) {
+			listeners = new CopyOnWriteArrayList<RedisMessageListener>();
+			this.patternListeners.put(pattern, listeners);
+			for (ShardWorker worker : this.workers) {
+				worker.psubscribe(pattern);
+			}
+		}
+		listeners.addIfAbsent(listener);
+	}
+
+	/**
+	 * @功能: 取消按模式订阅
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:14:30
+	 * @param pattern
+	 * @param listener
+	 */
+	public synchronized void punsubscribe(String pattern, RedisMessageListener listener) {
+		CopyOnWriteArrayList<RedisMessageListener> listeners = this.patternListeners.get(pattern);
+		if (listeners != null && listeners.remove(listener) && listeners.isEmpty()) {
+			this.patternListeners.remove(pattern);
+			for (ShardWorker worker : this.workers) {
+				worker.punsubscribe(pattern);
+			}
+		}
+	}
+
+	/**
+	 * @功能: 添加重连回调, 在分片连接(重新)建立订阅后执行, 用于处理断线期间丢失的消息
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:15:12
+	 * @param hook
+	 */
+	public void addReconnectHook(Runnable hook) {
+		this.reconnectHooks.add(hook);
+	}
+
+	/**
+	 * @功能: 关闭所有订阅连接和分发线程
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:15:50
+	 */
+	public void shutdown() {
+		this.running = false;
+		this.monitor.shutdownNow();
+		for (ShardWorker worker : this.workers) {
+			worker.shutdown();
+		}
+		for (ThreadPoolExecutor dispatcher : this.dispatchers) {
+			dispatcher.shutdown();
+		}
+	}
+
+	private void dispatch(final String pattern, final String channel, final String message) {
+		final List<RedisMessageListener> listeners = pattern == null ? this.channelListeners.get(channel) : this.patternListeners.get(pattern);
+		if (listeners == null || listeners.isEmpty()) {
+			return;
+		}
+		String key = pattern == null ? channel : pattern;
+		ThreadPoolExecutor dispatcher = this.dispatchers[(key.hashCode() & Integer.MAX_VALUE) % this.dispatchers.length];
+		dispatcher.execute(new Runnable() {
+			@Override
+			public void run() {
+				for (RedisMessageListener listener : listeners) {
+					try {
+						listener.onMessage(channel, message);
+					} catch (Exception e) {
+						logger.error("Listener failed on channel " + channel, e);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * @功能: 检查分片, 分片变化时重建订阅连接, 分片地址变化(主从切换)时重连, 由后台线程定期调用, 重新分片后也可以立即调用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午11:10:30
+	 */
+	public synchronized void checkEndpoints() {
+		if (!this.running) {
+			return;
+		}
+		try {
+			List<JedisShardInfo> infos = this.getShardInfos();
+			if (this.isShardsChanged(infos)) {
+				logger.info("Redis shards changed from " + this.workers.size() + " to " + infos.size() + ", rebuilding subscriptions");
+				this.rebuildWorkers(infos);
+				return;
+			}
+			for (int i = 0, size = infos.size(); i < size; i++) {
+				ShardWorker worker = this.workers.get(i);
+				String endpoint = toEndpoint(infos.get(i));
+				if (worker.endpoint != null && !worker.endpoint.equals(endpoint)) {
+					logger.info("Shard " + i + " moved from " + worker.endpoint + " to " + endpoint + ", resubscribing");
+					worker.reconnect();
+				}
+			}
+		} catch (Exception e) {
+			logger.error("Failed to check redis shard endpoints", e);
+		}
+	}
+
+	private boolean isShardsChanged(List<JedisShardInfo> infos) {
+		List<ShardWorker> workers = this.workers;
+		if (infos.size() != workers.size()) {
+			return true;
+		}
+		for (int i = 0, size = infos.size(); i < size; i++) {
+			if (!StringUtils.equals(infos.get(i).getName(), workers.get(i).name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 按当前的分片创建订阅线程, 通道按新环重新分配, 然后停止旧的订阅线程
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午11:12:05
+	 * @param infos
+	 */
+	private void rebuildWorkers(List<JedisShardInfo> infos) {
+		List<ShardWorker> workers = new ArrayList<ShardWorker>(infos.size());
+		for (int i = 0, size = infos.size(); i < size; i++) {
+			workers.add(new ShardWorker(i, infos.get(i).getName()));
+		}
+		for (String channel : this.channelListeners.keySet()) {
+			workers.get(this.getShardIndex(channel)).subscribe(channel);
+		}
+		List<ShardWorker> previous = this.workers;
+		this.workers = workers;
+		for (ShardWorker worker : previous) {
+			worker.shutdown();
+		}
+		for (ShardWorker worker : workers) {
+			worker.start();
+		}
+	}
+
+	/**
+	 * @功能: 按getAllShards的顺序获取分片信息
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:17:02
+	 * @return
+	 */
+	private List<JedisShardInfo> getShardInfos() {
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			Map<String, JedisShardInfo> infoMap = new HashMap<String, JedisShardInfo>();
+			for (JedisShardInfo info : jedis.getAllShardInfo()) {
+				infoMap.put(toEndpoint(info), info);
+			}
+			Collection<Jedis> shards = jedis.getAllShards();
+			List<JedisShardInfo> infos = new ArrayList<JedisShardInfo>(shards.size());
+			for (Jedis shard : shards) {
+				infos.add(infoMap.get(shard.getClient().getHost() + ":" + shard.getClient().getPort()));
+			}
+			return infos;
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+	}
+
+	private int getShardIndex(String channel) {
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.pool.getResource();
+			Jedis target = jedis.getShard(channel);
+			int index = 0;
+			for (Jedis shard : jedis.getAllShards()) {
+				if (shard == target) {
+					return index;
+				}
+				index++;
+			}
+			throw new IllegalStateException("Cannot find shard for channel " + channel);
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+	}
+
+	private static String toEndpoint(JedisShardInfo info) {
+		return info.getHost() + ":" + info.getPort();
+	}
+
+	private static ThreadFactory newThreadFactory(final String name) {
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name);
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+	/**
+	 * @功能: 单个分片的订阅线程, 持有该分片的专用连接
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:20:35
+	 */
+	private class ShardWorker extends Thread {
+		private final int index;
+		// 分片名称, 未命名的分片为null
+		private final String name;
+		private final Set<String> channels = new LinkedHashSet<String>();
+		// 已收到订阅确认的通道
+		private final Set<String> subscribed = new HashSet<String>();
+
+		private volatile String endpoint;
+		private volatile boolean stopped;
+		private Jedis jedis;
+		private JedisPubSub pubSub;
+		private boolean ready;
+
+		ShardWorker(int index, String name) {
+			super("redis-subscriber-shard-" + index);
+			this.index = index;
+			this.name = name;
+			this.setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			while (running && !this.stopped) {
+				try {
+					JedisShardInfo info = getShardInfos().get(this.index);
+					Jedis j = info.createResource();
+					synchronized (this) {
+						this.endpoint = toEndpoint(info);
+						this.jedis = j;
+						this.pubSub = new ShardPubSub();
+						this.ready = false;
+						// 建立连接期间已被停止, finally中关闭连接
+						if (this.stopped) {
+							return;
+						}
+					}
+					logger.info("Subscribing to redis shard " + this.endpoint);
+					j.subscribe(this.pubSub, CONTROL_CHANNEL);
+				} catch (Exception e) {
+					if (running && !this.stopped) {
+						logger.error("Lost subscription to redis shard " + this.endpoint + ", retrying in " + RECONNECT_WAIT_MILLIS + "ms", e);
+					}
+				} finally {
+					synchronized (this) {
+						this.ready = false;
+						this.subscribed.clear();
+						if (this.jedis != null) {
+							try {
+								this.jedis.close();
+							} catch (Exception e) {
+							}
+							this.jedis = null;
+						}
+					}
+				}
+				if (running && !this.stopped) {
+					try {
+						Thread.sleep(RECONNECT_WAIT_MILLIS);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		}
+
+		synchronized void subscribe(String channel) {
+			this.channels.add(channel);
+			if (this.ready) {
+				this.pubSub.subscribe(channel);
+			}
+		}
+
+		synchronized void unsubscribe(String channel) {
+			this.channels.remove(channel);
+			this.subscribed.remove(channel);
+			if (this.ready) {
+				this.pubSub.unsubscribe(channel);
+			}
+		}
+
+		synchronized boolean isSubscribed(String channel) {
+			return this.subscribed.contains(channel);
+		}
+
+		/**
+		 * @功能: 收到通道的订阅确认, 在worker的锁之外回调监听器, 避免与订阅时的加锁顺序相反
+		 * @作者: yangc
+		 * @创建日期: 2026年10月20日 下午3:15:40
+		 * @param channel
+		 */
+		private void onSubscribed(String channel) {
+			synchronized (this) {
+				if (!this.channels.contains(channel)) {
+					return;
+				}
+				this.subscribed.add(channel);
+			}
+			List<RedisMessageListener> listeners = channelListeners.get(channel);
+			if (listeners != null) {
+				for (RedisMessageListener listener : listeners) {
+					if (listener instanceof RedisSubscriptionListener) {
+						try {
+							((RedisSubscriptionListener) listener).onSubscribed(channel);
+						} catch (Exception e) {
+							logger.error("Listener failed on subscription of channel " + channel, e);
+						}
+					}
+				}
+			}
+		}
+
+		synchronized void psubscribe(String pattern) {
+			if (this.ready) {
+				this.pubSub.psubscribe(pattern);
+			}
+		}
+
+		synchronized void punsubscribe(String pattern) {
+			if (this.ready) {
+				this.pubSub.punsubscribe(pattern);
+			}
+		}
+
+		/**
+		 * @功能: 停止订阅线程并断开连接
+		 * @作者: yangc
+		 * @创建日期: 2026年10月20日 上午11:13:20
+		 */
+		void shutdown() {
+			this.stopped = true;
+			this.reconnect();
+		}
+
+		/**
+		 * @功能: 断开当前连接, 订阅线程会重新获取分片地址并重新订阅
+		 * @作者: yangc
+		 * @创建日期: 2026年10月18日 下午4:22:10
+		 */
+		synchronized void reconnect() {
+			if (this.jedis != null) {
+				try {
+					this.jedis.disconnect();
+				} catch (Exception e) {
+				}
+			}
+		}
+
+		/**
+		 * @功能: 控制通道订阅成功后, 补充订阅所有通道和模式
+		 * @作者: yangc
+		 * @创建日期: 2026年10月18日 下午4:23:01
+		 */
+		private synchronized void onReady() {
+			this.ready = true;
+			if (!this.channels.isEmpty()) {
+				this.pubSub.subscribe(this.channels.toArray(new String[this.channels.size()]));
+			}
+			Set<String> patterns = patternListeners.keySet();
+			if (!patterns.isEmpty()) {
+				this.pubSub.psubscribe(patterns.toArray(new String[patterns.size()]));
+			}
+		}
+
+		private class ShardPubSub extends JedisPubSub {
+			@Override
+			public void onSubscribe(String channel, int subscribedChannels) {
+				if (CONTROL_CHANNEL.equals(channel)) {
+					onReady();
+					for (Runnable hook : reconnectHooks) {
+						try {
+							hook.run();
+						} catch (Exception e) {
+							logger.error("Reconnect hook failed", e);
+						}
+					}
+				} else {
+					ShardWorker.this.onSubscribed(channel);
+				}
+			}
+
+			@Override
+			public void onMessage(String channel, String message) {
+				dispatch(null, channel, message);
+			}
+
+			@Override
+			public void onPMessage(String pattern, String channel, String message) {
+				dispatch(pattern, channel, message);
+			}
+		}
+	}
+
+}
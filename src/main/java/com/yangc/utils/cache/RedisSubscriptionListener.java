@@ -0,0 +1,18 @@
+package com.yangc.utils.cache;
+
+/**
+ * @功能: 需要知道订阅何时生效的监听器, 用于等待释放通知的场景(参见RedisWaiter)
+ * @作者: yangc
+ * @创建日期: 2026年10月20日 下午3:05:10
+ */
+public interface RedisSubscriptionListener extends RedisMessageListener {
+
+	/**
+	 * @功能: 通道订阅已确认(包括断线重连后重新订阅), 之后发布的消息一定会收到, 在订阅线程中回调, 不能阻塞
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午3:05:40
+	 * @param channel
+	 */
+	void onSubscribed(String channel);
+
+}
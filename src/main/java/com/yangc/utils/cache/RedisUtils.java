@@ -2,12 +2,25 @@ package com.yangc.utils.cache;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -18,15 +31,20 @@ import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.JedisPubSub;
 import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.ShardedJedis;
-import redis.clients.jedis.ShardedJedisPipeline;
 import redis.clients.jedis.ShardedJedisPool;
 import redis.clients.jedis.ShardedJedisSentinelPool;
 import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.util.Pool;
+import redis.clients.util.SafeEncoder;
 
 import com.google.gson.reflect.TypeToken;
-import com.yangc.utils.json.JsonUtils;
 import com.yangc.utils.prop.PropertiesUtils;
 
 public class RedisUtils {
@@ -35,6 +53,9 @@ public class RedisUtils {
 
 	private static final String FILE_PATH = "/redis.properties";
 
+	/** 近端缓存失效通知的保留通道 */
+	public static final String NEAR_CACHE_CHANNEL = "__redis_utils:near_cache:invalidate__";
+
 	/** 集群模式 */
 	enum Cluster {
 		/** 分片式一致性hash */
@@ -59,6 +80,35 @@ public class RedisUtils {
 
 	private static Pool<ShardedJedis> pool;
 
+	// 多分片pipeline并行发送的线程池
+	private static ExecutorService pipelineExecutor;
+
+	// 多分片SCAN并行遍历的线程池
+	private static ExecutorService scanExecutor;
+
+	// 多路复用的订阅管理器, 首次使用时创建
+	private static RedisSubscriber subscriber;
+
+	// lua脚本注册表, 首次使用时创建
+	private static RedisScripts scripts;
+
+	// 进程内近端缓存, 未配置时为null
+	private static NearCache nearCache;
+
+	// 值的编解码器, 读取时按数据头部自动识别, 兼容之前保存的json
+	private static RedisCodec codec;
+
+	// 正在进行的分片迁移, 迁移期间get未命中时从旧分片读取
+	private static volatile RedisResharder resharder;
+
+	// sentinel模式下的读路由, 读策略为master_only时为null
+	private static volatile RedisReadRouter readRouter;
+
+	// 热点key探测, 未配置时为null
+	private static HotKeyDetector hotKeys;
+
+	private static final CacheMetrics metrics = CacheMetrics.getMetrics("redis");
+
 	private static class InstanceHolder {
 		private static final RedisUtils instance = new RedisUtils();
 	}
@@ -96,6 +146,27 @@ public class RedisUtils {
 		SERVER_CONFIG.put("testOnBorrow", PropertiesUtils.getProperty(FILE_PATH, "redis.testOnBorrow", "false"));
 		SERVER_CONFIG.put("testOnReturn", PropertiesUtils.getProperty(FILE_PATH, "redis.testOnReturn", "false"));
 		SERVER_CONFIG.put("testWhileIdle", PropertiesUtils.getProperty(FILE_PATH, "redis.testWhileIdle", "false"));
+		SERVER_CONFIG.put("pipelineThreads", PropertiesUtils.getProperty(FILE_PATH, "redis.pipelineThreads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+		SERVER_CONFIG.put("masterWeights", PropertiesUtils.getProperty(FILE_PATH, "redis.masterWeights", ""));
+		SERVER_CONFIG.put("readPolicy", PropertiesUtils.getProperty(FILE_PATH, "redis.readPolicy", RedisReadRouter.Policy.MASTER_ONLY.name()));
+		SERVER_CONFIG.put("readMaxLagBytes", PropertiesUtils.getProperty(FILE_PATH, "redis.readMaxLagBytes", "1048576"));
+		SERVER_CONFIG.put("readRefreshSeconds", PropertiesUtils.getProperty(FILE_PATH, "redis.readRefreshSeconds", "5"));
+		SERVER_CONFIG.put("scanCount", PropertiesUtils.getProperty(FILE_PATH, "redis.scanCount", "1000"));
+		SERVER_CONFIG.put("scanThreads", PropertiesUtils.getProperty(FILE_PATH, "redis.scanThreads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+		SERVER_CONFIG.put("subscriber.dispatchThreads", PropertiesUtils.getProperty(FILE_PATH, "redis.subscriber.dispatchThreads", "4"));
+		SERVER_CONFIG.put("subscriber.queueSize", PropertiesUtils.getProperty(FILE_PATH, "redis.subscriber.queueSize", "1024"));
+		SERVER_CONFIG.put("codec", PropertiesUtils.getProperty(FILE_PATH, "redis.codec", "json"));
+		SERVER_CONFIG.put("codec.compressThreshold", PropertiesUtils.getProperty(FILE_PATH, "redis.codec.compressThreshold", "0"));
+		SERVER_CONFIG.put("nearCache.maxSize", PropertiesUtils.getProperty(FILE_PATH, "redis.nearCache.maxSize", "0"));
+		SERVER_CONFIG.put("nearCache.ttlSeconds", PropertiesUtils.getProperty(FILE_PATH, "redis.nearCache.ttlSeconds", "60"));
+		SERVER_CONFIG.put("nearCache.policy", PropertiesUtils.getProperty(FILE_PATH, "redis.nearCache.policy", NearCache.Policy.LRU.name()));
+		SERVER_CONFIG.put("hotKey.topK", PropertiesUtils.getProperty(FILE_PATH, "redis.hotKey.topK", "0"));
+		SERVER_CONFIG.put("hotKey.threshold", PropertiesUtils.getProperty(FILE_PATH, "redis.hotKey.threshold", "10000"));
+		SERVER_CONFIG.put("hotKey.windowSeconds", PropertiesUtils.getProperty(FILE_PATH, "redis.hotKey.windowSeconds", "1"));
+		SERVER_CONFIG.put("hotKey.sampleRate", PropertiesUtils.getProperty(FILE_PATH, "redis.hotKey.sampleRate", "16"));
+		SERVER_CONFIG.put("hotKey.localTtlMillis", PropertiesUtils.getProperty(FILE_PATH, "redis.hotKey.localTtlMillis", "1000"));
+		SERVER_CONFIG.put("hotKey.replicas", PropertiesUtils.getProperty(FILE_PATH, "redis.hotKey.replicas", "0"));
+		SERVER_CONFIG.put("hotKey.replicaTtlSeconds", PropertiesUtils.getProperty(FILE_PATH, "redis.hotKey.replicaTtlSeconds", "5"));
 	}
 
 	/**
@@ -126,8 +197,309 @@ public class RedisUtils {
 		// 分片式一致性hash + master-slave主从灾备, 通过sentinel自动切换主从结构
 		else {
 			List<String> masterNames = Arrays.asList(PropertiesUtils.getProperty(FILE_PATH, "redis.masterNames").split(","));
-			pool = new ShardedJedisSentinelPool(poolConfig, masterNames, new ArrayList<String>(SERVERS));
+			Map<String, Integer> masterWeights = parseMasterWeights(MapUtils.getString(SERVER_CONFIG, "masterWeights"));
+			pool = new ShardedJedisSentinelPool(masterNames, new ArrayList<String>(SERVERS), poolConfig, Protocol.DEFAULT_TIMEOUT, null, Protocol.DEFAULT_DATABASE, masterWeights);
+
+			RedisReadRouter.Policy readPolicy = RedisReadRouter.Policy.valueOf(MapUtils.getString(SERVER_CONFIG, "readPolicy").toUpperCase());
+			if (readPolicy != RedisReadRouter.Policy.MASTER_ONLY) {
+				readRouter = new RedisReadRouter((ShardedJedisSentinelPool) pool, new ArrayList<String>(SERVERS), readPolicy, MapUtils.getLongValue(SERVER_CONFIG, "readMaxLagBytes"),
+						MapUtils.getIntValue(SERVER_CONFIG, "readRefreshSeconds"), Protocol.DEFAULT_TIMEOUT, null, poolConfig);
+			}
+		}
+
+		pipelineExecutor = Executors.newFixedThreadPool(MapUtils.getIntValue(SERVER_CONFIG, "pipelineThreads"), newThreadFactory("redis-pipeline-"));
+		scanExecutor = Executors.newFixedThreadPool(MapUtils.getIntValue(SERVER_CONFIG, "scanThreads"), newThreadFactory("redis-scan-"));
+
+		codec = RedisCodecs.getCodec(MapUtils.getString(SERVER_CONFIG, "codec"), MapUtils.getIntValue(SERVER_CONFIG, "codec.compressThreshold"));
+
+		int nearCacheMaxSize = MapUtils.getIntValue(SERVER_CONFIG, "nearCache.maxSize");
+		if (nearCacheMaxSize > 0) {
+			nearCache = new NearCache(nearCacheMaxSize, MapUtils.getIntValue(SERVER_CONFIG, "nearCache.ttlSeconds"), NearCache.Policy.valueOf(MapUtils.getString(SERVER_CONFIG, "nearCache.policy").toUpperCase()));
+			this.startNearCacheListener();
+		}
+
+		int hotKeyTopK = MapUtils.getIntValue(SERVER_CONFIG, "hotKey.topK");
+		if (hotKeyTopK > 0) {
+			hotKeys = new HotKeyDetector("redis", hotKeyTopK, MapUtils.getLongValue(SERVER_CONFIG, "hotKey.threshold"), MapUtils.getIntValue(SERVER_CONFIG, "hotKey.windowSeconds"),
+					MapUtils.getIntValue(SERVER_CONFIG, "hotKey.sampleRate"), MapUtils.getLongValue(SERVER_CONFIG, "hotKey.localTtlMillis"), MapUtils.getIntValue(SERVER_CONFIG, "hotKey.replicas"));
+		}
+	}
+
+	/**
+	 * @功能: 解析master权重配置
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午10:20:30
+	 * @param config masterName:weight,masterName:weight
+	 * @return 未配置时返回null
+	 */
+	private static Map<String, Integer> parseMasterWeights(String config) {
+		if (StringUtils.isBlank(config)) {
+			return null;
+		}
+		Map<String, Integer> masterWeights = new HashMap<String, Integer>();
+		for (String masterWeight : config.split(",")) {
+			String[] nameWeight = masterWeight.trim().split(":");
+			masterWeights.put(nameWeight[0], nameWeight.length > 1 ? Integer.parseInt(nameWeight[1]) : 1);
+		}
+		return masterWeights;
+	}
+
+	/**
+	 * @功能: 创建守护线程的ThreadFactory
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午3:20:05
+	 * @param prefix 线程名前缀
+	 * @return
+	 */
+	private static ThreadFactory newThreadFactory(final String prefix) {
+		return new ThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, prefix + threadNumber.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+	/**
+	 * @功能: 订阅近端缓存失效通知, 重新订阅时清空近端缓存(断线期间可能丢失了失效通知)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午11:20:36
+	 */
+	private void startNearCacheListener() {
+		RedisSubscriber subscriber = this.getSubscriber();
+		subscriber.addReconnectHook(new Runnable() {
+			@Override
+			public void run() {
+				nearCache.clear();
+			}
+		});
+		subscriber.subscribe(NEAR_CACHE_CHANNEL, new RedisMessageListener() {
+			@Override
+			public void onMessage(String channel, String message) {
+				nearCache.invalidate(message);
+			}
+		});
+	}
+
+	/**
+	 * @功能: 失效本地及其他实例近端缓存中的key, 需要借出新的连接, 调用方必须先归还持有的连接, 否则连接池耗尽时互相等待
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午11:22:08
+	 * @param keys
+	 */
+	private void invalidateNearCache(String... keys) {
+		this.invalidateHotKeys(keys);
+		if (nearCache == null) {
+			return;
+		}
+		for (String key : keys) {
+			nearCache.invalidate(key);
+		}
+		if (keys.length == 1) {
+			this.publish(NEAR_CACHE_CHANNEL, keys[0]);
+		} else {
+			List<RedisCommand> commands = new ArrayList<RedisCommand>(keys.length);
+			for (String key : keys) {
+				commands.add(RedisCommand.publish(NEAR_CACHE_CHANNEL, key));
+			}
+			this.pipelined(commands);
+		}
+	}
+
+	/**
+	 * @功能: 删除热点key的本地缓存和副本(包括已经冷却但副本还未过期的key)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:40:20
+	 * @param keys
+	 */
+	private void invalidateHotKeys(String... keys) {
+		if (hotKeys == null) {
+			return;
+		}
+		List<RedisCommand> commands = new ArrayList<RedisCommand>();
+		for (String key : keys) {
+			if (hotKeys.hasReplicas(key)) {
+				for (String replicaKey : hotKeys.getReplicaKeys(key)) {
+					commands.add(RedisCommand.del(replicaKey));
+				}
+			}
+		}
+		if (!commands.isEmpty()) {
+			this.pipelined(commands);
+		}
+		for (String key : keys) {
+			hotKeys.invalidateReplicas(key);
+		}
+	}
+
+	/**
+	 * @功能: 读取热点key的本地缓存或随机一个副本
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:41:05
+	 * @param key
+	 * @return 都未命中时返回null
+	 */
+	private byte[] getHot(String key) {
+		byte[] raw = (byte[]) hotKeys.getLocal(key);
+		if (raw != null) {
+			return raw;
+		}
+		String replicaKey = hotKeys.getReplicaKey(key);
+		if (replicaKey == null) {
+			return null;
+		}
+		ShardedJedis jedis = null;
+		try {
+			jedis = this.getResource();
+			raw = jedis.get(SafeEncoder.encode(replicaKey));
+			if (raw != null) {
+				hotKeys.putLocal(key, raw);
+			}
+			return raw;
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			if (jedis != null) jedis.close();
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 从master读取热点key后写回本地缓存和全部副本, 副本的存活时间内只有一个读请求写入
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:41:50
+	 * @param key
+	 * @param raw
+	 */
+	private void putHot(String key, byte[] raw) {
+		hotKeys.putLocal(key, raw);
+		int seconds = MapUtils.getIntValue(SERVER_CONFIG, "hotKey.replicaTtlSeconds");
+		if (!hotKeys.tryReplicate(key, seconds)) {
+			return;
+		}
+		List<RedisCommand> commands = new ArrayList<RedisCommand>(hotKeys.getReplicas());
+		for (String replicaKey : hotKeys.getReplicaKeys(key)) {
+			commands.add(RedisCommand.setex(replicaKey, seconds, raw));
+		}
+		this.pipelined(commands);
+	}
+
+	/**
+	 * @功能: 获取热点key探测, 未启用时返回null
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:42:30
+	 * @return
+	 */
+	public HotKeyDetector getHotKeyDetector() {
+		return hotKeys;
+	}
+
+	/**
+	 * @功能: 当前的热点key, 按访问次数从高到低, 未启用时返回空列表
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:43:00
+	 * @return
+	 */
+	public List<HotKeyDetector.HotKey> getHotKeys() {
+		if (hotKeys == null) {
+			return new ArrayList<HotKeyDetector.HotKey>();
+		}
+		return hotKeys.getHotKeys();
+	}
+
+	/**
+	 * @功能: 获取值的编解码器
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午2:40:12
+	 * @return
+	 */
+	public RedisCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * @功能: 获取近端缓存, 未启用时返回null
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午11:23:45
+	 * @return
+	 */
+	public NearCache getNearCache() {
+		return nearCache;
+	}
+
+	/**
+	 * @功能: 获取从库读路由, 未启用时返回null
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:04:30
+	 * @return
+	 */
+	public RedisReadRouter getReadRouter() {
+		return readRouter;
+	}
+
+	/**
+	 * @功能: 按读路由策略从key所在分片的从库读取, 读取失败时在下次检查之前不再使用该从库
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午2:10:20
+	 * @param key
+	 * @param read 在从库上执行的读命令
+	 * @return 未启用读路由, 应读取master, 从库读取失败或结果为空时返回null, 由调用方读取master(结果为空可能是复制延迟)
+	 */
+	private <R> R readFromReplica(String key, ShardRead<R> read) {
+		RedisReadRouter readRouter = RedisUtils.readRouter;
+		if (readRouter == null) {
+			return null;
+		}
+		Jedis replica = readRouter.getResource(key);
+		if (replica == null) {
+			return null;
+		}
+		try {
+			logger.debug("read " + key + " from replica " + replica.getClient().getHost() + ":" + replica.getClient().getPort());
+			R result = read.read(replica);
+			if (result == null || (result instanceof Collection && ((Collection<?>) result).isEmpty()) || (result instanceof List && isAllNull((List<?>) result))) {
+				return null;
+			}
+			return result;
+		} catch (Exception e) {
+			logger.warn("Failed to read " + key + " from replica, reading from master", e);
+			readRouter.readFailed(key, replica);
+		} finally {
+			replica.close();
 		}
+		return null;
+	}
+
+	/**
+	 * @功能: 从连接池获取连接, 统计等待时间
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:30:10
+	 * @return
+	 */
+	private ShardedJedis getResource() {
+		long start = CacheMetrics.start();
+		try {
+			ShardedJedis jedis = pool.getResource();
+			metrics.success(CacheMetrics.POOL_BORROW, start);
+			return jedis;
+		} catch (RuntimeException e) {
+			metrics.error(CacheMetrics.POOL_BORROW, start);
+			throw e;
+		}
+	}
+
+	/**
+	 * @功能: 获取统计信息
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:30:50
+	 * @return
+	 */
+	public CacheMetrics getMetrics() {
+		return metrics;
 	}
 
 	/** ----------------------------------------- Server ------------------------------------------- */
@@ -139,7 +511,7 @@ public class RedisUtils {
 	 * @return
 	 */
 	public ShardedJedis getJedis() {
-		return pool.getResource();
+		return this.getResource();
 	}
 
 	/**
@@ -179,31 +551,271 @@ public class RedisUtils {
 		return shard.getHost() + ":" + shard.getPort();
 	}
 
+	/**
+	 * @功能: 增删master或调整权重, 切换到新的分片后在后台迁移key
+	 *
+	 *      <pre>
+	 * 仅支持shard_master_slave模式且配置了redis.masterWeights(分片以master名称命名)
+	 * 迁移期间get, mget, hash和sorted set的读取在新分片上不存在该key时从key原来所在的分片读取, del同时删除原来分片上的值
+ * 订阅管理器在分片变化后按新的分片重建订阅连接
+	 * </pre>
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午10:22:15
+	 * @param masterNames 新的master名称列表
+	 * @param masterWeights master名称 -> 权重
+	 * @param keysPerSecond 每秒最多迁移的key数
+	 * @return 上一次迁移尚未结束时返回null
+	 */
+	public synchronized RedisResharder reshard(List<String> masterNames, Map<String, Integer> masterWeights, int keysPerSecond) {
+		if (!(pool instanceof ShardedJedisSentinelPool)) {
+			throw new IllegalStateException("Resharding is only supported in " + Cluster.SHARD_MASTER_SLAVE.value() + " mode");
+		}
+		if (resharder != null && resharder.isRunning()) {
+			return null;
+		}
+		ShardedJedisSentinelPool sentinelPool = (ShardedJedisSentinelPool) pool;
+		List<JedisShardInfo> previousShards = sentinelPool.reshard(masterNames, masterWeights);
+		resharder = new RedisResharder(previousShards, sentinelPool.getCurrentShardInfos(), keysPerSecond, MapUtils.getIntValue(SERVER_CONFIG, "scanCount"));
+		// 通道按新环重新订阅, 不等待后台检查
+		if (subscriber != null) {
+			subscriber.checkEndpoints();
+		}
+		Thread t = newThreadFactory("redis-resharder-").newThread(resharder);
+		t.start();
+		return resharder;
+	}
+
+	/**
+	 * @功能: 双读窗口内, 新分片上不存在的key从迁移前所在的分片读取
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午11:02:15
+	 * @param jedis
+	 * @param key
+	 * @param read
+	 * @return 不在双读窗口内, 新分片上已存在该key或读取出错时返回null
+	 */
+	private <R> R readFromPrevious(ShardedJedis jedis, String key, ShardRead<R> read) {
+		RedisResharder resharder = RedisUtils.resharder;
+		if (resharder == null || !resharder.isMoved(key) || jedis.exists(key)) {
+			return null;
+		}
+		return resharder.readFromPrevious(key, read);
+	}
+
+	private static boolean isAllNull(List<?> values) {
+		if (values == null) {
+			return true;
+		}
+		for (Object value : values) {
+			if (value != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/** ----------------------------------------- String ------------------------------------------- */
 
 	/**
-	 * @功能: 获取所有满足条件的key(慎用,低效)
+	 * @功能: 获取所有满足条件的key(基于SCAN, 不阻塞redis, 但结果全部放在内存中, 大量key时使用scan或scanIterator)
 	 * @作者: yangc
 	 * @创建日期: 2014年6月9日 下午2:18:04
 	 * @param pattern
 	 * @return
 	 */
 	public Set<String> keys(String pattern) {
+		final Set<String> keys = Collections.synchronizedSet(new HashSet<String>());
+		boolean success = this.scan(pattern, new RedisScanCallback() {
+			@Override
+			public void onKeys(Jedis jedis, List<String> list) {
+				keys.addAll(list);
+			}
+		});
+		return success ? keys : null;
+	}
+
+	/**
+	 * @功能: 使用SCAN并行遍历所有分片中满足条件的key
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午3:22:41
+	 * @param pattern
+	 * @param callback 各分片在不同线程中并发回调
+	 * @return
+	 */
+	public boolean scan(String pattern, RedisScanCallback callback) {
+		return this.scan(pattern, MapUtils.getIntValue(SERVER_CONFIG, "scanCount"), callback);
+	}
+
+	/**
+	 * @功能: 使用SCAN并行遍历所有分片中满足条件的key
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午3:23:17
+	 * @param pattern
+	 * @param count 每次SCAN的COUNT
+	 * @param callback 各分片在不同线程中并发回调
+	 * @return
+	 */
+	public boolean scan(String pattern, int count, RedisScanCallback callback) {
+		ScanParams params = new ScanParams().match(pattern).count(count);
 		ShardedJedis jedis = null;
+		boolean broken = false;
 		try {
-			jedis = pool.getResource();
-			Set<String> keys = new HashSet<String>();
+			jedis = this.getResource();
+			List<ScanTask> tasks = new ArrayList<ScanTask>();
 			for (Jedis j : jedis.getAllShards()) {
-				keys.addAll(j.keys(pattern));
-				j.close();
+				tasks.add(new ScanTask(j, params, callback));
 			}
-			return keys;
+
+			this.runShardTasks(scanExecutor, tasks);
+			return true;
 		} catch (Exception e) {
+			broken = true;
 			e.printStackTrace();
 		} finally {
-			if (jedis != null) jedis.close();
+			this.release(jedis, broken);
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 使用SCAN逐个分片惰性遍历满足条件的key, 未遍历结束时需要调用close释放连接
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午3:24:30
+	 * @param pattern
+	 * @param count 每次SCAN的COUNT
+	 * @return
+	 */
+	public RedisKeyIterator scanIterator(String pattern, int count) {
+		return new RedisKeyIterator(this.getResource(), pattern, count);
+	}
+
+	/**
+	 * @功能: 删除所有满足条件的k-v
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午3:25:52
+	 * @param pattern
+	 * @return 删除的个数, 失败返回-1
+	 */
+	public long delByPattern(String pattern) {
+		final AtomicLong counter = new AtomicLong();
+		final List<String> touched = this.newTouchedKeys();
+		boolean success = this.scan(pattern, new RedisScanCallback() {
+			@Override
+			public void onKeys(Jedis jedis, List<String> keys) {
+				counter.addAndGet(jedis.del(keys.toArray(new String[keys.size()])));
+				if (touched != null) {
+					touched.addAll(keys);
+				}
+			}
+		});
+		this.invalidateTouchedKeys(touched);
+		return success ? counter.get() : -1;
+	}
+
+	/**
+	 * @功能: 设置所有满足条件的k-v多少秒后过期
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午3:26:40
+	 * @param pattern
+	 * @param seconds
+	 * @return 设置的个数, 失败返回-1
+	 */
+	public long expireByPattern(String pattern, final int seconds) {
+		final AtomicLong counter = new AtomicLong();
+		final List<String> touched = this.newTouchedKeys();
+		boolean success = this.scan(pattern, new RedisScanCallback() {
+			@Override
+			public void onKeys(Jedis jedis, List<String> keys) {
+				Pipeline pipeline = jedis.pipelined();
+				for (String key : keys) {
+					pipeline.expire(key, seconds);
+				}
+				pipeline.sync();
+				counter.addAndGet(keys.size());
+				if (touched != null) {
+					touched.addAll(keys);
+				}
+			}
+		});
+		this.invalidateTouchedKeys(touched);
+		return success ? counter.get() : -1;
+	}
+
+	/**
+	 * 遍历期间修改的key, 没有近端缓存和热点key时为null
+	 */
+	private List<String> newTouchedKeys() {
+		return nearCache == null && hotKeys == null ? null : Collections.synchronizedList(new ArrayList<String>());
+	}
+
+	/**
+	 * @功能: 遍历结束并归还连接之后再失效近端缓存
+	 *
+	 *      <pre>
+	 * 失效需要借出新的连接(pipeline发布通知), 在SCAN回调中执行时每个分片线程同时持有两个连接, 连接池耗尽时互相等待
+	 * </pre>
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午10:05:30
+	 * @param keys
+	 */
+	private void invalidateTouchedKeys(List<String> keys) {
+		if (keys == null || keys.isEmpty()) {
+			return;
+		}
+		int batchSize = MapUtils.getIntValue(SERVER_CONFIG, "scanCount");
+		for (int from = 0, size = keys.size(); from < size; from += batchSize) {
+			List<String> batch = keys.subList(from, Math.min(from + batchSize, size));
+			this.invalidateNearCache(batch.toArray(new String[batch.size()]));
+		}
+	}
+
+	/**
+	 * @功能: 统计满足条件的key的个数(SCAN可能返回重复的key, 结果为近似值)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午3:27:35
+	 * @param pattern
+	 * @return 失败返回-1
+	 */
+	public long countByPattern(String pattern) {
+		final AtomicLong counter = new AtomicLong();
+		boolean success = this.scan(pattern, new RedisScanCallback() {
+			@Override
+			public void onKeys(Jedis jedis, List<String> keys) {
+				counter.addAndGet(keys.size());
+			}
+		});
+		return success ? counter.get() : -1;
+	}
+
+	/**
+	 * @功能: 单个分片的SCAN任务
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午3:28:20
+	 */
+	private static class ScanTask implements Callable<Object> {
+		private final Jedis jedis;
+		private final ScanParams params;
+		private final RedisScanCallback callback;
+
+		ScanTask(Jedis jedis, ScanParams params, RedisScanCallback callback) {
+			this.jedis = jedis;
+			this.params = params;
+			this.callback = callback;
+		}
+
+		@Override
+		public Object call() throws Exception {
+			String cursor = ScanParams.SCAN_POINTER_START;
+			do {
+				ScanResult<String> result = this.jedis.scan(cursor, this.params);
+				List<String> keys = result.getResult();
+				if (!keys.isEmpty()) {
+					this.callback.onKeys(this.jedis, keys);
+				}
+				cursor = result.getStringCursor();
+			} while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+			return null;
 		}
-		return null;
 	}
 
 	/**
@@ -217,9 +829,12 @@ public class RedisUtils {
 	public boolean expire(String key, int seconds) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
 			jedis.expire(key, seconds);
+			jedis.close();
+			jedis = null;
+			this.invalidateNearCache(key);
 			return true;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -238,13 +853,21 @@ public class RedisUtils {
 	 * @return
 	 */
 	public boolean set(String key, Object value) {
+		long start = CacheMetrics.start();
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			jedis.set(key, JsonUtils.toJson(value));
+			byte[] data = codec.encode(value);
+			jedis.set(SafeEncoder.encode(key), data);
+			jedis.close();
+			jedis = null;
+			this.invalidateNearCache(key);
+			metrics.success("set", start);
+			metrics.size("set", data.length);
 			return true;
 		} catch (Exception e) {
+			metrics.error("set", start);
 			e.printStackTrace();
 		} finally {
 			if (jedis != null) jedis.close();
@@ -253,23 +876,30 @@ public class RedisUtils {
 	}
 
 	/**
-	 * @功能: 批量设置k-v
+	 * @功能: 设置k-v并指定失效时间
 	 * @作者: yangc
-	 * @创建日期: 2014年6月6日 上午10:32:17
-	 * @param map
+	 * @创建日期: 2026年10月18日 下午8:20:15
+	 * @param key
+	 * @param value
+	 * @param seconds 失效时间(单位秒)
 	 * @return
 	 */
-	public boolean batchSet(Map<String, Object> map) {
+	public boolean set(String key, Object value, int seconds) {
+		long start = CacheMetrics.start();
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
-			ShardedJedisPipeline pipeline = jedis.pipelined();
-			for (Entry<String, Object> entry : map.entrySet()) {
-				pipeline.set(entry.getKey(), JsonUtils.toJson(entry.getValue()));
-			}
-			pipeline.sync();
+			jedis = this.getResource();
+			logger.debug(this.getHost(jedis, key));
+			byte[] data = codec.encode(value);
+			jedis.setex(SafeEncoder.encode(key), seconds, data);
+			jedis.close();
+			jedis = null;
+			this.invalidateNearCache(key);
+			metrics.success("set", start);
+			metrics.size("set", data.length);
 			return true;
 		} catch (Exception e) {
+			metrics.error("set", start);
 			e.printStackTrace();
 		} finally {
 			if (jedis != null) jedis.close();
@@ -278,20 +908,137 @@ public class RedisUtils {
 	}
 
 	/**
-	 * @功能: 获取值
+	 * @功能: 批量设置k-v(按分片并行pipeline)
+	 * @作者: yangc
+	 * @创建日期: 2014年6月6日 上午10:32:17
+	 * @param map
+	 * @return
+	 */
+	public boolean batchSet(Map<String, Object> map) {
+		List<RedisCommand> commands = new ArrayList<RedisCommand>(map.size());
+		for (Entry<String, Object> entry : map.entrySet()) {
+			commands.add(RedisCommand.set(entry.getKey(), codec.encode(entry.getValue())));
+		}
+		if (this.pipelined(commands) == null) {
+			return false;
+		}
+		this.invalidateNearCache(map.keySet().toArray(new String[map.size()]));
+		return true;
+	}
+
+	/**
+	 * @功能: 批量设置k-v并指定失效时间(按分片并行pipeline)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:02:40
+	 * @param map
+	 * @param seconds 失效时间(单位秒)
+	 * @return
+	 */
+	public boolean batchSet(Map<String, ?> map, int seconds) {
+		List<RedisCommand> commands = new ArrayList<RedisCommand>(map.size());
+		for (Entry<String, ?> entry : map.entrySet()) {
+			commands.add(RedisCommand.setex(entry.getKey(), seconds, codec.encode(entry.getValue())));
+		}
+		if (this.pipelined(commands) == null) {
+			return false;
+		}
+		this.invalidateNearCache(map.keySet().toArray(new String[map.size()]));
+		return true;
+	}
+
+	/**
+	 * @功能: 获取值(启用近端缓存时优先读取本地)
 	 * @作者: yangc
 	 * @创建日期: 2014年6月6日 上午10:34:15
 	 * @param key
 	 * @param typeToken
 	 * @return
 	 */
+	@SuppressWarnings("unchecked")
 	public <T> T get(String key, TypeToken<T> typeToken) {
+		long start = CacheMetrics.start();
+		long generation = 0;
+		if (nearCache != null) {
+			generation = nearCache.generation(key);
+			Object value = nearCache.getDecoded(key, typeToken.getType());
+			if (value != null) {
+				metrics.hit("get.near", start);
+				return (T) value;
+			}
+			byte[] raw = nearCache.getRaw(key);
+			if (raw != null) {
+				T t = RedisCodecs.decode(raw, typeToken);
+				nearCache.put(key, raw, typeToken.getType(), t, generation);
+				metrics.hit("get.near", start);
+				return t;
+			}
+			metrics.miss("get.near", start);
+		}
+
+		// 热点key优先读取本地缓存和副本, 分散单个分片的压力
+		boolean hot = hotKeys != null && hotKeys.record(key);
+		if (hot) {
+			byte[] raw = this.getHot(key);
+			if (raw != null) {
+				T t = RedisCodecs.decode(raw, typeToken);
+				if (nearCache != null) {
+					nearCache.put(key, raw, typeToken.getType(), t, generation);
+				}
+				metrics.hit("get.hot", start);
+				return t;
+			}
+		}
+
+		// 从库未命中时可能是复制延迟, 继续读取master
+		final byte[] rawKey = SafeEncoder.encode(key);
+		byte[] replicaRaw = this.readFromReplica(key, new ShardRead<byte[]>() {
+			@Override
+			public byte[] read(Jedis jedis) {
+				return jedis.get(rawKey);
+			}
+		});
+		if (replicaRaw != null) {
+			metrics.hit("get.replica", start);
+			metrics.size("get", replicaRaw.length);
+			// 从库的值可能落后, 只写本地缓存, 副本由读取master的请求写入
+			if (hot) {
+				hotKeys.putLocal(key, replicaRaw);
+			}
+			T t = RedisCodecs.decode(replicaRaw, typeToken);
+			if (nearCache != null) {
+				nearCache.put(key, replicaRaw, typeToken.getType(), t, generation);
+			}
+			return t;
+		}
+
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			return JsonUtils.fromJson(jedis.get(key), typeToken);
+			byte[] raw = jedis.get(SafeEncoder.encode(key));
+			// 写回副本需要借出新的连接, 先归还
+			jedis.close();
+			jedis = null;
+			RedisResharder resharder = RedisUtils.resharder;
+			if (raw == null && resharder != null) {
+				raw = resharder.getFromPrevious(key);
+			}
+			if (raw != null) {
+				metrics.hit("get", start);
+				metrics.size("get", raw.length);
+			} else {
+				metrics.miss("get", start);
+			}
+			if (hot && raw != null) {
+				this.putHot(key, raw);
+			}
+			T t = RedisCodecs.decode(raw, typeToken);
+			if (nearCache != null) {
+				nearCache.put(key, raw, typeToken.getType(), t, generation);
+			}
+			return t;
 		} catch (Exception e) {
+			metrics.error("get", start);
 			e.printStackTrace();
 		} finally {
 			if (jedis != null) jedis.close();
@@ -307,13 +1054,23 @@ public class RedisUtils {
 	 * @return
 	 */
 	public boolean del(String key) {
+		long start = CacheMetrics.start();
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
 			jedis.del(key);
+			jedis.close();
+			jedis = null;
+			RedisResharder resharder = RedisUtils.resharder;
+			if (resharder != null) {
+				resharder.delFromPrevious(key);
+			}
+			this.invalidateNearCache(key);
+			metrics.success("del", start);
 			return true;
 		} catch (Exception e) {
+			metrics.error("del", start);
 			e.printStackTrace();
 		} finally {
 			if (jedis != null) jedis.close();
@@ -331,11 +1088,20 @@ public class RedisUtils {
 	public boolean del(String... keys) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			for (Jedis j : jedis.getAllShards()) {
 				j.del(keys);
 				j.close();
 			}
+			jedis.close();
+			jedis = null;
+			RedisResharder resharder = RedisUtils.resharder;
+			if (resharder != null) {
+				for (String key : keys) {
+					resharder.delFromPrevious(key);
+				}
+			}
+			this.invalidateNearCache(keys);
 			return true;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -357,16 +1123,16 @@ public class RedisUtils {
 	 */
 	public boolean addQueue(String key, Object... values) {
 		int len = values.length;
-		String[] strings = new String[len];
+		byte[][] bytes = new byte[len][];
 		for (int i = 0; i < len; i++) {
-			strings[i] = JsonUtils.toJson(values[i]);
+			bytes[i] = codec.encode(values[i]);
 		}
 
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			jedis.rpush(key, strings);
+			jedis.rpush(SafeEncoder.encode(key), bytes);
 			return true;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -387,9 +1153,9 @@ public class RedisUtils {
 	public <T> T pollQueue(String key, TypeToken<T> typeToken) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			return JsonUtils.fromJson(jedis.lpop(key), typeToken);
+			return RedisCodecs.decode(jedis.lpop(SafeEncoder.encode(key)), typeToken);
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
@@ -398,6 +1164,53 @@ public class RedisUtils {
 		return null;
 	}
 
+	/**
+	 * @功能: 获取可靠队列的生产者端(LPUSH入队, 只能push/poll/popBatch), 不要与addQueue/pollQueue混用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:30:12
+	 * @param name 队列名
+	 * @param typeToken
+	 * @return
+	 */
+	public <T> RedisQueue<T> getQueue(String name, TypeToken<T> typeToken) {
+		return new RedisQueue<T>(pool, codec, name, null, RedisQueue.DEFAULT_MAX_RETRIES, typeToken);
+	}
+
+	/**
+	 * @功能: 获取可靠队列(RPOPLPUSH出队, 支持批量/阻塞/ack), 指定消费者标识
+	 *
+	 *      <pre>
+	 * 消费者标识必须在所有存活的消费者中唯一, 并且重启后保持不变(如 主机名:实例名), 重启后通过recover恢复未确认的消息
+	 * 不能使用进程号等每次启动都变化的值, 否则崩溃前未确认的消息无法恢复
+	 * </pre>
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午5:31:05
+	 * @param name 队列名
+	 * @param consumerId
+	 * @param typeToken
+	 * @return
+	 */
+	public <T> RedisQueue<T> getQueue(String name, String consumerId, TypeToken<T> typeToken) {
+		return this.getQueue(name, consumerId, RedisQueue.DEFAULT_MAX_RETRIES, typeToken);
+	}
+
+	/**
+	 * @功能: 获取可靠队列, 指定消费者标识和最大重试次数, 超过重试次数的消息进入死信列表(队列名:dead)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午9:45:20
+	 * @param name 队列名
+	 * @param consumerId
+	 * @param maxRetries
+	 * @param typeToken
+	 * @return
+	 */
+	public <T> RedisQueue<T> getQueue(String name, String consumerId, int maxRetries, TypeToken<T> typeToken) {
+		if (consumerId == null) {
+			throw new IllegalArgumentException("The consumerId must not be null");
+		}
+		return new RedisQueue<T>(pool, codec, name, consumerId, maxRetries, typeToken);
+	}
+
 	/** ----------------------------------------- Stack(FILO) ------------------------------------------- */
 
 	/**
@@ -410,16 +1223,16 @@ public class RedisUtils {
 	 */
 	public boolean pushStack(String key, Object... values) {
 		int len = values.length;
-		String[] strings = new String[len];
+		byte[][] bytes = new byte[len][];
 		for (int i = 0; i < len; i++) {
-			strings[i] = JsonUtils.toJson(values[i]);
+			bytes[i] = codec.encode(values[i]);
 		}
 
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			jedis.rpush(key, strings);
+			jedis.rpush(SafeEncoder.encode(key), bytes);
 			return true;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -440,9 +1253,9 @@ public class RedisUtils {
 	public <T> T popStack(String key, TypeToken<T> typeToken) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			return JsonUtils.fromJson(jedis.rpop(key), typeToken);
+			return RedisCodecs.decode(jedis.rpop(SafeEncoder.encode(key)), typeToken);
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
@@ -464,7 +1277,7 @@ public class RedisUtils {
 	public boolean putHashMap(String key, Map<String, String> map) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
 			jedis.hmset(key, map);
 			return true;
@@ -484,12 +1297,30 @@ public class RedisUtils {
 	 * @param fields
 	 * @return
 	 */
-	public List<String> getHashMap(String key, String... fields) {
+	public List<String> getHashMap(final String key, final String... fields) {
+		ShardRead<List<String>> read = new ShardRead<List<String>>() {
+			@Override
+			public List<String> read(Jedis jedis) {
+				return jedis.hmget(key, fields);
+			}
+		};
+		List<String> replicaResult = this.readFromReplica(key, read);
+		if (replicaResult != null) {
+			return replicaResult;
+		}
+
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			return jedis.hmget(key, fields);
+			List<String> values = jedis.hmget(key, fields);
+			if (isAllNull(values)) {
+				List<String> previous = this.readFromPrevious(jedis, key, read);
+				if (previous != null) {
+					values = previous;
+				}
+			}
+			return values;
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
@@ -505,12 +1336,30 @@ public class RedisUtils {
 	 * @param key
 	 * @return
 	 */
-	public Set<String> getHashMapKeys(String key) {
+	public Set<String> getHashMapKeys(final String key) {
+		ShardRead<Set<String>> read = new ShardRead<Set<String>>() {
+			@Override
+			public Set<String> read(Jedis jedis) {
+				return jedis.hkeys(key);
+			}
+		};
+		Set<String> replicaResult = this.readFromReplica(key, read);
+		if (replicaResult != null) {
+			return replicaResult;
+		}
+
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			return jedis.hkeys(key);
+			Set<String> keys = jedis.hkeys(key);
+			if (keys == null || keys.isEmpty()) {
+				Set<String> previous = this.readFromPrevious(jedis, key, read);
+				if (previous != null) {
+					keys = previous;
+				}
+			}
+			return keys;
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
@@ -526,12 +1375,30 @@ public class RedisUtils {
 	 * @param key
 	 * @return
 	 */
-	public List<String> getHashMapValues(String key) {
+	public List<String> getHashMapValues(final String key) {
+		ShardRead<List<String>> read = new ShardRead<List<String>>() {
+			@Override
+			public List<String> read(Jedis jedis) {
+				return jedis.hvals(key);
+			}
+		};
+		List<String> replicaResult = this.readFromReplica(key, read);
+		if (replicaResult != null) {
+			return replicaResult;
+		}
+
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			return jedis.hvals(key);
+			List<String> values = jedis.hvals(key);
+			if (values == null || values.isEmpty()) {
+				List<String> previous = this.readFromPrevious(jedis, key, read);
+				if (previous != null) {
+					values = previous;
+				}
+			}
+			return values;
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
@@ -553,7 +1420,7 @@ public class RedisUtils {
 	public boolean zadd(String key, Map<String, Double> map) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
 			jedis.zadd(key, map);
 			return true;
@@ -577,7 +1444,7 @@ public class RedisUtils {
 	public boolean zincrby(String key, double increment, String member) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
 			jedis.zincrby(key, increment, member);
 			return true;
@@ -589,6 +1456,27 @@ public class RedisUtils {
 		return false;
 	}
 
+	/**
+	 * @功能: 为member的score加上增量increment, 并只保留分数最高的maxSize个成员(有界排行榜), 一次往返
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:36:20
+	 * @param key
+	 * @param increment
+	 * @param member
+	 * @param maxSize
+	 * @return member的新分数, 出错时返回null
+	 */
+	public Double zincrbyAndTrim(String key, double increment, String member, int maxSize) {
+		try {
+			byte[] score = (byte[]) this.getScripts().eval(RedisScript.BOUNDED_ZINCRBY, Arrays.asList(SafeEncoder.encode(key)),
+					Arrays.asList(SafeEncoder.encode(String.valueOf(increment)), SafeEncoder.encode(member), SafeEncoder.encode(String.valueOf(maxSize))));
+			return Double.valueOf(SafeEncoder.encode(score));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
 	/**
 	 * @功能: 删除下标为start到end的记录(包含start和stop)
 	 * @作者: yangc
@@ -601,7 +1489,7 @@ public class RedisUtils {
 	public boolean zremrangeByRank(String key, long start, long end) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
 			jedis.zremrangeByRank(key, start, end);
 			return true;
@@ -622,12 +1510,30 @@ public class RedisUtils {
 	 * @param end
 	 * @return
 	 */
-	public Set<Tuple> zrevrangeWithScores(String key, long start, long end) {
+	public Set<Tuple> zrevrangeWithScores(final String key, final long start, final long end) {
+		ShardRead<Set<Tuple>> read = new ShardRead<Set<Tuple>>() {
+			@Override
+			public Set<Tuple> read(Jedis jedis) {
+				return jedis.zrevrangeWithScores(key, start, end);
+			}
+		};
+		Set<Tuple> replicaResult = this.readFromReplica(key, read);
+		if (replicaResult != null) {
+			return replicaResult;
+		}
+
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			return jedis.zrevrangeWithScores(key, start, end);
+			Set<Tuple> tuples = jedis.zrevrangeWithScores(key, start, end);
+			if (tuples == null || tuples.isEmpty()) {
+				Set<Tuple> previous = this.readFromPrevious(jedis, key, read);
+				if (previous != null) {
+					tuples = previous;
+				}
+			}
+			return tuples;
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
@@ -644,12 +1550,27 @@ public class RedisUtils {
 	 * @param member
 	 * @return
 	 */
-	public Long zrevrank(String key, String member) {
+	public Long zrevrank(final String key, final String member) {
+		ShardRead<Long> read = new ShardRead<Long>() {
+			@Override
+			public Long read(Jedis jedis) {
+				return jedis.zrevrank(key, member);
+			}
+		};
+		Long replicaResult = this.readFromReplica(key, read);
+		if (replicaResult != null) {
+			return replicaResult;
+		}
+
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, key));
-			return jedis.zrevrank(key, member);
+			Long rank = jedis.zrevrank(key, member);
+			if (rank == null) {
+				rank = this.readFromPrevious(jedis, key, read);
+			}
+			return rank;
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
@@ -658,10 +1579,383 @@ public class RedisUtils {
 		return null;
 	}
 
+	/** ----------------------------------------- Script ------------------------------------------- */
+
+	/**
+	 * @功能: 获取lua脚本注册表
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:34:10
+	 * @return
+	 */
+	public synchronized RedisScripts getScripts() {
+		if (scripts == null) {
+			scripts = new RedisScripts(pool);
+		}
+		return scripts;
+	}
+
+	/**
+	 * @功能: 滑动窗口限流, 窗口内的请求数未达到limit时通过并记录本次请求, 一次往返
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:38:05
+	 * @param key
+	 * @param limit 窗口内最大请求数
+	 * @param windowMillis 窗口长度(单位毫秒)
+	 * @return 被限流或出错时返回false
+	 */
+	public boolean tryAcquire(String key, int limit, long windowMillis) {
+		try {
+			long now = System.currentTimeMillis();
+			Object result = this.getScripts().eval(RedisScript.SLIDING_WINDOW_RATE_LIMIT, Arrays.asList(SafeEncoder.encode(key)), Arrays.asList(SafeEncoder.encode(String.valueOf(now)),
+					SafeEncoder.encode(String.valueOf(windowMillis)), SafeEncoder.encode(String.valueOf(limit)), SafeEncoder.encode(now + ":" + UUID.randomUUID())));
+			return Long.valueOf(1).equals(result);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 比较并设置, 当前值与expect编码后相同时设置为update, 一次往返
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:39:40
+	 * @param key
+	 * @param expect 期望的当前值, 为null时要求key不存在
+	 * @param update
+	 * @param seconds 存活时间(单位秒), 0为不过期
+	 * @return 当前值不符或出错时返回false
+	 */
+	public boolean compareAndSet(String key, Object expect, Object update, int seconds) {
+		try {
+			byte[] flag = SafeEncoder.encode(expect == null ? "0" : "1");
+			byte[] expectRaw = expect == null ? new byte[0] : codec.encode(expect);
+			Object result = this.getScripts().eval(RedisScript.COMPARE_AND_SET, Arrays.asList(SafeEncoder.encode(key)),
+					Arrays.asList(flag, expectRaw, codec.encode(update), SafeEncoder.encode(String.valueOf(seconds))));
+			if (Long.valueOf(1).equals(result)) {
+				this.invalidateNearCache(key);
+				return true;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/** ----------------------------------------- Lock ------------------------------------------- */
+
+	/**
+	 * @功能: 获取基于租约的分布式锁, 代替set + expire, 等待时通过订阅唤醒
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午12:30:15
+	 * @param name 锁名
+	 * @param leaseMillis 租约(单位毫秒), 持有期间自动续期
+	 * @return 每个线程使用各自的实例
+	 */
+	public RedisLock getLock(String name, long leaseMillis) {
+		return new RedisLock(this.getScripts(), this.getSubscriber(), name, leaseMillis, false);
+	}
+
+	/**
+	 * @功能: 获取公平的分布式锁, 按排队顺序获取
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午12:30:50
+	 * @param name 锁名
+	 * @param leaseMillis 租约(单位毫秒), 持有期间自动续期
+	 * @return 每个线程使用各自的实例
+	 */
+	public RedisLock getFairLock(String name, long leaseMillis) {
+		return new RedisLock(this.getScripts(), this.getSubscriber(), name, leaseMillis, true);
+	}
+
+	/**
+	 * @功能: 获取分布式计数信号量
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午12:31:25
+	 * @param name 信号量名
+	 * @param permits 许可数
+	 * @param leaseMillis 租约(单位毫秒), 持有期间自动续期
+	 * @return
+	 */
+	public RedisSemaphore getSemaphore(String name, int permits, long leaseMillis) {
+		return new RedisSemaphore(this.getScripts(), this.getSubscriber(), name, permits, leaseMillis);
+	}
+
+	/** ----------------------------------------- Pipeline ------------------------------------------- */
+
+	/**
+	 * @功能: 批量执行命令, 按key所在分片分组, 每个分片一个pipeline并行发送
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午10:20:14
+	 * @param commands
+	 * @return 与commands顺序一致的结果, 单条命令执行出错时对应位置为null
+	 */
+	public List<Object> pipelined(List<RedisCommand> commands) {
+		if (commands == null || commands.isEmpty()) {
+			return new ArrayList<Object>(0);
+		}
+
+		long start = CacheMetrics.start();
+		ShardedJedis jedis = null;
+		boolean broken = false;
+		try {
+			jedis = this.getResource();
+			// 按分片分组, 记录命令在调用方列表中的下标
+			Map<JedisShardInfo, List<Integer>> groups = new LinkedHashMap<JedisShardInfo, List<Integer>>();
+			for (int i = 0, size = commands.size(); i < size; i++) {
+				JedisShardInfo shard = jedis.getShardInfo(commands.get(i).getKey());
+				List<Integer> indexes = groups.get(shard);
+				if (indexes == null) {
+					indexes = new ArrayList<Integer>();
+					groups.put(shard, indexes);
+				}
+				indexes.add(i);
+			}
+
+			Object[] results = new Object[commands.size()];
+			List<PipelineTask> tasks = new ArrayList<PipelineTask>(groups.size());
+			for (List<Integer> indexes : groups.values()) {
+				Jedis j = jedis.getShard(commands.get(indexes.get(0)).getKey());
+				tasks.add(new PipelineTask(j, commands, indexes, results));
+			}
+
+			this.runShardTasks(pipelineExecutor, tasks);
+			metrics.success("pipeline", start);
+			return Arrays.asList(results);
+		} catch (Exception e) {
+			broken = true;
+			metrics.error("pipeline", start);
+			e.printStackTrace();
+		} finally {
+			this.release(jedis, broken);
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 第一个分片在当前线程执行, 其余分片交给线程池, 等待所有分片结束
+	 *
+	 *      <pre>
+	 * 即使某个分片失败也要等其他分片结束, 之后才能归还连接, 否则连接还在被其他线程读写时就被下一个调用方借出
+	 * </pre>
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午9:10:20
+	 * @param executor
+	 * @param tasks
+	 * @throws Exception 第一个失败的分片的异常
+	 */
+	private void runShardTasks(ExecutorService executor, List<? extends Callable<Object>> tasks) throws Exception {
+		List<Future<Object>> futures = new ArrayList<Future<Object>>(tasks.size());
+		Exception failure = null;
+		try {
+			for (int i = 1, size = tasks.size(); i < size; i++) {
+				futures.add(executor.submit(tasks.get(i)));
+			}
+			tasks.get(0).call();
+		} catch (Exception e) {
+			failure = e;
+		}
+
+		boolean interrupted = false;
+		for (Future<Object> future : futures) {
+			// 被中断时继续等待, 分片任务受socket超时限制, 不会无限等待
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e;
+					}
+					break;
+				} catch (CancellationException e) {
+					if (failure == null) {
+						failure = e;
+					}
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * @功能: 归还连接, 出错的连接(可能还有未读取的响应)直接销毁
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午9:12:40
+	 * @param jedis
+	 * @param broken
+	 */
+	@SuppressWarnings("deprecation")
+	private void release(ShardedJedis jedis, boolean broken) {
+		if (jedis == null) {
+			return;
+		}
+		if (broken) {
+			pool.returnBrokenResource(jedis);
+		} else {
+			jedis.close();
+		}
+	}
+
+	/**
+	 * @功能: 批量获取值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午10:24:37
+	 * @param keys
+	 * @param typeToken
+	 * @return 与keys顺序一致的值
+	 */
+	public <T> List<T> mget(List<String> keys, TypeToken<T> typeToken) {
+		List<RedisCommand> commands = new ArrayList<RedisCommand>(keys.size());
+		for (String key : keys) {
+			commands.add(RedisCommand.getBytes(key));
+		}
+		List<Object> results = this.pipelined(commands);
+		if (results == null) {
+			return null;
+		}
+		// 双读窗口内, 未命中的key从迁移前所在的分片读取
+		RedisResharder resharder = RedisUtils.resharder;
+		if (resharder != null) {
+			for (int i = 0, size = results.size(); i < size; i++) {
+				if (results.get(i) == null) {
+					results.set(i, resharder.getFromPrevious(keys.get(i)));
+				}
+			}
+		}
+		List<T> values = new ArrayList<T>(results.size());
+		for (Object result : results) {
+			values.add(RedisCodecs.decode((byte[]) result, typeToken));
+		}
+		return values;
+	}
+
+	/**
+	 * @功能: 批量获取多个hashmap中的值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午10:26:02
+	 * @param keys
+	 * @param fields
+	 * @return 与keys顺序一致的值
+	 */
+	@SuppressWarnings("unchecked")
+	public List<List<String>> batchGetHashMap(List<String> keys, final String... fields) {
+		List<RedisCommand> commands = new ArrayList<RedisCommand>(keys.size());
+		for (String key : keys) {
+			commands.add(RedisCommand.hmget(key, fields));
+		}
+		List<Object> results = this.pipelined(commands);
+		if (results == null) {
+			return null;
+		}
+		List<List<String>> values = new ArrayList<List<String>>(results.size());
+		for (Object result : results) {
+			values.add((List<String>) result);
+		}
+		// 双读窗口内, 未命中的key从迁移前所在的分片读取
+		if (RedisUtils.resharder != null) {
+			ShardedJedis jedis = null;
+			try {
+				jedis = this.getResource();
+				for (int i = 0, size = values.size(); i < size; i++) {
+					if (isAllNull(values.get(i))) {
+						final String key = keys.get(i);
+						List<String> previous = this.readFromPrevious(jedis, key, new ShardRead<List<String>>() {
+							@Override
+							public List<String> read(Jedis jedis) {
+								return jedis.hmget(key, fields);
+							}
+						});
+						if (previous != null) {
+							values.set(i, previous);
+						}
+					}
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+			} finally {
+				if (jedis != null) jedis.close();
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * @功能: 批量设置多个SortedSet
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午10:27:45
+	 * @param map key:SortedSet的key, value:member-score
+	 * @return
+	 */
+	public boolean batchZadd(Map<String, Map<String, Double>> map) {
+		List<RedisCommand> commands = new ArrayList<RedisCommand>(map.size());
+		for (Entry<String, Map<String, Double>> entry : map.entrySet()) {
+			commands.add(RedisCommand.zadd(entry.getKey(), entry.getValue()));
+		}
+		return this.pipelined(commands) != null;
+	}
+
+	/**
+	 * @功能: 单个分片的pipeline任务
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 上午10:21:38
+	 */
+	private static class PipelineTask implements Callable<Object> {
+		private final Jedis jedis;
+		private final List<RedisCommand> commands;
+		private final List<Integer> indexes;
+		private final Object[] results;
+
+		PipelineTask(Jedis jedis, List<RedisCommand> commands, List<Integer> indexes, Object[] results) {
+			this.jedis = jedis;
+			this.commands = commands;
+			this.indexes = indexes;
+			this.results = results;
+		}
+
+		@Override
+		public Object call() throws Exception {
+			Pipeline pipeline = this.jedis.pipelined();
+			List<Response<?>> responses = new ArrayList<Response<?>>(this.indexes.size());
+			for (Integer index : this.indexes) {
+				responses.add(this.commands.get(index).execute(pipeline));
+			}
+			pipeline.sync();
+			for (int i = 0, size = this.indexes.size(); i < size; i++) {
+				try {
+					this.results[this.indexes.get(i)] = responses.get(i).get();
+				} catch (JedisDataException e) {
+					logger.error(this.commands.get(this.indexes.get(i)).getKey() + " - " + e.getMessage());
+				}
+			}
+			return null;
+		}
+	}
+
 	/** ----------------------------------------- Pub/Sub ------------------------------------------- */
 
 	/**
-	 * @功能: 从指定通道订阅消息(jedis的subscribe是阻塞的,所以需要通过异步启动)
+	 * @功能: 获取多路复用的订阅管理器, 每个分片只占用一个专用连接, 大量订阅时使用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午4:30:18
+	 * @return
+	 */
+	public synchronized RedisSubscriber getSubscriber() {
+		if (subscriber == null) {
+			subscriber = new RedisSubscriber(pool, MapUtils.getIntValue(SERVER_CONFIG, "subscriber.dispatchThreads"), MapUtils.getIntValue(SERVER_CONFIG, "subscriber.queueSize"));
+		}
+		return subscriber;
+	}
+
+	/**
+	 * @功能: 从指定通道订阅消息(jedis的subscribe是阻塞的,所以需要通过异步启动, 并且一直占用一个连接, 大量订阅时使用getSubscriber)
 	 * @作者: yangc
 	 * @创建日期: 2014年12月25日 下午8:53:17
 	 * @param jedisPubSub
@@ -671,7 +1965,7 @@ public class RedisUtils {
 	public boolean subscribe(JedisPubSub jedisPubSub, String channel) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, channel));
 			jedis.getShard(channel).subscribe(jedisPubSub, channel);
 			return true;
@@ -704,7 +1998,7 @@ public class RedisUtils {
 	public boolean publish(String channel, String message) {
 		ShardedJedis jedis = null;
 		try {
-			jedis = pool.getResource();
+			jedis = this.getResource();
 			logger.debug(this.getHost(jedis, channel));
 			jedis.getShard(channel).publish(channel, message);
 			return true;
@@ -0,0 +1,89 @@
+package com.yangc.utils.cache;
+
+/**
+ * @功能: 分布式锁和信号量的等待通知, 通过订阅释放通道唤醒本进程内的等待线程, 不轮询redis
+ *
+ *      <pre>
+ * 只在有线程等待时订阅, 最后一个等待线程离开后取消订阅
+ * 订阅确认之前的释放通知会丢失, 调用方等待订阅确认后再重试一次, 之后的释放一定会收到通知
+ * 等待前记录通知的代数, 尝试获取失败后代数已变化说明期间有释放, 立即重试, 避免丢失通知
+ * 断线重连后重新订阅时代数也会增加, 唤醒等待线程重试断线期间可能丢失的释放
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午11:55:30
+ */
+class RedisWaiter implements RedisSubscriptionListener {
+
+	private final RedisSubscriber subscriber;
+	private final String channel;
+
+	private int waiting;
+	private long generation;
+	private boolean subscribed;
+
+	RedisWaiter(RedisSubscriber subscriber, String channel) {
+		this.subscriber = subscriber;
+		this.channel = channel;
+	}
+
+	synchronized void begin() {
+		if (this.waiting++ == 0) {
+			this.subscribed = false;
+			this.subscriber.subscribe(this.channel, this);
+		}
+	}
+
+	synchronized void end() {
+		if (--this.waiting == 0) {
+			this.subscriber.unsubscribe(this.channel, this);
+			this.subscribed = false;
+		}
+	}
+
+	synchronized long generation() {
+		return this.generation;
+	}
+
+	/**
+	 * @功能: 等待订阅确认
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午3:10:25
+	 * @param millis 最长等待时间
+	 * @throws InterruptedException
+	 */
+	synchronized void awaitSubscribed(long millis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + millis;
+		while (!this.subscribed && millis > 0) {
+			this.wait(millis);
+			millis = deadline - System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * @功能: 等待释放通知
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午11:57:10
+	 * @param generation 尝试获取之前的代数
+	 * @param millis 最长等待时间
+	 * @throws InterruptedException
+	 */
+	synchronized void await(long generation, long millis) throws InterruptedException {
+		if (this.generation == generation && millis > 0) {
+			this.wait(millis);
+		}
+	}
+
+	@Override
+	public synchronized void onSubscribed(String channel) {
+		this.subscribed = true;
+		this.generation++;
+		this.notifyAll();
+	}
+
+	@Override
+	public synchronized void onMessage(String channel, String message) {
+		this.generation++;
+		this.notifyAll();
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.yangc.utils.cache;
+
+import redis.clients.jedis.Jedis;
+
+/**
+ * @功能: 在单个redis节点上执行的读操作, 用于读取从库, 以及双读窗口内读取key迁移前所在的分片
+ * @作者: yangc
+ * @创建日期: 2026年10月20日 上午10:50:12
+ */
+interface ShardRead<R> {
+
+	/**
+	 * @param jedis 该节点的连接, 只能在回调中使用
+	 * @return
+	 */
+	R read(Jedis jedis);
+
+}
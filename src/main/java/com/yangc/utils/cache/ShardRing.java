@@ -0,0 +1,137 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import redis.clients.util.Hashing;
+
+/**
+ * @功能: 带虚拟节点和权重的一致性hash环
+ *
+ *      <pre>
+ * 每个节点按名称放置 VIRTUAL_NODES * weight 个虚拟节点, 增删节点只影响相邻区间的key
+ * 虚拟节点的计算方式和个数与jedis的Sharded对命名分片的计算方式相同, 与ShardedJedis的路由结果一致
+ * 虚拟节点数固定为160, jedis不能修改, 其他值计算出的迁移范围与实际路由不符, 因此不可配置
+ * 读操作不加锁, 修改时复制整个环
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午9:40:10
+ */
+public class ShardRing<T> {
+
+	/** 每单位权重的虚拟节点数, 与jedis的Sharded相同 */
+	public static final int VIRTUAL_NODES = 160;
+
+	private final Hashing algo = Hashing.MURMUR_HASH;
+
+	private static class Node<T> {
+		private final String name;
+		private final T shard;
+		private final int weight;
+
+		Node(String name, T shard, int weight) {
+			this.name = name;
+			this.shard = shard;
+			this.weight = weight;
+		}
+	}
+
+	private volatile TreeMap<Long, Node<T>> ring = new TreeMap<Long, Node<T>>();
+	private volatile Map<String, Node<T>> nodes = new LinkedHashMap<String, Node<T>>();
+
+	/**
+	 * @功能: 添加节点, 同名节点已存在时替换
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:42:15
+	 * @param name 节点名称, 决定虚拟节点的位置, 应保持稳定(如sentinel中的master名称)
+	 * @param shard
+	 * @param weight 权重
+	 */
+	public synchronized void add(String name, T shard, int weight) {
+		if (name == null || shard == null || weight <= 0) {
+			throw new IllegalArgumentException("Invalid shard " + name);
+		}
+		Map<String, Node<T>> nodes = new LinkedHashMap<String, Node<T>>(this.nodes);
+		nodes.put(name, new Node<T>(name, shard, weight));
+		this.rebuild(nodes);
+	}
+
+	/**
+	 * @功能: 删除节点
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:43:02
+	 * @param name
+	 * @return
+	 */
+	public synchronized boolean remove(String name) {
+		if (!this.nodes.containsKey(name)) {
+			return false;
+		}
+		Map<String, Node<T>> nodes = new LinkedHashMap<String, Node<T>>(this.nodes);
+		nodes.remove(name);
+		this.rebuild(nodes);
+		return true;
+	}
+
+	private void rebuild(Map<String, Node<T>> nodes) {
+		TreeMap<Long, Node<T>> ring = new TreeMap<Long, Node<T>>();
+		for (Node<T> node : nodes.values()) {
+			for (int n = 0; n < VIRTUAL_NODES * node.weight; n++) {
+				ring.put(this.algo.hash(node.name + "*" + node.weight + n), node);
+			}
+		}
+		this.ring = ring;
+		this.nodes = nodes;
+	}
+
+	/**
+	 * @功能: 获取key所在的节点
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:44:10
+	 * @param key
+	 * @return 环为空时返回null
+	 */
+	public T get(String key) {
+		Node<T> node = this.getNode(key);
+		return node == null ? null : node.shard;
+	}
+
+	/**
+	 * @功能: 获取key所在节点的名称
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:44:40
+	 * @param key
+	 * @return 环为空时返回null
+	 */
+	public String getName(String key) {
+		Node<T> node = this.getNode(key);
+		return node == null ? null : node.name;
+	}
+
+	private Node<T> getNode(String key) {
+		TreeMap<Long, Node<T>> ring = this.ring;
+		if (ring.isEmpty()) {
+			return null;
+		}
+		SortedMap<Long, Node<T>> tail = ring.tailMap(this.algo.hash(key));
+		return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+	}
+
+	public List<T> getAll() {
+		List<T> shards = new ArrayList<T>();
+		for (Node<T> node : this.nodes.values()) {
+			shards.add(node.shard);
+		}
+		return Collections.unmodifiableList(shards);
+	}
+
+	public int size() {
+		return this.nodes.size();
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.yangc.utils.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * @功能: 合并同一个key的并发加载(single-flight), LoadingCache, TieredCache, EhCacheHandle共用
+ *
+ *      <pre>
+ * 同一个key同时只执行一次, 执行期间到达的调用等待并共享同一个结果(包括异常)
+ * 执行完成后立即移除, 下一次调用重新执行, 不缓存结果
+ * 合并只在当前进程内生效
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月20日 上午10:30:15
+ */
+class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, FutureTask<V>> calls = new ConcurrentHashMap<K, FutureTask<V>>();
+
+	/**
+	 * @功能: 在当前线程执行, 同一个key正在执行时等待其结果
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午10:31:02
+	 * @param key
+	 * @param callable
+	 * @return
+	 * @throws InterruptedException 等待期间被中断
+	 * @throws ExecutionException callable抛出的异常
+	 */
+	V execute(K key, Callable<V> callable) throws InterruptedException, ExecutionException {
+		FutureTask<V> task = new FutureTask<V>(callable);
+		FutureTask<V> running = this.calls.putIfAbsent(key, task);
+		if (running == null) {
+			try {
+				task.run();
+			} finally {
+				this.calls.remove(key, task);
+			}
+			running = task;
+		}
+		return running.get();
+	}
+
+	/**
+	 * @功能: 在后台执行, 同一个key正在执行时忽略
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 上午10:32:10
+	 * @param key
+	 * @param callable
+	 * @param executor
+	 * @return 是否提交了新的任务
+	 */
+	boolean submit(final K key, Callable<V> callable, Executor executor) {
+		if (this.calls.containsKey(key)) {
+			return false;
+		}
+		final FutureTask<V> task = new FutureTask<V>(callable);
+		if (this.calls.putIfAbsent(key, task) != null) {
+			return false;
+		}
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						task.run();
+					} finally {
+						calls.remove(key, task);
+					}
+				}
+			});
+			return true;
+		} catch (RuntimeException e) {
+			this.calls.remove(key, task);
+			throw e;
+		}
+	}
+
+	boolean isRunning(K key) {
+		return this.calls.containsKey(key);
+	}
+
+}
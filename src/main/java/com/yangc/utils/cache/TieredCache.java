@@ -0,0 +1,385 @@
+package com.yangc.utils.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: 多级缓存, 如 本地 -> memcached/redis -> 加载器
+ *
+ *      <pre>
+ * 读: 从上往下逐级查找, 在下层命中的值写回到上层(有效期不超过下层的剩余时间), 全部未命中时调用加载器(同一个key只加载一次)
+ * 写: 同步层立即写入, 异步层放入写缓冲, 同一个key只保留最后一次写入, 按批量大小或时间间隔批量写入
+ * 每次写入和失效都分配一个递增的版本号, 批量写入完成后, 期间被失效(版本号更大)的key从后端再删除一次, 避免失效的值被写回
+ * 每层单独统计命中率和延迟
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月18日 下午9:10:25
+ */
+public class TieredCache<V> {
+
+	private static final Logger logger = LogManager.getLogger(TieredCache.class);
+
+	private final List<Tier<V>> tiers;
+	private final LoadingCache.Loader<V> loader;
+	private final int batchSize;
+
+	private final SingleFlight<String, V> loading = new SingleFlight<String, V>();
+	private final ScheduledExecutorService flusher;
+	// 是否已经提交了一个因写缓冲满而触发的写入任务
+	private final AtomicBoolean flushSubmitted = new AtomicBoolean();
+
+	// 写入和失效的版本号
+	private final AtomicLong versions = new AtomicLong();
+	// 失效时的版本号, 只在批量写入期间需要, 每次写入完成后清理
+	private final ConcurrentHashMap<String, Long> invalidations = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * 写缓冲中的值和写入时的版本号
+	 */
+	private static class PendingWrite<V> {
+		private final CacheValue<V> value;
+		private final long version;
+
+		PendingWrite(CacheValue<V> value, long version) {
+			this.value = value;
+			this.version = version;
+		}
+	}
+
+	/**
+	 * @功能: 缓存层
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:12:02
+	 */
+	public static class Tier<V> {
+		private final String name;
+		private final CacheStore<V> store;
+		private final int ttlSeconds;
+		private final boolean writeBehind;
+
+		// 写缓冲, 同一个key只保留最后一次写入
+		private final ConcurrentHashMap<String, PendingWrite<V>> pending = new ConcurrentHashMap<String, PendingWrite<V>>();
+
+		private final AtomicLong hitCount = new AtomicLong();
+		private final AtomicLong missCount = new AtomicLong();
+		private final AtomicLong readNanos = new AtomicLong();
+		private final AtomicLong writeCount = new AtomicLong();
+		private final AtomicLong writeNanos = new AtomicLong();
+
+		/**
+		 * @param name 名称, 用于日志和统计
+		 * @param store 存储后端, 参见CacheStores
+		 * @param ttlSeconds 本层的存活时间(单位秒)
+		 * @param writeBehind 是否异步批量写入, 一般远程层为true, 本地层为false
+		 */
+		public Tier(String name, CacheStore<V> store, int ttlSeconds, boolean writeBehind) {
+			if (store == null || ttlSeconds <= 0) {
+				throw new IllegalArgumentException("Invalid cache tier " + name);
+			}
+			this.name = name;
+			this.store = store;
+			this.ttlSeconds = ttlSeconds;
+			this.writeBehind = writeBehind;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getHitCount() {
+			return hitCount.get();
+		}
+
+		public long getMissCount() {
+			return missCount.get();
+		}
+
+		public double getHitRate() {
+			long hit = this.hitCount.get();
+			long total = hit + this.missCount.get();
+			return total == 0 ? 0 : (double) hit / total;
+		}
+
+		/**
+		 * @return 平均读延迟(单位微秒)
+		 */
+		public double getAverageReadMicros() {
+			long total = this.hitCount.get() + this.missCount.get();
+			return total == 0 ? 0 : this.readNanos.get() / 1000.0 / total;
+		}
+
+		/**
+		 * @return 平均写延迟(单位微秒), 异步层为每次批量写入的延迟
+		 */
+		public double getAverageWriteMicros() {
+			long total = this.writeCount.get();
+			return total == 0 ? 0 : this.writeNanos.get() / 1000.0 / total;
+		}
+
+		public int getPendingWrites() {
+			return pending.size();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[hitRate=%.4f, hits=%d, misses=%d, readMicros=%.1f, writeMicros=%.1f, pending=%d]", this.name, this.getHitRate(), this.getHitCount(), this.getMissCount(),
+					this.getAverageReadMicros(), this.getAverageWriteMicros(), this.getPendingWrites());
+		}
+	}
+
+	/**
+	 * @param tiers 从上往下的缓存层
+	 * @param loader 加载器, 可以为null
+	 * @param batchSize 异步层每批写入的最大条数, 写缓冲达到该数量时立即写入
+	 * @param flushIntervalMillis 异步层的写入间隔(单位毫秒)
+	 */
+	public TieredCache(List<Tier<V>> tiers, LoadingCache.Loader<V> loader, int batchSize, long flushIntervalMillis) {
+		if (tiers == null || tiers.isEmpty() || batchSize <= 0 || flushIntervalMillis <= 0) {
+			throw new IllegalArgumentException("Invalid tiered cache config");
+		}
+		this.tiers = new ArrayList<Tier<V>>(tiers);
+		this.loader = loader;
+		this.batchSize = batchSize;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "tiered-cache-flusher");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.flusher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @功能: 逐级获取值, 全部未命中时加载
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:15:40
+	 * @param key
+	 * @return
+	 */
+	public V get(String key) {
+		for (int i = 0; i < this.tiers.size(); i++) {
+			Tier<V> tier = this.tiers.get(i);
+			PendingWrite<V> write = tier.pending.get(key);
+			CacheValue<V> cached = write == null ? null : write.value;
+			if (cached == null) {
+				long start = System.nanoTime();
+				cached = tier.store.get(key);
+				tier.readNanos.addAndGet(System.nanoTime() - start);
+			}
+			if (cached != null && System.currentTimeMillis() < cached.getExpireAt()) {
+				tier.hitCount.incrementAndGet();
+				this.promote(key, cached, i);
+				return cached.getValue();
+			}
+			tier.missCount.incrementAndGet();
+		}
+		return this.loader == null ? null : this.load(key);
+	}
+
+	/**
+	 * @功能: 写入所有层
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:16:30
+	 * @param key
+	 * @param value
+	 */
+	public void put(String key, V value) {
+		long now = System.currentTimeMillis();
+		for (Tier<V> tier : this.tiers) {
+			long expireAt = now + tier.ttlSeconds * 1000L;
+			this.write(tier, key, new CacheValue<V>(value, expireAt, expireAt, expireAt));
+		}
+	}
+
+	/**
+	 * @功能: 从所有层删除, 包括尚未写入的缓冲
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:17:12
+	 * @param key
+	 */
+	public void invalidate(String key) {
+		// 先记录版本号, 正在进行的批量写入完成后据此再删除
+		this.invalidations.put(key, this.versions.incrementAndGet());
+		for (Tier<V> tier : this.tiers) {
+			tier.pending.remove(key);
+			tier.store.delete(key);
+		}
+	}
+
+	/**
+	 * @功能: 立即写入所有异步层的缓冲
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:18:05
+	 */
+	public synchronized void flush() {
+		// 此前的失效对应的写入已经移出写缓冲, 本次写入完成后即可清理
+		long start = this.versions.get();
+		for (Tier<V> tier : this.tiers) {
+			if (!tier.writeBehind) {
+				continue;
+			}
+			try {
+				while (!tier.pending.isEmpty()) {
+					Map<String, PendingWrite<V>> batch = new HashMap<String, PendingWrite<V>>();
+					Iterator<Entry<String, PendingWrite<V>>> it = tier.pending.entrySet().iterator();
+					while (it.hasNext() && batch.size() < this.batchSize) {
+						Entry<String, PendingWrite<V>> entry = it.next();
+						// 只有值未被再次修改时才移出缓冲
+						if (tier.pending.remove(entry.getKey(), entry.getValue())) {
+							batch.put(entry.getKey(), entry.getValue());
+						}
+					}
+					this.writeBatch(tier, batch);
+				}
+			} catch (Exception e) {
+				logger.error("Failed to flush cache tier " + tier.name, e);
+			}
+		}
+		for (Iterator<Long> it = this.invalidations.values().iterator(); it.hasNext();) {
+			if (it.next() <= start) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * @功能: 停止后台写入, 停止前写入全部缓冲
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:18:40
+	 */
+	public void shutdown() {
+		this.flusher.shutdown();
+		this.flush();
+	}
+
+	public List<Tier<V>> getTiers() {
+		return tiers;
+	}
+
+	/**
+	 * @功能: 各层的统计信息
+	 * @作者: yangc
+	 * @创建日期: 2026年10月18日 下午9:19:15
+	 * @return
+	 */
+	public String getStats() {
+		StringBuilder sb = new StringBuilder();
+		for (Tier<V> tier : this.tiers) {
+			sb.append(tier).append("\n");
+		}
+		return sb.toString();
+	}
+
+	private void promote(String key, CacheValue<V> cached, int found) {
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < found; i++) {
+			Tier<V> tier = this.tiers.get(i);
+			long expireAt = Math.min(now + tier.ttlSeconds * 1000L, cached.getExpireAt());
+			this.write(tier, key, new CacheValue<V>(cached.getValue(), expireAt, expireAt, expireAt));
+		}
+	}
+
+	private void write(Tier<V> tier, String key, CacheValue<V> value) {
+		if (tier.writeBehind) {
+			tier.pending.put(key, new PendingWrite<V>(value, this.versions.incrementAndGet()));
+			// 同时最多只有一个待执行的写入任务
+			if (tier.pending.size() >= this.batchSize && this.flushSubmitted.compareAndSet(false, true)) {
+				try {
+					this.flusher.execute(new Runnable() {
+						@Override
+						public void run() {
+							flushSubmitted.set(false);
+							flush();
+						}
+					});
+				} catch (RuntimeException e) {
+					this.flushSubmitted.set(false);
+					logger.error("Failed to submit flush of cache tier " + tier.name, e);
+				}
+			}
+		} else {
+			long start = System.nanoTime();
+			tier.store.put(key, value, this.expireSeconds(value));
+			tier.writeNanos.addAndGet(System.nanoTime() - start);
+			tier.writeCount.incrementAndGet();
+		}
+	}
+
+	private void writeBatch(Tier<V> tier, Map<String, PendingWrite<V>> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		// 按剩余时间最长的设置后端失效时间, 逻辑过期由CacheValue判断
+		long expireAt = 0;
+		Map<String, CacheValue<V>> values = new HashMap<String, CacheValue<V>>(batch.size() * 4 / 3 + 1);
+		for (Entry<String, PendingWrite<V>> entry : batch.entrySet()) {
+			CacheValue<V> value = entry.getValue().value;
+			values.put(entry.getKey(), value);
+			expireAt = Math.max(expireAt, value.getExpireAt());
+		}
+		long start = System.nanoTime();
+		if (!tier.store.putAll(values, this.expireSeconds(new CacheValue<V>(null, expireAt, expireAt, expireAt)))) {
+			logger.error("Failed to write " + batch.size() + " values to cache tier " + tier.name);
+		}
+		tier.writeNanos.addAndGet(System.nanoTime() - start);
+		tier.writeCount.incrementAndGet();
+
+		// 写入期间被失效的key, 删除刚写入的旧值
+		if (!this.invalidations.isEmpty()) {
+			for (Entry<String, PendingWrite<V>> entry : batch.entrySet()) {
+				Long invalidated = this.invalidations.get(entry.getKey());
+				if (invalidated != null && invalidated > entry.getValue().version) {
+					tier.store.delete(entry.getKey());
+				}
+			}
+		}
+	}
+
+	private int expireSeconds(CacheValue<V> value) {
+		return (int) Math.max(1, (value.getExpireAt() - System.currentTimeMillis() + 999) / 1000);
+	}
+
+	private V load(final String key) {
+		try {
+			return this.loading.execute(key, new Callable<V>() {
+				@Override
+				public V call() throws Exception {
+					V value = loader.load(key);
+					if (value != null) {
+						put(key, value);
+					}
+					return value;
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.error("Failed to load " + key, e.getCause());
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.yangc.utils.cache;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import net.rubyeye.xmemcached.CommandFactory;
+import net.rubyeye.xmemcached.MemcachedClient;
+import net.rubyeye.xmemcached.XMemcachedClient;
+import net.rubyeye.xmemcached.command.Command;
+import net.rubyeye.xmemcached.command.CommandType;
+import net.rubyeye.xmemcached.exception.MemcachedException;
+import net.rubyeye.xmemcached.transcoders.CachedData;
+import net.rubyeye.xmemcached.transcoders.Transcoder;
+import net.rubyeye.xmemcached.utils.ByteUtils;
+
+/**
+ * @功能: 通过xmemcached的NIO连接直接发送命令, 不等待响应, 返回的Future在响应到达时完成
+ *
+ *      <pre>
+ * 发送不占用线程, 同一个连接上连续发送的命令合并写入(pipeline), 一批命令只需要一次往返
+ * 等待响应的是调用Future.get的线程, get()最长等待客户端的opTimeout
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月20日 下午4:10:20
+ */
+final class XMemcachedCommands {
+
+	private XMemcachedCommands() {
+	}
+
+	static Future<Boolean> set(MemcachedClient client, String key, int exp, Object value) {
+		checkValue(value, exp);
+		return send(client, getCommandFactory(client).createSetCommand(key, getKeyBytes(key), exp, value, false, client.getTranscoder()), null);
+	}
+
+	static Future<Boolean> add(MemcachedClient client, String key, int exp, Object value) {
+		checkValue(value, exp);
+		return send(client, getCommandFactory(client).createAddCommand(key, getKeyBytes(key), exp, value, false, client.getTranscoder()), null);
+	}
+
+	static Future<Boolean> delete(MemcachedClient client, String key) {
+		return send(client, getCommandFactory(client).createDeleteCommand(key, getKeyBytes(key), 0, 0, false), null);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> Future<T> get(MemcachedClient client, String key) {
+		Transcoder<Object> transcoder = client.getTranscoder();
+		return send(client, getCommandFactory(client).createGetCommand(key, getKeyBytes(key), CommandType.GET_ONE, transcoder), transcoder);
+	}
+
+	/**
+	 * @return 命令无法发送(客户端已关闭, 没有可用的连接)时返回已经失败的Future
+	 */
+	private static <T> Future<T> send(MemcachedClient client, Command command, Transcoder<Object> transcoder) {
+		if (client.isShutdown()) {
+			return MemcachedBatches.failed(new MemcachedException("Xmemcached is stopped"));
+		}
+		try {
+			client.getConnector().send(command);
+		} catch (MemcachedException e) {
+			return MemcachedBatches.failed(e);
+		}
+		return new CommandFuture<T>(command, transcoder, client.getOpTimeout());
+	}
+
+	private static CommandFactory getCommandFactory(MemcachedClient client) {
+		if (!(client instanceof XMemcachedClient)) {
+			throw new IllegalArgumentException("Unsupported memcached client " + client.getClass().getName());
+		}
+		return ((XMemcachedClient) client).getCommandFactory();
+	}
+
+	private static byte[] getKeyBytes(String key) {
+		byte[] keyBytes = ByteUtils.getBytes(key);
+		ByteUtils.checkKey(keyBytes);
+		return keyBytes;
+	}
+
+	private static void checkValue(Object value, int exp) {
+		if (value == null) {
+			throw new IllegalArgumentException("value could not be null");
+		}
+		if (exp < 0) {
+			throw new IllegalArgumentException("Expire time must be greater than or equal to 0");
+		}
+	}
+
+	/**
+	 * @功能: 等待命令的响应, 命令出错时get抛出ExecutionException
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午4:12:35
+	 */
+	private static class CommandFuture<T> implements Future<T> {
+		private final Command command;
+		// get命令的值需要解码, 其他命令为null
+		private final Transcoder<Object> transcoder;
+		private final long timeout;
+
+		CommandFuture(Command command, Transcoder<Object> transcoder, long timeout) {
+			this.command = command;
+			this.transcoder = transcoder;
+			this.timeout = timeout;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (this.isDone()) {
+				return false;
+			}
+			this.command.cancel();
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return this.command.isCancel();
+		}
+
+		@Override
+		public boolean isDone() {
+			return this.command.getLatch().getCount() == 0;
+		}
+
+		@Override
+		public T get() throws InterruptedException, ExecutionException {
+			try {
+				return this.get(this.timeout, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				this.command.cancel();
+				throw new ExecutionException(e);
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			if (!this.command.getLatch().await(timeout, unit)) {
+				throw new TimeoutException("Timed out waiting for memcached " + this.command.getCommandType() + " " + this.command.getKey());
+			}
+			if (this.command.getException() != null) {
+				throw new ExecutionException(this.command.getException());
+			}
+			Object result = this.command.getResult();
+			if (this.transcoder != null && result != null) {
+				result = this.transcoder.decode((CachedData) result);
+			}
+			return (T) result;
+		}
+	}
+
+}
@@ -2,20 +2,32 @@ package com.yangc.utils.cache;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 import net.rubyeye.xmemcached.MemcachedClient;
+import net.rubyeye.xmemcached.XMemcachedClient;
 import net.rubyeye.xmemcached.XMemcachedClientBuilder;
 import net.rubyeye.xmemcached.exception.MemcachedException;
+import net.rubyeye.xmemcached.transcoders.CachedData;
+import net.rubyeye.xmemcached.transcoders.CompressionMode;
+import net.rubyeye.xmemcached.transcoders.SerializingTranscoder;
+import net.rubyeye.xmemcached.transcoders.Transcoder;
 import net.rubyeye.xmemcached.utils.AddrUtil;
 
+import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.net.telnet.TelnetClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.yangc.utils.prop.ConfigListener;
+import com.yangc.utils.prop.ConfigRegistry;
 import com.yangc.utils.prop.PropertiesUtils;
 
 public class XMemcachedUtils {
@@ -26,8 +38,26 @@ public class XMemcachedUtils {
 
 	private static String[] servers = { "127.0.0.1:11211" };
 	private static int[] weights = { 1 };
+	private static final Map<String, String> serverConfig = new HashMap<String, String>();
 
-	private static MemcachedClient memcachedClient;
+	// 配置的全部服务器及权重, 包括不可用的
+	private static final Map<String, Integer> configuredServers = new LinkedHashMap<String, Integer>();
+
+	private static volatile MemcachedClient memcachedClient;
+
+	// 当前客户端中的服务器及权重
+	private static Map<String, Integer> activeServers = new LinkedHashMap<String, Integer>();
+
+	// 后台健康检查, memcached.monitorSeconds为0时为null
+	private static MemcachedHealthChecker healthChecker;
+
+	// 写缓冲, 首次使用时创建
+	private static MemcachedWriteBehind writeBehind;
+
+	// 热点key探测, 未配置时为null
+	private static HotKeyDetector hotKeys;
+
+	private static final CacheMetrics metrics = CacheMetrics.getMetrics("xmemcached");
 
 	private static class InstanceHolder {
 		private static final XMemcachedUtils instance = new XMemcachedUtils();
@@ -38,6 +68,21 @@ public class XMemcachedUtils {
 		initConfig();
 		logger.info("=================== 初始化 memcached ===============");
 		initMemcached();
+		startHealthChecker();
+
+		int hotKeyTopK = MapUtils.getIntValue(serverConfig, "hotKey.topK");
+		if (hotKeyTopK > 0) {
+			hotKeys = new HotKeyDetector("xmemcached", hotKeyTopK, MapUtils.getLongValue(serverConfig, "hotKey.threshold"), MapUtils.getIntValue(serverConfig, "hotKey.windowSeconds"),
+					MapUtils.getIntValue(serverConfig, "hotKey.sampleRate"), MapUtils.getLongValue(serverConfig, "hotKey.localTtlMillis"), MapUtils.getIntValue(serverConfig, "hotKey.replicas"));
+		}
+
+		// 配置文件变化时重新加载
+		ConfigRegistry.addListener(FILE_PATH, new ConfigListener() {
+			@Override
+			public void onChange(String filePath, Map<String, String> previous, Map<String, String> current) {
+				reloadMemcached();
+			}
+		});
 	}
 
 	public static XMemcachedUtils getInstance() {
@@ -45,36 +90,45 @@ public class XMemcachedUtils {
 	}
 
 	/**
-	 * @功能: 初始化参数配置
+	 * @功能: 初始化参数配置, 并行检查服务器是否可用
 	 * @作者: yangc
 	 * @创建日期: 2014年3月29日 下午10:46:55
 	 */
 	private void initConfig() {
+		serverConfig.put("batchSize", PropertiesUtils.getProperty(FILE_PATH, "memcached.batchSize", "500"));
+		serverConfig.put("writeBehindMillis", PropertiesUtils.getProperty(FILE_PATH, "memcached.writeBehindMillis", "50"));
+		serverConfig.put("writeBehindRetries", PropertiesUtils.getProperty(FILE_PATH, "memcached.writeBehindRetries", "3"));
+		serverConfig.put("probeTimeoutMillis", PropertiesUtils.getProperty(FILE_PATH, "memcached.probeTimeoutMillis", "1000"));
+		serverConfig.put("monitorSeconds", PropertiesUtils.getProperty(FILE_PATH, "memcached.monitorSeconds", "10"));
+		serverConfig.put("hotKey.topK", PropertiesUtils.getProperty(FILE_PATH, "memcached.hotKey.topK", "0"));
+		serverConfig.put("hotKey.threshold", PropertiesUtils.getProperty(FILE_PATH, "memcached.hotKey.threshold", "10000"));
+		serverConfig.put("hotKey.windowSeconds", PropertiesUtils.getProperty(FILE_PATH, "memcached.hotKey.windowSeconds", "1"));
+		serverConfig.put("hotKey.sampleRate", PropertiesUtils.getProperty(FILE_PATH, "memcached.hotKey.sampleRate", "16"));
+		serverConfig.put("hotKey.localTtlMillis", PropertiesUtils.getProperty(FILE_PATH, "memcached.hotKey.localTtlMillis", "1000"));
+		serverConfig.put("hotKey.replicas", PropertiesUtils.getProperty(FILE_PATH, "memcached.hotKey.replicas", "0"));
+		serverConfig.put("hotKey.replicaTtlSeconds", PropertiesUtils.getProperty(FILE_PATH, "memcached.hotKey.replicaTtlSeconds", "5"));
+
 		String[] sers = PropertiesUtils.getProperty(FILE_PATH, "memcached.servers").split(",");
 		String[] wgts = PropertiesUtils.getProperty(FILE_PATH, "memcached.weights").split(",");
-		List<Integer> serverUsed = new ArrayList<Integer>();
-
-		TelnetClient telnet = new TelnetClient();
+		configuredServers.clear();
 		for (int i = 0, len = sers.length; i < len; i++) {
-			int seg = sers[i].indexOf(":");
-			try {
-				telnet.connect(sers[i].substring(0, seg), Integer.parseInt(sers[i].substring(seg + 1)));
-				telnet.disconnect();
-				serverUsed.add(i);
-			} catch (Exception e) {
-			}
+			configuredServers.put(sers[i].trim(), Integer.parseInt(wgts[i].trim()));
 		}
-		int serverCount = serverUsed.size();
-		if (serverCount == 0) {
-			servers = null;
+		this.setServers(MemcachedHealthChecker.probe(new ArrayList<String>(configuredServers.keySet()), MapUtils.getIntValue(serverConfig, "probeTimeoutMillis")));
+	}
+
+	private void setServers(List<String> alive) {
+		if (alive.isEmpty()) {
+			// 客户端已经创建时保留最后已知的服务器, 全部不可用多半是网络问题, 客户端会自动重连
+			if (this.isShutdown()) {
+				servers = null;
+			}
 			return;
 		}
-
-		servers = new String[serverCount];
-		weights = new int[serverCount];
-		for (int i = 0; i < serverCount; i++) {
-			servers[i] = sers[serverUsed.get(i)];
-			weights[i] = Integer.parseInt(wgts[serverUsed.get(i)]);
+		servers = alive.toArray(new String[alive.size()]);
+		weights = new int[servers.length];
+		for (int i = 0; i < servers.length; i++) {
+			weights[i] = configuredServers.get(servers[i]);
 		}
 	}
 
@@ -85,44 +139,108 @@ public class XMemcachedUtils {
 		}
 
 		XMemcachedClientBuilder builder = new XMemcachedClientBuilder(AddrUtil.getAddresses(StringUtils.join(servers, " ")), weights);
+		builder.setTranscoder(new MeasuringTranscoder());
 		try {
 			memcachedClient = builder.build();
+			activeServers = new LinkedHashMap<String, Integer>();
+			for (int i = 0; i < servers.length; i++) {
+				activeServers.put(servers[i], weights[i]);
+			}
 		} catch (IOException e) {
 			logger.error("=================== 初始化 memcached 失败 ===============", e.getCause());
 			e.printStackTrace();
-		} finally {
 			try {
 				if (memcachedClient != null && !memcachedClient.isShutdown()) {
 					memcachedClient.shutdown();
 					memcachedClient = null;
 				}
-			} catch (IOException e) {
-				e.printStackTrace();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	private void startHealthChecker() {
+		int monitorSeconds = MapUtils.getIntValue(serverConfig, "monitorSeconds");
+		if (monitorSeconds <= 0) {
+			return;
+		}
+		healthChecker = new MemcachedHealthChecker(new ArrayList<String>(configuredServers.keySet()), servers == null ? new ArrayList<String>() : Arrays.asList(servers),
+				MapUtils.getIntValue(serverConfig, "probeTimeoutMillis"), monitorSeconds, new MemcachedHealthChecker.Listener() {
+					@Override
+					public void onChange(List<String> alive, List<String> added, List<String> removed) {
+						applyServers(alive);
+					}
+				});
+	}
+
+	/**
+	 * @功能: 在运行中的客户端上增删服务器和修改权重, 不重建客户端, 请求不中断
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午11:25:30
+	 * @param alive 当前可用的服务器, 为空时保留最后已知的服务器
+	 */
+	private synchronized void applyServers(List<String> alive) {
+		MemcachedClient client = memcachedClient;
+		if (alive.isEmpty() && client != null && !client.isShutdown()) {
+			logger.error("No memcached server is available, keeping " + activeServers.keySet());
+			return;
+		}
+		this.setServers(alive);
+		// 之前没有可用的服务器, 客户端尚未创建
+		if (client == null || client.isShutdown()) {
+			this.initMemcached();
+			return;
+		}
+		Map<String, Integer> current = activeServers;
+		Map<String, Integer> applied = new LinkedHashMap<String, Integer>();
+		for (String server : current.keySet()) {
+			if (!alive.contains(server)) {
+				logger.info("Removing memcached server " + server);
+				client.removeServer(server);
 			}
 		}
+		for (String server : alive) {
+			Integer currentWeight = current.get(server);
+			// 全部不可用时保留的服务器可能已经不在配置中
+			Integer weight = configuredServers.containsKey(server) ? configuredServers.get(server) : currentWeight;
+			if (currentWeight == null) {
+				logger.info("Adding memcached server " + server);
+				int seg = server.lastIndexOf(":");
+				try {
+					client.addServer(server.substring(0, seg), Integer.parseInt(server.substring(seg + 1)), weight);
+				} catch (IOException e) {
+					logger.error("Failed to add memcached server " + server, e);
+					continue;
+				}
+			} else if (!currentWeight.equals(weight) && client instanceof XMemcachedClient) {
+				logger.info("Changing weight of memcached server " + server + " from " + currentWeight + " to " + weight);
+				((XMemcachedClient) client).setServerWeight(server, weight);
+			} else {
+				weight = currentWeight;
+			}
+			applied.put(server, weight);
+		}
+		activeServers = applied;
 	}
 
 	/**
-	 * @功能: 重新加载memcached客户端
+	 * @功能: 重新加载配置, 在运行中的客户端上增删服务器, 不重建客户端
 	 * @作者: yangc
 	 * @创建日期: 2016年4月27日 下午5:11:58
 	 * @return
 	 */
 	public synchronized boolean reloadMemcached() {
-		try {
-			if (memcachedClient != null && !memcachedClient.isShutdown()) {
-				memcachedClient.shutdown();
-				memcachedClient = null;
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-			return false;
+		if (healthChecker != null) {
+			healthChecker.shutdown();
+			healthChecker = null;
 		}
 		logger.info("=================== 初始化配置文件 ===================");
 		initConfig();
 		logger.info("=================== 初始化 memcached ===============");
-		initMemcached();
-		return !memcachedClient.isShutdown();
+		applyServers(servers == null ? new ArrayList<String>() : Arrays.asList(servers));
+		startHealthChecker();
+		return !this.isShutdown();
 	}
 
 	/**
@@ -142,7 +260,8 @@ public class XMemcachedUtils {
 	 * @return
 	 */
 	public boolean isShutdown() {
-		return this.getMemcachedClient().isShutdown();
+		MemcachedClient client = this.getMemcachedClient();
+		return client == null || client.isShutdown();
 	}
 
 	/**
@@ -155,13 +274,20 @@ public class XMemcachedUtils {
 	 */
 	public boolean add(String key, Object value) {
 		if (!this.isShutdown()) {
+			long start = CacheMetrics.start();
 			try {
-				return this.getMemcachedClient().add(key, 0, value);
+				this.invalidateHotKey(key);
+				boolean result = this.getMemcachedClient().add(key, 0, value);
+				metrics.success("add", start);
+				return result;
 			} catch (TimeoutException e) {
+				metrics.error("add", start);
 				e.printStackTrace();
 			} catch (InterruptedException e) {
+				metrics.error("add", start);
 				e.printStackTrace();
 			} catch (MemcachedException e) {
+				metrics.error("add", start);
 				e.printStackTrace();
 			}
 		}
@@ -179,13 +305,20 @@ public class XMemcachedUtils {
 	 */
 	public boolean add(String key, Object value, int exp) {
 		if (!this.isShutdown()) {
+			long start = CacheMetrics.start();
 			try {
-				return this.getMemcachedClient().add(key, exp, value);
+				this.invalidateHotKey(key);
+				boolean result = this.getMemcachedClient().add(key, exp, value);
+				metrics.success("add", start);
+				return result;
 			} catch (TimeoutException e) {
+				metrics.error("add", start);
 				e.printStackTrace();
 			} catch (InterruptedException e) {
+				metrics.error("add", start);
 				e.printStackTrace();
 			} catch (MemcachedException e) {
+				metrics.error("add", start);
 				e.printStackTrace();
 			}
 		}
@@ -202,13 +335,20 @@ public class XMemcachedUtils {
 	 */
 	public boolean set(String key, Object value) {
 		if (!this.isShutdown()) {
+			long start = CacheMetrics.start();
 			try {
-				return this.getMemcachedClient().set(key, 0, value);
+				this.invalidateHotKey(key);
+				boolean result = this.getMemcachedClient().set(key, 0, value);
+				metrics.success("set", start);
+				return result;
 			} catch (TimeoutException e) {
+				metrics.error("set", start);
 				e.printStackTrace();
 			} catch (InterruptedException e) {
+				metrics.error("set", start);
 				e.printStackTrace();
 			} catch (MemcachedException e) {
+				metrics.error("set", start);
 				e.printStackTrace();
 			}
 		}
@@ -226,13 +366,20 @@ public class XMemcachedUtils {
 	 */
 	public boolean set(String key, Object value, int exp) {
 		if (!this.isShutdown()) {
+			long start = CacheMetrics.start();
 			try {
-				return this.getMemcachedClient().set(key, exp, value);
+				this.invalidateHotKey(key);
+				boolean result = this.getMemcachedClient().set(key, exp, value);
+				metrics.success("set", start);
+				return result;
 			} catch (TimeoutException e) {
+				metrics.error("set", start);
 				e.printStackTrace();
 			} catch (InterruptedException e) {
+				metrics.error("set", start);
 				e.printStackTrace();
 			} catch (MemcachedException e) {
+				metrics.error("set", start);
 				e.printStackTrace();
 			}
 		}
@@ -249,13 +396,20 @@ public class XMemcachedUtils {
 	 */
 	public boolean replace(String key, Object value) {
 		if (!this.isShutdown()) {
+			long start = CacheMetrics.start();
 			try {
-				return this.getMemcachedClient().replace(key, 0, value);
+				this.invalidateHotKey(key);
+				boolean result = this.getMemcachedClient().replace(key, 0, value);
+				metrics.success("replace", start);
+				return result;
 			} catch (TimeoutException e) {
+				metrics.error("replace", start);
 				e.printStackTrace();
 			} catch (InterruptedException e) {
+				metrics.error("replace", start);
 				e.printStackTrace();
 			} catch (MemcachedException e) {
+				metrics.error("replace", start);
 				e.printStackTrace();
 			}
 		}
@@ -273,13 +427,20 @@ public class XMemcachedUtils {
 	 */
 	public boolean replace(String key, Object value, int exp) {
 		if (!this.isShutdown()) {
+			long start = CacheMetrics.start();
 			try {
-				return this.getMemcachedClient().replace(key, exp, value);
+				this.invalidateHotKey(key);
+				boolean result = this.getMemcachedClient().replace(key, exp, value);
+				metrics.success("replace", start);
+				return result;
 			} catch (TimeoutException e) {
+				metrics.error("replace", start);
 				e.printStackTrace();
 			} catch (InterruptedException e) {
+				metrics.error("replace", start);
 				e.printStackTrace();
 			} catch (MemcachedException e) {
+				metrics.error("replace", start);
 				e.printStackTrace();
 			}
 		}
@@ -287,27 +448,121 @@ public class XMemcachedUtils {
 	}
 
 	/**
-	 * @功能: 返回单条记录
+	 * @功能: 返回单条记录, 热点key优先读取本地缓存和副本
 	 * @作者: yangc
 	 * @创建日期: 2014年3月29日 下午11:05:06
 	 * @param key
-	 * @return
+	 * @return 热点key的本地缓存对象会被多个调用方共享, 不要修改
 	 */
 	public <T> T get(String key) {
 		if (!this.isShutdown()) {
+			long start = CacheMetrics.start();
 			try {
-				return this.getMemcachedClient().get(key);
+				T value;
+				if (hotKeys != null && hotKeys.record(key)) {
+					value = this.getHot(key);
+				} else {
+					value = this.getMemcachedClient().get(key);
+				}
+				if (value != null) {
+					metrics.hit("get", start);
+				} else {
+					metrics.miss("get", start);
+				}
+				return value;
 			} catch (TimeoutException e) {
+				metrics.error("get", start);
 				e.printStackTrace();
 			} catch (InterruptedException e) {
+				metrics.error("get", start);
 				e.printStackTrace();
 			} catch (MemcachedException e) {
+				metrics.error("get", start);
 				e.printStackTrace();
 			}
 		}
 		return null;
 	}
 
+	@SuppressWarnings("unchecked")
+	private <T> T getHot(String key) throws TimeoutException, InterruptedException, MemcachedException {
+		T value = (T) hotKeys.getLocal(key);
+		if (value != null) {
+			return value;
+		}
+		String replicaKey = hotKeys.getReplicaKey(key);
+		if (replicaKey != null) {
+			value = this.getMemcachedClient().get(replicaKey);
+			if (value != null) {
+				hotKeys.putLocal(key, value);
+				return value;
+			}
+		}
+		value = this.getMemcachedClient().get(key);
+		if (value != null) {
+			hotKeys.putLocal(key, value);
+			// 副本的值可能比原key旧, 存活时间要短, 存活时间内只写入一次
+			int exp = MapUtils.getIntValue(serverConfig, "hotKey.replicaTtlSeconds");
+			if (hotKeys.tryReplicate(key, exp)) {
+				for (String k : hotKeys.getReplicaKeys(key)) {
+					this.getMemcachedClient().setWithNoReply(k, exp, value);
+				}
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @功能: 删除热点key的本地缓存和副本(包括已经冷却但副本还未过期的key), 写入前调用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:50:30
+	 * @param key
+	 */
+	private void invalidateHotKey(String key) throws InterruptedException, MemcachedException {
+		if (hotKeys == null) {
+			return;
+		}
+		if (hotKeys.hasReplicas(key)) {
+			for (String replicaKey : hotKeys.getReplicaKeys(key)) {
+				this.getMemcachedClient().deleteWithNoReply(replicaKey);
+			}
+		}
+		hotKeys.invalidateReplicas(key);
+	}
+
+	/**
+	 * @功能: 获取统计信息
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:40:20
+	 * @return
+	 */
+	public CacheMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @功能: 获取热点key探测, 未启用时返回null
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:51:10
+	 * @return
+	 */
+	public HotKeyDetector getHotKeyDetector() {
+		return hotKeys;
+	}
+
+	/**
+	 * @功能: 当前的热点key, 按访问次数从高到低, 未启用时返回空列表
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午1:51:40
+	 * @return
+	 */
+	public List<HotKeyDetector.HotKey> getHotKeys() {
+		if (hotKeys == null) {
+			return new ArrayList<HotKeyDetector.HotKey>();
+		}
+		return hotKeys.getHotKeys();
+	}
+
 	/**
 	 * @功能: 返回多条记录
 	 * @作者: yangc
@@ -339,13 +594,20 @@ public class XMemcachedUtils {
 	 */
 	public boolean delete(String key) {
 		if (!this.isShutdown()) {
+			long start = CacheMetrics.start();
 			try {
-				return this.getMemcachedClient().delete(key);
+				this.invalidateHotKey(key);
+				boolean result = this.getMemcachedClient().delete(key);
+				metrics.success("delete", start);
+				return result;
 			} catch (TimeoutException e) {
+				metrics.error("delete", start);
 				e.printStackTrace();
 			} catch (InterruptedException e) {
+				metrics.error("delete", start);
 				e.printStackTrace();
 			} catch (MemcachedException e) {
+				metrics.error("delete", start);
 				e.printStackTrace();
 			}
 		}
@@ -374,4 +636,310 @@ public class XMemcachedUtils {
 		return false;
 	}
 
+	/**
+	 * @功能: 批量插入或更新记录, 每批的命令连续发送(pipeline)后再等待响应
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:30:12
+	 * @param map
+	 * @param exp 失效时间(单位秒)
+	 * @return 每个key的执行结果
+	 */
+	public Map<String, Boolean> setMulti(final Map<String, ?> map, final int exp) {
+		if (!this.isShutdown()) {
+			try {
+				return MemcachedBatches.pipeline(new ArrayList<String>(map.keySet()), MapUtils.getIntValue(serverConfig, "batchSize"), new MemcachedBatches.AsyncOperation() {
+					@Override
+					public Future<Boolean> send(String key) throws Exception {
+						invalidateHotKey(key);
+						return XMemcachedCommands.set(getMemcachedClient(), key, exp, map.get(key));
+					}
+				});
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 批量插入新记录, 每批的命令连续发送(pipeline)后再等待响应
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:31:05
+	 * @param map
+	 * @param exp 失效时间(单位秒)
+	 * @return 每个key的执行结果, key已存在时为false
+	 */
+	public Map<String, Boolean> addMulti(final Map<String, ?> map, final int exp) {
+		if (!this.isShutdown()) {
+			try {
+				return MemcachedBatches.pipeline(new ArrayList<String>(map.keySet()), MapUtils.getIntValue(serverConfig, "batchSize"), new MemcachedBatches.AsyncOperation() {
+					@Override
+					public Future<Boolean> send(String key) throws Exception {
+						invalidateHotKey(key);
+						return XMemcachedCommands.add(getMemcachedClient(), key, exp, map.get(key));
+					}
+				});
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 批量删除记录, 每批的命令连续发送(pipeline)后再等待响应
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:31:40
+	 * @param keys
+	 * @return 每个key的执行结果, key不存在时为false
+	 */
+	public Map<String, Boolean> deleteMulti(List<String> keys) {
+		if (!this.isShutdown()) {
+			try {
+				return MemcachedBatches.pipeline(keys, MapUtils.getIntValue(serverConfig, "batchSize"), new MemcachedBatches.AsyncOperation() {
+					@Override
+					public Future<Boolean> send(String key) throws Exception {
+						invalidateHotKey(key);
+						return XMemcachedCommands.delete(getMemcachedClient(), key);
+					}
+				});
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 批量插入或更新记录, 不等待服务器的响应(noreply), 适用于预热等大量写入
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:32:30
+	 * @param map
+	 * @param exp 失效时间(单位秒)
+	 * @return 单条记录的失败不会被发现, 只有连接出错时返回false
+	 */
+	public boolean setMultiWithNoReply(final Map<String, ?> map, final int exp) {
+		return this.executeWithNoReply(map.keySet(), new MemcachedBatches.Operation() {
+			@Override
+			public boolean execute(String key) throws Exception {
+				invalidateHotKey(key);
+				getMemcachedClient().setWithNoReply(key, exp, map.get(key));
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * @功能: 批量插入新记录, 不等待服务器的响应(noreply)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:33:05
+	 * @param map
+	 * @param exp 失效时间(单位秒)
+	 * @return 单条记录的失败不会被发现, 只有连接出错时返回false
+	 */
+	public boolean addMultiWithNoReply(final Map<String, ?> map, final int exp) {
+		return this.executeWithNoReply(map.keySet(), new MemcachedBatches.Operation() {
+			@Override
+			public boolean execute(String key) throws Exception {
+				invalidateHotKey(key);
+				getMemcachedClient().addWithNoReply(key, exp, map.get(key));
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * @功能: 批量删除记录, 不等待服务器的响应(noreply)
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:33:40
+	 * @param keys
+	 * @return 只有连接出错时返回false
+	 */
+	public boolean deleteMultiWithNoReply(List<String> keys) {
+		return this.executeWithNoReply(keys, new MemcachedBatches.Operation() {
+			@Override
+			public boolean execute(String key) throws Exception {
+				invalidateHotKey(key);
+				getMemcachedClient().deleteWithNoReply(key);
+				return true;
+			}
+		});
+	}
+
+	private boolean executeWithNoReply(Collection<String> keys, MemcachedBatches.Operation operation) {
+		if (!this.isShutdown()) {
+			try {
+				int batchSize = MapUtils.getIntValue(serverConfig, "batchSize");
+				int count = 0;
+				for (String key : keys) {
+					operation.execute(key);
+					// 每个连接上的命令按顺序处理, version返回时之前的noreply命令已被处理, 同时限制未处理的命令数
+					if (++count % batchSize == 0) {
+						this.getMemcachedClient().getVersions();
+					}
+				}
+				if (count % batchSize != 0) {
+					this.getMemcachedClient().getVersions();
+				}
+				return true;
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @功能: 异步插入或更新记录, 发送命令后立即返回, 不占用线程
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:35:10
+	 * @param key
+	 * @param value
+	 * @param exp 失效时间(单位秒)
+	 * @return
+	 */
+	public Future<Boolean> setAsync(String key, Object value, int exp) {
+		if (this.isShutdown()) {
+			return MemcachedBatches.failed(new MemcachedException("Xmemcached is stopped"));
+		}
+		try {
+			this.invalidateHotKey(key);
+		} catch (Exception e) {
+			return MemcachedBatches.failed(e);
+		}
+		return XMemcachedCommands.set(this.getMemcachedClient(), key, exp, value);
+	}
+
+	/**
+	 * @功能: 异步插入新记录, 发送命令后立即返回, 不占用线程
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:35:45
+	 * @param key
+	 * @param value
+	 * @param exp 失效时间(单位秒)
+	 * @return
+	 */
+	public Future<Boolean> addAsync(String key, Object value, int exp) {
+		if (this.isShutdown()) {
+			return MemcachedBatches.failed(new MemcachedException("Xmemcached is stopped"));
+		}
+		try {
+			this.invalidateHotKey(key);
+		} catch (Exception e) {
+			return MemcachedBatches.failed(e);
+		}
+		return XMemcachedCommands.add(this.getMemcachedClient(), key, exp, value);
+	}
+
+	/**
+	 * @功能: 异步返回单条记录, 发送命令后立即返回, 不占用线程, 不使用热点key的本地缓存和副本
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:36:20
+	 * @param key
+	 * @return
+	 */
+	public <T> Future<T> getAsync(String key) {
+		if (this.isShutdown()) {
+			return MemcachedBatches.failed(new MemcachedException("Xmemcached is stopped"));
+		}
+		return XMemcachedCommands.get(this.getMemcachedClient(), key);
+	}
+
+	/**
+	 * @功能: 异步删除记录, 发送命令后立即返回, 不占用线程
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:36:50
+	 * @param key
+	 * @return
+	 */
+	public Future<Boolean> deleteAsync(String key) {
+		if (this.isShutdown()) {
+			return MemcachedBatches.failed(new MemcachedException("Xmemcached is stopped"));
+		}
+		try {
+			this.invalidateHotKey(key);
+		} catch (Exception e) {
+			return MemcachedBatches.failed(e);
+		}
+		return XMemcachedCommands.delete(this.getMemcachedClient(), key);
+	}
+
+	/**
+	 * @功能: 获取写缓冲, 窗口内同一个key的多次写入只写入最后一次, 以noreply方式批量写入
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 上午10:37:30
+	 * @return
+	 */
+	public synchronized MemcachedWriteBehind getWriteBehind() {
+		if (writeBehind == null) {
+			writeBehind = new MemcachedWriteBehind(new MemcachedWriteBehind.Writer() {
+				@Override
+				public boolean setMulti(Map<String, Object> values, int exp) {
+					// 使用等待响应的pipeline, 失败的批次才能被发现并重试
+					Map<String, Boolean> results = XMemcachedUtils.this.setMulti(values, exp);
+					return results != null && MemcachedBatches.allTrue(results);
+				}
+
+				@Override
+				public boolean deleteMulti(List<String> keys) {
+					// 删除不存在的key返回false, 只关心是否执行
+					return XMemcachedUtils.this.deleteMulti(keys) != null;
+				}
+			}, MapUtils.getIntValue(serverConfig, "batchSize"), MapUtils.getLongValue(serverConfig, "writeBehindMillis"), MapUtils.getIntValue(serverConfig, "writeBehindRetries"));
+		}
+		return writeBehind;
+	}
+
+	/**
+	 * @功能: 统计序列化后数据大小的transcoder, 编码计入set, 解码计入get
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午3:41:10
+	 */
+	private static class MeasuringTranscoder implements Transcoder<Object> {
+		private final SerializingTranscoder delegate = new SerializingTranscoder();
+
+		@Override
+		public CachedData encode(Object o) {
+			CachedData data = this.delegate.encode(o);
+			metrics.size("set", data.getData().length);
+			return data;
+		}
+
+		@Override
+		public Object decode(CachedData d) {
+			metrics.size("get", d.getData().length);
+			return this.delegate.decode(d);
+		}
+
+		@Override
+		public void setPrimitiveAsString(boolean primitiveAsString) {
+			this.delegate.setPrimitiveAsString(primitiveAsString);
+		}
+
+		@Override
+		public void setPackZeros(boolean packZeros) {
+			this.delegate.setPackZeros(packZeros);
+		}
+
+		@Override
+		public void setCompressionThreshold(int threshold) {
+			this.delegate.setCompressionThreshold(threshold);
+		}
+
+		@Override
+		public boolean isPrimitiveAsString() {
+			return this.delegate.isPrimitiveAsString();
+		}
+
+		@Override
+		public boolean isPackZeros() {
+			return this.delegate.isPackZeros();
+		}
+
+		@Override
+		public void setCompressionMode(CompressionMode compressMode) {
+			this.delegate.setCompressionMode(compressMode);
+		}
+	}
+
 }
@@ -0,0 +1,486 @@
+package com.yangc.utils.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.collections4.MapUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: 分块并行批量导入
+ *
+ *      <pre>
+ * 数据按chunkSize分块, 每块在一个事务中写入并提交, 仍然失败的块记录在结果中, 不影响其他块
+ * 失败的块回滚后只对临时性错误(SQLTransientException, SQLRecoverableException, SQLState 08连接错误, 40死锁或事务回滚)重试maxRetries次
+ * 约束冲突(SQLState 23)等数据错误重试结果相同, 不重试
+ * threads个线程从连接池借出连接并行写入, 待写入的块最多threads个, 读取数据的速度不会超过写入的速度
+ * 块内每batchSize行执行一次:
+ *   mysql: 把INSERT ... VALUES (?, ?)改写为一条多行INSERT ... VALUES (?, ?), (?, ?), ..., 与驱动的rewriteBatchedStatements相同
+ *   其他数据库: addBatch/executeBatch, oracle驱动以数组绑定的方式一次发送整批参数
+ * 不是简单INSERT ... VALUES (...)的sql(VALUES之后不止一个括号, 如带ON DUPLICATE KEY UPDATE)总是使用executeBatch
+ * 每行值的个数必须等于sql中参数的个数(字符串常量中的?不计入)
+ * 连接池的maxSize应不小于threads
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午6:10:20
+ */
+public class JdbcBulkLoader {
+
+	private static final Logger logger = LogManager.getLogger(JdbcBulkLoader.class);
+
+	// VALUES之后的部分由parseTuple检查是否只有一个括号
+	private static final Pattern INSERT_VALUES = Pattern.compile("^\\s*(INSERT\\s+(?:IGNORE\\s+)?INTO\\s+.+?\\s+VALUES)\\s*(\\(.*)$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	// mysql一条语句最多的参数个数
+	private static final int MYSQL_MAX_PARAMETERS = 65535;
+
+	private static final AtomicInteger LOADER_COUNT = new AtomicInteger();
+
+	private final JdbcPool pool;
+	private final String sql;
+	private final int chunkSize;
+	private final int batchSize;
+	private final int threads;
+	private final int maxRetries;
+	private final long retryIntervalMillis;
+
+	// sql中参数的个数, 每行值的个数必须与之相同
+	private final int parameterCount;
+
+	// 多行INSERT的前缀和每行的值, sql不能改写时为null
+	private final String valuesPrefix;
+	private final String valuesTuple;
+	private final int columnCount;
+	private final int rowsPerStatement;
+	private final String multiRowSql;
+
+	// 是否为mysql, 第一次写入时判断
+	private volatile Boolean mysql;
+
+	/**
+	 * 导入结果
+	 */
+	public static class Result {
+		private final AtomicLong totalRows = new AtomicLong();
+		private final AtomicLong loadedRows = new AtomicLong();
+		private final List<ChunkFailure> failures = Collections.synchronizedList(new ArrayList<ChunkFailure>());
+		private long elapsedMillis;
+
+		public long getTotalRows() {
+			return totalRows.get();
+		}
+
+		public long getLoadedRows() {
+			return loadedRows.get();
+		}
+
+		public long getFailedRows() {
+			long failedRows = 0;
+			synchronized (failures) {
+				for (ChunkFailure failure : failures) {
+					failedRows += failure.rows.size();
+				}
+			}
+			return failedRows;
+		}
+
+		/**
+		 * @return 重试后仍然失败的块, 按完成顺序
+		 */
+		public List<ChunkFailure> getFailures() {
+			synchronized (failures) {
+				return new ArrayList<ChunkFailure>(failures);
+			}
+		}
+
+		public boolean isSuccess() {
+			return failures.isEmpty();
+		}
+
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+		@Override
+		public String toString() {
+			return "Result [totalRows=" + getTotalRows() + ", loadedRows=" + getLoadedRows() + ", failedChunks=" + failures.size() + ", elapsedMillis=" + elapsedMillis + "]";
+		}
+	}
+
+	/**
+	 * 失败的块, 保留原始数据, 可以修正后重新导入
+	 */
+	public static class ChunkFailure {
+		private final int index;
+		private final long offset;
+		private final List<Object[]> rows;
+		private final int attempts;
+		private final Exception cause;
+
+		ChunkFailure(int index, long offset, List<Object[]> rows, int attempts, Exception cause) {
+			this.index = index;
+			this.offset = offset;
+			this.rows = rows;
+			this.attempts = attempts;
+			this.cause = cause;
+		}
+
+		/**
+		 * @return 块的序号, 从0开始
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return 块的第一行在全部数据中的位置, 从0开始
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		public List<Object[]> getRows() {
+			return rows;
+		}
+
+		public int getAttempts() {
+			return attempts;
+		}
+
+		public Exception getCause() {
+			return cause;
+		}
+
+		@Override
+		public String toString() {
+			return "ChunkFailure [index=" + index + ", offset=" + offset + ", rows=" + rows.size() + ", attempts=" + attempts + ", cause=" + cause + "]";
+		}
+	}
+
+	/**
+	 * @param pool 写入使用的连接池, 可以通过JdbcUtils.getPool获取
+	 * @param sql insert语句, 参数为?
+	 * @param config chunkSize(每次提交的行数, 默认10000), batchSize(每次发送的行数, 默认1000), threads(默认4), maxRetries(默认3), retryIntervalMillis(默认1000, 第N次重试等待N倍)
+	 */
+	public JdbcBulkLoader(JdbcPool pool, String sql, Map<String, String> config) {
+		if (pool == null || sql == null) {
+			throw new IllegalArgumentException("The parameters must not be null");
+		}
+		this.pool = pool;
+		this.sql = sql;
+		this.chunkSize = Math.max(1, MapUtils.getIntValue(config, "chunkSize", 10000));
+		this.batchSize = Math.max(1, Math.min(this.chunkSize, MapUtils.getIntValue(config, "batchSize", 1000)));
+		this.threads = Math.max(1, MapUtils.getIntValue(config, "threads", 4));
+		this.maxRetries = Math.max(0, MapUtils.getIntValue(config, "maxRetries", 3));
+		this.retryIntervalMillis = MapUtils.getLongValue(config, "retryIntervalMillis", 1000);
+
+		this.parameterCount = countParameters(sql);
+		Matcher matcher = INSERT_VALUES.matcher(sql);
+		String tuple = matcher.matches() ? parseTuple(matcher.group(2)) : null;
+		if (tuple != null) {
+			this.valuesPrefix = matcher.group(1);
+			this.valuesTuple = tuple;
+			this.columnCount = countParameters(tuple);
+		} else {
+			this.valuesPrefix = null;
+			this.valuesTuple = null;
+			this.columnCount = 0;
+		}
+		if (this.columnCount > 0) {
+			this.rowsPerStatement = Math.max(1, Math.min(this.batchSize, MYSQL_MAX_PARAMETERS / this.columnCount));
+			this.multiRowSql = this.buildMultiRowSql(this.rowsPerStatement);
+		} else {
+			this.rowsPerStatement = 0;
+			this.multiRowSql = null;
+		}
+	}
+
+	/**
+	 * @功能: 导入数据, 全部块写入或失败后返回
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午6:12:30
+	 * @param rows 按需读取, 不需要全部在内存中
+	 * @return
+	 */
+	public Result load(Iterator<Object[]> rows) {
+		final Result result = new Result();
+		long start = System.currentTimeMillis();
+
+		final int loaderId = LOADER_COUNT.incrementAndGet();
+		// 队列满时由调用线程写入, 限制读取的速度
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(this.threads),
+				new ThreadFactory() {
+					private final AtomicInteger threadCount = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "jdbc-bulk-loader-" + loaderId + "-" + threadCount.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		try {
+			int index = 0;
+			long offset = 0;
+			while (rows.hasNext()) {
+				List<Object[]> chunk = new ArrayList<Object[]>(this.chunkSize);
+				while (chunk.size() < this.chunkSize && rows.hasNext()) {
+					chunk.add(rows.next());
+				}
+				final int chunkIndex = index++;
+				final long chunkOffset = offset;
+				final List<Object[]> chunkRows = chunk;
+				offset += chunk.size();
+				result.totalRows.addAndGet(chunk.size());
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						writeChunk(chunkIndex, chunkOffset, chunkRows, result);
+					}
+				});
+			}
+		} finally {
+			executor.shutdown();
+			try {
+				while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+				}
+			} catch (InterruptedException e) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		result.elapsedMillis = System.currentTimeMillis() - start;
+		logger.info("Bulk load finished: " + result);
+		return result;
+	}
+
+	public Result load(List<Object[]> rows) {
+		return this.load(rows.iterator());
+	}
+
+	private void writeChunk(int index, long offset, List<Object[]> rows, Result result) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				this.writeOnce(rows);
+				result.loadedRows.addAndGet(rows.size());
+				return;
+			} catch (SQLException e) {
+				if (attempt > this.maxRetries || !isRetryable(e)) {
+					logger.error("Bulk load chunk " + index + " (offset " + offset + ", " + rows.size() + " rows) failed after " + attempt + " attempts", e);
+					result.failures.add(new ChunkFailure(index, offset, rows, attempt, e));
+					return;
+				}
+				logger.warn("Bulk load chunk " + index + " failed, retrying (" + attempt + "/" + this.maxRetries + "): " + e.getMessage());
+				try {
+					Thread.sleep(this.retryIntervalMillis * attempt);
+				} catch (InterruptedException e1) {
+					Thread.currentThread().interrupt();
+					result.failures.add(new ChunkFailure(index, offset, rows, attempt, e));
+					return;
+				}
+			} catch (RuntimeException e) {
+				// 数据错误, 重试没有意义
+				logger.error("Bulk load chunk " + index + " (offset " + offset + ", " + rows.size() + " rows) failed", e);
+				result.failures.add(new ChunkFailure(index, offset, rows, attempt, e));
+				return;
+			}
+		}
+	}
+
+	private void writeOnce(List<Object[]> rows) throws SQLException {
+		Connection conn = this.pool.getConnection();
+		try {
+			if (this.mysql == null) {
+				this.mysql = "MySQL".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName());
+			}
+			conn.setAutoCommit(false);
+			try {
+				if (this.mysql && this.columnCount > 0) {
+					this.writeMultiRow(conn, rows);
+				} else {
+					this.writeBatch(conn, rows);
+				}
+				conn.commit();
+			} catch (SQLException e) {
+				try {
+					conn.rollback();
+				} catch (SQLException e1) {
+					e1.printStackTrace();
+				}
+				throw e;
+			}
+		} finally {
+			conn.close();
+		}
+	}
+
+	private void writeBatch(Connection conn, List<Object[]> rows) throws SQLException {
+		PreparedStatement pst = conn.prepareStatement(this.sql);
+		try {
+			int count = 0;
+			for (Object[] obj : rows) {
+				if (obj.length != this.parameterCount) {
+					throw new IllegalArgumentException("Row " + count + " of the chunk has " + obj.length + " values, expected " + this.parameterCount);
+				}
+				for (int i = 0; i < obj.length; i++) {
+					pst.setObject(i + 1, obj[i]);
+				}
+				pst.addBatch();
+				if (++count % this.batchSize == 0) {
+					pst.executeBatch();
+				}
+			}
+			if (count % this.batchSize != 0) {
+				pst.executeBatch();
+			}
+		} finally {
+			pst.close();
+		}
+	}
+
+	private void writeMultiRow(Connection conn, List<Object[]> rows) throws SQLException {
+		for (int from = 0; from < rows.size(); from += this.rowsPerStatement) {
+			int to = Math.min(from + this.rowsPerStatement, rows.size());
+			String s = to - from == this.rowsPerStatement ? this.multiRowSql : this.buildMultiRowSql(to - from);
+			PreparedStatement pst = conn.prepareStatement(s);
+			try {
+				int index = 1;
+				for (int r = from; r < to; r++) {
+					Object[] obj = rows.get(r);
+					if (obj.length != this.columnCount) {
+						throw new IllegalArgumentException("Row " + r + " of the chunk has " + obj.length + " values, expected " + this.columnCount);
+					}
+					for (int i = 0; i < obj.length; i++) {
+						pst.setObject(index++, obj[i]);
+					}
+				}
+				pst.executeUpdate();
+			} finally {
+				pst.close();
+			}
+		}
+	}
+
+	/**
+	 * @功能: 是否为重试可能成功的临时性错误
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午5:40:10
+	 * @param e
+	 * @return
+	 */
+	static boolean isRetryable(SQLException e) {
+		// 批量执行的错误可能在getNextException或cause中
+		for (SQLException next = e; next != null; next = next.getNextException()) {
+			for (Throwable t = next; t != null && t != t.getCause(); t = t.getCause()) {
+				if (t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+					return true;
+				}
+				if (t instanceof SQLException) {
+					String sqlState = ((SQLException) t).getSQLState();
+					if (sqlState != null && (sqlState.startsWith("08") || sqlState.startsWith("40"))) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return sql中?参数的个数, 不包括字符串常量, 带引号的标识符和注释中的?
+	 */
+	static int countParameters(String sql) {
+		int count = 0;
+		for (int i = 0, len = sql.length(); i < len; i++) {
+			char c = sql.charAt(i);
+			if (c == '?') {
+				count++;
+			} else {
+				i = skipQuoted(sql, i);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return VALUES之后只有一个括号(可以跟分号)时返回这个括号, 否则返回null
+	 */
+	static String parseTuple(String s) {
+		int depth = 0;
+		for (int i = 0, len = s.length(); i < len; i++) {
+			char c = s.charAt(i);
+			if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				if (--depth == 0) {
+					String rest = s.substring(i + 1).trim();
+					return rest.isEmpty() || rest.equals(";") ? s.substring(0, i + 1) : null;
+				}
+			} else {
+				i = skipQuoted(s, i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return 位置i是字符串常量, 带引号的标识符或注释的开始时, 返回其结束的位置, 否则返回i
+	 */
+	private static int skipQuoted(String sql, int i) {
+		char c = sql.charAt(i);
+		int len = sql.length();
+		if (c == '\'' || c == '"' || c == '`') {
+			for (int j = i + 1; j < len; j++) {
+				char d = sql.charAt(j);
+				if (d == '\\' && c != '`') {
+					j++;
+				} else if (d == c) {
+					// 连续两个引号是转义
+					if (j + 1 < len && sql.charAt(j + 1) == c) {
+						j++;
+					} else {
+						return j;
+					}
+				}
+			}
+			return len;
+		}
+		if (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-') {
+			int end = sql.indexOf('\n', i);
+			return end < 0 ? len : end;
+		}
+		if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+			int end = sql.indexOf("*/", i + 2);
+			return end < 0 ? len : end + 1;
+		}
+		return i;
+	}
+
+	private String buildMultiRowSql(int rowCount) {
+		StringBuilder sb = new StringBuilder(this.valuesPrefix.length() + (this.valuesTuple.length() + 2) * rowCount);
+		sb.append(this.valuesPrefix).append(" ").append(this.valuesTuple);
+		for (int i = 1; i < rowCount; i++) {
+			sb.append(", ").append(this.valuesTuple);
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.yangc.utils.db;
+
+import java.io.Closeable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @功能: 只进只读的流式游标, 通过JdbcUtils.openCursor获取
+ *
+ *      <pre>
+ * 每次从数据库获取fetchSize行, 不在内存中保存全部结果
+ * next()返回的行是复用的同一个实例, 参见JdbcRow
+ * 遍历结束时自动关闭, 提前结束时必须调用close(), 关闭之前同一个连接不能执行其他语句(mysql流式读取的限制)
+ * 读取出错时抛出IllegalStateException, cause为SQLException
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午5:15:10
+ */
+public class JdbcCursor implements Iterator<JdbcRow>, Closeable {
+
+	private final PreparedStatement pst;
+	private final ResultSet rs;
+	private final JdbcRow row;
+
+	// 是否已经读取了下一行但还没有返回
+	private boolean fetched;
+	private boolean closed;
+	private long rowCount;
+
+	JdbcCursor(PreparedStatement pst, ResultSet rs) throws SQLException {
+		this.pst = pst;
+		this.rs = rs;
+		this.row = new JdbcRow(rs.getMetaData());
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (this.closed) {
+			return false;
+		}
+		if (!this.fetched) {
+			try {
+				if (this.rs.next()) {
+					this.row.read(this.rs);
+					this.fetched = true;
+				} else {
+					this.close();
+				}
+			} catch (SQLException e) {
+				this.close();
+				throw new IllegalStateException(e);
+			}
+		}
+		return this.fetched;
+	}
+
+	@Override
+	public JdbcRow next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		this.fetched = false;
+		this.rowCount++;
+		return this.row;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @return 已经返回的行数
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			this.rs.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		try {
+			this.pst.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
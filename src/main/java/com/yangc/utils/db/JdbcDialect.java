@@ -0,0 +1,286 @@
+package com.yangc.utils.db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * @功能: 分页sql的数据库方言, 按连接的DatabaseMetaData识别, 按url缓存(连接池的连接每次借出都是新的代理, 不能按连接缓存)
+ *
+ *      <pre>
+ * 偏移分页的offset和limit都作为参数绑定, 不同页的sql相同, 可以复用执行计划和PreparedStatement缓存
+ * 键集分页(seek)按唯一键排序, 每页从上一页最后一个键之后开始, 代价与页码无关
+ * 键集分页把sql包装为子查询, mysql 5.7以下的版本会物化子查询, 应升级或使用较小的结果集
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午6:40:10
+ */
+public enum JdbcDialect {
+
+	/** oracle 11g及以下, ROWNUM */
+	ORACLE {
+		@Override
+		String paginate(String sql) {
+			return "SELECT * FROM (SELECT TEMP_TABLE_.*, ROWNUM ROWNUM_ FROM (" + sql + ") TEMP_TABLE_ WHERE ROWNUM <= ?) WHERE ROWNUM_ > ?";
+		}
+
+		@Override
+		Object[] paginationParams(int firstResult, int maxResults) {
+			return new Object[] { firstResult + maxResults, firstResult };
+		}
+
+		@Override
+		String limit(String orderedSql) {
+			return "SELECT * FROM (" + orderedSql + ") WHERE ROWNUM <= ?";
+		}
+	},
+
+	/** oracle 12c及以上, OFFSET/FETCH */
+	ORACLE_12C {
+		@Override
+		String paginate(String sql) {
+			return sql + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+		}
+
+		@Override
+		String limit(String orderedSql) {
+			return orderedSql + " FETCH FIRST ? ROWS ONLY";
+		}
+	},
+
+	/** mysql, mariadb */
+	MYSQL {
+		@Override
+		String paginate(String sql) {
+			// 去掉末尾的分号和注释, 否则追加的LIMIT会在语句之外或被注释掉
+			sql = sql.substring(0, this.statementEnd(sql));
+			String top = this.topLevel(sql);
+			// 最外层已经有LIMIT或锁定读时, LIMIT不能追加在后面, 包装为子查询
+			if (LIMIT.matcher(top).find() || LOCKING_READ.matcher(top).find()) {
+				return "SELECT * FROM (" + sql + ") TEMP_TABLE_ LIMIT ?, ?";
+			}
+			return sql + " LIMIT ?, ?";
+		}
+
+		@Override
+		String limit(String orderedSql) {
+			return orderedSql + " LIMIT ?";
+		}
+
+		@Override
+		boolean backslashEscapes() {
+			return true;
+		}
+	},
+
+	/** sql server 2012及以上, OFFSET/FETCH必须有ORDER BY */
+	SQLSERVER {
+		@Override
+		String paginate(String sql) {
+			// 只看最外层的ORDER BY, 子查询和字符串中的不算
+			if (!ORDER_BY.matcher(this.topLevel(sql)).find()) {
+				sql += " ORDER BY (SELECT NULL)";
+			}
+			return sql + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+		}
+
+		@Override
+		String limit(String orderedSql) {
+			return orderedSql + " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+		}
+	},
+
+	/** 其他数据库, sql:2008标准的OFFSET/FETCH(postgresql, db2, h2等) */
+	ANSI {
+		@Override
+		String paginate(String sql) {
+			return sql + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+		}
+
+		@Override
+		String limit(String orderedSql) {
+			return orderedSql + " FETCH FIRST ? ROWS ONLY";
+		}
+	};
+
+	private static final Pattern LIMIT = Pattern.compile("\\bLIMIT\\b", Pattern.CASE_INSENSITIVE);
+	private static final Pattern LOCKING_READ = Pattern.compile("\\bFOR\\s+(UPDATE|SHARE)\\b|\\bLOCK\\s+IN\\s+SHARE\\s+MODE\\b", Pattern.CASE_INSENSITIVE);
+	private static final Pattern ORDER_BY = Pattern.compile("\\bORDER\\s+BY\\b", Pattern.CASE_INSENSITIVE);
+	private static final Pattern KEY_COLUMN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$#]*");
+
+	private static final ConcurrentHashMap<String, JdbcDialect> DIALECTS = new ConcurrentHashMap<String, JdbcDialect>();
+
+	/**
+	 * @return 偏移分页的sql, 参数见paginationParams
+	 */
+	abstract String paginate(String sql);
+
+	/**
+	 * @return 偏移分页追加的参数, 顺序与paginate生成的sql一致
+	 */
+	Object[] paginationParams(int firstResult, int maxResults) {
+		return new Object[] { firstResult, maxResults };
+	}
+
+	/**
+	 * @return 限制行数的sql, 追加一个参数(行数)
+	 */
+	abstract String limit(String orderedSql);
+
+	/**
+	 * @return 字符串常量中的反斜杠是否为转义符(mysql默认是, 标准sql中只有连续两个引号是转义)
+	 */
+	boolean backslashEscapes() {
+		return false;
+	}
+
+	/**
+	 * @功能: 键集分页的sql, 参数依次为原sql的参数, 上一页最后的键(lastKey不为null时), 每页的行数
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午6:42:30
+	 * @param sql 不带ORDER BY的查询, 结果中必须包含keyColumn
+	 * @param keyColumn 唯一且非空的列名
+	 * @param first 是否为第一页
+	 * @return
+	 */
+	String seek(String sql, String keyColumn, boolean first) {
+		if (keyColumn == null || !KEY_COLUMN.matcher(keyColumn).matches()) {
+			throw new IllegalArgumentException("Invalid key column " + keyColumn);
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append("SELECT * FROM (").append(sql).append(") TEMP_TABLE_");
+		if (!first) {
+			sb.append(" WHERE TEMP_TABLE_.").append(keyColumn).append(" > ?");
+		}
+		sb.append(" ORDER BY TEMP_TABLE_.").append(keyColumn);
+		return this.limit(sb.toString());
+	}
+
+	/**
+	 * @功能: 获取连接的方言, 同一个url只查询一次数据库的产品名称和版本
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午6:43:10
+	 * @param conn
+	 * @return
+	 * @throws SQLException
+	 */
+	public static JdbcDialect of(Connection conn) throws SQLException {
+		DatabaseMetaData dbmd = conn.getMetaData();
+		String url = dbmd.getURL();
+		JdbcDialect dialect = url == null ? null : DIALECTS.get(url);
+		if (dialect == null) {
+			String productName = dbmd.getDatabaseProductName();
+			int majorVersion = dbmd.getDatabaseMajorVersion();
+			if (productName == null) {
+				dialect = ANSI;
+			} else if (productName.startsWith("Oracle")) {
+				dialect = majorVersion >= 12 ? ORACLE_12C : ORACLE;
+			} else if (productName.equalsIgnoreCase("MySQL") || productName.equalsIgnoreCase("MariaDB")) {
+				dialect = MYSQL;
+			} else if (productName.startsWith("Microsoft SQL Server")) {
+				dialect = SQLSERVER;
+			} else {
+				dialect = ANSI;
+			}
+			if (url != null) {
+				DIALECTS.put(url, dialect);
+			}
+		}
+		return dialect;
+	}
+
+	/**
+	 * @return 把括号内(子查询, 函数参数)以及字符串和注释替换为空格, 只保留最外层的sql, 长度和位置与原sql相同
+	 */
+	String topLevel(String sql) {
+		boolean backslashEscapes = this.backslashEscapes();
+		StringBuilder sb = new StringBuilder(sql.length());
+		int depth = 0;
+		for (int i = 0, len = sql.length(); i < len; i++) {
+			char c = sql.charAt(i);
+			int end = skipQuoted(sql, i, backslashEscapes);
+			if (end != i) {
+				for (; i < end && i < len; i++) {
+					sb.append(' ');
+				}
+				if (i < len) {
+					sb.append(' ');
+				}
+				continue;
+			}
+			if (c == '(') {
+				depth++;
+			} else if (c == ')' && depth > 0) {
+				depth--;
+				sb.append(' ');
+				continue;
+			}
+			sb.append(depth == 0 ? c : ' ');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return 去掉末尾的空白, 注释和一个分号后sql的长度
+	 */
+	int statementEnd(String sql) {
+		boolean backslashEscapes = this.backslashEscapes();
+		int end = 0;
+		for (int i = 0, len = sql.length(); i < len; i++) {
+			char c = sql.charAt(i);
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			int quoted = skipQuoted(sql, i, backslashEscapes);
+			if (quoted == i) {
+				end = i + 1;
+			} else {
+				// 注释不计入, 字符串常量和标识符计入
+				if (c != '-' && c != '/') {
+					end = Math.min(quoted + 1, len);
+				}
+				i = quoted;
+			}
+		}
+		if (end > 0 && sql.charAt(end - 1) == ';') {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * @return 位置i是字符串常量, 带引号的标识符或注释的开始时, 返回其结束的位置, 否则返回i
+	 */
+	private static int skipQuoted(String sql, int i, boolean backslashEscapes) {
+		char c = sql.charAt(i);
+		int len = sql.length();
+		if (c == '\'' || c == '"' || c == '`') {
+			for (int j = i + 1; j < len; j++) {
+				char d = sql.charAt(j);
+				if (d == '\\' && backslashEscapes && c != '`') {
+					j++;
+				} else if (d == c) {
+					// 连续两个引号是转义
+					if (j + 1 < len && sql.charAt(j + 1) == c) {
+						j++;
+					} else {
+						return j;
+					}
+				}
+			}
+			return len;
+		}
+		if (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-') {
+			int end = sql.indexOf('\n', i);
+			return end < 0 ? len : end;
+		}
+		if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+			int end = sql.indexOf("*/", i + 2);
+			return end < 0 ? len : end + 1;
+		}
+		return i;
+	}
+
+}
@@ -0,0 +1,327 @@
+package com.yangc.utils.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: 轻量级jdbc连接池
+ *
+ *      <pre>
+ * 空闲连接后进先出, 最近使用过的连接优先借出, 多余的连接在队尾空闲超时后关闭
+ * 借出时空闲超过500ms的连接先校验(validationQuery为空时使用Connection.isValid), 无效的连接直接丢弃
+ * 后台线程按maintainSeconds关闭空闲超时的连接, 补足minSize, 检查借出超过leakDetectionMillis的连接并打印借出位置
+ * 物理连接数(包括后台补足的)不超过maxSize, 连接数已满时等待其他连接归还
+ * 连接的close()归还连接池, 关闭未关闭的语句, 未提交的事务回滚, autoCommit, readOnly, 事务隔离级别和catalog恢复为借出前的值
+ * 每个连接按sql缓存PreparedStatement, 参见PooledConnection
+ * 驱动类需要调用方提前加载
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午5:30:20
+ */
+public class JdbcPool {
+
+	private static final Logger logger = LogManager.getLogger(JdbcPool.class);
+
+	// 空闲时间小于这个值的连接借出时不校验
+	private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+	private final String name;
+	private final String url;
+	private final String username;
+	private final String password;
+
+	private final int minSize;
+	private final int maxSize;
+	private final long maxWaitMillis;
+	private final long idleTimeoutMillis;
+	private final String validationQuery;
+	private final int validationTimeoutSeconds;
+	private final long leakDetectionMillis;
+	private final int statementCacheSize;
+
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<PooledConnection>();
+	private final Set<PooledConnection> borrowed = Collections.newSetFromMap(new ConcurrentHashMap<PooledConnection, Boolean>());
+	// 物理连接数, 包括空闲和借出的
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final ScheduledExecutorService maintainer;
+	private volatile boolean closed;
+
+	/**
+	 * @param name 连接池名称, 用于日志和线程名
+	 * @param config minSize, maxSize, maxWaitMillis, idleTimeoutMillis, validationQuery, validationTimeoutSeconds, leakDetectionMillis, statementCacheSize, maintainSeconds
+	 */
+	public JdbcPool(String name, String url, String username, String password, Map<String, String> config) {
+		if (url == null || username == null || password == null) {
+			throw new IllegalArgumentException("The parameters must not be null");
+		}
+		this.name = name;
+		this.url = url;
+		this.username = username;
+		this.password = password;
+
+		this.maxSize = Math.max(1, MapUtils.getIntValue(config, "maxSize", 20));
+		this.minSize = Math.min(this.maxSize, Math.max(0, MapUtils.getIntValue(config, "minSize", 0)));
+		this.maxWaitMillis = MapUtils.getLongValue(config, "maxWaitMillis", 30000);
+		this.idleTimeoutMillis = MapUtils.getLongValue(config, "idleTimeoutMillis", 600000);
+		this.validationQuery = StringUtils.trimToNull(MapUtils.getString(config, "validationQuery"));
+		this.validationTimeoutSeconds = MapUtils.getIntValue(config, "validationTimeoutSeconds", 5);
+		this.leakDetectionMillis = MapUtils.getLongValue(config, "leakDetectionMillis", 0);
+		this.statementCacheSize = MapUtils.getIntValue(config, "statementCacheSize", 50);
+		int maintainSeconds = Math.max(1, MapUtils.getIntValue(config, "maintainSeconds", 30));
+
+		this.permits = new Semaphore(this.maxSize, true);
+		this.maintainer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "jdbc-pool-" + JdbcPool.this.name);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.maintainer.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					maintain();
+				} catch (Exception e) {
+					logger.error("Failed to maintain jdbc pool " + JdbcPool.this.name, e);
+				}
+			}
+		}, 0, maintainSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * @功能: 借出连接, 没有可用连接时最多等待maxWaitMillis
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:32:10
+	 * @return close()时归还连接池
+	 * @throws SQLException 等待超时或创建连接失败
+	 */
+	public Connection getConnection() throws SQLException {
+		if (closed) {
+			throw new SQLException("Jdbc pool " + name + " has been closed");
+		}
+		try {
+			if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLException("Timeout after " + maxWaitMillis + "ms waiting for a connection from jdbc pool " + name + ", active=" + borrowed.size());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection from jdbc pool " + name);
+		}
+		try {
+			long deadline = System.currentTimeMillis() + maxWaitMillis;
+			PooledConnection pc = null;
+			while (pc == null) {
+				boolean created = false;
+				pc = idle.pollFirst();
+				if (pc == null) {
+					pc = tryCreate();
+					created = pc != null;
+				}
+				if (pc == null) {
+					// 连接数已满(后台正在补足minSize或有连接正在归还), 等待空闲连接
+					long remaining = deadline - System.currentTimeMillis();
+					pc = remaining > 0 ? idle.pollFirst(remaining, TimeUnit.MILLISECONDS) : null;
+					if (pc == null) {
+						throw new SQLException("Timeout after " + maxWaitMillis + "ms waiting for a connection from jdbc pool " + name + ", size=" + size.get());
+					}
+				}
+				if (!created && System.currentTimeMillis() - pc.lastUsed >= VALIDATION_BYPASS_MILLIS && !validate(pc)) {
+					logger.warn("Discard invalid connection from jdbc pool " + name);
+					destroy(pc);
+					pc = null;
+				}
+			}
+			pc.borrowedAt = System.currentTimeMillis();
+			pc.borrowStack = leakDetectionMillis > 0 ? new Throwable("Connection borrowed here") : null;
+			pc.leakReported = false;
+			borrowed.add(pc);
+			return pc.newHandle();
+		} catch (InterruptedException e) {
+			permits.release();
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection from jdbc pool " + name);
+		} catch (SQLException e) {
+			permits.release();
+			throw e;
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * @功能: 连接的close()调用, 归还连接
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:33:00
+	 * @param pc
+	 */
+	void release(PooledConnection pc) {
+		borrowed.remove(pc);
+		try {
+			if (closed || pc.isBroken()) {
+				destroy(pc);
+			} else {
+				pc.reset();
+				pc.lastUsed = System.currentTimeMillis();
+				idle.offerFirst(pc);
+			}
+		} catch (SQLException e) {
+			logger.warn("Failed to reset connection of jdbc pool " + name + ", closing it", e);
+			destroy(pc);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * @功能: 关闭连接池, 借出的连接归还时关闭
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:33:40
+	 */
+	public void close() {
+		closed = true;
+		maintainer.shutdownNow();
+		PooledConnection pc;
+		while ((pc = idle.pollFirst()) != null) {
+			destroy(pc);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return 物理连接数
+	 */
+	public int getSize() {
+		return size.get();
+	}
+
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	public int getActiveCount() {
+		return borrowed.size();
+	}
+
+	/**
+	 * @return 等待借出连接的线程数(估计值)
+	 */
+	public int getWaitingCount() {
+		return permits.getQueueLength();
+	}
+
+	/**
+	 * @return 连接数已达到maxSize时返回null
+	 */
+	private PooledConnection tryCreate() throws SQLException {
+		// 先占用名额再创建, 并发创建(包括后台补足)时也不超过maxSize
+		for (;;) {
+			int current = size.get();
+			if (current >= maxSize) {
+				return null;
+			}
+			if (size.compareAndSet(current, current + 1)) {
+				break;
+			}
+		}
+		try {
+			return new PooledConnection(this, DriverManager.getConnection(url, username, password), statementCacheSize);
+		} catch (SQLException e) {
+			size.decrementAndGet();
+			throw e;
+		} catch (RuntimeException e) {
+			size.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private void destroy(PooledConnection pc) {
+		size.decrementAndGet();
+		pc.closeRaw();
+	}
+
+	private boolean validate(PooledConnection pc) {
+		Connection raw = pc.getRaw();
+		try {
+			if (validationQuery == null) {
+				return raw.isValid(validationTimeoutSeconds);
+			}
+			Statement st = raw.createStatement();
+			try {
+				st.setQueryTimeout(validationTimeoutSeconds);
+				st.execute(validationQuery);
+			} finally {
+				st.close();
+			}
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void maintain() {
+		long now = System.currentTimeMillis();
+		// 从最久未使用的一端关闭空闲超时的连接, 保留minSize
+		if (idleTimeoutMillis > 0) {
+			for (Iterator<PooledConnection> it = idle.descendingIterator(); it.hasNext() && size.get() > minSize;) {
+				PooledConnection pc = it.next();
+				if (now - pc.lastUsed > idleTimeoutMillis && idle.remove(pc)) {
+					destroy(pc);
+				}
+			}
+		}
+		// 连接泄漏
+		if (leakDetectionMillis > 0) {
+			for (PooledConnection pc : borrowed) {
+				if (!pc.leakReported && now - pc.borrowedAt > leakDetectionMillis) {
+					pc.leakReported = true;
+					logger.warn("Possible connection leak in jdbc pool " + name + ", borrowed " + (now - pc.borrowedAt) + "ms ago", pc.borrowStack);
+				}
+			}
+		}
+		// 补足最小连接数
+		while (!closed && size.get() < minSize) {
+			try {
+				PooledConnection pc = tryCreate();
+				if (pc == null) {
+					break;
+				}
+				idle.offerLast(pc);
+				// 关闭期间创建的连接
+				if (closed && idle.remove(pc)) {
+					destroy(pc);
+				}
+			} catch (SQLException e) {
+				logger.error("Failed to create connection for jdbc pool " + name, e);
+				break;
+			}
+		}
+	}
+
+}
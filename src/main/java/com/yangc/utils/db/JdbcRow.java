@@ -0,0 +1,136 @@
+package com.yangc.utils.db;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @功能: 游标的当前行, 按列下标读取
+ *
+ *      <pre>
+ * 列名和下标映射在查询开始时解析一次, 所有行共享
+ * 同一个游标的所有行复用同一个实例, 移动到下一行后原来的值被覆盖, 需要保留时调用toMap()或自行拷贝
+ * 列下标从1开始, 与ResultSet一致; 列名为大写, 与findAll一致
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午5:10:20
+ */
+public class JdbcRow {
+
+	private final String[] columnNames;
+	private final Map<String, Integer> columnIndexes;
+	private final Object[] values;
+
+	JdbcRow(ResultSetMetaData rsmd) throws SQLException {
+		int columnCount = rsmd.getColumnCount();
+		this.columnNames = new String[columnCount];
+		this.columnIndexes = new HashMap<String, Integer>(columnCount * 4 / 3 + 1);
+		for (int i = 0; i < columnCount; i++) {
+			this.columnNames[i] = rsmd.getColumnName(i + 1).toUpperCase();
+			this.columnIndexes.put(this.columnNames[i], i + 1);
+		}
+		this.values = new Object[columnCount];
+	}
+
+	void read(ResultSet rs) throws SQLException {
+		for (int i = 0; i < this.values.length; i++) {
+			this.values[i] = rs.getObject(i + 1);
+		}
+	}
+
+	public int getColumnCount() {
+		return this.values.length;
+	}
+
+	/**
+	 * @param index 从1开始
+	 */
+	public String getColumnName(int index) {
+		return this.columnNames[index - 1];
+	}
+
+	/**
+	 * @param columnName 不区分大小写
+	 * @return 不存在时返回0
+	 */
+	public int getColumnIndex(String columnName) {
+		Integer index = this.columnIndexes.get(columnName);
+		if (index == null) {
+			index = this.columnIndexes.get(columnName.toUpperCase());
+		}
+		return index == null ? 0 : index;
+	}
+
+	/**
+	 * @param index 从1开始
+	 */
+	public Object get(int index) {
+		return this.values[index - 1];
+	}
+
+	/**
+	 * @param columnName 不区分大小写
+	 * @throws IllegalArgumentException 列不存在
+	 */
+	public Object get(String columnName) {
+		int index = this.getColumnIndex(columnName);
+		if (index == 0) {
+			throw new IllegalArgumentException("Column " + columnName + " does not exist");
+		}
+		return this.values[index - 1];
+	}
+
+	/**
+	 * @param index 从1开始
+	 * @return 为null时返回null
+	 */
+	public String getString(int index) {
+		Object value = this.values[index - 1];
+		return value == null ? null : value.toString();
+	}
+
+	/**
+	 * @param index 从1开始
+	 * @return 为null时返回0
+	 */
+	public long getLong(int index) {
+		Object value = this.values[index - 1];
+		if (value == null) {
+			return 0;
+		}
+		return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+	}
+
+	/**
+	 * @功能: 拷贝当前行, key为大写列名, 与findAll的结果相同
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:12:40
+	 * @return
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>(this.values.length * 4 / 3 + 1);
+		for (int i = 0; i < this.values.length; i++) {
+			map.put(this.columnNames[i], this.values[i]);
+		}
+		return map;
+	}
+
+	/**
+	 * @功能: 拷贝当前行的值
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:13:10
+	 * @return
+	 */
+	public Object[] toArray() {
+		return this.values.clone();
+	}
+
+	@Override
+	public String toString() {
+		return this.toMap().toString();
+	}
+
+}
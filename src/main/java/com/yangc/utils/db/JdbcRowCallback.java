@@ -0,0 +1,21 @@
+package com.yangc.utils.db;
+
+import java.sql.SQLException;
+
+/**
+ * @功能: 流式查询的行回调
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午5:14:05
+ */
+public interface JdbcRowCallback {
+
+	/**
+	 * @功能: 处理一行
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:14:30
+	 * @param row 所有行复用同一个实例, 只能在回调中使用, 需要保留时调用toMap()
+	 * @return 返回false时停止遍历
+	 */
+	boolean processRow(JdbcRow row) throws SQLException;
+
+}
@@ -2,6 +2,7 @@ package com.yangc.utils.db;
 
 import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -12,13 +13,26 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.collections4.MapUtils;
+
+import com.yangc.utils.prop.PropertiesUtils;
 
 public class JdbcUtils {
 
-	private static String DB_NAME = "DB_NAME";
+	private static final String FILE_PATH = "/jdbc.properties";
+
+	// 连接池, key:username@url和密码, 密码不同(如修改密码后)使用不同的连接池
+	private static final ConcurrentHashMap<String, JdbcPool> POOLS = new ConcurrentHashMap<String, JdbcPool>();
 
 	/**
 	 * @功能: 获取Connection
+	 *
+	 *      <pre>
+	 * jdbc.properties中pool.maxSize大于0时, 相同url, 用户名和密码的连接从同一个连接池借出, close(conn)归还连接池
+	 * pool.maxSize为0(默认)时每次创建新连接
+	 * </pre>
 	 * @作者: yangc
 	 * @创建日期: 2013-11-11 上午12:58:39
 	 */
@@ -27,16 +41,12 @@ public class JdbcUtils {
 			throw new IllegalArgumentException("The parameters must not be null");
 		}
 
-		if ("com.microsoft.sqlserver.jdbc.SQLServerDriver".equals(driver)) {
-			DB_NAME = "sqlserver";
-		} else if ("oracle.jdbc.driver.OracleDriver".equals(driver)) {
-			DB_NAME = "oracle";
-		} else if ("com.mysql.jdbc.Driver".equals(driver)) {
-			DB_NAME = "mysql";
-		}
-
 		try {
 			Class.forName(driver);
+			JdbcPool pool = this.getPool(url, username, password);
+			if (pool != null) {
+				return pool.getConnection();
+			}
 			return DriverManager.getConnection(url, username, password);
 		} catch (ClassNotFoundException e) {
 			e.printStackTrace();
@@ -48,7 +58,90 @@ public class JdbcUtils {
 	}
 
 	/**
-	 * @功能: 关闭Connection
+	 * @功能: 按jdbc.properties中的配置获取Connection
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:50:10
+	 * @param name 配置的前缀, 如oracle, mysql
+	 */
+	public Connection getConnection(String name) {
+		String driver = PropertiesUtils.getProperty(FILE_PATH, name + ".driver");
+		String url = PropertiesUtils.getProperty(FILE_PATH, name + ".url");
+		String username = PropertiesUtils.getProperty(FILE_PATH, name + ".username");
+		String password = PropertiesUtils.getProperty(FILE_PATH, name + ".password");
+		return this.getConnection(driver, url, username, password);
+	}
+
+	/**
+	 * @功能: 按jdbc.properties中的配置获取连接池, 用于JdbcBulkLoader等需要多个连接的场景
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午6:20:30
+	 * @param name 配置的前缀, 如oracle, mysql
+	 * @return pool.maxSize为0或驱动不存在时返回null
+	 */
+	public JdbcPool getPool(String name) {
+		String driver = PropertiesUtils.getProperty(FILE_PATH, name + ".driver");
+		String url = PropertiesUtils.getProperty(FILE_PATH, name + ".url");
+		String username = PropertiesUtils.getProperty(FILE_PATH, name + ".username");
+		String password = PropertiesUtils.getProperty(FILE_PATH, name + ".password");
+		if (driver == null || url == null || username == null || password == null) {
+			throw new IllegalArgumentException("The parameters must not be null");
+		}
+
+		try {
+			Class.forName(driver);
+			return this.getPool(url, username, password);
+		} catch (ClassNotFoundException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	private JdbcPool getPool(String url, String username, String password) {
+		// 密码只用于查找, 不出现在连接池名称和日志中
+		String name = username + "@" + url;
+		String key = name + "\n" + password;
+		JdbcPool pool = POOLS.get(key);
+		if (pool == null) {
+			Map<String, String> config = new HashMap<String, String>();
+			config.put("minSize", PropertiesUtils.getProperty(FILE_PATH, "pool.minSize", "2"));
+			config.put("maxSize", PropertiesUtils.getProperty(FILE_PATH, "pool.maxSize", "0"));
+			config.put("maxWaitMillis", PropertiesUtils.getProperty(FILE_PATH, "pool.maxWaitMillis", "30000"));
+			config.put("idleTimeoutMillis", PropertiesUtils.getProperty(FILE_PATH, "pool.idleTimeoutMillis", "600000"));
+			config.put("validationQuery", PropertiesUtils.getProperty(FILE_PATH, "pool.validationQuery", ""));
+			config.put("validationTimeoutSeconds", PropertiesUtils.getProperty(FILE_PATH, "pool.validationTimeoutSeconds", "5"));
+			config.put("leakDetectionMillis", PropertiesUtils.getProperty(FILE_PATH, "pool.leakDetectionMillis", "0"));
+			config.put("statementCacheSize", PropertiesUtils.getProperty(FILE_PATH, "pool.statementCacheSize", "50"));
+			config.put("maintainSeconds", PropertiesUtils.getProperty(FILE_PATH, "pool.maintainSeconds", "30"));
+			if (MapUtils.getIntValue(config, "maxSize") <= 0) {
+				return null;
+			}
+			synchronized (POOLS) {
+				pool = POOLS.get(key);
+				if (pool == null) {
+					pool = new JdbcPool(name, url, username, password, config);
+					POOLS.put(key, pool);
+				}
+			}
+		}
+		return pool;
+	}
+
+	/**
+	 * @功能: 关闭所有连接池
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:51:30
+	 */
+	public static void closePools() {
+		synchronized (POOLS) {
+			for (JdbcPool pool : POOLS.values()) {
+				pool.close();
+			}
+			POOLS.clear();
+		}
+	}
+
+	/**
+	 * @功能: 关闭Connection, 连接池中的连接归还连接池
 	 * @作者: yangc
 	 * @创建日期: 2013-11-11 上午01:00:48
 	 */
@@ -251,13 +344,17 @@ public class JdbcUtils {
 				}
 			}
 			rs = pst.executeQuery();
+			// 列名只解析一次, 按下标读取
 			ResultSetMetaData rsmd = rs.getMetaData();
+			int columnCount = rsmd.getColumnCount();
+			String[] fieldNames = new String[columnCount];
+			for (int i = 0; i < columnCount; i++) {
+				fieldNames[i] = rsmd.getColumnName(i + 1).toUpperCase();
+			}
 			while (rs.next()) {
-				Map<String, Object> map = new HashMap<String, Object>();
-				for (int i = 1; i <= rsmd.getColumnCount(); i++) {
-					String fieldName = rsmd.getColumnName(i);
-					Object fieldValue = rs.getObject(fieldName);
-					map.put(fieldName.toUpperCase(), fieldValue);
+				Map<String, Object> map = new HashMap<String, Object>(columnCount * 4 / 3 + 1);
+				for (int i = 0; i < columnCount; i++) {
+					map.put(fieldNames[i], rs.getObject(i + 1));
 				}
 				list.add(map);
 			}
@@ -275,33 +372,225 @@ public class JdbcUtils {
 	}
 
 	/**
-	 * @功能: 查询一条或多条记录(带分页) - oracle, mysql
+	 * @功能: 打开流式游标, 用于导出等大结果集, 不在内存中保存全部结果
+	 *
+	 *      <pre>
+	 * 语句为TYPE_FORWARD_ONLY, CONCUR_READ_ONLY
+	 * mysql: 默认会把全部结果读入内存, url中没有useCursorFetch=true时使用Integer.MIN_VALUE逐行流式读取, 游标关闭之前同一个连接不能执行其他语句
+	 * oracle: fetchSize即每次往返预取的行数(驱动默认10)
+	 * 其他数据库直接使用fetchSize
+	 * 使用完必须调用cursor.close(), 建议放在finally中
+	 * </pre>
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:20:15
+	 * @param fetchSize 每次从数据库获取的行数, 小于等于0时使用驱动的默认值
+	 * @return 出错时返回null
+	 */
+	public JdbcCursor openCursor(Connection conn, String sql, Object[] obj, int fetchSize) {
+		PreparedStatement pst = null;
+		ResultSet rs = null;
+		try {
+			if (conn == null || conn.isClosed()) {
+				throw new IllegalArgumentException("Connection has bean closed!");
+			}
+			if (sql == null) {
+				throw new IllegalArgumentException("The sql must not be null");
+			}
+
+			pst = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			if (fetchSize > 0) {
+				pst.setFetchSize(this.getStreamingFetchSize(conn, fetchSize));
+			}
+			if (obj != null && obj.length > 0) {
+				for (int i = 0; i < obj.length; i++) {
+					pst.setObject(i + 1, obj[i]);
+				}
+			}
+			rs = pst.executeQuery();
+			return new JdbcCursor(pst, rs);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			try {
+				if (rs != null) rs.close();
+				if (pst != null) pst.close();
+			} catch (SQLException e1) {
+				e1.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @功能: 流式查询, 逐行回调, 参见openCursor
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:22:40
+	 * @param fetchSize 每次从数据库获取的行数, 小于等于0时使用驱动的默认值
+	 * @param callback 返回false时停止
+	 * @return 处理的行数, 出错时返回-1
+	 */
+	public long query(Connection conn, String sql, Object[] obj, int fetchSize, JdbcRowCallback callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("The callback must not be null");
+		}
+		JdbcCursor cursor = this.openCursor(conn, sql, obj, fetchSize);
+		if (cursor == null) {
+			return -1;
+		}
+		try {
+			while (cursor.hasNext()) {
+				if (!callback.processRow(cursor.next())) {
+					break;
+				}
+			}
+			return cursor.getRowCount();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		} catch (IllegalStateException e) {
+			e.printStackTrace();
+		} finally {
+			cursor.close();
+		}
+		return -1;
+	}
+
+	private int getStreamingFetchSize(Connection conn, int fetchSize) throws SQLException {
+		DatabaseMetaData dbmd = conn.getMetaData();
+		if ("MySQL".equalsIgnoreCase(dbmd.getDatabaseProductName())) {
+			String url = dbmd.getURL();
+			if (url == null || !url.contains("useCursorFetch=true")) {
+				return Integer.MIN_VALUE;
+			}
+		}
+		return fetchSize;
+	}
+
+	/**
+	 * @功能: 查询一条或多条记录(带分页) - oracle, mysql, sqlserver, 方言按连接识别, 参见JdbcDialect
 	 * @作者: yangc
 	 * @创建日期: 2013-11-11 上午01:29:19
 	 */
 	public List<Map<String, Object>> find(Connection conn, String sql, Object[] obj, int firstResult, int maxResults) {
+		JdbcDialect dialect = null;
 		try {
 			if (conn == null || conn.isClosed()) {
 				throw new IllegalArgumentException("Connection has bean closed!");
 			}
+			dialect = JdbcDialect.of(conn);
 		} catch (SQLException e) {
 			e.printStackTrace();
+			return new ArrayList<Map<String, Object>>();
 		}
 		if (sql == null) {
 			throw new IllegalArgumentException("The sql must not be null");
 		}
 
-		StringBuilder sb = new StringBuilder();
-		if (DB_NAME.equals("oracle")) {
-			sb.append("SELECT * FROM (");
-			sb.append("SELECT TEMP_TABLE_.*, ROWNUM ROWNUM_ FROM (").append(sql).append(") TEMP_TABLE_");
-			sb.append(" WHERE ROWNUM <= ").append(firstResult + maxResults).append(")");
-			sb.append(" WHERE ROWNUM_ > ").append(firstResult);
-		} else if (DB_NAME.equals("mysql")) {
-			sb.append("SELECT * FROM (").append(sql).append(") TEMP_TABLE_");
-			sb.append(" LIMIT ").append(firstResult).append(",").append(maxResults);
+		return this.findAll(conn, dialect.paginate(sql), this.appendParams(obj, dialect.paginationParams(firstResult, maxResults)));
+	}
+
+	/**
+	 * @功能: 键集分页, 查询lastKey之后的一页, 代价与页码无关
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午6:50:20
+	 * @param sql 不带ORDER BY的查询, 结果中必须包含keyColumn
+	 * @param keyColumn 唯一且非空的列名, 按这一列升序
+	 * @param lastKey 上一页最后一行的keyColumn的值, 第一页为null
+	 * @param pageSize
+	 * @return
+	 */
+	public List<Map<String, Object>> findAfter(Connection conn, String sql, Object[] obj, String keyColumn, Object lastKey, int pageSize) {
+		JdbcDialect dialect = null;
+		try {
+			if (conn == null || conn.isClosed()) {
+				throw new IllegalArgumentException("Connection has bean closed!");
+			}
+			dialect = JdbcDialect.of(conn);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return new ArrayList<Map<String, Object>>();
+		}
+		if (sql == null) {
+			throw new IllegalArgumentException("The sql must not be null");
+		}
+
+		return this.findAll(conn, dialect.seek(sql, keyColumn, lastKey == null), this.seekParams(obj, lastKey, pageSize));
+	}
+
+	/**
+	 * @功能: 按键集分页遍历全部记录, 每页一次短查询, 用于导出, 不长时间占用游标
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午6:52:40
+	 * @param sql 不带ORDER BY的查询, 结果中必须包含keyColumn
+	 * @param keyColumn 唯一且非空的列名, 按这一列升序
+	 * @param pageSize
+	 * @param callback 返回false时停止
+	 * @return 处理的行数, 出错时返回-1
+	 * @throws IllegalArgumentException 结果中没有keyColumn或者某一行的keyColumn为null, 无法定位下一页
+	 */
+	public long iterate(Connection conn, String sql, Object[] obj, final String keyColumn, int pageSize, final JdbcRowCallback callback) {
+		if (callback == null) {
+			throw new IllegalArgumentException("The callback must not be null");
+		}
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("The pageSize must be greater than 0");
+		}
+		JdbcDialect dialect = null;
+		try {
+			if (conn == null || conn.isClosed()) {
+				throw new IllegalArgumentException("Connection has bean closed!");
+			}
+			dialect = JdbcDialect.of(conn);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return -1;
+		}
+		if (sql == null) {
+			throw new IllegalArgumentException("The sql must not be null");
+		}
+
+		String firstSql = dialect.seek(sql, keyColumn, true);
+		String nextSql = dialect.seek(sql, keyColumn, false);
+		// 0:上一页最后的键, 1:回调是否要求停止
+		final Object[] state = new Object[2];
+		long total = 0;
+		while (true) {
+			Object lastKey = state[0];
+			long count = this.query(conn, lastKey == null ? firstSql : nextSql, this.seekParams(obj, lastKey, pageSize), 0, new JdbcRowCallback() {
+				@Override
+				public boolean processRow(JdbcRow row) throws SQLException {
+					Object key = row.get(keyColumn);
+					if (key == null) {
+						throw new IllegalArgumentException("The key column " + keyColumn + " must not be null");
+					}
+					state[0] = key;
+					if (!callback.processRow(row)) {
+						state[1] = Boolean.TRUE;
+						return false;
+					}
+					return true;
+				}
+			});
+			if (count < 0) {
+				return -1;
+			}
+			total += count;
+			if (count < pageSize || state[1] != null) {
+				return total;
+			}
+		}
+	}
+
+	private Object[] seekParams(Object[] obj, Object lastKey, int pageSize) {
+		return this.appendParams(obj, lastKey == null ? new Object[] { pageSize } : new Object[] { lastKey, pageSize });
+	}
+
+	private Object[] appendParams(Object[] obj, Object[] params) {
+		if (obj == null || obj.length == 0) {
+			return params;
 		}
-		return this.findAll(conn, sb.toString(), obj);
+		Object[] result = new Object[obj.length + params.length];
+		System.arraycopy(obj, 0, result, 0, obj.length);
+		System.arraycopy(params, 0, result, obj.length, params.length);
+		return result;
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,349 @@
+package com.yangc.utils.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @功能: 连接池中的一个物理连接, 以及它的PreparedStatement缓存
+ *
+ *      <pre>
+ * 每次借出时创建一个新的代理, close()把连接归还连接池, 归还后代理不能再使用
+ * prepareStatement(sql)按sql从LRU缓存中获取, close()只清空参数, 淘汰或物理连接关闭时才真正关闭
+ * 同一个sql的语句还没有关闭时再次prepare, 返回不缓存的新语句
+ * 修改过fetchSize, maxRows, queryTimeout等属性的语句归还时直接关闭, 不影响下一次使用
+ * 连接归还时关闭未关闭的语句和结果集, 回滚未提交的事务, 恢复autoCommit, readOnly, 事务隔离级别和catalog
+ * 只由借出连接的线程访问, 不需要同步
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午5:40:10
+ */
+class PooledConnection {
+
+	private final JdbcPool pool;
+	private final Connection raw;
+	private final int statementCacheSize;
+	private final LinkedHashMap<String, CachedStatement> statements;
+
+	volatile long lastUsed;
+	volatile long borrowedAt;
+	volatile Throwable borrowStack;
+	volatile boolean leakReported;
+
+	// 使用中修改了autoCommit, 归还时回滚未提交的事务并恢复
+	private boolean autoCommitChanged;
+	// 使用中修改了readOnly, 事务隔离级别, catalog, 修改前记录原来的值, 归还时恢复
+	private boolean readOnlyChanged;
+	private boolean defaultReadOnly;
+	private boolean isolationChanged;
+	private int defaultIsolation;
+	private boolean catalogChanged;
+	private String defaultCatalog;
+	// 本次借出期间创建的不缓存的语句, 归还时关闭仍未关闭的
+	private final List<Statement> openStatements = new ArrayList<Statement>();
+	// 出现了连接级别的错误(SQLState 08), 归还时关闭
+	private boolean broken;
+
+	private static class CachedStatement {
+		private final String sql;
+		private final PreparedStatement statement;
+		private boolean inUse;
+		private boolean evicted;
+		private boolean dirty;
+
+		CachedStatement(String sql, PreparedStatement statement) {
+			this.sql = sql;
+			this.statement = statement;
+		}
+	}
+
+	PooledConnection(JdbcPool pool, Connection raw, final int statementCacheSize) {
+		this.pool = pool;
+		this.raw = raw;
+		this.statementCacheSize = statementCacheSize;
+		this.statements = new LinkedHashMap<String, CachedStatement>(16, 0.75F, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+				if (size() > statementCacheSize) {
+					CachedStatement cs = eldest.getValue();
+					if (cs.inUse) {
+						cs.evicted = true;
+					} else {
+						closeQuietly(cs.statement);
+					}
+					return true;
+				}
+				return false;
+			}
+		};
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	Connection getRaw() {
+		return raw;
+	}
+
+	boolean isBroken() {
+		return broken;
+	}
+
+	/**
+	 * @功能: 借出时创建新的代理
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:41:30
+	 * @return
+	 */
+	Connection newHandle() {
+		ConnectionHandle handler = new ConnectionHandle();
+		handler.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+		return handler.proxy;
+	}
+
+	/**
+	 * @功能: 归还前恢复连接状态, 关闭未关闭的语句和结果集
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:42:10
+	 * @throws SQLException
+	 */
+	void reset() throws SQLException {
+		for (Statement st : openStatements) {
+			closeQuietly(st);
+		}
+		openStatements.clear();
+		// 仍在使用的缓存语句可能还有打开的结果集, 关闭后不再缓存, 代理的close()只做清理
+		for (CachedStatement cs : new ArrayList<CachedStatement>(statements.values())) {
+			if (cs.inUse) {
+				cs.evicted = true;
+				statements.remove(cs.sql);
+				closeQuietly(cs.statement);
+			}
+		}
+		if (autoCommitChanged) {
+			if (!raw.getAutoCommit()) {
+				raw.rollback();
+				raw.setAutoCommit(true);
+			}
+			autoCommitChanged = false;
+		}
+		if (readOnlyChanged) {
+			raw.setReadOnly(defaultReadOnly);
+			readOnlyChanged = false;
+		}
+		if (isolationChanged) {
+			raw.setTransactionIsolation(defaultIsolation);
+			isolationChanged = false;
+		}
+		if (catalogChanged) {
+			if (defaultCatalog != null) {
+				raw.setCatalog(defaultCatalog);
+			}
+			catalogChanged = false;
+		}
+	}
+
+	/**
+	 * @功能: 关闭缓存的语句和物理连接
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午5:42:40
+	 */
+	void closeRaw() {
+		List<CachedStatement> list = new ArrayList<CachedStatement>(statements.values());
+		statements.clear();
+		for (CachedStatement cs : list) {
+			closeQuietly(cs.statement);
+		}
+		try {
+			raw.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	int getCachedStatementCount() {
+		return statements.size();
+	}
+
+	private PreparedStatement prepareCached(Connection handle, String sql) throws SQLException {
+		CachedStatement cs = statements.get(sql);
+		if (cs == null) {
+			cs = new CachedStatement(sql, raw.prepareStatement(sql));
+			statements.put(sql, cs);
+		} else if (cs.inUse) {
+			PreparedStatement pst = raw.prepareStatement(sql);
+			trackStatement(pst);
+			return pst;
+		}
+		cs.inUse = true;
+		StatementHandle handler = new StatementHandle(cs, handle);
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, handler);
+	}
+
+	private void releaseStatement(CachedStatement cs) {
+		cs.inUse = false;
+		if (cs.evicted) {
+			closeQuietly(cs.statement);
+			return;
+		}
+		if (!cs.dirty && !broken) {
+			try {
+				// 语句只是归还缓存, 需要关闭调用方未关闭的结果集
+				ResultSet rs = cs.statement.getResultSet();
+				if (rs != null) {
+					rs.close();
+				}
+				cs.statement.clearParameters();
+				cs.statement.clearBatch();
+				return;
+			} catch (SQLException e) {
+				checkException(e);
+			}
+		}
+		statements.remove(cs.sql);
+		closeQuietly(cs.statement);
+	}
+
+	private void checkException(SQLException e) {
+		String sqlState = e.getSQLState();
+		if (sqlState != null && sqlState.startsWith("08")) {
+			broken = true;
+		}
+	}
+
+	private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException) {
+				checkException((SQLException) cause);
+			}
+			throw cause;
+		}
+	}
+
+	private void trackStatement(Statement st) {
+		// 长时间借出并创建大量语句时, 先移除已经关闭的
+		if (openStatements.size() >= 64) {
+			for (Iterator<Statement> it = openStatements.iterator(); it.hasNext();) {
+				try {
+					if (it.next().isClosed()) {
+						it.remove();
+					}
+				} catch (SQLException e) {
+					it.remove();
+				}
+			}
+		}
+		openStatements.add(st);
+	}
+
+	private static void closeQuietly(Statement st) {
+		try {
+			st.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private class ConnectionHandle implements InvocationHandler {
+		private Connection proxy;
+		private boolean closed;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("close".equals(name)) {
+				if (!closed) {
+					closed = true;
+					pool.release(PooledConnection.this);
+				}
+				return null;
+			} else if ("isClosed".equals(name)) {
+				return closed || raw.isClosed();
+			} else if ("equals".equals(name)) {
+				return proxy == args[0];
+			} else if ("hashCode".equals(name)) {
+				return System.identityHashCode(proxy);
+			} else if ("toString".equals(name)) {
+				return "Pooled" + raw;
+			}
+			if (closed) {
+				throw new SQLException("Connection has been returned to the pool");
+			}
+			if ("prepareStatement".equals(name) && args.length == 1 && statementCacheSize > 0) {
+				return prepareCached(this.proxy, (String) args[0]);
+			} else if ("setAutoCommit".equals(name)) {
+				autoCommitChanged = true;
+			} else if ("setReadOnly".equals(name) && !readOnlyChanged) {
+				defaultReadOnly = raw.isReadOnly();
+				readOnlyChanged = true;
+			} else if ("setTransactionIsolation".equals(name) && !isolationChanged) {
+				defaultIsolation = raw.getTransactionIsolation();
+				isolationChanged = true;
+			} else if ("setCatalog".equals(name) && !catalogChanged) {
+				defaultCatalog = raw.getCatalog();
+				catalogChanged = true;
+			}
+			Object result = PooledConnection.this.invoke(raw, method, args);
+			if (result instanceof Statement) {
+				trackStatement((Statement) result);
+			}
+			return result;
+		}
+	}
+
+	private class StatementHandle implements InvocationHandler {
+		private final CachedStatement cs;
+		private final Connection connection;
+		private boolean closed;
+
+		StatementHandle(CachedStatement cs, Connection connection) {
+			this.cs = cs;
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ("close".equals(name)) {
+				if (!closed) {
+					closed = true;
+					releaseStatement(cs);
+				}
+				return null;
+			} else if ("isClosed".equals(name)) {
+				return closed;
+			} else if ("equals".equals(name)) {
+				return proxy == args[0];
+			} else if ("hashCode".equals(name)) {
+				return System.identityHashCode(proxy);
+			} else if ("toString".equals(name)) {
+				return "Cached" + cs.statement;
+			}
+			if (closed) {
+				throw new SQLException("Statement has been closed");
+			}
+			if ("getConnection".equals(name)) {
+				return connection;
+			} else if ("setFetchSize".equals(name) || "setMaxRows".equals(name) || "setQueryTimeout".equals(name) || "setMaxFieldSize".equals(name)
+					|| "setFetchDirection".equals(name) || "setEscapeProcessing".equals(name) || "setPoolable".equals(name)) {
+				cs.dirty = true;
+			}
+			return PooledConnection.this.invoke(cs.statement, method, args);
+		}
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.yangc.utils.prop;
+
+import java.util.Map;
+
+/**
+ * @功能: 配置文件变化的监听器, 在后台检查线程中回调
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午4:20:10
+ */
+public interface ConfigListener {
+
+	/**
+	 * @param filePath properties文件路径(classpath中的相对路径)
+	 * @param previous 变化前的配置, 只读
+	 * @param current 变化后的配置, 只读
+	 */
+	void onChange(String filePath, Map<String, String> previous, Map<String, String> current);
+
+}
@@ -0,0 +1,393 @@
+package com.yangc.utils.prop;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * @功能: properties配置的缓存
+ *
+ *      <pre>
+ * 每个文件只解析一次, 保存为只读快照, 之后的读取直接查找快照, 类型转换的结果也缓存在快照中
+ * 后台线程按修改时间和大小检查文件(jdk6没有WatchService), 变化时重新解析, 替换快照并通知监听器
+ * 文件变化后要连续两次检查的修改时间和大小都相同(写入已经完成)才重新解析, 避免读到写了一半的文件
+ * 不存在的文件同样定期检查, 出现后加载并通知监听器
+ * 检查间隔由-Dconfig.reloadSeconds指定, 默认10秒, 0为不检查; jar包中的文件不检查
+ * </pre>
+ * @作者: yangc
+ * @创建日期: 2026年10月19日 下午4:21:30
+ */
+public class ConfigRegistry {
+
+	private static final Logger logger = LogManager.getLogger(ConfigRegistry.class);
+
+	private static final int RELOAD_SECONDS = Integer.getInteger("config.reloadSeconds", 10);
+
+	private static final ConcurrentHashMap<String, Snapshot> SNAPSHOTS = new ConcurrentHashMap<String, Snapshot>();
+	private static final ConcurrentHashMap<String, List<ConfigListener>> LISTENERS = new ConcurrentHashMap<String, List<ConfigListener>>();
+
+	private static ScheduledExecutorService reloader;
+
+	// 检查时发现变化但还未稳定的文件, 修改时间和大小, 只在后台线程中访问
+	private static final Map<String, long[]> CHANGING = new HashMap<String, long[]>();
+
+	/**
+	 * 某个文件某个时刻的配置, 只读
+	 */
+	private static class Snapshot {
+		private final Map<String, String> values;
+		// 文件不存在时为false, 后台线程检查文件是否出现
+		private final boolean exists;
+		private final File file;
+		private final long lastModified;
+		private final long length;
+
+		// 类型转换的结果
+		private final ConcurrentHashMap<String, Integer> ints = new ConcurrentHashMap<String, Integer>();
+		private final ConcurrentHashMap<String, Long> longs = new ConcurrentHashMap<String, Long>();
+		private final ConcurrentHashMap<String, Boolean> booleans = new ConcurrentHashMap<String, Boolean>();
+
+		Snapshot(Map<String, String> values, boolean exists, File file, long lastModified, long length) {
+			this.values = values;
+			this.exists = exists;
+			this.file = file;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+	}
+
+	private ConfigRegistry() {
+	}
+
+	/**
+	 * @功能: 获取配置
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午4:23:10
+	 * @param filePath properties文件路径(classpath中的相对路径)
+	 * @param name
+	 * @param defaultValue
+	 * @return 不存在时返回默认值
+	 */
+	public static String getString(String filePath, String name, String defaultValue) {
+		String value = getSnapshot(filePath).values.get(name);
+		return value == null ? defaultValue : value;
+	}
+
+	public static String getString(String filePath, String name) {
+		return getString(filePath, name, null);
+	}
+
+	/**
+	 * @功能: 获取int配置, 转换结果缓存到文件变化为止
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午4:23:50
+	 * @param filePath
+	 * @param name
+	 * @param defaultValue
+	 * @return 不存在时返回默认值
+	 * @throws NumberFormatException 配置的值不是整数
+	 */
+	public static int getInt(String filePath, String name, int defaultValue) {
+		Snapshot snapshot = getSnapshot(filePath);
+		Integer value = snapshot.ints.get(name);
+		if (value == null) {
+			String s = snapshot.values.get(name);
+			if (s == null) {
+				return defaultValue;
+			}
+			value = Integer.valueOf(s.trim());
+			snapshot.ints.put(name, value);
+		}
+		return value;
+	}
+
+	/**
+	 * @功能: 获取long配置, 转换结果缓存到文件变化为止
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午4:24:20
+	 * @param filePath
+	 * @param name
+	 * @param defaultValue
+	 * @return 不存在时返回默认值
+	 * @throws NumberFormatException 配置的值不是整数
+	 */
+	public static long getLong(String filePath, String name, long defaultValue) {
+		Snapshot snapshot = getSnapshot(filePath);
+		Long value = snapshot.longs.get(name);
+		if (value == null) {
+			String s = snapshot.values.get(name);
+			if (s == null) {
+				return defaultValue;
+			}
+			value = Long.valueOf(s.trim());
+			snapshot.longs.put(name, value);
+		}
+		return value;
+	}
+
+	/**
+	 * @功能: 获取boolean配置, 转换结果缓存到文件变化为止
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午4:24:50
+	 * @param filePath
+	 * @param name
+	 * @param defaultValue
+	 * @return 不存在时返回默认值
+	 */
+	public static boolean getBoolean(String filePath, String name, boolean defaultValue) {
+		Snapshot snapshot = getSnapshot(filePath);
+		Boolean value = snapshot.booleans.get(name);
+		if (value == null) {
+			String s = snapshot.values.get(name);
+			if (s == null) {
+				return defaultValue;
+			}
+			value = Boolean.valueOf(s.trim());
+			snapshot.booleans.put(name, value);
+		}
+		return value;
+	}
+
+	/**
+	 * @功能: 获取文件的全部配置
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午4:25:30
+	 * @param filePath
+	 * @return 只读
+	 */
+	public static Map<String, String> getAll(String filePath) {
+		return getSnapshot(filePath).values;
+	}
+
+	/**
+	 * @功能: 注册监听器, 文件变化时回调
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午4:26:10
+	 * @param filePath
+	 * @param listener
+	 */
+	public static void addListener(String filePath, ConfigListener listener) {
+		getSnapshot(filePath);
+		List<ConfigListener> listeners = LISTENERS.get(filePath);
+		if (listeners == null) {
+			listeners = new CopyOnWriteArrayList<ConfigListener>();
+			List<ConfigListener> existing = LISTENERS.putIfAbsent(filePath, listeners);
+			if (existing != null) {
+				listeners = existing;
+			}
+		}
+		listeners.add(listener);
+	}
+
+	public static void removeListener(String filePath, ConfigListener listener) {
+		List<ConfigListener> listeners = LISTENERS.get(filePath);
+		if (listeners != null) {
+			listeners.remove(listener);
+		}
+	}
+
+	/**
+	 * @功能: 立即重新解析文件, 有变化时通知监听器
+	 * @作者: yangc
+	 * @创建日期: 2026年10月19日 下午4:26:50
+	 * @param filePath
+	 * @return 配置是否有变化, 读取失败时保留原来的配置, 返回false
+	 */
+	public static boolean reload(String filePath) {
+		Snapshot previous, current;
+		synchronized (ConfigRegistry.class) {
+			previous = SNAPSHOTS.get(filePath);
+			try {
+				current = load(filePath);
+			} catch (IOException e) {
+				// 读取失败(如文件正在被替换)时不使用空的配置, 下一次检查时重试
+				logger.error("Failed to reload config " + filePath + ", keeping the previous values", e);
+				if (previous != null) {
+					return false;
+				}
+				current = missing();
+			}
+			SNAPSHOTS.put(filePath, current);
+		}
+		if (previous == null || previous.values.equals(current.values)) {
+			return false;
+		}
+		// 在锁外通知, 监听器中可以读取其他配置文件
+		logger.info("Config " + filePath + " reloaded");
+		List<ConfigListener> listeners = LISTENERS.get(filePath);
+		if (listeners != null) {
+			for (ConfigListener listener : listeners) {
+				try {
+					listener.onChange(filePath, previous.values, current.values);
+				} catch (Exception e) {
+					logger.error("Failed to notify config listener of " + filePath, e);
+				}
+			}
+		}
+		return true;
+	}
+
+	private static Snapshot getSnapshot(String filePath) {
+		Snapshot snapshot = SNAPSHOTS.get(filePath);
+		if (snapshot == null) {
+			if (StringUtils.isBlank(filePath)) {
+				throw new IllegalArgumentException("The filePath must not be null");
+			}
+			synchronized (ConfigRegistry.class) {
+				snapshot = SNAPSHOTS.get(filePath);
+				if (snapshot == null) {
+					try {
+						snapshot = load(filePath);
+					} catch (IOException e) {
+						// 按不存在处理, 后台线程发现文件可以读取后重新加载
+						e.printStackTrace();
+						snapshot = missing();
+					}
+					SNAPSHOTS.put(filePath, snapshot);
+					startReloader();
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * @throws IOException 读取失败, 不返回空的配置
+	 */
+	private static Snapshot load(String filePath) throws IOException {
+		URL url = ConfigRegistry.class.getResource(filePath);
+		if (url == null) {
+			logger.warn("Config " + filePath + " does not exist");
+			return missing();
+		}
+		File file = null;
+		if ("file".equals(url.getProtocol())) {
+			try {
+				file = new File(url.toURI());
+			} catch (Exception e) {
+				logger.warn("Config " + filePath + " will not be reloaded", e);
+			}
+		}
+		// 先取修改时间和大小再读取, 读取期间的修改会在下一次检查时发现
+		long lastModified = file == null ? 0 : file.lastModified();
+		long length = file == null ? 0 : file.length();
+		Properties prop = new Properties();
+		InputStream in = null;
+		try {
+			in = url.openStream();
+			prop.load(in);
+		} catch (IllegalArgumentException e) {
+			// 格式错误(如不完整的unicode转义), 文件可能还没有写完
+			throw new IOException("Malformed config " + filePath, e);
+		} finally {
+			try {
+				if (in != null) in.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		Map<String, String> values = new HashMap<String, String>(prop.size() * 4 / 3 + 1);
+		for (String name : prop.stringPropertyNames()) {
+			values.put(name, prop.getProperty(name));
+		}
+		return new Snapshot(Collections.unmodifiableMap(values), true, file, lastModified, length);
+	}
+
+	private static Snapshot missing() {
+		return new Snapshot(Collections.<String, String> emptyMap(), false, null, 0, 0);
+	}
+
+	private static void startReloader() {
+		if (reloader != null || RELOAD_SECONDS <= 0) {
+			return;
+		}
+		reloader = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "config-reloader");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		reloader.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				for (Map.Entry<String, Snapshot> entry : SNAPSHOTS.entrySet()) {
+					if (isChanged(entry.getKey(), entry.getValue())) {
+						try {
+							reload(entry.getKey());
+						} catch (Exception e) {
+							logger.error("Failed to reload config " + entry.getKey(), e);
+						}
+					}
+				}
+			}
+		}, RELOAD_SECONDS, RELOAD_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * @功能: 文件是否有变化并且已经稳定, 只在后台线程中调用
+	 * @作者: yangc
+	 * @创建日期: 2026年10月20日 下午5:20:30
+	 * @param filePath
+	 * @param snapshot
+	 * @return
+	 */
+	private static boolean isChanged(String filePath, Snapshot snapshot) {
+		// 之前不存在的文件出现在classpath中, 目录中的文件同样等待写入完成
+		if (!snapshot.exists) {
+			URL url = ConfigRegistry.class.getResource(filePath);
+			if (url == null) {
+				return false;
+			}
+			if (!"file".equals(url.getProtocol())) {
+				return true;
+			}
+			try {
+				return isStable(filePath, new File(url.toURI()));
+			} catch (Exception e) {
+				return true;
+			}
+		}
+		// 文件被删除时保留原来的配置
+		if (snapshot.file == null || !snapshot.file.exists()) {
+			CHANGING.remove(filePath);
+			return false;
+		}
+		if (snapshot.file.lastModified() == snapshot.lastModified && snapshot.file.length() == snapshot.length) {
+			CHANGING.remove(filePath);
+			return false;
+		}
+		return isStable(filePath, snapshot.file);
+	}
+
+	/**
+	 * @return 修改时间和大小是否与上一次检查时相同
+	 */
+	private static boolean isStable(String filePath, File file) {
+		long[] current = { file.lastModified(), file.length() };
+		long[] previous = CHANGING.put(filePath, current);
+		if (previous != null && previous[0] == current[0] && previous[1] == current[1]) {
+			CHANGING.remove(filePath);
+			return true;
+		}
+		return false;
+	}
+
+}
@@ -1,9 +1,5 @@
 package com.yangc.utils.prop;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
-
 import org.apache.commons.lang3.StringUtils;
 
 public class PropertiesUtils {
@@ -27,7 +23,7 @@ public class PropertiesUtils {
 	}
 
 	/**
-	 * @功能: 根据name获取properties文件中的value, 如果为空返回默认值
+	 * @功能: 根据name获取properties文件中的value, 如果为空返回默认值, 文件只解析一次, 参见ConfigRegistry
 	 * @作者: yangc
 	 * @创建日期: 2013-11-21 下午07:01:48
 	 * @param filePath properties文件路径(classpath中的相对路径)
@@ -39,21 +35,7 @@ public class PropertiesUtils {
 		if (StringUtils.isBlank(filePath) || StringUtils.isBlank(name)) {
 			throw new IllegalArgumentException("The parameters must not be null");
 		}
-		Properties prop = new Properties();
-		InputStream in = null;
-		try {
-			in = PropertiesUtils.class.getResourceAsStream(filePath);
-			prop.load(in);
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
-			try {
-				if (in != null) in.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
-		return prop.getProperty(name, defaultValue);
+		return ConfigRegistry.getString(filePath, name, defaultValue);
 	}
 
 	public static void main(String[] args) {
@@ -8,6 +8,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -15,11 +16,14 @@ import java.util.regex.Pattern;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.PooledObjectFactory;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.util.Hashing;
 import redis.clients.util.Pool;
+import redis.clients.util.Sharded;
 
 public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 
@@ -41,6 +45,21 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 
 	private volatile List<HostAndPort> currentHostMasters;
 
+	private volatile List<String> masterNames;
+
+	private List<String> sentinels;
+
+	// master名称 -> 权重, 为null时分片不命名(按下标计算虚拟节点, 兼容之前的分布)
+	private volatile Map<String, Integer> masterWeights;
+
+	private volatile List<JedisShardInfo> currentShardInfos;
+
+	// 当前借出对象的连接池, 与internalPool相同, internalPool不是volatile, 借出时读取这个字段
+	private volatile GenericObjectPool<ShardedJedis> activePool;
+
+	// reshard替换下来的连接池, 借出的对象全部归还后关闭
+	private final List<GenericObjectPool<ShardedJedis>> retiredPools = new CopyOnWriteArrayList<GenericObjectPool<ShardedJedis>>();
+
 	public ShardedJedisSentinelPool(List<String> masters, List<String> sentinels) {
 		this(masters, sentinels, new GenericObjectPoolConfig(), Protocol.DEFAULT_TIMEOUT, null, Protocol.DEFAULT_DATABASE);
 	}
@@ -66,18 +85,41 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 	}
 
 	public ShardedJedisSentinelPool(List<String> masters, List<String> sentinels, final GenericObjectPoolConfig poolConfig, int timeout, final String password, final int database) {
+		this(masters, sentinels, poolConfig, timeout, password, database, null);
+	}
+
+	/**
+	 * @param masterWeights master名称 -> 权重, 不为null时分片以master名称命名, 增删master只影响相邻区间的key, 支持reshard
+	 */
+	public ShardedJedisSentinelPool(List<String> masters, List<String> sentinels, final GenericObjectPoolConfig poolConfig, int timeout, final String password, final int database,
+			Map<String, Integer> masterWeights) {
 		this.poolConfig = poolConfig;
 		this.timeout = timeout;
 		this.password = password;
 		this.database = database;
+		this.masterNames = new ArrayList<String>(masters);
+		this.sentinels = new ArrayList<String>(sentinels);
+		this.masterWeights = masterWeights == null ? null : new HashMap<String, Integer>(masterWeights);
 
-		List<HostAndPort> masterList = initSentinels(sentinels, masters);
+		List<HostAndPort> masterList = initSentinels(sentinels, this.masterNames);
 		initPool(masterList);
 	}
 
 	@Override
 	public ShardedJedis getResource() {
-		ShardedJedis jedis = super.getResource();
+		GenericObjectPool<ShardedJedis> pool = activePool;
+		ShardedJedis jedis;
+		try {
+			jedis = pool.borrowObject();
+		} catch (IllegalStateException e) {
+			// 读取之后连接池被reshard替换并关闭, 从新的连接池借出
+			if (pool != activePool) {
+				return getResource();
+			}
+			throw new JedisConnectionException("Could not get a resource from the pool", e);
+		} catch (Exception e) {
+			throw new JedisConnectionException("Could not get a resource from the pool", e);
+		}
 		jedis.setDataSource(this);
 		return jedis;
 	}
@@ -86,7 +128,7 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 	@Deprecated
 	public void returnBrokenResource(ShardedJedis resource) {
 		if (resource != null) {
-			returnBrokenResourceObject(resource);
+			release(resource, true);
 		}
 	}
 
@@ -95,7 +137,7 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 	public void returnResource(ShardedJedis resource) {
 		if (resource != null) {
 			resource.resetState();
-			returnResourceObject(resource);
+			release(resource, false);
 		}
 	}
 
@@ -104,13 +146,215 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 			m.shutdown();
 		}
 		super.destroy();
+		for (GenericObjectPool<ShardedJedis> pool : retiredPools) {
+			pool.close();
+		}
+		retiredPools.clear();
+	}
+
+	/**
+	 * 归还到借出对象的连接池(当前的连接池或者reshard替换下来的连接池), 都不是时断开
+	 */
+	private void release(ShardedJedis resource, boolean broken) {
+		if (release(activePool, resource, broken)) {
+			return;
+		}
+		for (GenericObjectPool<ShardedJedis> pool : retiredPools) {
+			if (release(pool, resource, broken)) {
+				closeIfDrained(pool);
+				return;
+			}
+		}
+		resource.disconnect();
+	}
+
+	private boolean release(GenericObjectPool<ShardedJedis> pool, ShardedJedis resource, boolean broken) {
+		try {
+			if (broken) {
+				pool.invalidateObject(resource);
+			} else {
+				pool.returnObject(resource);
+			}
+			return true;
+		} catch (IllegalStateException e) {
+			// 对象不属于这个连接池
+			return false;
+		} catch (Exception e) {
+			log.warning("Could not return the resource to the pool: " + e.getMessage());
+			resource.disconnect();
+			return true;
+		}
+	}
+
+	private void closeIfDrained(GenericObjectPool<ShardedJedis> pool) {
+		if (pool.getNumActive() == 0 && retiredPools.remove(pool)) {
+			pool.close();
+			log.info("Closed the retired pool after all borrowed resources were returned");
+		}
 	}
 
 	public List<HostAndPort> getCurrentHostMaster() {
 		return currentHostMasters;
 	}
 
-	private void initPool(List<HostAndPort> masters) {
+	public List<String> getMasterNames() {
+		return masterNames;
+	}
+
+	/**
+	 * 当前的分片信息, 与master名称一一对应
+	 */
+	public List<JedisShardInfo> getCurrentShardInfos() {
+		return currentShardInfos;
+	}
+
+	/**
+	 * 以新的master列表重建分片, 返回重建前的分片信息, 用于迁移数据(参见RedisResharder)
+	 *
+	 * @param masters 新的master名称列表
+	 * @param masterWeights master名称 -> 权重
+	 */
+	public synchronized List<JedisShardInfo> reshard(List<String> masters, Map<String, Integer> masterWeights) {
+		if (this.masterWeights == null || masterWeights == null) {
+			throw new IllegalStateException("Resharding requires named shards, create the pool with masterWeights");
+		}
+		Map<String, HostAndPort> current = new HashMap<String, HostAndPort>();
+		for (int i = 0; i < masterNames.size(); i++) {
+			current.put(masterNames.get(i), currentHostMasters.get(i));
+		}
+		List<HostAndPort> hostMasters = new ArrayList<HostAndPort>();
+		for (String masterName : masters) {
+			HostAndPort master = current.get(masterName);
+			if (master == null) {
+				master = getMasterAddrByName(masterName);
+				if (master == null) {
+					throw new JedisConnectionException("Cannot find master " + masterName + " from sentinels");
+				}
+			}
+			hostMasters.add(master);
+		}
+
+		List<JedisShardInfo> previous = currentShardInfos;
+		List<String> names = new ArrayList<String>(masters);
+		this.masterWeights = new HashMap<String, Integer>(masterWeights);
+		this.masterNames = names;
+		for (MasterListener m : masterListeners) {
+			m.masters = names;
+		}
+		swapPool(hostMasters);
+		return previous;
+	}
+
+	/**
+	 * 只切换发生故障的分片: 确认新的master可用之后更新该分片的地址, 连接池和其他分片的连接不受影响
+	 * 对象借出时该分片的连接改连新的master, 正在使用的对象归还时再切换(参见SentinelShardedJedis)
+	 */
+	private synchronized boolean switchMaster(String masterName, HostAndPort newHostMaster) {
+		int index = masterNames.indexOf(masterName);
+		if (index < 0) {
+			return false;
+		}
+		if (newHostMaster.equals(currentHostMasters.get(index))) {
+			return true;
+		}
+		verifyMaster(newHostMaster);
+		List<HostAndPort> newHostMasters = new ArrayList<HostAndPort>(currentHostMasters);
+		newHostMasters.set(index, newHostMaster);
+		((SentinelShardInfo) currentShardInfos.get(index)).setEndpoint(newHostMaster);
+		currentHostMasters = newHostMasters;
+		log.info("Switched shard " + masterName + " to master at " + newHostMaster);
+		return true;
+	}
+
+	/**
+	 * 切换之前连接新的master并认证, 确认可用(预热)
+	 * jedis不能把已经建立的连接交给已有的分片连接, 池中对象在借出时各自重连, 只连接这一个分片
+	 */
+	private void verifyMaster(HostAndPort newHostMaster) {
+		Jedis jedis = new Jedis(newHostMaster.getHost(), newHostMaster.getPort(), timeout);
+		try {
+			if (password != null) {
+				jedis.auth(password);
+			}
+			jedis.ping();
+		} catch (JedisException e) {
+			// sentinel已经完成切换, 旧的master不再可写, 仍然切换
+			log.warning("New master at " + newHostMaster + " is not reachable yet: " + e.getMessage());
+		} finally {
+			jedis.close();
+		}
+	}
+
+	/**
+	 * 创建新的连接池并预热, 完成之后再替换当前的连接池, 预热期间借出和归还仍使用旧的连接池
+	 * 旧的连接池不再借出, 之前借出的对象归还到旧的连接池, 全部归还后关闭(参见release)
+	 */
+	private synchronized void swapPool(List<HostAndPort> masters) {
+		List<JedisShardInfo> shardMasters = makeShardInfoList(masters);
+		GenericObjectPool<ShardedJedis> pool = new GenericObjectPool<ShardedJedis>(new ShardedJedisFactory(shardMasters, Hashing.MURMUR_HASH, null), poolConfig);
+		GenericObjectPool<ShardedJedis> previous = activePool;
+		int count = Math.max(previous.getNumIdle(), poolConfig.getMinIdle());
+		if (poolConfig.getMaxTotal() >= 0) {
+			count = Math.min(count, poolConfig.getMaxTotal());
+		}
+		prewarm(pool, count);
+
+		retiredPools.add(previous);
+		internalPool = pool;
+		activePool = pool;
+		currentHostMasters = masters;
+		currentShardInfos = Collections.unmodifiableList(shardMasters);
+		previous.clear();
+		closeIfDrained(previous);
+	}
+
+	/**
+	 * 在还没有使用的连接池中创建count个对象并连接所有分片, 不影响正在使用的连接池
+	 */
+	private void prewarm(GenericObjectPool<ShardedJedis> pool, int count) {
+		List<ShardedJedis> borrowed = new ArrayList<ShardedJedis>(count);
+		int connected = 0;
+		try {
+			for (int i = 0; i < count; i++) {
+				ShardedJedis jedis = pool.borrowObject();
+				borrowed.add(jedis);
+				for (Jedis shard : jedis.getAllShards()) {
+					if (!shard.isConnected()) {
+						shard.connect();
+					}
+				}
+				connected++;
+			}
+		} catch (Exception e) {
+			log.warning("Stopped pre-warming after " + connected + " connections: " + e.getMessage());
+		} finally {
+			for (ShardedJedis jedis : borrowed) {
+				pool.returnObject(jedis);
+			}
+		}
+		log.info("Pre-warmed " + connected + " connections");
+	}
+
+	private HostAndPort getMasterAddrByName(String masterName) {
+		for (String sentinel : sentinels) {
+			final HostAndPort hap = toHostAndPort(Arrays.asList(sentinel.split(":")));
+			Jedis jedis = null;
+			try {
+				jedis = new Jedis(hap.getHost(), hap.getPort());
+				List<String> hostAndPort = jedis.sentinelGetMasterAddrByName(masterName);
+				if (hostAndPort != null && hostAndPort.size() > 0) {
+					return toHostAndPort(hostAndPort);
+				}
+			} catch (JedisConnectionException e) {
+				log.warning("Cannot connect to sentinel running @ " + hap + ". Trying next one.");
+			} finally {
+				if (jedis != null) jedis.close();
+			}
+		}
+		return null;
+	}
+
+	private synchronized void initPool(List<HostAndPort> masters) {
 		if (!equals(currentHostMasters, masters)) {
 			StringBuilder sb = new StringBuilder();
 			for (HostAndPort master : masters) {
@@ -120,7 +364,9 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 			log.info("Created ShardedJedisPool to master at [" + sb.toString() + "]");
 			List<JedisShardInfo> shardMasters = makeShardInfoList(masters);
 			initPool(poolConfig, new ShardedJedisFactory(shardMasters, Hashing.MURMUR_HASH, null));
+			activePool = internalPool;
 			currentHostMasters = masters;
+			currentShardInfos = Collections.unmodifiableList(shardMasters);
 		}
 	}
 
@@ -138,8 +384,17 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 
 	private List<JedisShardInfo> makeShardInfoList(List<HostAndPort> masters) {
 		List<JedisShardInfo> shardMasters = new ArrayList<JedisShardInfo>();
-		for (HostAndPort master : masters) {
-			JedisShardInfo jedisShardInfo = new JedisShardInfo(master.getHost(), master.getPort(), timeout);
+		for (int i = 0; i < masters.size(); i++) {
+			HostAndPort master = masters.get(i);
+			JedisShardInfo jedisShardInfo;
+			if (masterWeights == null) {
+				jedisShardInfo = new SentinelShardInfo(master, null, timeout, Sharded.DEFAULT_WEIGHT);
+			} else {
+				// 以master名称命名, 故障切换后虚拟节点的位置不变
+				String masterName = masterNames.get(i);
+				Integer weight = masterWeights.get(masterName);
+				jedisShardInfo = new SentinelShardInfo(master, masterName, timeout, weight == null ? 1 : weight);
+			}
 			jedisShardInfo.setPassword(password);
 
 			shardMasters.add(jedisShardInfo);
@@ -227,6 +482,66 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 		return new HostAndPort(host, port);
 	}
 
+	/**
+	 * 地址可变的分片信息, 故障切换时只更新地址, 分片本身(及其在hash环中的位置)不变
+	 */
+	protected static class SentinelShardInfo extends JedisShardInfo {
+		private volatile HostAndPort endpoint;
+
+		public SentinelShardInfo(HostAndPort endpoint, String name, int timeout, int weight) {
+			super(endpoint.getHost(), name, endpoint.getPort(), timeout, weight);
+			this.endpoint = endpoint;
+		}
+
+		@Override
+		public String getHost() {
+			return endpoint.getHost();
+		}
+
+		@Override
+		public int getPort() {
+			return endpoint.getPort();
+		}
+
+		void setEndpoint(HostAndPort endpoint) {
+			this.endpoint = endpoint;
+		}
+	}
+
+	/**
+	 * 分片地址变化时只断开该分片的连接并指向新的master, 其他分片的连接保持不变
+	 */
+	@SuppressWarnings("unchecked")
+	protected static class SentinelShardedJedis extends ShardedJedis {
+		private final List<JedisShardInfo> shardInfos;
+
+		public SentinelShardedJedis(List<JedisShardInfo> shards, Hashing algo, Pattern keyTagPattern) {
+			super(shards, algo, keyTagPattern);
+			this.shardInfos = shards;
+		}
+
+		/**
+		 * 由持有对象的线程在借出, 归还, 检查时调用, 下一次执行命令时连接新的地址
+		 */
+		void refreshEndpoints() {
+			int i = 0;
+			// getAllShards与分片信息的顺序一致
+			for (Jedis shard : getAllShards()) {
+				JedisShardInfo shardInfo = shardInfos.get(i++);
+				Client client = shard.getClient();
+				if (shardInfo.getPort() != client.getPort() || !shardInfo.getHost().equals(client.getHost())) {
+					try {
+						shard.disconnect();
+					} catch (JedisConnectionException e) {
+						// 旧的master已经不可用, 连接已经失效
+					}
+					client.setHost(shardInfo.getHost());
+					client.setPort(shardInfo.getPort());
+				}
+			}
+		}
+	}
+
 	/**
 	 * PoolableObjectFactory custom impl.
 	 */
@@ -243,7 +558,7 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 
 		@Override
 		public PooledObject<ShardedJedis> makeObject() throws Exception {
-			ShardedJedis jedis = new ShardedJedis(shards, algo, keyTagPattern);
+			ShardedJedis jedis = new SentinelShardedJedis(shards, algo, keyTagPattern);
 			return new DefaultPooledObject<ShardedJedis>(jedis);
 		}
 
@@ -281,10 +596,18 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 
 		@Override
 		public void activateObject(PooledObject<ShardedJedis> p) throws Exception {
+			// 借出时切换到故障分片的新地址
+			if (p.getObject() instanceof SentinelShardedJedis) {
+				((SentinelShardedJedis) p.getObject()).refreshEndpoints();
+			}
 		}
 
 		@Override
 		public void passivateObject(PooledObject<ShardedJedis> p) throws Exception {
+			// 归还时断开仍连接着旧master的连接
+			if (p.getObject() instanceof SentinelShardedJedis) {
+				((SentinelShardedJedis) p.getObject()).refreshEndpoints();
+			}
 		}
 	}
 
@@ -356,18 +679,8 @@ public class ShardedJedisSentinelPool extends Pool<ShardedJedis> {
 
 							if (switchMasterMsg.length > 3) {
 
-								int index = masters.indexOf(switchMasterMsg[0]);
-								if (index >= 0) {
-									HostAndPort newHostMaster = toHostAndPort(Arrays.asList(switchMasterMsg[3], switchMasterMsg[4]));
-									List<HostAndPort> newHostMasters = new ArrayList<HostAndPort>();
-									for (int i = 0; i < masters.size(); i++) {
-										newHostMasters.add(null);
-									}
-									Collections.copy(newHostMasters, currentHostMasters);
-									newHostMasters.set(index, newHostMaster);
-
-									initPool(newHostMasters);
-								} else {
+								HostAndPort newHostMaster = toHostAndPort(Arrays.asList(switchMasterMsg[3], switchMasterMsg[4]));
+								if (!switchMaster(switchMasterMsg[0], newHostMaster)) {
 									StringBuilder sb = new StringBuilder();
 									for (String masterName : masters) {
 										sb.append(masterName);
@@ -0,0 +1,53 @@
+package com.yangc.utils.test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import com.yangc.utils.db.JdbcRow;
+import com.yangc.utils.db.JdbcRowCallback;
+import com.yangc.utils.db.JdbcUtils;
+import com.yangc.utils.prop.PropertiesUtils;
+
+public class DBPageTest {
+
+	public static void main(String[] args) {
+		String driver = PropertiesUtils.getProperty("/jdbc.properties", "mysql.driver");
+		String url = PropertiesUtils.getProperty("/jdbc.properties", "mysql.url");
+		String username = PropertiesUtils.getProperty("/jdbc.properties", "mysql.username");
+		String password = PropertiesUtils.getProperty("/jdbc.properties", "mysql.password");
+
+		JdbcUtils jdbc = new JdbcUtils();
+		Connection conn = jdbc.getConnection(driver, url, username, password);
+
+		// 偏移分页, 方言按连接识别, offset和limit作为参数绑定
+		String sql = "SELECT id, name FROM t_sys_department WHERE parent_id = ? ORDER BY id";
+		List<Map<String, Object>> mapList = jdbc.find(conn, sql, new Object[] { 0 }, 20, 10);
+		System.out.println("offset page size=" + mapList.size());
+
+		// 键集分页, sql不带ORDER BY, 每页从上一页最后的id之后开始
+		sql = "SELECT id, name FROM t_sys_department WHERE parent_id = ?";
+		Object lastKey = null;
+		for (int page = 1; page <= 3; page++) {
+			mapList = jdbc.findAfter(conn, sql, new Object[] { 0 }, "id", lastKey, 10);
+			System.out.println("page " + page + " size=" + mapList.size() + ", after id=" + lastKey);
+			if (mapList.size() < 10) {
+				break;
+			}
+			lastKey = mapList.get(mapList.size() - 1).get("ID");
+		}
+
+		// 按键集分页遍历全部记录
+		long total = jdbc.iterate(conn, sql, new Object[] { 0 }, "id", 100, new JdbcRowCallback() {
+			@Override
+			public boolean processRow(JdbcRow row) throws SQLException {
+				System.out.println(row.get("id") + " ---> " + row.get("name"));
+				return true;
+			}
+		});
+		System.out.println("total=" + total);
+
+		jdbc.close(conn);
+	}
+}
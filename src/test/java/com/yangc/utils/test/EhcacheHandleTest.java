@@ -0,0 +1,49 @@
+package com.yangc.utils.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.yangc.utils.cache.EhCacheHandle;
+import com.yangc.utils.cache.EhCacheUtils;
+
+public class EhcacheHandleTest {
+
+	public static void main(String[] args) {
+		EhCacheUtils cache = EhCacheUtils.getInstance();
+		EhCacheHandle<String, User> handle = cache.getHandle("myCache");
+		Map<String, User> users = new HashMap<String, User>();
+		List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			users.put("user_" + i, new User(i, "yangc" + i, "yangc"));
+			keys.add("user_" + i);
+		}
+		handle.putAll(users);
+
+		// 预热后比较facade和句柄的耗时
+		int n = 1000000;
+		for (int round = 0; round < 3; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < n; i++) {
+				cache.get("myCache", keys.get(i % 100), User.class);
+			}
+			long facade = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < n; i++) {
+				handle.get(keys.get(i % 100));
+			}
+			long typed = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < n / 100; i++) {
+				handle.getAll(keys);
+			}
+			long bulk = System.nanoTime() - start;
+			System.out.println("facade: " + facade / n + "ns/op, handle: " + typed / n + "ns/op, getAll: " + bulk / n + "ns/key");
+		}
+		cache.shutdown();
+	}
+
+}
@@ -1,11 +1,20 @@
 package com.yangc.utils.test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.google.gson.reflect.TypeToken;
+import com.yangc.utils.cache.CacheStores;
+import com.yangc.utils.cache.LoadingCache;
+import com.yangc.utils.cache.RedisCommand;
+import com.yangc.utils.cache.RedisKeyIterator;
+import com.yangc.utils.cache.RedisLock;
+import com.yangc.utils.cache.RedisQueue;
+import com.yangc.utils.cache.RedisQueueConsumer;
+import com.yangc.utils.cache.RedisSemaphore;
 import com.yangc.utils.cache.RedisUtils;
 
 public class RedisTest {
@@ -19,6 +28,12 @@ public class RedisTest {
 		// test.stack(cache);
 		// test.map(cache);
 		// test.batch(cache);
+		// test.pipeline(cache);
+		// test.scan(cache);
+		// test.reliableQueue(cache);
+		// test.loadingCache();
+		// test.script(cache);
+		// test.lock(cache);
 	}
 
 	public void entity(RedisUtils cache) {
@@ -76,4 +91,123 @@ public class RedisTest {
 		cache.batchSet(map);
 	}
 
+	public void pipeline(RedisUtils cache) {
+		List<String> values = cache.mget(Arrays.asList("test_1", "test_2", "test_3"), new TypeToken<String>() {
+		});
+		System.out.println(values);
+
+		List<RedisCommand> commands = new ArrayList<RedisCommand>();
+		commands.add(RedisCommand.get("test_1"));
+		commands.add(RedisCommand.hmget("map", "username", "password"));
+		commands.add(RedisCommand.zincrby("rank", 1, "yangc"));
+		System.out.println(cache.pipelined(commands));
+	}
+
+	public void scan(RedisUtils cache) {
+		RedisKeyIterator it = cache.scanIterator("test_*", 100);
+		try {
+			while (it.hasNext()) {
+				System.out.println(it.next());
+			}
+		} finally {
+			it.close();
+		}
+		System.out.println(cache.countByPattern("test_*"));
+		System.out.println(cache.delByPattern("test_*"));
+	}
+
+	public void reliableQueue(RedisUtils cache) {
+		RedisQueue<User> queue = cache.getQueue("user_queue", "test-consumer-1", new TypeToken<User>() {
+		});
+		List<User> users = new ArrayList<User>();
+		for (int i = 0; i < 100; i++) {
+			users.add(new User(i, "yangc_" + i, "123456_" + i));
+		}
+		queue.push(users);
+
+		RedisQueueConsumer<User> consumer = new RedisQueueConsumer<User>(queue, new RedisQueueConsumer.Handler<User>() {
+			@Override
+			public void handle(User value) throws Exception {
+				System.out.println(value);
+			}
+		}, 4, 20, 1);
+		consumer.start();
+		try {
+			Thread.sleep(3000);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		consumer.shutdown();
+	}
+
+	public void loadingCache() {
+		final LoadingCache<User> loadingCache = new LoadingCache<User>(CacheStores.redis(new TypeToken<User>() {
+		}), new LoadingCache.Loader<User>() {
+			@Override
+			public User load(String key) throws Exception {
+				System.out.println("load " + key);
+				Thread.sleep(500);
+				return new User(1, key, "123456");
+			}
+		}, 10);
+
+		for (int i = 0; i < 10; i++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					System.out.println(loadingCache.get("loading_user"));
+				}
+			}).start();
+		}
+	}
+
+	public void script(RedisUtils cache) {
+		for (int i = 0; i < 20; i++) {
+			cache.zincrbyAndTrim("test_leaderboard", i, "member_" + i, 10);
+		}
+		System.out.println(cache.zrevrangeWithScores("test_leaderboard", 0, -1));
+
+		for (int i = 0; i < 8; i++) {
+			System.out.println(cache.tryAcquire("test_rate_limit", 5, 1000));
+		}
+
+		cache.del("test_cas");
+		System.out.println(cache.compareAndSet("test_cas", null, 1, 60));
+		System.out.println(cache.compareAndSet("test_cas", 2, 3, 60));
+		System.out.println(cache.compareAndSet("test_cas", 1, 3, 60));
+	}
+
+	public void lock(final RedisUtils cache) {
+		for (int i = 0; i < 3; i++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					RedisLock lock = cache.getFairLock("test_lock", 10000);
+					try {
+						long token = lock.tryLock(5000);
+						if (token > 0) {
+							System.out.println(Thread.currentThread().getName() + " got token " + token);
+							Thread.sleep(500);
+						}
+					} catch (InterruptedException e) {
+						e.printStackTrace();
+					} finally {
+						lock.unlock();
+					}
+				}
+			}).start();
+		}
+
+		RedisSemaphore semaphore = cache.getSemaphore("test_semaphore", 2, 10000);
+		try {
+			String permit1 = semaphore.tryAcquire(0);
+			String permit2 = semaphore.tryAcquire(0);
+			System.out.println(permit1 + ", " + permit2 + ", " + semaphore.tryAcquire(0));
+			semaphore.release(permit1);
+			semaphore.release(permit2);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
 }